@@ -0,0 +1,143 @@
+package com.example.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.kurento.client.IceCandidate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.benchmarks.support.SignalingPayloads;
+import com.example.groupcall.BinarySignalingCodec;
+import com.example.groupcall.message.IceCandidateEntry;
+import com.example.groupcall.message.OutboundMessage;
+import com.example.groupcall.message.SignalingDecoder;
+import com.example.groupcall.message.SignalingMessage;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * group-call 시그널링 메시지 해석과 직렬화.
+ * gson* 벤치마크는 JsonObject 트리를 거치던 이전 방식, streaming/presized는 현재 방식, binary는 signal.bin.v1.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GroupCallCodecBenchmark {
+    private static final Gson gson = new Gson();
+
+    /** 인바운드는 receiveVideoFrom / onIceCandidate / onIceCandidates(8개), 아웃바운드는 같은 크기의 응답 */
+    @Param({"receiveVideoFrom", "onIceCandidate", "onIceCandidates"})
+    public String message;
+
+    private String json;
+    private byte[] binary;
+    private OutboundMessage outbound;
+
+    @Setup
+    public void setup() {
+        switch (message) {
+            case "receiveVideoFrom" -> {
+                json = SignalingPayloads.receiveVideoFrom();
+                binary = SignalingPayloads.binaryReceiveVideoFrom();
+                outbound = new OutboundMessage.ReceiveVideoAnswer("alice", SignalingPayloads.SDP);
+            }
+            case "onIceCandidate" -> {
+                json = SignalingPayloads.onIceCandidate();
+                binary = SignalingPayloads.binaryOnIceCandidates(1);
+                outbound = new OutboundMessage.IceCandidate(
+                        new IceCandidateEntry("alice", null, SignalingPayloads.candidate(0)));
+            }
+            default -> {
+                json = SignalingPayloads.onIceCandidates(8);
+                binary = SignalingPayloads.binaryOnIceCandidates(8);
+                List<IceCandidateEntry> entries = new ArrayList<>();
+                SignalingPayloads.candidates(8).forEach(c -> entries.add(new IceCandidateEntry("alice", null, c)));
+                outbound = new OutboundMessage.IceCandidates(entries);
+            }
+        }
+    }
+
+    // 인바운드 ---------------------------------------------------------------
+
+    @Benchmark
+    public Object decodeGsonTree() {
+        JsonObject tree = gson.fromJson(json, JsonObject.class);
+        switch (tree.get("id").getAsString()) {
+            case "receiveVideoFrom":
+                return new SignalingMessage.ReceiveVideoFrom(tree.get("sender").getAsString(),
+                        tree.get("sdpOffer").getAsString());
+            case "onIceCandidate":
+                return new SignalingMessage.OnIceCandidate(entry(tree));
+            default:
+                List<IceCandidateEntry> entries = new ArrayList<>();
+                for (JsonElement element : tree.getAsJsonArray("candidates")) {
+                    entries.add(entry(element.getAsJsonObject()));
+                }
+                return new SignalingMessage.OnIceCandidates(entries);
+        }
+    }
+
+    @Benchmark
+    public SignalingMessage decodeStreaming() {
+        return SignalingDecoder.decode(json);
+    }
+
+    @Benchmark
+    public SignalingMessage decodeBinary() {
+        return BinarySignalingCodec.decode(ByteBuffer.wrap(binary));
+    }
+
+    // 아웃바운드 -------------------------------------------------------------
+
+    @Benchmark
+    public String encodeGsonTree() {
+        JsonObject tree = new JsonObject();
+        tree.addProperty("id", outbound.id());
+        if (outbound instanceof OutboundMessage.ReceiveVideoAnswer answer) {
+            tree.addProperty("name", answer.name());
+            tree.addProperty("sdpAnswer", answer.sdpAnswer());
+        } else if (outbound instanceof OutboundMessage.IceCandidate ice) {
+            tree.addProperty("name", ice.entry().name());
+            tree.add("candidate", SignalingPayloads.candidateJson(ice.entry().candidate()));
+        } else if (outbound instanceof OutboundMessage.IceCandidates batch) {
+            JsonArray candidates = new JsonArray();
+            for (IceCandidateEntry entry : batch.candidates()) {
+                JsonObject item = new JsonObject();
+                item.addProperty("name", entry.name());
+                item.add("candidate", SignalingPayloads.candidateJson(entry.candidate()));
+                candidates.add(item);
+            }
+            tree.add("candidates", candidates);
+        }
+        return tree.toString();
+    }
+
+    @Benchmark
+    public String encodePresized() {
+        return outbound.toJson();
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return outbound.toBinary();
+    }
+
+    private static IceCandidateEntry entry(JsonObject json) {
+        JsonObject candidate = json.getAsJsonObject("candidate");
+        return new IceCandidateEntry(json.get("name").getAsString(),
+                json.has("type") ? json.get("type").getAsString() : "video",
+                new IceCandidate(candidate.get("candidate").getAsString(), candidate.get("sdpMid").getAsString(),
+                        candidate.get("sdpMLineIndex").getAsInt()));
+    }
+}
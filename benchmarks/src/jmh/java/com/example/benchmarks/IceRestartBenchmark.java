@@ -0,0 +1,145 @@
+package com.example.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.benchmarks.support.FakeKms;
+import com.example.benchmarks.support.GroupCallFixture;
+import com.example.benchmarks.support.KmsRequests;
+import com.example.benchmarks.support.SignalingPayloads;
+import com.example.benchmarks.support.StubWebSocketSession;
+import com.example.fakekms.FakeMediaServer;
+import com.example.fakekms.KmsJsonRpcHandler;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.Room;
+import com.example.groupcall.User;
+
+/**
+ * members명이 서로의 영상을 받는 방에서 한 명의 네트워크가 바뀌어 그 참가자 쪽 엔드포인트(송신 하나, 수신 members-1개)의
+ * ICE가 모두 FAILED가 되었을 때, 다시 SDP 응답을 받기까지 걸린 시간과 KMS 요청 수.
+ * rejoin은 기존 복구(퇴장 후 joinRoom, 자기 송신과 수신 전부, 다른 참가자들의 재구독)이고,
+ * iceRestart는 서버가 FAILED를 감지해 재시작을 요청하면 클라이언트 역할로 같은 엔드포인트에 재시작 offer를 보내는 경로입니다.
+ * 복구 한 번당 평균 KMS 요청 수는 보조 결과 kmsRequests로 남습니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class IceRestartBenchmark {
+    private static final long DETECT_TIMEOUT_MS = 10_000;
+
+    @Param({"10", "25"})
+    public int members;
+
+    @Param({"iceRestart", "rejoin"})
+    public String path;
+
+    @Param({"5"})
+    public long kmsRoundTripMs;
+
+    private FakeKms fakeKms;
+    private FakeMediaServer media;
+    private KmsJsonRpcHandler rpc;
+    private KurentoNodePool nodes;
+    private Room room;
+    private List<User> users;
+    private long recoveries;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fakeKms = FakeKms.start(kmsRoundTripMs);
+        media = fakeKms.media();
+        rpc = fakeKms.rpc();
+        nodes = GroupCallFixture.configure(fakeKms.client());
+        // rejoin은 ICE 상태를 구독하지 않던 기존 동작. iceRestart는 반복 측정이 재시작 한도에 걸리지 않게 한다
+        User.configureIceRestart("iceRestart".equals(path) ? Integer.MAX_VALUE : 0, 60_000, 0, DETECT_TIMEOUT_MS);
+
+        room = Room.getRoom("ice-restart-bench").join();
+        users = GroupCallFixture.joinFullMesh(room, "ir", members);
+    }
+
+    /**
+     * 첫 참가자 쪽 엔드포인트의 ICE를 모두 끊는다. 요청 수는 끊은 뒤부터 센다.
+     */
+    @Setup(Level.Invocation)
+    public void failIce() {
+        User user = users.get(0);
+        rpc.resetRequestCounts();
+        media.failIce(user.getOutgoingWebRtcPeer().getId());
+        for (User sender : users) {
+            if (sender != user) {
+                media.failIce(user.getIncomingWebRtcPeer(sender.getName()).getId());
+            }
+        }
+    }
+
+    /**
+     * 재협상 뒤 fake-kms가 CONNECTED를 보내 재시작이 끝나기를 기다린다 (측정에는 넣지 않는다).
+     */
+    @TearDown(Level.Invocation)
+    public void awaitConnected() throws InterruptedException {
+        recoveries++;
+        Thread.sleep(200);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        User.configureIceRestart(3, 60_000, 2_000, DETECT_TIMEOUT_MS);
+        room.close().join();
+        nodes.shutdown();
+        fakeKms.close();
+    }
+
+    @Benchmark
+    public User recover(KmsRequests requests) throws Exception {
+        User user = users.get(0);
+        if ("iceRestart".equals(path)) {
+            // 서버가 FAILED를 받아 iceRestart를 보낼 때까지 (클라이언트가 요청을 받는 시점)
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DETECT_TIMEOUT_MS);
+            for (User sender : users) {
+                while (!user.isIceRestarting(sender.getName())) {
+                    if (System.nanoTime() > deadline) {
+                        throw new IllegalStateException("ICE 재시작 요청이 오지 않았습니다: " + sender.getName());
+                    }
+                    Thread.onSpinWait();
+                }
+            }
+            List<CompletableFuture<Void>> offers = new ArrayList<>();
+            for (User sender : users) {
+                offers.add(user.receiveVideoFrom(sender, SignalingPayloads.SDP));
+            }
+            CompletableFuture.allOf(offers.toArray(new CompletableFuture<?>[0])).join();
+            requests.count(rpc);
+            return user;
+        }
+
+        String name = user.getName();
+        room.leave(name).join();
+        User rejoined = room.join(name, new StubWebSocketSession("gc-" + name + "-" + recoveries)).join();
+        users.set(0, rejoined);
+        List<CompletableFuture<Void>> negotiations = new ArrayList<>();
+        for (User sender : users) {
+            negotiations.add(rejoined.receiveVideoFrom(sender, SignalingPayloads.SDP));
+            if (sender != rejoined) {
+                negotiations.add(sender.receiveVideoFrom(rejoined, SignalingPayloads.SDP));
+            }
+        }
+        CompletableFuture.allOf(negotiations.toArray(new CompletableFuture<?>[0])).join();
+        requests.count(rpc);
+        return rejoined;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.benchmarks.support.FakeKms;
+import com.example.benchmarks.support.GroupCallFixture;
+import com.example.benchmarks.support.SignalingPayloads;
+import com.example.benchmarks.support.StubWebSocketSession;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.Room;
+import com.example.groupcall.User;
+
+/**
+ * members명 방에 한 명이 들어와 모든 타일(자기 송신 + 기존 참가자 전원 수신)의 SDP 응답을 받을 때까지 걸리는 시간.
+ * 클라이언트의 receiveVideoFrom은 SignalingExecutor가 세션별로 하나씩 처리하므로 여기서도 앞 요청이 끝난 뒤 다음을 보내고,
+ * clientOfferDelayMs는 existingParticipants를 받은 브라우저가 첫 offer를 만들기까지의 시간입니다.
+ * speculativeTtlMs=0이 기준선이고, 켜면 입장 직후 수신 엔드포인트를 병렬로 미리 만들어 요청마다 processOffer만 남습니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class JoinAllTilesBenchmark {
+
+    @Param({"20"})
+    public int members;
+
+    @Param({"0", "10000"})
+    public long speculativeTtlMs;
+
+    @Param({"5"})
+    public long kmsRoundTripMs;
+
+    @Param({"0", "30"})
+    public long clientOfferDelayMs;
+
+    private FakeKms fakeKms;
+    private KurentoNodePool nodes;
+    private Room room;
+    private final List<User> existing = new ArrayList<>();
+    private long round;
+    private String joiner;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fakeKms = FakeKms.start(kmsRoundTripMs);
+        nodes = GroupCallFixture.configure(fakeKms.client());
+
+        room = Room.getRoom("tiles-bench").join();
+        for (int i = 0; i < members - 1; i++) {
+            String name = "tile-" + i;
+            User user = room.join(name, new StubWebSocketSession("gc-" + name)).join();
+            user.receiveVideoFrom(user, SignalingPayloads.SDP).join();
+            existing.add(user);
+        }
+        // 기존 참가자에게는 미리 만들기가 필요 없으므로 다 들어온 뒤에 켠다
+        User.configureSpeculation(speculativeTtlMs);
+    }
+
+    @TearDown(Level.Invocation)
+    public void leave() throws Exception {
+        room.leave(joiner).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        User.configureSpeculation(0);
+        room.close();
+        nodes.shutdown();
+        fakeKms.close();
+    }
+
+    @Benchmark
+    public User joinUntilAllTiles() {
+        joiner = "joiner-" + round++;
+        User user = room.join(joiner, new StubWebSocketSession("gc-" + joiner)).join();
+
+        Executor browser = CompletableFuture.delayedExecutor(clientOfferDelayMs, TimeUnit.MILLISECONDS);
+        CompletableFuture<Void> tiles = CompletableFuture.runAsync(() -> { }, browser)
+                .thenCompose(v -> user.receiveVideoFrom(user, SignalingPayloads.SDP));
+        for (User sender : existing) {
+            tiles = tiles.thenCompose(v -> user.receiveVideoFrom(sender, SignalingPayloads.SDP));
+        }
+        tiles.join();
+        return user;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.benchmarks.support.FakeKms;
+import com.example.benchmarks.support.GroupCallFixture;
+import com.example.benchmarks.support.KmsRequests;
+import com.example.benchmarks.support.SignalingPayloads;
+import com.example.benchmarks.support.StubWebSocketSession;
+import com.example.fakekms.KmsJsonRpcHandler;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.Room;
+import com.example.groupcall.User;
+
+/**
+ * members명 방에 한 명이 들어와 모든 타일의 SDP 응답을 받기까지 KMS에 보낸 요청 수(왕복 수)와 걸린 시간.
+ * transactions=false가 호출마다 왕복하던 기준선이고, true면 수신 엔드포인트 생성/연결/processOffer를 트랜잭션 하나로 보낸다.
+ * 요청 수는 fake-kms가 센 값으로, 입장 한 번당 평균이 보조 결과 kmsRequests(그중 transaction 요청은 kmsTransactions)로 남습니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class JoinRoundTripBenchmark {
+
+    @Param({"10"})
+    public int members;
+
+    @Param({"false", "true"})
+    public boolean transactions;
+
+    @Param({"0", "10000"})
+    public long speculativeTtlMs;
+
+    @Param({"5"})
+    public long kmsRoundTripMs;
+
+    private FakeKms fakeKms;
+    private KmsJsonRpcHandler rpc;
+    private KurentoNodePool nodes;
+    private Room room;
+    private final List<User> existing = new ArrayList<>();
+    private long joins;
+    private String joiner;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fakeKms = FakeKms.start(kmsRoundTripMs);
+        rpc = fakeKms.rpc();
+        nodes = GroupCallFixture.configure(fakeKms.client());
+        User.configureTransactions(transactions);
+
+        room = Room.getRoom("round-trip-bench").join();
+        for (int i = 0; i < members - 1; i++) {
+            String name = "rt-" + i;
+            User user = room.join(name, new StubWebSocketSession("gc-" + name)).join();
+            user.receiveVideoFrom(user, SignalingPayloads.SDP).join();
+            existing.add(user);
+        }
+        User.configureSpeculation(speculativeTtlMs);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetCounts() {
+        rpc.resetRequestCounts();
+    }
+
+    @TearDown(Level.Invocation)
+    public void leave() throws Exception {
+        joins++;
+        room.leave(joiner).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        User.configureSpeculation(0);
+        User.configureTransactions(true);
+        room.close();
+        nodes.shutdown();
+        fakeKms.close();
+    }
+
+    /**
+     * 퇴장 해제 요청이 섞이지 않도록 타일을 모두 받은 시점에 센다.
+     */
+    @Benchmark
+    public User joinUntilAllTiles(KmsRequests requests) {
+        joiner = "rt-joiner-" + joins;
+        User user = room.join(joiner, new StubWebSocketSession("gc-" + joiner)).join();
+
+        CompletableFuture<Void> tiles = user.receiveVideoFrom(user, SignalingPayloads.SDP);
+        for (User sender : existing) {
+            tiles = tiles.thenCompose(v -> user.receiveVideoFrom(sender, SignalingPayloads.SDP));
+        }
+        tiles.join();
+        requests.count(rpc);
+        return user;
+    }
+}
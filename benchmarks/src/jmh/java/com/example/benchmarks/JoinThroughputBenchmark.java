@@ -0,0 +1,153 @@
+package com.example.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.socket.TextMessage;
+
+import com.example.benchmarks.support.LocalServers;
+import com.example.benchmarks.support.SignalingPayloads;
+import com.example.benchmarks.support.StubWebSocketSession;
+import com.example.groupcall.CallHandler;
+import com.example.groupcall.User;
+import com.google.gson.JsonObject;
+
+/**
+ * 가짜 KMS(fake-kms)를 loopback WebSocket에 띄우고 KMS 응답 지연을 바꿔 가며 잰 group-call 입장 처리량과 꼬리 지연.
+ * 한 연산은 참가자 members명이 있는 방에 들어와 자기 영상 송신과 기존 참가자 전원의 수신 협상을 마치고 나가는 것입니다.
+ * 메시지는 stub 세션으로 CallHandler.handleTextMessage에 넣으므로 세션별 SignalingExecutor 경로를 그대로 지나고,
+ * 모든 receiveVideoAnswer를 받고 퇴장이 끝날 때까지를 잽니다.
+ * async=false는 groupcall.signaling.async=false(WebSocket 스레드에서 처리를 기다리는 기존 방식)입니다.
+ * Kurento 호출이 비동기이므로 async=true에서는 KMS 지연이 늘어도 처리량이 "스레드 수 / 지연"까지 떨어지지 않아야 합니다.
+ * SampleTime 결과의 p0.99가 입장 꼬리 지연입니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(16)
+@Fork(1)
+public class JoinThroughputBenchmark {
+    private static final int ROOMS = 8;
+    private static final long ANSWER_TIMEOUT_MS = 30_000;
+    private static final String LEAVE_ROOM = "{\"id\":\"leaveRoom\"}";
+
+    /** 요청마다 한 번 더해지는 KMS 왕복 시간 */
+    @Param({"0", "5", "20", "50"})
+    public long kmsRoundTripMs;
+
+    /** 왕복 시간에 더하는 ±범위 */
+    @Param({"0", "5"})
+    public long kmsJitterMs;
+
+    /** groupcall.signaling.async */
+    @Param({"true", "false"})
+    public boolean async;
+
+    @Param({"4"})
+    public int members;
+
+    private ConfigurableApplicationContext fakeKms;
+    private ConfigurableApplicationContext groupCall;
+    private CallHandler handler;
+
+    @State(Scope.Thread)
+    public static class Joiner {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+
+        private final int index = THREADS.getAndIncrement();
+        private long round;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fakeKms = LocalServers.fakeKms(Map.of(
+                "fakekms.round-trip-ms", kmsRoundTripMs,
+                "fakekms.jitter-ms", kmsJitterMs,
+                "fakekms.threads", 8));
+        groupCall = LocalServers.groupCall(Map.of(
+                "groupcall.kms.uris", LocalServers.kmsUri(fakeKms),
+                "groupcall.signaling.async", async,
+                // 16개 스레드가 동시에 입장하며 수신 엔드포인트를 미리 만들면 KurentoClient 쓰기 버퍼(64KB)가 넘쳐
+                // 연결이 끊긴 것으로 처리된다. 미리 만들기는 JoinAllTilesBenchmark/JoinRoundTripBenchmark에서 따로 잰다
+                "groupcall.join.speculative-ttl-ms", 0,
+                // 측정 중에 송신 큐가 넘쳐 메시지를 버리거나 연결을 끊지 않도록 넉넉하게 잡는다
+                "groupcall.outbound.capacity", 1 << 16,
+                "groupcall.outbound.overflow-policy", "DROP_ICE"));
+        handler = groupCall.getBean(CallHandler.class);
+
+        for (int r = 0; r < ROOMS; r++) {
+            for (int i = 0; i < members; i++) {
+                String name = "member-" + r + "-" + i;
+                StubWebSocketSession session = StubWebSocketSession.tracking("gc-" + name);
+                send(session, joinRoom(name, "join-bench-" + r));
+                send(session, receiveVideoFrom(name));
+                session.awaitMessages("receiveVideoAnswer", 1, ANSWER_TIMEOUT_MS);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // CallHandler.shutdown이 남은 방을 닫는다
+        groupCall.close();
+        fakeKms.close();
+    }
+
+    @Benchmark
+    public StubWebSocketSession joinPublishSubscribeLeave(Joiner joiner) throws Exception {
+        int r = joiner.index % ROOMS;
+        String name = "joiner-" + joiner.index + "-" + joiner.round++;
+        StubWebSocketSession session = StubWebSocketSession.tracking("gc-" + name);
+
+        send(session, joinRoom(name, "join-bench-" + r));
+        send(session, receiveVideoFrom(name));
+        for (int i = 0; i < members; i++) {
+            send(session, receiveVideoFrom("member-" + r + "-" + i));
+        }
+        session.awaitMessages("receiveVideoAnswer", members + 1, ANSWER_TIMEOUT_MS);
+
+        send(session, LEAVE_ROOM);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ANSWER_TIMEOUT_MS);
+        while (User.getByName(name) != null) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("퇴장이 끝나지 않았습니다: " + name);
+            }
+            Thread.onSpinWait();
+        }
+        return session;
+    }
+
+    private void send(StubWebSocketSession session, String json) throws Exception {
+        handler.handleTextMessage(session, new TextMessage(json));
+    }
+
+    private static String joinRoom(String name, String room) {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", "joinRoom");
+        json.addProperty("name", name);
+        json.addProperty("room", room);
+        return json.toString();
+    }
+
+    private static String receiveVideoFrom(String sender) {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", "receiveVideoFrom");
+        json.addProperty("sender", sender);
+        json.addProperty("sdpOffer", SignalingPayloads.SDP);
+        return json.toString();
+    }
+}
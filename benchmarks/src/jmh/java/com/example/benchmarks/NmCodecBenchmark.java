@@ -0,0 +1,71 @@
+package com.example.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.benchmarks.support.SignalingPayloads;
+import com.example.webrtcnm.BinarySignalingCodec;
+import com.example.webrtcnm.message.IceCandidateEntry;
+import com.example.webrtcnm.message.OutboundMessage;
+import com.example.webrtcnm.message.SignalingDecoder;
+import com.example.webrtcnm.message.SignalingMessage;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+/**
+ * webRtc-nm 메시지 해석과 직렬화. 가장 큰 메시지(SDP)와 가장 잦은 메시지(ICE 후보 묶음)만 잰다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NmCodecBenchmark {
+    private static final Gson gson = new Gson();
+
+    private String receiveVideoFrom;
+    private byte[] binaryIceCandidates;
+    private OutboundMessage iceCandidates;
+
+    @Setup
+    public void setup() {
+        receiveVideoFrom = SignalingPayloads.receiveVideoFrom();
+        binaryIceCandidates = SignalingPayloads.binaryOnIceCandidates(8);
+        List<IceCandidateEntry> entries = new ArrayList<>();
+        SignalingPayloads.candidates(8).forEach(c -> entries.add(new IceCandidateEntry("alice", null, c)));
+        iceCandidates = new OutboundMessage.IceCandidates(entries);
+    }
+
+    @Benchmark
+    public JsonObject decodeReceiveVideoFromGsonTree() {
+        return gson.fromJson(receiveVideoFrom, JsonObject.class);
+    }
+
+    @Benchmark
+    public SignalingMessage decodeReceiveVideoFromStreaming() {
+        return SignalingDecoder.decode(receiveVideoFrom);
+    }
+
+    @Benchmark
+    public SignalingMessage decodeIceCandidatesBinary() {
+        return BinarySignalingCodec.decode(ByteBuffer.wrap(binaryIceCandidates));
+    }
+
+    @Benchmark
+    public String encodeIceCandidatesPresized() {
+        return iceCandidates.toJson();
+    }
+
+    @Benchmark
+    public byte[] encodeIceCandidatesBinary() {
+        return iceCandidates.toBinary();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.kurento.client.KurentoClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.example.benchmarks.support.GroupCallFixture;
+import com.example.benchmarks.support.LocalKurento;
+import com.example.benchmarks.support.SignalingPayloads;
+import com.example.benchmarks.support.StubWebSocketSession;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.User;
+import com.example.groupcall.message.IceCandidateEntry;
+import com.example.groupcall.message.OutboundMessage;
+import com.example.signaling.BinaryFrame;
+import com.example.webrtchelloworld.HelloWorldHandler;
+import com.example.webrtcrefactor.webrtc.handler.WebSocketMessageSender;
+import com.google.gson.JsonObject;
+
+/**
+ * 앱별 송신 경로의 메시지당 비용. WebSocket 세션은 보낸 횟수만 세는 스텁이다.
+ * group-call은 송신 큐를 거쳐 별도 writer가 보내므로, BATCH개를 넣고 세션이 모두 받을 때까지를 잰다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OutboundSendBenchmark {
+    private static final int BATCH = 1000;
+
+    /** 세션이 협상한 서브프로토콜: json 또는 signal.bin.v1 */
+    @Param({"json", BinaryFrame.PROTOCOL})
+    public String protocol;
+
+    private KurentoClient kurento;
+    private KurentoNodePool nodes;
+
+    private StubWebSocketSession groupCallSession;
+    private User groupCallUser;
+    private long groupCallExpected;
+    private JsonObject rosterMessage;
+    private OutboundMessage iceMessage;
+
+    private StubWebSocketSession refactorSession;
+    private WebSocketMessageSender refactorSender;
+
+    private StubWebSocketSession helloWorldSession;
+    private HelloWorldHandler helloWorldHandler;
+    private MethodHandle helloWorldSendJson;
+    private MethodHandle helloWorldSendOutbound;
+    private com.example.webrtchelloworld.OutboundMessage helloWorldAnswer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable {
+        String accepted = "json".equals(protocol) ? null : protocol;
+        kurento = LocalKurento.createClient();
+        nodes = GroupCallFixture.configure(kurento);
+
+        groupCallSession = new StubWebSocketSession("gc-sender", accepted);
+        groupCallUser = User.create("sender", "bench", groupCallSession, kurento.createMediaPipeline()).join();
+        rosterMessage = new JsonObject();
+        rosterMessage.addProperty("id", "newParticipantArrived");
+        rosterMessage.addProperty("name", "alice");
+        iceMessage = new OutboundMessage.IceCandidate(
+                new IceCandidateEntry("alice", null, SignalingPayloads.candidate(0)));
+
+        refactorSession = new StubWebSocketSession("rf-sender", accepted);
+        refactorSender = new WebSocketMessageSender();
+
+        // HelloWorldHandler.sendMessage는 private이고 등록된 사용자에게만 보내므로 사용자 맵을 직접 채운다
+        helloWorldSession = new StubWebSocketSession("hw-sender", accepted);
+        helloWorldHandler = new HelloWorldHandler();
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(HelloWorldHandler.class, MethodHandles.lookup());
+        VarHandle users = lookup.findVarHandle(HelloWorldHandler.class, "users",
+                java.util.concurrent.ConcurrentHashMap.class);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> userMap = (Map<String, Object>) users.get(helloWorldHandler);
+        userMap.put(helloWorldSession.getId(), new com.example.webrtchelloworld.UserSession());
+        helloWorldSendJson = lookup.findVirtual(HelloWorldHandler.class, "sendMessage",
+                MethodType.methodType(void.class, WebSocketSession.class, JsonObject.class));
+        helloWorldSendOutbound = lookup.findVirtual(HelloWorldHandler.class, "sendMessage",
+                MethodType.methodType(void.class, WebSocketSession.class,
+                        com.example.webrtchelloworld.OutboundMessage.class));
+        helloWorldAnswer = new com.example.webrtchelloworld.OutboundMessage.ProcessSdpAnswer(SignalingPayloads.SDP);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        groupCallUser.close();
+        nodes.shutdown();
+    }
+
+    // group-call User.sendMessage ----------------------------------------------
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void groupCallRoster() {
+        for (int i = 0; i < BATCH; i++) {
+            groupCallUser.sendMessage(rosterMessage);
+        }
+        groupCallExpected += BATCH;
+        groupCallSession.awaitSent(groupCallExpected);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void groupCallIceCandidate() {
+        for (int i = 0; i < BATCH; i++) {
+            groupCallUser.sendMessage(iceMessage);
+        }
+        groupCallExpected += BATCH;
+        groupCallSession.awaitSent(groupCallExpected);
+    }
+
+    // webRtc-refactor WebSocketMessageSender -------------------------------------
+
+    /** 전송마다 전역 잠금 안에서 10ms를 쉬므로 밀리초 단위로 따로 잰다 */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public void refactorSender() {
+        refactorSender.sendMessage(refactorSession, SignalingPayloads.addIceCandidate());
+    }
+
+    // webRtc-hello-world HelloWorldHandler.sendMessage -------------------------
+
+    @Benchmark
+    public void helloWorldJson() throws Throwable {
+        JsonObject message = new JsonObject();
+        message.addProperty("id", "ERROR");
+        message.addProperty("message", "benchmark");
+        helloWorldSendJson.invoke(helloWorldHandler, (WebSocketSession) helloWorldSession, message);
+    }
+
+    @Benchmark
+    public void helloWorldSdpAnswer() throws Throwable {
+        helloWorldSendOutbound.invoke(helloWorldHandler, (WebSocketSession) helloWorldSession, helloWorldAnswer);
+    }
+}
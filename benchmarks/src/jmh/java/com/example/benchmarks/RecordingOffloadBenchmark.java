@@ -0,0 +1,178 @@
+package com.example.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.benchmarks.support.FakeKms;
+import com.example.benchmarks.support.GroupCallFixture;
+import com.example.benchmarks.support.IterationAverage;
+import com.example.benchmarks.support.SignalingPayloads;
+import com.example.benchmarks.support.StubWebSocketSession;
+import com.example.fakekms.FakeMediaServer;
+import com.example.groupcall.KurentoNode;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.PipelinePool;
+import com.example.groupcall.Room;
+import com.example.groupcall.RoomRecording;
+import com.example.groupcall.User;
+
+/**
+ * 녹화 중인 방에서 새 참가자가 들어와 members명의 영상을 모두 받기까지 걸리는 시간 (라이브 포워딩 지연).
+ * fake-kms에는 실제 미디어가 없으므로 녹화 중인 RecorderEndpoint 하나가 그 서버의 모든 요청에 recorderLoadMs를 더하는
+ * 부하 모델(fakekms.recorder-load-ms)로 먹싱과 디스크 쓰기가 같은 KMS의 포워딩과 자원을 나누는 상황을 흉내 냅니다.
+ * off는 녹화 없음, sameNode는 녹화 파이프라인을 방과 같은 KMS에, otherNode는 두 번째 fake-kms에 둡니다.
+ * otherNode가 off와 같은 수준이면 녹화를 옮긴 효과가 있는 것이고, 남는 차이는 방 KMS에 더해지는 브리지 RtpEndpoint 몫입니다.
+ * 입장 시점의 KMS별 녹화기 수와 방 KMS에 더해진 부하는 보조 결과로 남습니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class RecordingOffloadBenchmark {
+    private static final long RECORDING_TIMEOUT_MS = 10_000;
+
+    @Param({"off", "sameNode", "otherNode"})
+    public String recording;
+
+    @Param({"10"})
+    public int members;
+
+    @Param({"2"})
+    public long kmsRoundTripMs;
+
+    @Param({"1"})
+    public long recorderLoadMs;
+
+    private FakeKms liveKms;
+    private FakeKms recordingKms;
+    private FakeMediaServer liveMedia;
+    private FakeMediaServer recordingMedia;
+    private KurentoNodePool nodes;
+    private KurentoNodePool recordingNodes;
+    private Room room;
+    private List<User> users;
+    private User viewer;
+    private long viewers;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        liveKms = startKms();
+        liveMedia = liveKms.media();
+        nodes = GroupCallFixture.configure(liveKms.client());
+        if ("otherNode".equals(recording)) {
+            recordingKms = startKms();
+            recordingMedia = recordingKms.media();
+            KurentoNode node = new KurentoNode("bench-rec", recordingKms.uri(), recordingKms.client(),
+                    new PipelinePool(recordingKms.client(), false, 0, 0));
+            recordingNodes = new KurentoNodePool(List.of(node), TimeUnit.HOURS.toMillis(1), 0);
+        } else {
+            recordingMedia = liveMedia;
+            recordingNodes = nodes;
+        }
+        RoomRecording.configure(recordingNodes, 0, "file:///tmp/recording-bench");
+
+        room = Room.getRoom("recording-bench").join();
+        users = GroupCallFixture.joinFullMesh(room, "rec", members);
+
+        if (!"off".equals(recording)) {
+            room.startRecording().join();
+            awaitRecorders(members);
+        }
+    }
+
+    private FakeKms startKms() {
+        return FakeKms.start(kmsRoundTripMs, Map.of("fakekms.recorder-load-ms", recorderLoadMs));
+    }
+
+    /**
+     * 녹화 노드 쪽 fake-kms에서 record를 받은 RecorderEndpoint 수가 expected가 될 때까지 기다린다.
+     */
+    private void awaitRecorders(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + RECORDING_TIMEOUT_MS;
+        while (recordingMedia.getRecorderCount() != expected) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("녹화가 시작되지 않았습니다: " + recordingMedia.getRecorderCount()
+                        + "/" + expected);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 시청자의 녹화가 시작된 뒤에 내보내고, 녹화 중인 수가 members로 돌아오기를 기다린다 (측정에는 넣지 않는다).
+     */
+    @TearDown(Level.Invocation)
+    public void leaveViewer() throws InterruptedException {
+        boolean recorded = !"off".equals(recording);
+        if (recorded) {
+            awaitRecorders(members + 1);
+        }
+        room.leave(viewer.getName()).join();
+        viewers++;
+        if (recorded) {
+            awaitRecorders(members);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        room.stopRecording().join();
+        room.close().join();
+        nodes.shutdown();
+        liveKms.close();
+        if (recordingKms != null) {
+            recordingNodes.shutdown();
+            recordingKms.close();
+        }
+    }
+
+    /**
+     * 시청자가 들어오는 시점의 녹화 상태. 반복마다 같으므로 누적하지 않고 덮어쓰며, 결과는 반복 평균이다.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Recorders extends IterationAverage {
+        /** 방 KMS에서 녹화 중인 RecorderEndpoint 수 */
+        public double liveRecorders;
+        /** 그 녹화기들 때문에 방 KMS의 요청마다 더해지는 처리 시간 */
+        public double liveLoadMs;
+        /** 녹화 노드 KMS에서 녹화 중인 RecorderEndpoint 수 (sameNode면 liveRecorders와 같다) */
+        public double recordingRecorders;
+
+        void record(FakeMediaServer live, FakeMediaServer recording) {
+            liveRecorders = live.getRecorderCount() * share();
+            liveLoadMs = live.getRecordingLoadMillis() * share();
+            recordingRecorders = recording.getRecorderCount() * share();
+        }
+    }
+
+    @Benchmark
+    public User joinAndReceiveAll(Recorders recorders) {
+        recorders.record(liveMedia, recordingMedia);
+        String name = "viewer-" + viewers;
+        viewer = room.join(name, new StubWebSocketSession("gc-" + name)).join();
+        List<CompletableFuture<Void>> negotiations = new ArrayList<>();
+        negotiations.add(viewer.receiveVideoFrom(viewer, SignalingPayloads.SDP));
+        for (User sender : users) {
+            negotiations.add(viewer.receiveVideoFrom(sender, SignalingPayloads.SDP));
+        }
+        CompletableFuture.allOf(negotiations.toArray(new CompletableFuture<?>[0])).join();
+        return viewer;
+    }
+}
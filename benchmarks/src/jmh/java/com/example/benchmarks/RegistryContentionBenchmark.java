@@ -0,0 +1,150 @@
+package com.example.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.kurento.client.KurentoClient;
+import org.kurento.client.MediaPipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.benchmarks.support.GroupCallFixture;
+import com.example.benchmarks.support.LocalKurento;
+import com.example.benchmarks.support.StubWebSocketSession;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.LocalUserRegistry;
+import com.example.groupcall.User;
+import com.example.webrtcnm.UserRegistry;
+import com.example.webrtcrefactor.webrtc.repository.UserSessionRepository;
+
+/**
+ * 메시지마다 일어나는 세션 ID / 이름 조회를, 입장과 퇴장이 계속 일어나는 동안 여러 스레드에서 동시에 잰다.
+ * 그룹마다 조회 스레드 7개와 등록/삭제 스레드 1개가 같은 레지스트리를 쓴다.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RegistryContentionBenchmark {
+
+    @Param({"100", "10000"})
+    public int users;
+
+    private KurentoClient kurento;
+    private KurentoNodePool nodes;
+
+    private LocalUserRegistry groupCallRegistry;
+    private User[] groupCallUsers;
+
+    private UserRegistry nmRegistry;
+    private com.example.webrtcnm.UserSession[] nmUsers;
+
+    private UserSessionRepository refactorRepository;
+    private String[] refactorSessionIds;
+    private com.example.webrtcrefactor.webrtc.domain.UserSession[] refactorUsers;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        kurento = LocalKurento.createClient();
+        nodes = GroupCallFixture.configure(kurento);
+        MediaPipeline pipeline = kurento.createMediaPipeline();
+
+        groupCallRegistry = new LocalUserRegistry();
+        groupCallUsers = new User[users];
+        nmRegistry = new UserRegistry();
+        nmUsers = new com.example.webrtcnm.UserSession[users];
+        refactorRepository = new UserSessionRepository();
+        refactorSessionIds = new String[users];
+        refactorUsers = new com.example.webrtcrefactor.webrtc.domain.UserSession[users];
+
+        for (int i = 0; i < users; i++) {
+            String name = "user-" + i;
+            groupCallUsers[i] = User.create(name, "bench", new StubWebSocketSession("gc-" + i), pipeline).join();
+            groupCallRegistry.register(groupCallUsers[i]);
+
+            nmUsers[i] = com.example.webrtcnm.UserSession.create(name, "bench", new StubWebSocketSession("nm-" + i),
+                    pipeline);
+            nmRegistry.register(nmUsers[i]);
+
+            refactorSessionIds[i] = "rf-" + i;
+            refactorUsers[i] = new com.example.webrtcrefactor.webrtc.domain.UserSession();
+            refactorRepository.save(refactorSessionIds[i], refactorUsers[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        nodes.shutdown();
+    }
+
+    private int pick() {
+        return ThreadLocalRandom.current().nextInt(users);
+    }
+
+    // group-call LocalUserRegistry ---------------------------------------------
+
+    @Benchmark
+    @Group("groupCall")
+    @GroupThreads(7)
+    public User groupCallLookup() {
+        User user = groupCallUsers[pick()];
+        User bySession = groupCallRegistry.getBySessionId(user.getSession().getId());
+        return bySession != null ? bySession : groupCallRegistry.getByName(user.getName());
+    }
+
+    @Benchmark
+    @Group("groupCall")
+    @GroupThreads(1)
+    public void groupCallChurn() {
+        User user = groupCallUsers[pick()];
+        groupCallRegistry.remove(user);
+        groupCallRegistry.register(user);
+    }
+
+    // webRtc-nm UserRegistry ---------------------------------------------------
+
+    @Benchmark
+    @Group("nm")
+    @GroupThreads(7)
+    public com.example.webrtcnm.UserSession nmLookup() {
+        com.example.webrtcnm.UserSession user = nmUsers[pick()];
+        com.example.webrtcnm.UserSession bySession = nmRegistry.getBySession(user.getSession());
+        return bySession != null ? bySession : nmRegistry.getByName(user.getName());
+    }
+
+    @Benchmark
+    @Group("nm")
+    @GroupThreads(1)
+    public void nmChurn() {
+        com.example.webrtcnm.UserSession user = nmUsers[pick()];
+        nmRegistry.removeBySession(user.getSession());
+        nmRegistry.register(user);
+    }
+
+    // webRtc-refactor UserSessionRepository ------------------------------------
+
+    @Benchmark
+    @Group("refactor")
+    @GroupThreads(7)
+    public com.example.webrtcrefactor.webrtc.domain.UserSession refactorLookup() {
+        return refactorRepository.find(refactorSessionIds[pick()]);
+    }
+
+    @Benchmark
+    @Group("refactor")
+    @GroupThreads(1)
+    public void refactorChurn() {
+        int i = pick();
+        refactorRepository.remove(refactorSessionIds[i]);
+        refactorRepository.save(refactorSessionIds[i], refactorUsers[i]);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.kurento.client.KurentoClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.example.benchmarks.support.GroupCallFixture;
+import com.example.benchmarks.support.LocalKurento;
+import com.example.benchmarks.support.StubWebSocketSession;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.Room;
+import com.example.groupcall.User;
+
+/**
+ * 방 수에 따른 입장/퇴장 처리량. 16개 스레드가 rooms개 방에 고르게 나눠 들어갔다 나오며,
+ * 한 연산마다 members명에게 입장/퇴장 알림이 나간다.
+ * actors=true는 방마다 메일박스를 가상 스레드 하나가 순서대로 처리하는 방식이고, false는 호출한 스레드가 방 모니터를 잡고
+ * 처리하던 방식이다. 방이 적을수록 같은 방을 두고 경쟁하고, 방이 많을수록 방끼리 병렬로 돈다.
+ * Kurento 호출은 LocalKurento가 바로 응답하므로 방 상태 변경과 알림 비용만 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(16)
+@Fork(1)
+public class RoomActorBenchmark {
+
+    @Param({"1", "4", "16", "64"})
+    public int rooms;
+
+    @Param({"true", "false"})
+    public boolean actors;
+
+    @Param({"20"})
+    public int members;
+
+    private KurentoClient kurento;
+    private KurentoNodePool nodes;
+    private Room[] opened;
+
+    @State(Scope.Thread)
+    public static class Joiner {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+
+        private final int index = THREADS.getAndIncrement();
+        private long round;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        kurento = LocalKurento.createClient();
+        nodes = GroupCallFixture.configure(kurento);
+        Room.configureActors(actors);
+
+        opened = new Room[rooms];
+        for (int r = 0; r < rooms; r++) {
+            opened[r] = Room.getRoom("actor-bench-" + r).join();
+            for (int i = 0; i < members; i++) {
+                String name = "member-" + r + "-" + i;
+                opened[r].join(name, new StubWebSocketSession("gc-" + name)).join();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (Room room : opened) {
+            room.close().join();
+        }
+        Room.configureActors(true);
+        nodes.shutdown();
+    }
+
+    @Benchmark
+    public User joinLeave(Joiner joiner) {
+        // 스레드마다 다음 방으로 넘어가므로 방이 스레드 수보다 많아도 모든 방이 쓰인다
+        Room room = opened[(int) ((joiner.index + joiner.round) % rooms)];
+        String name = "joiner-" + joiner.index + "-" + joiner.round++;
+        User user = room.join(name, new StubWebSocketSession("gc-" + name)).join();
+        room.leave(name).join();
+        return user;
+    }
+}
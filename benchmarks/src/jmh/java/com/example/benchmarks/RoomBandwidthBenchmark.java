@@ -0,0 +1,105 @@
+package com.example.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.benchmarks.support.FakeKms;
+import com.example.benchmarks.support.GroupCallFixture;
+import com.example.benchmarks.support.IterationAverage;
+import com.example.groupcall.BandwidthBudget;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.Room;
+import com.example.groupcall.StatsCollector;
+import com.example.groupcall.User;
+
+/**
+ * 방 대역폭 예산의 효과와 비용.
+ * 설정 단계에서 members명이 서로의 영상을 받게 한 뒤 StatsCollector로 방 전체 egress(KMS → 참가자)를 재서
+ * 보조 결과 egressKbps, ingressKbps로 남기고(fake-kms는 setMaxVideoSendBandwidth 상한만큼만 보낸다),
+ * 벤치마크는 한 참가자가 하향 대역폭을 보고했을 때 상한을 다시 계산하는 시간을 잽니다.
+ * downlinkKbps=0이 정책을 끈 기준선입니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class RoomBandwidthBenchmark {
+
+    @Param({"4", "12"})
+    public int members;
+
+    @Param({"0", "4000"})
+    public int downlinkKbps;
+
+    private FakeKms fakeKms;
+    private KurentoNodePool nodes;
+    private Room room;
+    private List<User> users;
+    private double egressKbps;
+    private double ingressKbps;
+    private long round;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        fakeKms = FakeKms.start(0, Map.of("fakekms.stats-bitrate-kbps", 2500));
+        nodes = GroupCallFixture.configure(fakeKms.client());
+        BandwidthBudget.configure(downlinkKbps, 2500, 150, 2500);
+
+        room = Room.getRoom("bandwidth-bench").join();
+        users = GroupCallFixture.joinFullMesh(room, "bw", members);
+
+        StatsCollector collector = new StatsCollector(0, 8, 100);
+        collector.collect().join();
+        Thread.sleep(1000);
+        collector.collect().join();
+        Map<String, Object> quality = collector.getRoomQualities().get(room.getName());
+        egressKbps = (double) quality.get("egressKbps");
+        ingressKbps = (double) quality.get("ingressKbps");
+        collector.shutdown();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        room.close().join();
+        nodes.shutdown();
+        fakeKms.close();
+        BandwidthBudget.configure(0, 2500, 150, 2500);
+    }
+
+    /**
+     * 설정 단계에서 잰 방 전체 비트레이트. 트라이얼 동안 값이 같으므로 누적하지 않고 덮어쓰며, 결과는 반복 평균이다.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Traffic extends IterationAverage {
+        public double egressKbps;
+        public double ingressKbps;
+
+        void record(double egress, double ingress) {
+            egressKbps = egress * share();
+            ingressKbps = ingress * share();
+        }
+    }
+
+    @Benchmark
+    public void reportBandwidth(Traffic traffic) {
+        traffic.record(egressKbps, ingressKbps);
+        // 매번 상한이 바뀌도록 보고 값을 번갈아 준다
+        users.get(0).reportDownlink(round++ % 2 == 0 ? 2000 : 3000);
+        room.rebalanceBandwidth().join();
+    }
+}
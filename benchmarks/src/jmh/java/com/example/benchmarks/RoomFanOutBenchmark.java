@@ -0,0 +1,82 @@
+package com.example.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.kurento.client.KurentoClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.benchmarks.support.GroupCallFixture;
+import com.example.benchmarks.support.LocalKurento;
+import com.example.benchmarks.support.StubWebSocketSession;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.Room;
+import com.example.groupcall.User;
+import com.example.webrtcnm.UserSession;
+
+/**
+ * 참가자가 participants명인 방에 한 명이 들어왔다가 나가는 비용.
+ * newParticipantArrived / participantLeft 알림과 existingParticipants 목록이 방 크기에 비례해 늘어나는 부분을 본다.
+ * Kurento 호출은 LocalKurento가 바로 응답하므로 KMS 왕복 시간은 포함되지 않는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class RoomFanOutBenchmark {
+
+    @Param({"10", "50", "100", "200"})
+    public int participants;
+
+    private KurentoClient kurento;
+    private KurentoNodePool nodes;
+    private Room groupCallRoom;
+    private com.example.webrtcnm.Room nmRoom;
+    private long round;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        kurento = LocalKurento.createClient();
+        nodes = GroupCallFixture.configure(kurento);
+
+        groupCallRoom = Room.getRoom("bench-" + participants).join();
+        nmRoom = new com.example.webrtcnm.Room("bench-" + participants, kurento.createMediaPipeline());
+        for (int i = 0; i < participants - 1; i++) {
+            String name = "member-" + i;
+            groupCallRoom.join(name, new StubWebSocketSession("gc-" + name)).join();
+            nmRoom.join(name, new StubWebSocketSession("nm-" + name));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        groupCallRoom.close();
+        nmRoom.close();
+        nodes.shutdown();
+    }
+
+    @Benchmark
+    public User groupCallJoinLeave() throws Exception {
+        String name = "joiner-" + round++;
+        User user = groupCallRoom.join(name, new StubWebSocketSession("gc-" + name)).join();
+        groupCallRoom.leave(name).join();
+        return user;
+    }
+
+    @Benchmark
+    public UserSession nmJoinLeave() throws Exception {
+        String name = "joiner-" + round++;
+        UserSession user = nmRoom.join(name, new StubWebSocketSession("nm-" + name));
+        nmRoom.leave(user);
+        return user;
+    }
+}
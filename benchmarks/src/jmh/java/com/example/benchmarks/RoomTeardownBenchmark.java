@@ -0,0 +1,97 @@
+package com.example.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.benchmarks.support.FakeKms;
+import com.example.benchmarks.support.GroupCallFixture;
+import com.example.benchmarks.support.IterationAverage;
+import com.example.fakekms.FakeMediaServer;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.Room;
+
+/**
+ * members명이 서로의 영상을 받는 방(엔드포인트 members²개)을 닫는 데 걸리는 시간.
+ * close는 엔드포인트를 한꺼번에 비동기로 해제한 뒤 파이프라인을 돌려주고,
+ * shutdown은 @PreDestroy 경로(Room.closeAll)로 파이프라인째 해제합니다.
+ * 매 호출 뒤 fake-kms에 남은 객체 수를 보조 결과 unreleasedObjects로 남겨 해제가 빠진 것이 없는지 봅니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class RoomTeardownBenchmark {
+
+    @Param({"10", "25"})
+    public int members;
+
+    @Param({"close", "shutdown"})
+    public String path;
+
+    @Param({"5"})
+    public long kmsRoundTripMs;
+
+    private FakeKms fakeKms;
+    private FakeMediaServer mediaServer;
+    private KurentoNodePool nodes;
+    private Room room;
+    private long round;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        fakeKms = FakeKms.start(kmsRoundTripMs);
+        mediaServer = fakeKms.media();
+        nodes = GroupCallFixture.configure(fakeKms.client());
+    }
+
+    @Setup(Level.Invocation)
+    public void fillRoom() {
+        room = Room.getRoom("teardown-bench-" + round++).join();
+        GroupCallFixture.joinFullMesh(room, "td", members);
+    }
+
+    @TearDown(Level.Invocation)
+    public void checkReleased(Leftovers leftovers) {
+        leftovers.record(mediaServer.getElementCount());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        nodes.shutdown();
+        fakeKms.close();
+    }
+
+    /**
+     * 마지막 호출 뒤 fake-kms에 남은 객체 수의 반복 평균. 0이 아니면 해제가 빠진 것이다.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Leftovers extends IterationAverage {
+        public double unreleasedObjects;
+
+        void record(long elements) {
+            unreleasedObjects = elements * share();
+        }
+    }
+
+    @Benchmark
+    public void teardown() {
+        if ("shutdown".equals(path)) {
+            Room.closeAll().join();
+        } else {
+            room.close().join();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.example.benchmarks.support.FakeKms;
+import com.example.benchmarks.support.GroupCallFixture;
+import com.example.benchmarks.support.KmsRequests;
+import com.example.benchmarks.support.SignalingPayloads;
+import com.example.benchmarks.support.StubWebSocketSession;
+import com.example.fakekms.KmsJsonRpcHandler;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.Room;
+import com.example.groupcall.User;
+
+/**
+ * members명이 서로의 영상을 받는 방에서 한 명의 WebSocket이 끊겼다가 다시 붙을 때, 미디어를 다시 받기까지 걸리는 시간과 KMS 요청 수.
+ * rejoin은 기존 동작(퇴장 후 joinRoom, 자기 송신과 수신 전부, 다른 참가자들의 재구독)이고,
+ * resume은 엔드포인트를 남겨 둔 채 resumeSession으로 새 세션에 붙이는 경로입니다.
+ * 재연결 한 번당 평균 KMS 요청 수는 보조 결과 kmsRequests로 남습니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class SessionResumeBenchmark {
+
+    @Param({"10", "25"})
+    public int members;
+
+    @Param({"resume", "rejoin"})
+    public String path;
+
+    @Param({"5"})
+    public long kmsRoundTripMs;
+
+    private FakeKms fakeKms;
+    private KmsJsonRpcHandler rpc;
+    private KurentoNodePool nodes;
+    private Room room;
+    private List<User> users;
+    private long reconnects;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fakeKms = FakeKms.start(kmsRoundTripMs);
+        rpc = fakeKms.rpc();
+        nodes = GroupCallFixture.configure(fakeKms.client());
+
+        room = Room.getRoom("resume-bench").join();
+        users = GroupCallFixture.joinFullMesh(room, "rs", members);
+    }
+
+    /**
+     * 연결이 끊긴 상태를 만든다. rejoin은 끊기는 즉시 퇴장하던 기존 동작이므로 여기서 나가게 하지 않고 측정에 포함한다.
+     */
+    @Setup(Level.Invocation)
+    public void disconnect() {
+        User user = users.get(0);
+        ((StubWebSocketSession) user.getSession()).close();
+        if ("resume".equals(path)) {
+            user.detach();
+        }
+        rpc.resetRequestCounts();
+    }
+
+    @TearDown(Level.Invocation)
+    public void count() {
+        reconnects++;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        room.close().join();
+        nodes.shutdown();
+        fakeKms.close();
+    }
+
+    @Benchmark
+    public User reconnect(KmsRequests requests) throws Exception {
+        User user = users.get(0);
+        String name = user.getName();
+        WebSocketSession session = new StubWebSocketSession("gc-" + name + "-" + reconnects);
+
+        if ("resume".equals(path)) {
+            WebSocketSession previous = user.resume(user.getResumeToken(), session);
+            User.rebindSession(user, previous);
+            room.sendResumedState(user);
+            requests.count(rpc);
+            return user;
+        }
+
+        room.leave(name).join();
+        User rejoined = room.join(name, session).join();
+        users.set(0, rejoined);
+        List<CompletableFuture<Void>> negotiations = new ArrayList<>();
+        for (User sender : users) {
+            negotiations.add(rejoined.receiveVideoFrom(sender, SignalingPayloads.SDP));
+            if (sender != rejoined) {
+                negotiations.add(sender.receiveVideoFrom(rejoined, SignalingPayloads.SDP));
+            }
+        }
+        CompletableFuture.allOf(negotiations.toArray(new CompletableFuture<?>[0])).join();
+        requests.count(rpc);
+        return rejoined;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.benchmarks.support.FakeKms;
+import com.example.benchmarks.support.GroupCallFixture;
+import com.example.benchmarks.support.IterationAverage;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.Room;
+import com.example.groupcall.StatsCollector;
+
+/**
+ * StatsCollector 한 주기(모든 엔드포인트 getStats → 링 버퍼 기록 → 방/사용자 요약)에 걸리는 시간.
+ * 방마다 members명이 서로의 영상을 받으므로 엔드포인트는 rooms × members² 개입니다.
+ * batchSize=1은 엔드포인트마다 따로 호출하는 경우이고, 묶어 보내면 KMS 왕복이 ceil(엔드포인트 / batchSize)번으로 줄어
+ * 엔드포인트 수가 늘어도 주기 시간이 거의 평평해야 합니다.
+ * 주기마다 센 엔드포인트 수와 KMS 트랜잭션 수(실패 포함)는 보조 결과로 남습니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class StatsCollectionBenchmark {
+
+    @Param({"4", "16"})
+    public int rooms;
+
+    @Param({"4", "8"})
+    public int members;
+
+    @Param({"1", "100"})
+    public int batchSize;
+
+    @Param({"5"})
+    public long kmsRoundTripMs;
+
+    private FakeKms fakeKms;
+    private KurentoNodePool nodes;
+    private StatsCollector collector;
+    private final List<Room> openRooms = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fakeKms = FakeKms.start(kmsRoundTripMs);
+        nodes = GroupCallFixture.configure(fakeKms.client());
+        collector = new StatsCollector(0, 24, batchSize);
+
+        for (int r = 0; r < rooms; r++) {
+            Room room = Room.getRoom("stats-bench-" + r).join();
+            openRooms.add(room);
+            GroupCallFixture.joinFullMesh(room, "stats-" + r, members);
+        }
+        // 링 버퍼에 구간이 생기도록 두 번 채워 둔다
+        collector.collect().join();
+        collector.collect().join();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        collector.shutdown();
+        for (Room room : openRooms) {
+            room.close();
+        }
+        nodes.shutdown();
+        fakeKms.close();
+    }
+
+    /**
+     * 마지막 주기의 StatsCollector.Status. 주기마다 값이 같으므로 누적하지 않고 덮어쓰며, 결과는 반복 평균이다.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Cycle extends IterationAverage {
+        public double endpoints;
+        public double kmsTransactions;
+        public double failedTransactions;
+
+        void record(StatsCollector.Status status) {
+            endpoints = status.endpoints() * share();
+            kmsTransactions = status.batches() * share();
+            failedTransactions = status.failedBatches() * share();
+        }
+    }
+
+    @Benchmark
+    public StatsCollector.Status collect(Cycle cycle) {
+        collector.collect().join();
+        StatsCollector.Status status = collector.getStatus();
+        cycle.record(status);
+        return status;
+    }
+}
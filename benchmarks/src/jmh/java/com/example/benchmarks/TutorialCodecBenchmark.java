@@ -0,0 +1,87 @@
+package com.example.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.benchmarks.support.SignalingPayloads;
+import com.example.webrtcrefactor.webrtc.dto.WebRtcMessage;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+/**
+ * 1:1 튜토리얼 앱(webRtc-hello-world, webRtc-simplify, webRtc-refactor)의 PROCESS_SDP_OFFER / ADD_ICE_CANDIDATE 해석.
+ * 세 앱이 같은 프로토콜을 쓰므로 같은 원문으로 각 앱의 방식을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TutorialCodecBenchmark {
+    private static final Gson gson = new Gson();
+
+    @Param({"PROCESS_SDP_OFFER", "ADD_ICE_CANDIDATE"})
+    public String message;
+
+    private String json;
+    private byte[] binary;
+
+    @Setup
+    public void setup() {
+        boolean offer = "PROCESS_SDP_OFFER".equals(message);
+        json = offer ? SignalingPayloads.processSdpOffer() : SignalingPayloads.addIceCandidate();
+        binary = offer ? SignalingPayloads.binaryProcessSdpOffer() : SignalingPayloads.binaryAddIceCandidate();
+    }
+
+    /** 스트리밍 디코더 이전의 hello-world / simplify */
+    @Benchmark
+    public JsonObject decodeGsonTree() {
+        return gson.fromJson(json, JsonObject.class);
+    }
+
+    @Benchmark
+    public Object decodeHelloWorldStreaming() {
+        return com.example.webrtchelloworld.SignalingDecoder.decode(json);
+    }
+
+    @Benchmark
+    public Object decodeHelloWorldBinary() {
+        return com.example.webrtchelloworld.BinarySignalingCodec.decode(ByteBuffer.wrap(binary));
+    }
+
+    @Benchmark
+    public Object decodeSimplifyStreaming() {
+        return com.example.webrtcsimplify.SignalingDecoder.decode(json);
+    }
+
+    /** webRtc-refactor는 Gson 리플렉션으로 DTO에 바로 채운다 */
+    @Benchmark
+    public WebRtcMessage decodeRefactorDto() {
+        return gson.fromJson(json, WebRtcMessage.class);
+    }
+
+    @Benchmark
+    public String encodeAnswerGsonTree() {
+        JsonObject tree = new JsonObject();
+        tree.addProperty("id", "PROCESS_SDP_ANSWER");
+        tree.addProperty("sdpAnswer", SignalingPayloads.SDP);
+        return tree.toString();
+    }
+
+    @Benchmark
+    public String encodeAnswerPresized() {
+        return com.example.webrtchelloworld.SignalingEncoder.processSdpAnswer(SignalingPayloads.SDP);
+    }
+
+    @Benchmark
+    public byte[] encodeAnswerBinary() {
+        return com.example.webrtchelloworld.BinarySignalingCodec.encodeSdpAnswer(SignalingPayloads.SDP);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.benchmarks.support;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.kurento.client.KurentoClient;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.fakekms.FakeMediaServer;
+import com.example.fakekms.KmsJsonRpcHandler;
+
+/**
+ * 벤치마크 프로세스 안에 띄운 fake-kms 하나와 거기에 연결한 KurentoClient.
+ * 클라이언트는 GroupCallFixture.configure로 만든 노드 풀이 shutdown에서 해제하므로 close는 서버만 내린다.
+ */
+public final class FakeKms implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final KurentoClient client;
+
+    private FakeKms(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.client = KurentoClient.create(uri());
+    }
+
+    public static FakeKms start(long roundTripMs) {
+        return start(roundTripMs, Map.of());
+    }
+
+    /**
+     * 미디어 흐름 지연 없이 응답 스레드 8개로 띄운다.
+     *
+     * @param properties 더하거나 덮어쓸 fakekms.* 설정
+     */
+    public static FakeKms start(long roundTripMs, Map<String, Object> properties) {
+        Map<String, Object> all = new HashMap<>();
+        all.put("fakekms.round-trip-ms", roundTripMs);
+        all.put("fakekms.media-flow-delay-ms", 0);
+        all.put("fakekms.threads", 8);
+        all.putAll(properties);
+        return new FakeKms(LocalServers.fakeKms(all));
+    }
+
+    public String uri() {
+        return LocalServers.kmsUri(context);
+    }
+
+    public KurentoClient client() {
+        return client;
+    }
+
+    public KmsJsonRpcHandler rpc() {
+        return context.getBean(KmsJsonRpcHandler.class);
+    }
+
+    public FakeMediaServer media() {
+        return context.getBean(FakeMediaServer.class);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
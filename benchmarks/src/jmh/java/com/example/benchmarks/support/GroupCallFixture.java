@@ -0,0 +1,76 @@
+package com.example.benchmarks.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.kurento.client.KurentoClient;
+
+import com.example.groupcall.IceCandidateBatcher;
+import com.example.groupcall.KurentoNode;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.LocalRoomRegistry;
+import com.example.groupcall.LocalUserRegistry;
+import com.example.groupcall.OutboundQueue;
+import com.example.groupcall.PipelinePool;
+import com.example.groupcall.Room;
+import com.example.groupcall.RoomRecording;
+import com.example.groupcall.User;
+
+/**
+ * CallHandler.init이 하던 정적 설정을 LocalKurento 노드 하나로 대신한다.
+ */
+public final class GroupCallFixture {
+
+    // 한 번에 협상하는 참가자 수. 4KB SDP offer와 이벤트 구독이 이만큼 겹쳐도 송신 버퍼가 넘치지 않는다
+    private static final int NEGOTIATION_LANES = 4;
+
+    private GroupCallFixture() {
+    }
+
+    public static KurentoNodePool configure(KurentoClient client) {
+        KurentoNode node = new KurentoNode("bench-0", "local", client, new PipelinePool(client, false, 0, 0));
+        KurentoNodePool nodes = new KurentoNodePool(List.of(node), TimeUnit.HOURS.toMillis(1), 0);
+
+        Room.configureRegistry(new LocalRoomRegistry());
+        User.configureRegistry(new LocalUserRegistry());
+        Room.configure(nodes, 0);
+        Room.configureLastN(0, 0, 0);
+        Room.configureMcu(0, 0);
+        Room.configureCascade(0);
+        Room.configureActors(true);
+        RoomRecording.configure(nodes, 2, "file:///tmp/group-call-recordings");
+        User.configureSpeculation(0);
+        // 측정 중에 송신 큐가 넘쳐 메시지를 버리거나 연결을 끊지 않도록 넉넉하게 잡는다
+        OutboundQueue.configure(1 << 16, OutboundQueue.OverflowPolicy.DROP_ICE);
+        IceCandidateBatcher.configure(20);
+        return nodes;
+    }
+
+    /**
+     * prefix-0부터 members명을 들여보내고, 모두가 자기 영상을 포함해 서로의 영상을 받을 때까지 기다린다.
+     * 브라우저처럼 참가자마다 receiveVideoFrom을 하나씩 이어 보내고, 동시에 협상하는 참가자는 NEGOTIATION_LANES명으로 묶는다.
+     * 한꺼번에 많이 보내면 KurentoClient의 송신 버퍼가 차고, 클라이언트는 이를 연결이 끊긴 것으로 보고 요청을 거절한다.
+     */
+    public static List<User> joinFullMesh(Room room, String prefix, int members) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            String name = prefix + "-" + i;
+            users.add(room.join(name, new StubWebSocketSession("gc-" + name)).join());
+        }
+        List<CompletableFuture<Void>> negotiations = new ArrayList<>();
+        for (int lane = 0; lane < Math.min(NEGOTIATION_LANES, members); lane++) {
+            CompletableFuture<Void> tiles = CompletableFuture.completedFuture(null);
+            for (int r = lane; r < members; r += NEGOTIATION_LANES) {
+                User receiver = users.get(r);
+                for (User sender : users) {
+                    tiles = tiles.thenCompose(v -> receiver.receiveVideoFrom(sender, SignalingPayloads.SDP));
+                }
+            }
+            negotiations.add(tiles);
+        }
+        CompletableFuture.allOf(negotiations.toArray(new CompletableFuture<?>[0])).join();
+        return users;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.benchmarks.support;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * JMH는 @AuxCounters(EVENTS) 값을 측정 반복마다 더해 결과로 낸다.
+ * 반복마다 같은 값을 쓰는 상태가 이 클래스를 상속하고 값에 share()를 곱해 두면 결과가 반복 평균이 된다.
+ */
+public abstract class IterationAverage {
+
+    private double share = 1;
+
+    @Setup(Level.Trial)
+    public void countIterations(BenchmarkParams params) {
+        share = 1.0 / Math.max(1, params.getMeasurement().getCount());
+    }
+
+    protected double share() {
+        return share;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.benchmarks.support;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.fakekms.KmsJsonRpcHandler;
+
+/**
+ * 측정한 작업이 fake-kms에 보낸 요청 수(ping 제외)와 그중 transaction 요청 수.
+ * results.json에 보조 결과 kmsRequests, kmsTransactions로 남는다.
+ * SingleShotTime 벤치마크는 반복마다 작업을 한 번 하므로, 반복마다 비우고 IterationAverage로 나누면
+ * 값은 작업 한 번당 요청 수의 반복 평균이 된다.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class KmsRequests extends IterationAverage {
+
+    public double kmsRequests;
+
+    public double kmsTransactions;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        kmsRequests = 0;
+        kmsTransactions = 0;
+    }
+
+    /**
+     * 측정 작업 끝에 부른다. 작업 전에 rpc.resetRequestCounts()로 비워 둬야 한다.
+     */
+    public void count(KmsJsonRpcHandler rpc) {
+        kmsRequests += rpc.getRequestCount() * share();
+        kmsTransactions += rpc.getRequestCounts().getOrDefault("transaction", 0L) * share();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.benchmarks.support;
+
+import java.util.UUID;
+
+import org.kurento.client.KurentoClient;
+import org.kurento.jsonrpc.DefaultJsonRpcHandler;
+import org.kurento.jsonrpc.Transaction;
+import org.kurento.jsonrpc.client.JsonRpcClientLocal;
+import org.kurento.jsonrpc.message.Request;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * 같은 프로세스 안에서 Kurento JSON-RPC 요청에 바로 응답하는 KurentoClient.
+ * 미디어는 전혀 다루지 않고 객체 ID와 고정 SDP만 돌려주므로, 벤치마크는 KMS 왕복을 뺀 시그널링 서버 쪽 비용만 잰다.
+ */
+public final class LocalKurento extends DefaultJsonRpcHandler<JsonObject> {
+
+    static final String SDP = "v=0\r\no=- 0 0 IN IP4 127.0.0.1\r\ns=-\r\nt=0 0\r\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96\r\nc=IN IP4 0.0.0.0\r\na=rtpmap:96 VP8/90000\r\n";
+
+    private final String sessionId = UUID.randomUUID().toString();
+
+    private LocalKurento() {
+    }
+
+    public static KurentoClient createClient() {
+        return KurentoClient.createFromJsonRpcClient(new JsonRpcClientLocal(new LocalKurento()));
+    }
+
+    @Override
+    public void handleRequest(Transaction transaction, Request<JsonObject> request) throws Exception {
+        transaction.sendResponse(respond(request.getMethod(), request.getParams()));
+    }
+
+    private JsonObject respond(String method, JsonObject params) {
+        JsonObject result = new JsonObject();
+        result.addProperty("sessionId", sessionId);
+        switch (method) {
+            case "create" -> result.addProperty("value", newObjectId(params));
+            case "invoke" -> addInvokeValue(result, params.get("operation").getAsString());
+            case "subscribe" -> result.addProperty("value", UUID.randomUUID().toString());
+            case "ping" -> result.addProperty("value", "pong");
+            case "transaction" -> {
+                JsonArray responses = new JsonArray();
+                for (JsonElement operation : params.getAsJsonArray("operations")) {
+                    JsonObject op = operation.getAsJsonObject();
+                    JsonObject response = new JsonObject();
+                    response.addProperty("jsonrpc", "2.0");
+                    response.add("id", op.get("id"));
+                    response.add("result", respond(op.get("method").getAsString(), op.getAsJsonObject("params")));
+                    responses.add(response);
+                }
+                result.add("value", responses);
+            }
+            default -> {
+                // release, unsubscribe, connect 등은 빈 결과
+            }
+        }
+        return result;
+    }
+
+    private static String newObjectId(JsonObject params) {
+        String type = params.get("type").getAsString();
+        String id = UUID.randomUUID() + "_kurento." + type;
+        JsonObject constructorParams = params.getAsJsonObject("constructorParams");
+        if (constructorParams != null && constructorParams.has("mediaPipeline")) {
+            return constructorParams.get("mediaPipeline").getAsString() + "/" + id;
+        }
+        return id;
+    }
+
+    private static void addInvokeValue(JsonObject result, String operation) {
+        switch (operation) {
+            case "processOffer", "processAnswer", "generateOffer", "getLocalSessionDescriptor" ->
+                    result.addProperty("value", SDP);
+            case "getUsedCpu" -> result.addProperty("value", 0.0);
+            case "getUsedMemory" -> result.addProperty("value", 0L);
+            case "getPipelines", "getSessions", "getChildren" -> result.add("value", new JsonArray());
+            default -> {
+                // connect, gatherCandidates, addIceCandidate, setName 등은 반환값 없음
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.benchmarks.support;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.fakekms.FakeKmsApplication;
+import com.example.groupcall.GroupCallApplication;
+
+/**
+ * 벤치마크 프로세스 안에서 가짜 KMS와 group-call 앱을 loopback 임의 포트로 띄운다.
+ * 함께 올라온 다른 앱의 application.properties를 읽지 않도록 앱마다 설정 파일 이름을 바꾼다.
+ */
+public final class LocalServers {
+
+    private LocalServers() {
+    }
+
+    /**
+     * @param properties fakekms.* 등 덮어쓸 설정
+     */
+    public static ConfigurableApplicationContext fakeKms(Map<String, Object> properties) {
+        return start(FakeKmsApplication.class, "fake-kms", properties);
+    }
+
+    /**
+     * CallHandler를 거쳐 시그널링을 보낼 때 쓴다.
+     *
+     * @param properties groupcall.* 등 덮어쓸 설정
+     */
+    public static ConfigurableApplicationContext groupCall(Map<String, Object> properties) {
+        return start(GroupCallApplication.class, "group-call", properties);
+    }
+
+    /**
+     * {@link #fakeKms(Map)}로 띄운 가짜 KMS에 KurentoClient가 연결할 주소
+     */
+    public static String kmsUri(ConfigurableApplicationContext fakeKms) {
+        return "ws://127.0.0.1:" + fakeKms.getEnvironment().getProperty("local.server.port") + "/kurento";
+    }
+
+    private static ConfigurableApplicationContext start(Class<?> application, String configName,
+                                                        Map<String, Object> properties) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.config.name", configName);
+        defaults.put("spring.main.banner-mode", "off");
+        defaults.put("server.address", "127.0.0.1");
+        defaults.put("server.port", 0);
+        defaults.putAll(properties);
+        return new SpringApplicationBuilder(application).properties(defaults).run();
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.benchmarks.support;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.kurento.client.IceCandidate;
+
+import com.google.gson.JsonObject;
+
+/**
+ * 브라우저가 실제로 주고받는 크기에 가까운 SDP와 ICE 후보, 그리고 앱별 메시지 원문.
+ */
+public final class SignalingPayloads {
+
+    public static final String SDP = buildSdp();
+
+    private SignalingPayloads() {
+    }
+
+    public static IceCandidate candidate(int i) {
+        return new IceCandidate("candidate:" + (842163049 + i) + " 1 udp 1677729535 203.0.113." + (i % 250)
+                + " " + (50000 + i) + " typ srflx raddr 10.0.0." + (i % 250) + " rport " + (50000 + i)
+                + " generation 0 ufrag 4ZcD network-cost 999", i % 2 == 0 ? "0" : "1", i % 2);
+    }
+
+    public static List<IceCandidate> candidates(int count) {
+        List<IceCandidate> candidates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            candidates.add(candidate(i));
+        }
+        return candidates;
+    }
+
+    public static JsonObject candidateJson(IceCandidate candidate) {
+        JsonObject json = new JsonObject();
+        json.addProperty("candidate", candidate.getCandidate());
+        json.addProperty("sdpMid", candidate.getSdpMid());
+        json.addProperty("sdpMLineIndex", candidate.getSdpMLineIndex());
+        return json;
+    }
+
+    // group-call / webRtc-nm --------------------------------------------------
+
+    public static String receiveVideoFrom() {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", "receiveVideoFrom");
+        json.addProperty("sender", "alice");
+        json.addProperty("sdpOffer", SDP);
+        return json.toString();
+    }
+
+    public static String onIceCandidate() {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", "onIceCandidate");
+        json.addProperty("name", "alice");
+        json.add("candidate", candidateJson(candidate(0)));
+        return json.toString();
+    }
+
+    public static String onIceCandidates(int count) {
+        StringBuilder json = new StringBuilder("{\"id\":\"onIceCandidates\",\"candidates\":[");
+        for (int i = 0; i < count; i++) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("name", "alice");
+            entry.add("candidate", candidateJson(candidate(i)));
+            json.append(i > 0 ? "," : "").append(entry);
+        }
+        return json.append("]}").toString();
+    }
+
+    // signal.bin.v1 클라이언트 프레임 (static/js/signalCodec.js와 같은 배치)
+
+    public static byte[] binaryReceiveVideoFrom() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0x05);
+        writeString(out, "alice");
+        writeString(out, SDP);
+        return out.toByteArray();
+    }
+
+    public static byte[] binaryOnIceCandidates(int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(count == 1 ? 0x01 : 0x02);
+        if (count != 1) {
+            writeVarint(out, count);
+        }
+        for (int i = 0; i < count; i++) {
+            IceCandidate candidate = candidate(i);
+            writeString(out, "alice");
+            writeString(out, null);
+            writeString(out, candidate.getCandidate());
+            writeString(out, candidate.getSdpMid());
+            writeVarint(out, candidate.getSdpMLineIndex());
+        }
+        return out.toByteArray();
+    }
+
+    // webRtc-hello-world / webRtc-simplify / webRtc-refactor ------------------
+
+    public static String processSdpOffer() {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", "PROCESS_SDP_OFFER");
+        json.addProperty("sdpOffer", SDP);
+        return json.toString();
+    }
+
+    public static String addIceCandidate() {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", "ADD_ICE_CANDIDATE");
+        json.add("candidate", candidateJson(candidate(0)));
+        return json.toString();
+    }
+
+    public static byte[] binaryProcessSdpOffer() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0x02);
+        writeString(out, SDP);
+        return out.toByteArray();
+    }
+
+    public static byte[] binaryAddIceCandidate() {
+        IceCandidate candidate = candidate(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0x01);
+        writeString(out, candidate.getCandidate());
+        writeString(out, candidate.getSdpMid());
+        writeVarint(out, candidate.getSdpMLineIndex());
+        return out.toByteArray();
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, utf8.length + 1);
+        out.writeBytes(utf8);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static String buildSdp() {
+        StringBuilder sdp = new StringBuilder()
+                .append("v=0\r\n")
+                .append("o=- 4611731400430051336 2 IN IP4 127.0.0.1\r\n")
+                .append("s=-\r\nt=0 0\r\n")
+                .append("a=group:BUNDLE 0 1\r\n")
+                .append("a=extmap-allow-mixed\r\n")
+                .append("a=msid-semantic: WMS stream\r\n");
+        String[] kinds = {"audio", "video"};
+        for (int m = 0; m < kinds.length; m++) {
+            boolean video = m == 1;
+            sdp.append("m=").append(kinds[m]).append(" 9 UDP/TLS/RTP/SAVPF ")
+                    .append(video ? "96 97 98 99 100 101 102 121 127 120 125 107 108 109 35 36 124 119 123"
+                            : "111 63 9 0 8 13 110 126")
+                    .append("\r\n")
+                    .append("c=IN IP4 0.0.0.0\r\n")
+                    .append("a=rtcp:9 IN IP4 0.0.0.0\r\n")
+                    .append("a=ice-ufrag:4ZcD\r\n")
+                    .append("a=ice-pwd:2/1muCWoOi3uLifh0NuRHlN6\r\n")
+                    .append("a=ice-options:trickle\r\n")
+                    .append("a=fingerprint:sha-256 75:74:5A:A6:A4:E5:52:F4:A7:67:4C:01:C7:EE:91:3F:")
+                    .append("21:3D:A2:E3:53:7B:6F:30:86:F2:30:AA:65:FB:04:24\r\n")
+                    .append("a=setup:actpass\r\n")
+                    .append("a=mid:").append(m).append("\r\n")
+                    .append("a=sendrecv\r\n")
+                    .append("a=msid:stream track-").append(kinds[m]).append("\r\n")
+                    .append("a=rtcp-mux\r\n");
+            int[] payloads = video ? new int[]{96, 97, 98, 99, 100, 101, 102, 121, 127, 120, 125, 107, 108, 109}
+                    : new int[]{111, 63, 9, 0, 8, 13, 110, 126};
+            for (int pt : payloads) {
+                sdp.append("a=rtpmap:").append(pt).append(video ? " VP8/90000" : " opus/48000/2").append("\r\n");
+                if (video) {
+                    sdp.append("a=rtcp-fb:").append(pt).append(" goog-remb\r\n")
+                            .append("a=rtcp-fb:").append(pt).append(" transport-cc\r\n")
+                            .append("a=rtcp-fb:").append(pt).append(" ccm fir\r\n")
+                            .append("a=rtcp-fb:").append(pt).append(" nack\r\n")
+                            .append("a=rtcp-fb:").append(pt).append(" nack pli\r\n");
+                } else {
+                    sdp.append("a=fmtp:").append(pt).append(" minptime=10;useinbandfec=1\r\n");
+                }
+            }
+            sdp.append("a=ssrc:").append(1000 + m).append(" cname:HvZs3mQWhl9cKoPc\r\n")
+                    .append("a=ssrc:").append(1000 + m).append(" msid:stream track-").append(kinds[m]).append("\r\n");
+        }
+        return sdp.toString();
+    }
+}
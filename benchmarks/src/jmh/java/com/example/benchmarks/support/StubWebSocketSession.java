@@ -0,0 +1,152 @@
+package com.example.benchmarks.support;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * 네트워크 없이 보낸 메시지 수와 바이트만 세는 WebSocket 세션.
+ * {@link #tracking(String)}으로 만들면 JSON 메시지의 id별 수도 세어, CallHandler를 거친 요청의 응답을 기다릴 수 있다.
+ */
+public class StubWebSocketSession implements WebSocketSession {
+    private final String id;
+    private final String acceptedProtocol;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong sentBytes = new AtomicLong();
+    private volatile boolean open = true;
+    // tracking으로 만든 세션만 메시지 id별 수를 센다
+    private Map<String, AtomicLong> receivedIds;
+
+    public StubWebSocketSession(String id) {
+        this(id, null);
+    }
+
+    public static StubWebSocketSession tracking(String id) {
+        StubWebSocketSession session = new StubWebSocketSession(id);
+        session.receivedIds = new ConcurrentHashMap<>();
+        return session;
+    }
+
+    /**
+     * @param acceptedProtocol 협상된 서브프로토콜 (예: signal.bin.v1). null이면 JSON
+     */
+    public StubWebSocketSession(String id, String acceptedProtocol) {
+        this.id = id;
+        this.acceptedProtocol = acceptedProtocol;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        sentBytes.addAndGet(message.getPayloadLength());
+        if (receivedIds != null && message instanceof TextMessage text) {
+            receivedIds.computeIfAbsent(idOf(text.getPayload()), k -> new AtomicLong()).incrementAndGet();
+        }
+        sentMessages.incrementAndGet();
+    }
+
+    private static String idOf(String json) {
+        int start = json.indexOf("\"id\":\"");
+        if (start < 0) {
+            return "";
+        }
+        start += 6;
+        return json.substring(start, json.indexOf('"', start));
+    }
+
+    /**
+     * tracking 세션에 messageId 메시지가 count개 이상 올 때까지 기다린다.
+     *
+     * @throws IllegalStateException timeoutMillis 안에 오지 않은 경우
+     */
+    public void awaitMessages(String messageId, long count, long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        while (getMessageCount(messageId) < count) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException(id + ": " + messageId + " " + getMessageCount(messageId) + "/" + count);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    public long getMessageCount(String messageId) {
+        AtomicLong count = receivedIds.get(messageId);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * 비동기 송신 큐가 target개까지 보낼 때까지 기다린다.
+     */
+    public void awaitSent(long target) {
+        while (sentMessages.get() < target) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public long getSentMessages() { return sentMessages.get(); }
+    public long getSentBytes() { return sentBytes.get(); }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        open = false;
+    }
+
+    @Override
+    public String getId() { return id; }
+
+    @Override
+    public boolean isOpen() { return open; }
+
+    @Override
+    public Map<String, Object> getAttributes() { return attributes; }
+
+    @Override
+    public URI getUri() { return null; }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() { return HttpHeaders.EMPTY; }
+
+    @Override
+    public Principal getPrincipal() { return null; }
+
+    @Override
+    public InetSocketAddress getLocalAddress() { return null; }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() { return null; }
+
+    @Override
+    public String getAcceptedProtocol() { return acceptedProtocol; }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) { }
+
+    @Override
+    public int getTextMessageSizeLimit() { return Integer.MAX_VALUE; }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) { }
+
+    @Override
+    public int getBinaryMessageSizeLimit() { return Integer.MAX_VALUE; }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() { return Collections.emptyList(); }
+}
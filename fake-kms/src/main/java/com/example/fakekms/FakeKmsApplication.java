@@ -0,0 +1,37 @@
+package com.example.fakekms;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 미디어 없이 Kurento JSON-RPC 프로토콜만 흉내 내는 가짜 KMS.
+ * 시그널링 서버의 처리량과 꼬리 지연을 KMS 응답 지연/오류를 주입해 가며 측정할 때 사용합니다.
+ * 단독 실행하면 ws://127.0.0.1:8888/kurento, 벤치마크와 테스트에서는 SpringApplicationBuilder로 임의 포트에 띄웁니다.
+ */
+@SpringBootApplication
+@EnableConfigurationProperties(FakeKmsProperties.class)
+public class FakeKmsApplication {
+
+    @Bean(destroyMethod = "shutdown")
+    public FakeMediaServer fakeMediaServer(FakeKmsProperties properties,
+                                           @Value("${fakekms.threads:4}") int threads) {
+        return new FakeMediaServer(properties, threads);
+    }
+
+    @Bean
+    public FaultInjector faultInjector(FakeKmsProperties properties) {
+        return new FaultInjector(properties);
+    }
+
+    @Bean
+    public KmsJsonRpcHandler kmsJsonRpcHandler(FakeMediaServer fakeMediaServer, FaultInjector faultInjector) {
+        return new KmsJsonRpcHandler(fakeMediaServer, faultInjector);
+    }
+
+    public static void main(String[] args) {
+        SpringApplication.run(FakeKmsApplication.class, args);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.fakekms;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 가짜 KMS의 응답 지연, 오류율, 수용 한도, 합성 이벤트 설정 (fakekms.*).
+ * 응답 지연은 네트워크 왕복(roundTripMs, 요청마다 한 번)과 처리 시간(latencyMs 또는 메서드별 값)의 합이고,
+ * transaction은 왕복 한 번에 안에 든 operation들의 처리 시간을 더한 만큼 걸립니다.
+ * 메서드별 값의 키는 invoke면 operation 이름(processOffer, gatherCandidates 등), 그 외에는 JSON-RPC 메서드 이름입니다.
+ * stats* 값은 FLOWING 이후 getStats가 돌려주는 합성 RTP 통계의 비트레이트, 손실률, 지터, RTT입니다.
+ * iceRestartSupported를 끄면 이미 협상한 WebRtcEndpoint의 processOffer(ICE 재시작 재협상)를 거부합니다.
+ * recorderLoadMs는 녹화 중인 RecorderEndpoint 하나가 같은 서버의 모든 요청에 더하는 처리 시간입니다.
+ */
+@ConfigurationProperties(prefix = "fakekms")
+public class FakeKmsProperties {
+    private long roundTripMs = 0;
+    private long latencyMs = 0;
+    private long jitterMs = 0;
+    private Map<String, Long> methodLatencyMs = new HashMap<>();
+    private double errorRate = 0;
+    private Map<String, Double> methodErrorRate = new HashMap<>();
+    private int maxPipelines = 0;
+    private int maxElements = 0;
+    private int candidatesPerGather = 3;
+    private long candidateIntervalMs = 10;
+    private long mediaFlowDelayMs = 200;
+    private double cpuPerElement = 0.5;
+    private long statsBitrateKbps = 1000;
+    private double statsLossRate = 0.01;
+    private double statsJitterMs = 5;
+    private double statsRttMs = 40;
+    private boolean iceRestartSupported = true;
+    private long recorderLoadMs = 0;
+
+    // Getters and Setters
+    public long getRoundTripMs() { return roundTripMs; }
+    public void setRoundTripMs(long roundTripMs) { this.roundTripMs = roundTripMs; }
+    public long getLatencyMs() { return latencyMs; }
+    public void setLatencyMs(long latencyMs) { this.latencyMs = latencyMs; }
+    public long getJitterMs() { return jitterMs; }
+    public void setJitterMs(long jitterMs) { this.jitterMs = jitterMs; }
+    public Map<String, Long> getMethodLatencyMs() { return methodLatencyMs; }
+    public void setMethodLatencyMs(Map<String, Long> methodLatencyMs) { this.methodLatencyMs = methodLatencyMs; }
+    public double getErrorRate() { return errorRate; }
+    public void setErrorRate(double errorRate) { this.errorRate = errorRate; }
+    public Map<String, Double> getMethodErrorRate() { return methodErrorRate; }
+    public void setMethodErrorRate(Map<String, Double> methodErrorRate) { this.methodErrorRate = methodErrorRate; }
+    public int getMaxPipelines() { return maxPipelines; }
+    public void setMaxPipelines(int maxPipelines) { this.maxPipelines = maxPipelines; }
+    public int getMaxElements() { return maxElements; }
+    public void setMaxElements(int maxElements) { this.maxElements = maxElements; }
+    public int getCandidatesPerGather() { return candidatesPerGather; }
+    public void setCandidatesPerGather(int candidatesPerGather) { this.candidatesPerGather = candidatesPerGather; }
+    public long getCandidateIntervalMs() { return candidateIntervalMs; }
+    public void setCandidateIntervalMs(long candidateIntervalMs) { this.candidateIntervalMs = candidateIntervalMs; }
+    public long getMediaFlowDelayMs() { return mediaFlowDelayMs; }
+    public void setMediaFlowDelayMs(long mediaFlowDelayMs) { this.mediaFlowDelayMs = mediaFlowDelayMs; }
+    public double getCpuPerElement() { return cpuPerElement; }
+    public void setCpuPerElement(double cpuPerElement) { this.cpuPerElement = cpuPerElement; }
+    public long getStatsBitrateKbps() { return statsBitrateKbps; }
+    public void setStatsBitrateKbps(long statsBitrateKbps) { this.statsBitrateKbps = statsBitrateKbps; }
+    public double getStatsLossRate() { return statsLossRate; }
+    public void setStatsLossRate(double statsLossRate) { this.statsLossRate = statsLossRate; }
+    public double getStatsJitterMs() { return statsJitterMs; }
+    public void setStatsJitterMs(double statsJitterMs) { this.statsJitterMs = statsJitterMs; }
+    public double getStatsRttMs() { return statsRttMs; }
+    public void setStatsRttMs(double statsRttMs) { this.statsRttMs = statsRttMs; }
+    public boolean isIceRestartSupported() { return iceRestartSupported; }
+    public void setIceRestartSupported(boolean iceRestartSupported) { this.iceRestartSupported = iceRestartSupported; }
+    public long getRecorderLoadMs() { return recorderLoadMs; }
+    public void setRecorderLoadMs(long recorderLoadMs) { this.recorderLoadMs = recorderLoadMs; }
+}
@@ -0,0 +1,625 @@
+package com.example.fakekms;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Kurento 객체 모델 흉내. create/invoke/release/subscribe를 처리하고,
+ * gatherCandidates와 SDP 협상에 맞춰 IceCandidateFound, IceGatheringDone, IceComponentStateChanged, MediaFlowIn/OutStateChanged 이벤트를 만듭니다.
+ * {@link #failIce(String)}로 ICE 연결이 끊긴 상황을 흉내 낼 수 있습니다.
+ * RecorderEndpoint는 파일을 쓰지 않고 record/stop 상태만 기억하며, 녹화 중인 수만큼 모든 요청의 처리 시간이 늘어납니다
+ * ({@link #getRecordingLoadMillis()}).
+ * 객체는 만든 연결이 끊기면 함께 해제됩니다.
+ */
+public class FakeMediaServer {
+    private static final Logger log = LoggerFactory.getLogger(FakeMediaServer.class);
+
+    public static final String SERVER_MANAGER_ID = "manager_ServerManager";
+    private static final String KMS_VERSION = "7.0.0";
+    private static final Set<String> CREATABLE_TYPES =
+            Set.of("MediaPipeline", "WebRtcEndpoint", "RtpEndpoint", "Composite", "HubPort", "RecorderEndpoint");
+    private static final String[] MEDIA_TYPES = {"AUDIO", "VIDEO"};
+
+    private final FakeKmsProperties properties;
+    private final Map<String, MediaObject> objects = new ConcurrentHashMap<>();
+    private final Map<String, KmsSession> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private int pipelines;
+    private int elements;
+    private int recorders;
+
+    public FakeMediaServer(FakeKmsProperties properties, int threads) {
+        this.properties = properties;
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "fake-kms");
+            thread.setDaemon(true);
+            return thread;
+        });
+        objects.put(SERVER_MANAGER_ID, new MediaObject(SERVER_MANAGER_ID, "ServerManager", null, null));
+    }
+
+    public void schedule(Runnable task, long delayMillis) {
+        if (delayMillis <= 0) {
+            scheduler.execute(task);
+        } else {
+            scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void sessionOpened(KmsSession session) {
+        sessions.put(session.getSessionId(), session);
+    }
+
+    /**
+     * 연결이 끊긴 클라이언트가 만든 객체를 모두 해제한다. 파이프라인을 먼저 지워서 자식이 같이 정리되게 한다.
+     */
+    public void sessionClosed(KmsSession session) {
+        sessions.remove(session.getSessionId());
+        int released = 0;
+        for (MediaObject object : objects.values()) {
+            if (object.getOwner() == session && object.getPipelineId() == null && objects.containsKey(object.getId())) {
+                released += release(object.getId());
+            }
+        }
+        for (MediaObject object : objects.values()) {
+            if (object.getOwner() == session && objects.containsKey(object.getId())) {
+                released += release(object.getId());
+            }
+        }
+        if (released > 0) {
+            log.info("세션 {} 종료, 객체 {}개 해제", session.getSessionId(), released);
+        }
+    }
+
+    public String create(KmsSession session, String type, JsonObject constructorParams) {
+        if (!CREATABLE_TYPES.contains(type)) {
+            throw new KmsException(40100, "MEDIA_OBJECT_TYPE_NOT_FOUND", "지원하지 않는 타입: " + type);
+        }
+        String pipelineId = null;
+        if (!"MediaPipeline".equals(type)) {
+            pipelineId = "HubPort".equals(type)
+                    ? get(stringParam(constructorParams, "composite")).getPipelineId()
+                    : get(stringParam(constructorParams, "mediaPipeline")).getId();
+        }
+        reserve(type);
+        String id = UUID.randomUUID() + "_kurento." + type;
+        if (pipelineId != null) {
+            id = pipelineId + "/" + id;
+        }
+        objects.put(id, new MediaObject(id, type, pipelineId, session));
+        return id;
+    }
+
+    private synchronized void reserve(String type) {
+        if ("MediaPipeline".equals(type)) {
+            if (properties.getMaxPipelines() > 0 && pipelines >= properties.getMaxPipelines()) {
+                throw new KmsException(40004, "NOT_ENOUGH_RESOURCES", "파이프라인 한도 초과: " + pipelines);
+            }
+            pipelines++;
+        } else {
+            if (properties.getMaxElements() > 0 && elements >= properties.getMaxElements()) {
+                throw new KmsException(40004, "NOT_ENOUGH_RESOURCES", "엘리먼트 한도 초과: " + elements);
+            }
+            elements++;
+        }
+    }
+
+    private synchronized void unreserve(String type) {
+        if ("MediaPipeline".equals(type)) {
+            pipelines--;
+        } else {
+            elements--;
+        }
+    }
+
+    /**
+     * @return 반환값이 없는 operation이면 null
+     */
+    public JsonElement invoke(String objectId, String operation, JsonObject params) {
+        MediaObject object = get(objectId);
+        if (SERVER_MANAGER_ID.equals(objectId)) {
+            return invokeServerManager(operation);
+        }
+        switch (operation) {
+            case "getName":
+                return new JsonPrimitive(object.getName());
+            case "setName":
+                object.setName(stringParam(params, "name"));
+                return null;
+            case "getMediaPipeline":
+            case "getParent":
+                return object.getPipelineId() != null ? new JsonPrimitive(object.getPipelineId()) : null;
+            case "getChildren":
+                return childrenOf(objectId);
+            case "connect":
+                connect(object, get(stringParam(params, "sink")));
+                return null;
+            case "disconnect":
+                disconnect(object, get(stringParam(params, "sink")));
+                return null;
+            case "getStats":
+                return object.isEndpoint() ? stats(object) : new JsonObject();
+            default:
+                break;
+        }
+        if ("RecorderEndpoint".equals(object.getType())) {
+            switch (operation) {
+                case "record":
+                    setRecording(object, true);
+                    return null;
+                case "pause":
+                case "stop":
+                case "stopAndWait":
+                    setRecording(object, false);
+                    return null;
+                default:
+                    break;
+            }
+        }
+        if (object.isEndpoint()) {
+            JsonElement result = invokeEndpoint(object, operation, params);
+            if (result != null || isVoidEndpointOperation(operation)) {
+                return result;
+            }
+        }
+        // setStunServerAddress 같은 설정은 받아만 두고, 나머지 getter는 값 없이 응답한다
+        if (operation.startsWith("set") || operation.startsWith("get")) {
+            return null;
+        }
+        throw new KmsException(40105, "MEDIA_OBJECT_METHOD_NOT_FOUND", object.getType() + "에 없는 operation: " + operation);
+    }
+
+    private static boolean isVoidEndpointOperation(String operation) {
+        return "gatherCandidates".equals(operation) || "addIceCandidate".equals(operation);
+    }
+
+    private JsonElement invokeEndpoint(MediaObject endpoint, String operation, JsonObject params) {
+        switch (operation) {
+            case "processOffer": {
+                String offer = stringParam(params, "offer");
+                if (endpoint.getRemoteSdp() != null && !properties.isIceRestartSupported()
+                        && "WebRtcEndpoint".equals(endpoint.getType())) {
+                    throw new KmsException(40214, "SDP_END_POINT_ALREADY_NEGOTIATED", "이미 협상한 엔드포인트: " + endpoint.getId());
+                }
+                String answer = SyntheticSdp.answer(offer);
+                endpoint.setRemoteSdp(offer);
+                endpoint.setLocalSdp(answer);
+                maybeStartFlow(endpoint);
+                return new JsonPrimitive(answer);
+            }
+            case "generateOffer": {
+                String offer = SyntheticSdp.offer();
+                endpoint.setLocalSdp(offer);
+                return new JsonPrimitive(offer);
+            }
+            case "processAnswer": {
+                if (endpoint.getLocalSdp() == null) {
+                    throw new KmsException(40208, "SDP_END_POINT_NO_LOCAL_SDP_ERROR", "generateOffer 전에 processAnswer 호출");
+                }
+                endpoint.setRemoteSdp(stringParam(params, "answer"));
+                maybeStartFlow(endpoint);
+                return new JsonPrimitive(endpoint.getLocalSdp());
+            }
+            case "getLocalSessionDescriptor":
+                return endpoint.getLocalSdp() != null ? new JsonPrimitive(endpoint.getLocalSdp()) : null;
+            case "getRemoteSessionDescriptor":
+                return endpoint.getRemoteSdp() != null ? new JsonPrimitive(endpoint.getRemoteSdp()) : null;
+            case "gatherCandidates":
+                if (!endpoint.isGathering()) {
+                    endpoint.setGathering(true);
+                    gather(endpoint);
+                }
+                return null;
+            case "setMaxVideoSendBandwidth":
+                endpoint.setMaxVideoSendKbps(params.get("maxVideoSendBandwidth").getAsInt());
+                return null;
+            case "setMaxVideoRecvBandwidth":
+                endpoint.setMaxVideoRecvKbps(params.get("maxVideoRecvBandwidth").getAsInt());
+                return null;
+            case "addIceCandidate":
+                if (params == null || !params.has("candidate")) {
+                    throw new KmsException(40107, "MEDIA_OBJECT_ILLEGAL_PARAM_ERROR", "candidate가 없습니다");
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    private JsonElement invokeServerManager(String operation) {
+        switch (operation) {
+            case "getUsedCpu": {
+                double cpu;
+                synchronized (this) {
+                    cpu = elements * properties.getCpuPerElement();
+                }
+                return new JsonPrimitive(Math.min(100.0, cpu));
+            }
+            case "getUsedMemory": {
+                long memoryKb;
+                synchronized (this) {
+                    memoryKb = 200L * 1024 + elements * 4L * 1024;
+                }
+                return new JsonPrimitive(memoryKb);
+            }
+            case "getPipelines": {
+                JsonArray ids = new JsonArray();
+                for (MediaObject object : objects.values()) {
+                    if ("MediaPipeline".equals(object.getType())) {
+                        ids.add(object.getId());
+                    }
+                }
+                return ids;
+            }
+            case "getSessions": {
+                JsonArray ids = new JsonArray();
+                sessions.keySet().forEach(ids::add);
+                return ids;
+            }
+            case "getInfo":
+                return serverInfo();
+            case "getCpuCount":
+                return new JsonPrimitive(Runtime.getRuntime().availableProcessors());
+            case "getMetadata":
+                return new JsonPrimitive("");
+            default:
+                throw new KmsException(40105, "MEDIA_OBJECT_METHOD_NOT_FOUND", "ServerManager에 없는 operation: " + operation);
+        }
+    }
+
+    /**
+     * 실제 KMS 7.0과 같은 모양의 ServerInfo. 만들 수 있는 객체 종류만 core 모듈의 factory로 알린다.
+     */
+    private static JsonObject serverInfo() {
+        JsonArray factories = new JsonArray();
+        for (String type : List.of("MediaPipeline", "WebRtcEndpoint", "RtpEndpoint", "RecorderEndpoint",
+                "PlayerEndpoint", "Composite", "HubPort")) {
+            factories.add(type);
+        }
+        JsonObject core = complexType("ModuleInfo");
+        core.addProperty("version", KMS_VERSION);
+        core.addProperty("name", "core");
+        core.addProperty("generationTime", "");
+        core.add("factories", factories);
+        JsonArray modules = new JsonArray();
+        modules.add(core);
+
+        JsonArray capabilities = new JsonArray();
+        capabilities.add("transactions");
+
+        JsonObject info = complexType("ServerInfo");
+        info.addProperty("version", KMS_VERSION);
+        info.add("modules", modules);
+        info.addProperty("type", "KMS");
+        info.add("capabilities", capabilities);
+        return info;
+    }
+
+    /**
+     * 클라이언트는 __module__과 __type__으로 복합 타입 클래스를 찾는다.
+     */
+    private static JsonObject complexType(String type) {
+        JsonObject value = new JsonObject();
+        value.addProperty("__module__", "kurento");
+        value.addProperty("__type__", type);
+        return value;
+    }
+
+    /**
+     * @return 해제한 객체 수 (파이프라인이면 자식 포함)
+     */
+    public int release(String objectId) {
+        MediaObject object = get(objectId);
+        if (SERVER_MANAGER_ID.equals(objectId)) {
+            throw new KmsException(40107, "MEDIA_OBJECT_ILLEGAL_PARAM_ERROR", "ServerManager는 해제할 수 없습니다");
+        }
+        int released = 0;
+        if (object.getPipelineId() == null) {
+            for (MediaObject child : objects.values()) {
+                if (objectId.equals(child.getPipelineId())) {
+                    released += remove(child);
+                }
+            }
+        }
+        return released + remove(object);
+    }
+
+    private int remove(MediaObject object) {
+        if (objects.remove(object.getId()) == null) {
+            return 0;
+        }
+        unreserve(object.getType());
+        setRecording(object, false);
+        for (String sink : object.getSinks()) {
+            MediaObject other = objects.get(sink);
+            if (other != null) {
+                other.getSources().remove(object.getId());
+            }
+        }
+        for (String source : object.getSources()) {
+            MediaObject other = objects.get(source);
+            if (other != null) {
+                other.getSinks().remove(object.getId());
+            }
+        }
+        return 1;
+    }
+
+    public String subscribe(KmsSession session, String objectId, String eventType) {
+        MediaObject object = get(objectId);
+        String subscriptionId = UUID.randomUUID().toString();
+        object.getSubscriptions().put(subscriptionId, new MediaObject.Subscription(eventType, session));
+        return subscriptionId;
+    }
+
+    public void unsubscribe(String objectId, String subscriptionId) {
+        get(objectId).getSubscriptions().remove(subscriptionId);
+    }
+
+    public String describe(String objectId) {
+        return get(objectId).getType();
+    }
+
+    public synchronized int getPipelineCount() {
+        return pipelines;
+    }
+
+    public synchronized int getElementCount() {
+        return elements;
+    }
+
+    private void setRecording(MediaObject recorder, boolean recording) {
+        if (recorder.setRecording(recording)) {
+            synchronized (this) {
+                recorders += recording ? 1 : -1;
+            }
+        }
+    }
+
+    public synchronized int getRecorderCount() {
+        return recorders;
+    }
+
+    /**
+     * 녹화 중인 RecorderEndpoint가 이 서버의 CPU와 디스크를 나눠 쓰는 만큼 요청마다 더해지는 처리 시간.
+     */
+    public synchronized long getRecordingLoadMillis() {
+        return recorders * properties.getRecorderLoadMs();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void connect(MediaObject source, MediaObject sink) {
+        source.getSinks().add(sink.getId());
+        sink.getSources().add(source.getId());
+        maybeStartFlow(sink);
+    }
+
+    private void disconnect(MediaObject source, MediaObject sink) {
+        source.getSinks().remove(sink.getId());
+        sink.getSources().remove(source.getId());
+    }
+
+    private JsonArray childrenOf(String pipelineId) {
+        JsonArray children = new JsonArray();
+        for (MediaObject object : objects.values()) {
+            if (pipelineId.equals(object.getPipelineId())) {
+                children.add(object.getId());
+            }
+        }
+        return children;
+    }
+
+    private void gather(MediaObject endpoint) {
+        int count = properties.getCandidatesPerGather();
+        long interval = properties.getCandidateIntervalMs();
+        for (int i = 0; i < count; i++) {
+            JsonObject candidate = new JsonObject();
+            candidate.addProperty("__module__", "kurento");
+            candidate.addProperty("__type__", "IceCandidate");
+            candidate.addProperty("candidate", "candidate:" + (i + 1) + " 1 UDP " + (2015363327 - i)
+                    + " 127.0.0.1 " + (5000 + i) + " typ host");
+            candidate.addProperty("sdpMid", "0");
+            candidate.addProperty("sdpMLineIndex", 0);
+            JsonObject data = new JsonObject();
+            data.add("candidate", candidate);
+            schedule(() -> emit(endpoint, "IceCandidateFound", data), (i + 1) * interval);
+        }
+        schedule(() -> {
+            emit(endpoint, "IceGatheringDone", new JsonObject());
+            maybeStartFlow(endpoint);
+        }, (count + 1) * interval);
+    }
+
+    /**
+     * 엔드포인트의 ICE 연결이 끊긴 것처럼 IceComponentStateChanged FAILED와 MediaFlow NOT_FLOWING을 보낸다.
+     * 클라이언트가 ICE 재시작으로 processOffer와 gatherCandidates를 다시 부르면 CONNECTED와 FLOWING을 다시 보낸다.
+     *
+     * @return 협상을 마친 엔드포인트가 아니면 false
+     */
+    public boolean failIce(String endpointId) {
+        MediaObject endpoint = objects.get(endpointId);
+        if (endpoint == null || !"WebRtcEndpoint".equals(endpoint.getType()) || endpoint.getRemoteSdp() == null) {
+            return false;
+        }
+        endpoint.resetFlow();
+        JsonObject state = new JsonObject();
+        state.addProperty("state", "FAILED");
+        state.addProperty("streamId", 1);
+        state.addProperty("componentId", 1);
+        emit(endpoint, "IceComponentStateChanged", state);
+        JsonObject connection = new JsonObject();
+        connection.addProperty("oldState", "CONNECTED");
+        connection.addProperty("newState", "DISCONNECTED");
+        emit(endpoint, "ConnectionStateChanged", connection);
+        emitFlow(endpoint, "NOT_FLOWING");
+        return true;
+    }
+
+    /**
+     * SDP 협상이 끝나고 (WebRtcEndpoint는 후보 수집까지 끝나고) media-flow-delay-ms 뒤에 FLOWING 이벤트를 보낸다.
+     * 다른 엘리먼트에 연결된 수신용 엔드포인트는 MediaFlowOut, 브라우저가 보내는 송신자 엔드포인트는 MediaFlowIn을 받는다.
+     */
+    private void maybeStartFlow(MediaObject endpoint) {
+        if (!endpoint.isEndpoint() || endpoint.getRemoteSdp() == null) {
+            return;
+        }
+        if ("WebRtcEndpoint".equals(endpoint.getType()) && !endpoint.isGathering()) {
+            return;
+        }
+        if (!endpoint.markFlowScheduled()) {
+            return;
+        }
+        schedule(() -> {
+            if (!objects.containsKey(endpoint.getId())) {
+                return;
+            }
+            if ("WebRtcEndpoint".equals(endpoint.getType())) {
+                JsonObject state = new JsonObject();
+                state.addProperty("state", "CONNECTED");
+                state.addProperty("streamId", 1);
+                state.addProperty("componentId", 1);
+                emit(endpoint, "IceComponentStateChanged", state);
+            }
+            endpoint.setFlowingSince(System.currentTimeMillis());
+            emitFlow(endpoint, "FLOWING");
+        }, properties.getMediaFlowDelayMs());
+    }
+
+    private void emitFlow(MediaObject endpoint, String state) {
+        boolean fedByElement = endpoint.getSources().stream().anyMatch(source -> !source.equals(endpoint.getId()));
+        String eventType = fedByElement ? "MediaFlowOutStateChanged" : "MediaFlowInStateChanged";
+        for (String mediaType : MEDIA_TYPES) {
+            JsonObject data = new JsonObject();
+            data.addProperty("state", state);
+            data.addProperty("padName", "default");
+            data.addProperty("mediaType", mediaType);
+            emit(endpoint, eventType, data);
+        }
+    }
+
+    /**
+     * FLOWING 이후 누적된 RTP 통계. 다른 엘리먼트에 연결된 수신용 엔드포인트는 KMS가 보내는 쪽이므로
+     * RTCOutboundRTPStreamStats, 브라우저가 보내는 송신자 엔드포인트는 RTCInboundRTPStreamStats를 미디어 종류마다 하나씩 돌려준다.
+     * 영상 비트레이트는 setMaxVideoSendBandwidth(수신용) / setMaxVideoRecvBandwidth(송신자) 상한을 따른다.
+     */
+    private JsonObject stats(MediaObject endpoint) {
+        JsonObject stats = new JsonObject();
+        if (endpoint.getFlowingSince() == 0) {
+            return stats;
+        }
+        long now = System.currentTimeMillis();
+        boolean fedByElement = endpoint.getSources().stream().anyMatch(source -> !source.equals(endpoint.getId()));
+        long audioKbps = Math.min(40, properties.getStatsBitrateKbps() / 10);
+        long videoKbps = properties.getStatsBitrateKbps() - audioKbps;
+        int cap = fedByElement ? endpoint.getMaxVideoSendKbps() : endpoint.getMaxVideoRecvKbps();
+        if (cap > 0) {
+            videoKbps = Math.min(videoKbps, cap);
+        }
+        long[] totals = endpoint.advanceStats(now, audioKbps, videoKbps);
+        for (int m = 0; m < MEDIA_TYPES.length; m++) {
+            String mediaType = MEDIA_TYPES[m];
+            boolean audio = m == 0;
+            long kbps = audio ? audioKbps : videoKbps;
+            int packetSize = audio ? 160 : 1000;
+            long bytes = totals[m];
+            long packets = bytes / packetSize;
+            long lost = (long) (packets * properties.getStatsLossRate());
+
+            String id = endpoint.getId() + "_" + mediaType.toLowerCase();
+            JsonObject stream = new JsonObject();
+            stream.addProperty("__module__", "kurento");
+            stream.addProperty("__type__", fedByElement ? "RTCOutboundRTPStreamStats" : "RTCInboundRTPStreamStats");
+            stream.addProperty("id", id);
+            stream.addProperty("type", fedByElement ? "outboundrtp" : "inboundrtp");
+            stream.addProperty("timestamp", now / 1000.0);
+            stream.addProperty("timestampMillis", now);
+            stream.addProperty("ssrc", String.valueOf(Math.abs(id.hashCode())));
+            stream.addProperty("associateStatsId", "");
+            stream.addProperty("isRemote", false);
+            stream.addProperty("mediaTrackId", mediaType.toLowerCase());
+            stream.addProperty("transportId", "");
+            stream.addProperty("codecId", audio ? "opus" : "VP8");
+            stream.addProperty("firCount", 0);
+            stream.addProperty("pliCount", 0);
+            stream.addProperty("nackCount", lost);
+            stream.addProperty("sliCount", 0);
+            stream.addProperty("remb", audio ? 0 : kbps * 1000);
+            stream.addProperty("packetsLost", lost);
+            stream.addProperty("fractionLost", properties.getStatsLossRate() * 256);
+            if (fedByElement) {
+                stream.addProperty("packetsSent", packets);
+                stream.addProperty("bytesSent", bytes);
+                stream.addProperty("targetBitrate", kbps * 1000.0);
+                stream.addProperty("roundTripTime", properties.getStatsRttMs() / 1000.0);
+            } else {
+                stream.addProperty("packetsReceived", packets - lost);
+                stream.addProperty("bytesReceived", bytes);
+                stream.addProperty("jitter", properties.getStatsJitterMs() / 1000.0);
+            }
+            stats.add(id, stream);
+        }
+        return stats;
+    }
+
+    private void emit(MediaObject object, String eventType, JsonObject fields) {
+        if (object.getSubscriptions().isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        JsonObject data = fields.deepCopy();
+        data.addProperty("source", object.getId());
+        data.add("tags", new JsonArray());
+        data.addProperty("timestamp", String.valueOf(now / 1000));
+        data.addProperty("timestampMillis", String.valueOf(now));
+        data.addProperty("type", eventType);
+
+        JsonObject value = new JsonObject();
+        value.add("data", data);
+        value.addProperty("object", object.getId());
+        value.addProperty("type", eventType);
+        JsonObject params = new JsonObject();
+        params.add("value", value);
+        JsonObject notification = new JsonObject();
+        notification.addProperty("jsonrpc", "2.0");
+        notification.addProperty("method", "onEvent");
+        notification.add("params", params);
+
+        for (MediaObject.Subscription subscription : object.getSubscriptions().values()) {
+            if (subscription.eventType().equals(eventType) && subscription.session().isOpen()) {
+                subscription.session().send(notification);
+            }
+        }
+    }
+
+    private MediaObject get(String objectId) {
+        MediaObject object = objectId != null ? objects.get(objectId) : null;
+        if (object == null) {
+            throw new KmsException(40101, "MEDIA_OBJECT_NOT_FOUND", "객체를 찾을 수 없습니다: " + objectId);
+        }
+        return object;
+    }
+
+    private static String stringParam(JsonObject params, String name) {
+        if (params == null || !params.has(name) || params.get(name).isJsonNull()) {
+            throw new KmsException(40107, "MEDIA_OBJECT_ILLEGAL_PARAM_ERROR", "파라미터가 없습니다: " + name);
+        }
+        return params.get(name).getAsString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.fakekms;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 요청마다 응답 지연과 실패 여부를 정합니다.
+ */
+public class FaultInjector {
+    private final FakeKmsProperties properties;
+
+    public FaultInjector(FakeKmsProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 메서드별 처리 시간(없으면 기본값). 왕복 시간은 포함하지 않는다.
+     */
+    public long processingMillis(String method) {
+        return properties.getMethodLatencyMs().getOrDefault(method, properties.getLatencyMs());
+    }
+
+    /**
+     * 왕복 시간 + 처리 시간에 ±jitter 범위의 균등 분포 값을 더한다. 음수는 0으로 자른다.
+     */
+    public long responseDelayMillis(long processingMillis) {
+        long delay = properties.getRoundTripMs() + processingMillis;
+        long jitter = properties.getJitterMs();
+        if (jitter > 0) {
+            delay += ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+        }
+        return Math.max(0, delay);
+    }
+
+    public boolean shouldFail(String method) {
+        double rate = properties.getMethodErrorRate().getOrDefault(method, properties.getErrorRate());
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.fakekms;
+
+/**
+ * 클라이언트에 JSON-RPC error로 돌려줄 실패. type은 Kurento가 error.data.type에 넣는 값입니다.
+ */
+public class KmsException extends RuntimeException {
+    private final int code;
+    private final String type;
+
+    public KmsException(int code, String type, String message) {
+        super(message);
+        this.code = code;
+        this.type = type;
+    }
+
+    public int getCode() { return code; }
+    public String getType() { return type; }
+}
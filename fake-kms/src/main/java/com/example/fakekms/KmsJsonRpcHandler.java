@@ -0,0 +1,297 @@
+package com.example.fakekms;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * KurentoClient가 보내는 JSON-RPC 2.0 요청(create, invoke, release, subscribe, unsubscribe, transaction, describe, connect, ping)을 처리합니다.
+ * 응답은 FaultInjector가 정한 지연 뒤에 스케줄러 스레드에서 보내므로, 한 연결의 요청들이 실제 KMS처럼 동시에 진행됩니다.
+ */
+public class KmsJsonRpcHandler extends TextWebSocketHandler {
+    private static final Logger log = LoggerFactory.getLogger(KmsJsonRpcHandler.class);
+
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+    private static final int BUFFER_SIZE_LIMIT = 16 * 1024 * 1024;
+    private static final Map<String, List<String>> HIERARCHY = Map.of(
+            "MediaPipeline", List.of("kurento.MediaObject"),
+            "WebRtcEndpoint", List.of("kurento.BaseRtpEndpoint", "kurento.SdpEndpoint", "kurento.SessionEndpoint",
+                    "kurento.Endpoint", "kurento.MediaElement", "kurento.MediaObject"),
+            "RtpEndpoint", List.of("kurento.BaseRtpEndpoint", "kurento.SdpEndpoint", "kurento.SessionEndpoint",
+                    "kurento.Endpoint", "kurento.MediaElement", "kurento.MediaObject"),
+            "Composite", List.of("kurento.Hub", "kurento.MediaObject"),
+            "HubPort", List.of("kurento.MediaElement", "kurento.MediaObject"),
+            "ServerManager", List.of("kurento.MediaObject"));
+    private static final String NEW_REF = "newref:";
+
+    private final FakeMediaServer server;
+    private final FaultInjector faults;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    // 받은 요청 수. 트랜잭션은 operation 수와 상관없이 한 번으로 센다 (KMS 왕복 수)
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+
+    public KmsJsonRpcHandler(FakeMediaServer server, FaultInjector faults) {
+        this.server = server;
+        this.faults = faults;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession webSocketSession) {
+        Session session = new Session(UUID.randomUUID().toString(),
+                new ConcurrentWebSocketSessionDecorator(webSocketSession, SEND_TIME_LIMIT_MS, BUFFER_SIZE_LIMIT));
+        sessions.put(webSocketSession.getId(), session);
+        server.sessionOpened(session);
+        log.info("KurentoClient 연결: {}", session.getSessionId());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession webSocketSession, CloseStatus status) {
+        Session session = sessions.remove(webSocketSession.getId());
+        if (session != null) {
+            server.sessionClosed(session);
+            log.info("KurentoClient 연결 종료: {} ({})", session.getSessionId(), status);
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession webSocketSession, TextMessage message) {
+        Session session = sessions.get(webSocketSession.getId());
+        JsonObject request = JsonParser.parseString(message.getPayload()).getAsJsonObject();
+        if (session == null || !request.has("id")) {
+            // 클라이언트가 보내는 알림은 없으므로 id 없는 메시지는 무시한다
+            return;
+        }
+        requestCounts.computeIfAbsent(faultKey(request), k -> new AtomicLong()).incrementAndGet();
+        long processing;
+        if ("transaction".equals(request.get("method").getAsString())) {
+            processing = faults.processingMillis("transaction");
+            for (JsonElement operation : params(request).getAsJsonArray("operations")) {
+                processing += faults.processingMillis(faultKey(operation.getAsJsonObject()));
+            }
+        } else {
+            processing = faults.processingMillis(faultKey(request));
+        }
+        processing += server.getRecordingLoadMillis();
+        server.schedule(() -> session.send(respond(session, request)), faults.responseDelayMillis(processing));
+    }
+
+    private JsonObject respond(Session session, JsonObject request) {
+        JsonObject response = new JsonObject();
+        response.addProperty("jsonrpc", "2.0");
+        response.add("id", request.get("id"));
+        String key = faultKey(request);
+        try {
+            if (faults.shouldFail(key)) {
+                throw new KmsException(40000, "UNEXPECTED_ERROR", "주입된 오류: " + key);
+            }
+            response.add("result", handle(session, request.get("method").getAsString(), params(request)));
+        } catch (KmsException e) {
+            response.add("error", error(e.getCode(), e.getType(), e.getMessage()));
+        } catch (RuntimeException e) {
+            log.warn("요청 처리 실패 - {}: {}", key, e.getMessage());
+            response.add("error", error(-32602, "MEDIA_OBJECT_ILLEGAL_PARAM_ERROR", String.valueOf(e.getMessage())));
+        }
+        return response;
+    }
+
+    private JsonObject handle(Session session, String method, JsonObject params) {
+        JsonObject result = new JsonObject();
+        switch (method) {
+            case "create":
+                result.addProperty("value", server.create(session, params.get("type").getAsString(),
+                        params.getAsJsonObject("constructorParams")));
+                break;
+            case "invoke": {
+                JsonElement value = server.invoke(params.get("object").getAsString(),
+                        params.get("operation").getAsString(), params.getAsJsonObject("operationParams"));
+                if (value != null) {
+                    result.add("value", value);
+                }
+                break;
+            }
+            case "release":
+                server.release(params.get("object").getAsString());
+                break;
+            case "subscribe":
+                result.addProperty("value", server.subscribe(session, params.get("object").getAsString(),
+                        params.get("type").getAsString()));
+                break;
+            case "unsubscribe":
+                server.unsubscribe(params.get("object").getAsString(), params.get("subscription").getAsString());
+                break;
+            case "describe": {
+                String type = server.describe(params.get("object").getAsString());
+                JsonArray hierarchy = new JsonArray();
+                HIERARCHY.getOrDefault(type, List.of()).forEach(hierarchy::add);
+                result.addProperty("type", type);
+                result.addProperty("qualifiedType", "kurento." + type);
+                result.add("hierarchy", hierarchy);
+                break;
+            }
+            case "transaction": {
+                // operation마다 따로 성공/실패를 돌려준다. 지연은 handleTextMessage에서 한 번에 반영했다
+                JsonArray responses = new JsonArray();
+                Map<String, JsonElement> created = new HashMap<>();
+                List<JsonElement> createdInOrder = new ArrayList<>();
+                for (JsonElement element : params.getAsJsonArray("operations")) {
+                    JsonObject operation = resolveNewRefs(element, created, createdInOrder).getAsJsonObject();
+                    JsonObject response = respond(session, operation);
+                    if ("create".equals(operation.get("method").getAsString()) && response.has("result")) {
+                        JsonElement id = response.getAsJsonObject("result").get("value");
+                        created.put(operation.has("id") ? operation.get("id").getAsString()
+                                : String.valueOf(responses.size()), id);
+                        createdInOrder.add(id);
+                    }
+                    responses.add(response);
+                }
+                result.add("value", responses);
+                break;
+            }
+            case "ping":
+                result.addProperty("value", "pong");
+                return result;
+            case "connect":
+                break;
+            default:
+                throw new KmsException(-32601, "METHOD_NOT_FOUND", "지원하지 않는 메서드: " + method);
+        }
+        result.addProperty("sessionId", session.getSessionId());
+        return result;
+    }
+
+    /**
+     * 같은 트랜잭션에서 만든 객체를 가리키는 "newref:N"을 실제 id로 바꾼다. N은 create operation의 요청 id이며,
+     * 그 id가 없으면 트랜잭션 안에서 N번째로 만든 객체로 본다. 아직 만들지 못한 객체면 그대로 두어 없는 객체 오류가 나게 한다.
+     */
+    private static JsonElement resolveNewRefs(JsonElement element, Map<String, JsonElement> created,
+                                              List<JsonElement> createdInOrder) {
+        if (element.isJsonPrimitive() && element.getAsJsonPrimitive().isString()) {
+            String value = element.getAsString();
+            if (!value.startsWith(NEW_REF)) {
+                return element;
+            }
+            String ref = value.substring(NEW_REF.length());
+            JsonElement id = created.get(ref);
+            if (id == null && !ref.isEmpty() && ref.chars().allMatch(Character::isDigit)
+                    && Integer.parseInt(ref) < createdInOrder.size()) {
+                id = createdInOrder.get(Integer.parseInt(ref));
+            }
+            return id != null ? id : element;
+        }
+        if (element.isJsonObject()) {
+            JsonObject resolved = new JsonObject();
+            element.getAsJsonObject().entrySet().forEach(entry ->
+                    resolved.add(entry.getKey(), resolveNewRefs(entry.getValue(), created, createdInOrder)));
+            return resolved;
+        }
+        if (element.isJsonArray()) {
+            JsonArray resolved = new JsonArray();
+            element.getAsJsonArray().forEach(item -> resolved.add(resolveNewRefs(item, created, createdInOrder)));
+            return resolved;
+        }
+        return element;
+    }
+
+    /**
+     * 지금까지 받은 요청 수를 메서드별로 (invoke는 operation 이름). 벤치마크가 KMS 왕복 수를 셀 때 쓴다.
+     */
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        requestCounts.forEach((key, count) -> counts.put(key, count.get()));
+        return counts;
+    }
+
+    /**
+     * ping을 뺀 전체 요청 수
+     */
+    public long getRequestCount() {
+        return requestCounts.entrySet().stream()
+                .filter(entry -> !"ping".equals(entry.getKey()))
+                .mapToLong(entry -> entry.getValue().get())
+                .sum();
+    }
+
+    public void resetRequestCounts() {
+        requestCounts.clear();
+    }
+
+    /**
+     * invoke는 operation 이름, 나머지는 JSON-RPC 메서드 이름으로 지연/오류 설정을 찾는다.
+     */
+    private static String faultKey(JsonObject request) {
+        String method = request.get("method").getAsString();
+        if ("invoke".equals(method)) {
+            JsonObject params = params(request);
+            if (params != null && params.has("operation")) {
+                return params.get("operation").getAsString();
+            }
+        }
+        return method;
+    }
+
+    private static JsonObject params(JsonObject request) {
+        JsonElement params = request.get("params");
+        return params != null && params.isJsonObject() ? params.getAsJsonObject() : new JsonObject();
+    }
+
+    private static JsonObject error(int code, String type, String message) {
+        JsonObject data = new JsonObject();
+        data.addProperty("type", type);
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        error.add("data", data);
+        return error;
+    }
+
+    private static final class Session implements KmsSession {
+        private final String sessionId;
+        private final WebSocketSession webSocketSession;
+
+        private Session(String sessionId, WebSocketSession webSocketSession) {
+            this.sessionId = sessionId;
+            this.webSocketSession = webSocketSession;
+        }
+
+        @Override
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return webSocketSession.isOpen();
+        }
+
+        @Override
+        public void send(JsonObject message) {
+            if (!webSocketSession.isOpen()) {
+                return;
+            }
+            try {
+                webSocketSession.sendMessage(new TextMessage(message.toString()));
+            } catch (IOException | IllegalStateException e) {
+                log.warn("KurentoClient {}에 보내기 실패: {}", sessionId, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.fakekms;
+
+import com.google.gson.JsonObject;
+
+/**
+ * KurentoClient 연결 하나. 응답과 onEvent 알림을 보낼 대상입니다.
+ */
+public interface KmsSession {
+
+    String getSessionId();
+
+    boolean isOpen();
+
+    void send(JsonObject message);
+}
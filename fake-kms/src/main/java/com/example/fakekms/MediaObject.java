@@ -0,0 +1,109 @@
+package com.example.fakekms;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 가짜 KMS가 관리하는 미디어 객체 하나. 실제 미디어는 없고 연결 관계, SDP, 구독만 기억합니다.
+ */
+public class MediaObject {
+    private final String id;
+    private final String type;
+    private final String pipelineId;
+    private final KmsSession owner;
+    private final Set<String> sources = ConcurrentHashMap.newKeySet();
+    private final Set<String> sinks = ConcurrentHashMap.newKeySet();
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicBoolean flowScheduled = new AtomicBoolean();
+    /** RecorderEndpoint가 record를 받고 아직 stop/pause를 받지 않았다 */
+    private final AtomicBoolean recording = new AtomicBoolean();
+    private volatile String name;
+    private volatile String localSdp;
+    private volatile String remoteSdp;
+    private volatile boolean gathering;
+    /** MediaFlow FLOWING 이벤트를 보낸 시각 (epoch ms). 0이면 아직 미디어가 흐르지 않는다 */
+    private volatile long flowingSince;
+    /** setMaxVideoSendBandwidth / setMaxVideoRecvBandwidth 값 (kbps, 0이면 제한 없음) */
+    private volatile int maxVideoSendKbps;
+    private volatile int maxVideoRecvKbps;
+    /** 합성 통계의 누적 바이트 (AUDIO, VIDEO)와 마지막 갱신 시각 */
+    private final long[] statsBytes = new long[2];
+    private long statsAt;
+
+    public record Subscription(String eventType, KmsSession session) {
+    }
+
+    public MediaObject(String id, String type, String pipelineId, KmsSession owner) {
+        this.id = id;
+        this.type = type;
+        this.pipelineId = pipelineId;
+        this.owner = owner;
+        this.name = id;
+    }
+
+    public boolean isEndpoint() {
+        return "WebRtcEndpoint".equals(type) || "RtpEndpoint".equals(type);
+    }
+
+    /**
+     * MediaFlowIn/Out 이벤트는 엔드포인트마다 한 번만 만든다.
+     */
+    boolean markFlowScheduled() {
+        return flowScheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * ICE 연결이 끊긴 상태로 되돌린다. 다시 processOffer와 gatherCandidates를 받으면 FLOWING 이벤트를 새로 만든다.
+     */
+    void resetFlow() {
+        gathering = false;
+        flowingSince = 0;
+        flowScheduled.set(false);
+    }
+
+    /**
+     * @return 녹화 상태가 실제로 바뀌었으면 true
+     */
+    boolean setRecording(boolean value) {
+        return recording.compareAndSet(!value, value);
+    }
+
+    /**
+     * 마지막 갱신 이후 경과 시간만큼 미디어 종류별 누적 바이트를 늘린다. 비트레이트가 중간에 바뀌어도 누적값은 줄지 않는다.
+     *
+     * @return {AUDIO 바이트, VIDEO 바이트}
+     */
+    synchronized long[] advanceStats(long now, long audioKbps, long videoKbps) {
+        long from = statsAt > 0 ? statsAt : flowingSince;
+        long elapsed = Math.max(0, now - from);
+        statsBytes[0] += elapsed * audioKbps / 8;
+        statsBytes[1] += elapsed * videoKbps / 8;
+        statsAt = now;
+        return statsBytes.clone();
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public String getType() { return type; }
+    public String getPipelineId() { return pipelineId; }
+    public KmsSession getOwner() { return owner; }
+    public Set<String> getSources() { return sources; }
+    public Set<String> getSinks() { return sinks; }
+    public Map<String, Subscription> getSubscriptions() { return subscriptions; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getLocalSdp() { return localSdp; }
+    public void setLocalSdp(String localSdp) { this.localSdp = localSdp; }
+    public String getRemoteSdp() { return remoteSdp; }
+    public void setRemoteSdp(String remoteSdp) { this.remoteSdp = remoteSdp; }
+    public boolean isGathering() { return gathering; }
+    public void setGathering(boolean gathering) { this.gathering = gathering; }
+    public long getFlowingSince() { return flowingSince; }
+    public void setFlowingSince(long flowingSince) { this.flowingSince = flowingSince; }
+    public int getMaxVideoSendKbps() { return maxVideoSendKbps; }
+    public void setMaxVideoSendKbps(int maxVideoSendKbps) { this.maxVideoSendKbps = maxVideoSendKbps; }
+    public int getMaxVideoRecvKbps() { return maxVideoRecvKbps; }
+    public void setMaxVideoRecvKbps(int maxVideoRecvKbps) { this.maxVideoRecvKbps = maxVideoRecvKbps; }
+}
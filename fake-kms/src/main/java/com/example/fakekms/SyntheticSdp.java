@@ -0,0 +1,77 @@
+package com.example.fakekms;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 실제 협상 없이 형식만 맞는 SDP를 만듭니다.
+ * answer는 offer의 m= 라인과 코덱 속성을 그대로 따르고, 방향(sendonly/recvonly)만 뒤집습니다.
+ */
+final class SyntheticSdp {
+    private static final String FINGERPRINT = "a=fingerprint:sha-256 "
+            + "4A:AD:B9:B1:3F:82:18:3B:54:02:12:DF:3E:5D:49:6B:19:E5:7C:AB:4A:AD:B9:B1:3F:82:18:3B:54:02:12:DF";
+
+    private SyntheticSdp() {
+    }
+
+    static String offer() {
+        StringBuilder sdp = header();
+        sdp.append("a=group:BUNDLE 0 1\r\n");
+        media(sdp, "m=audio 9 UDP/TLS/RTP/SAVPF 111", "0", "actpass");
+        sdp.append("a=rtpmap:111 opus/48000/2\r\na=sendrecv\r\n");
+        media(sdp, "m=video 9 UDP/TLS/RTP/SAVPF 96", "1", "actpass");
+        sdp.append("a=rtpmap:96 VP8/90000\r\na=rtcp-fb:96 nack pli\r\na=sendrecv\r\n");
+        return sdp.toString();
+    }
+
+    static String answer(String offer) {
+        if (offer == null || !offer.startsWith("v=0")) {
+            throw new KmsException(40208, "SDP_PARSE_ERROR", "SDP offer를 해석할 수 없습니다");
+        }
+        StringBuilder sdp = header();
+        boolean inMedia = false;
+        int mid = 0;
+        for (String line : offer.split("\r?\n")) {
+            if (line.startsWith("m=")) {
+                inMedia = true;
+                media(sdp, line, String.valueOf(mid++), "active");
+            } else if (!inMedia) {
+                if (line.startsWith("a=group:") || line.startsWith("a=msid-semantic")) {
+                    sdp.append(line).append("\r\n");
+                }
+            } else if (line.startsWith("a=rtpmap:") || line.startsWith("a=fmtp:") || line.startsWith("a=rtcp-fb:")
+                    || line.startsWith("a=extmap:")) {
+                sdp.append(line).append("\r\n");
+            } else if (line.startsWith("a=mid:")) {
+                // media()가 순번으로 넣은 mid를 offer 값으로 바꾼다
+                int start = sdp.lastIndexOf("a=mid:");
+                sdp.replace(start, sdp.indexOf("\r\n", start), line);
+            } else if (line.equals("a=sendonly")) {
+                sdp.append("a=recvonly\r\n");
+            } else if (line.equals("a=recvonly")) {
+                sdp.append("a=sendonly\r\n");
+            } else if (line.equals("a=sendrecv") || line.equals("a=inactive")) {
+                sdp.append(line).append("\r\n");
+            }
+        }
+        if (mid == 0) {
+            throw new KmsException(40208, "SDP_PARSE_ERROR", "SDP offer에 m= 라인이 없습니다");
+        }
+        return sdp.toString();
+    }
+
+    private static StringBuilder header() {
+        StringBuilder sdp = new StringBuilder(1024);
+        sdp.append("v=0\r\no=- ").append(ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE))
+                .append(" 0 IN IP4 127.0.0.1\r\ns=Kurento Media Server\r\nt=0 0\r\n");
+        return sdp;
+    }
+
+    private static void media(StringBuilder sdp, String mLine, String mid, String setup) {
+        sdp.append(mLine).append("\r\nc=IN IP4 127.0.0.1\r\n")
+                .append("a=mid:").append(mid).append("\r\n")
+                .append("a=ice-ufrag:fake\r\na=ice-pwd:fakekmsfakekmsfakekms00\r\n")
+                .append(FINGERPRINT).append("\r\n")
+                .append("a=setup:").append(setup).append("\r\n")
+                .append("a=rtcp-mux\r\n");
+    }
+}
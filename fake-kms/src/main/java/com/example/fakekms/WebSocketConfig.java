@@ -0,0 +1,33 @@
+package com.example.fakekms;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+@EnableWebSocket
+@Configuration
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final KmsJsonRpcHandler kmsJsonRpcHandler;
+
+    public WebSocketConfig(KmsJsonRpcHandler kmsJsonRpcHandler) {
+        this.kmsJsonRpcHandler = kmsJsonRpcHandler;
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean createServletServerContainerFactoryBean() {
+        // transaction 요청은 operation 수만큼 커지므로 넉넉하게 잡는다
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(1024 * 1024);
+        container.setMaxBinaryMessageBufferSize(32768);
+        return container;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(kmsJsonRpcHandler, "/kurento");
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.fakekms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.kurento.client.KurentoClient;
+import org.kurento.client.ServerInfo;
+import org.kurento.client.ServerManager;
+import org.kurento.client.ServerType;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+// WebSocket 서버 컨테이너 설정은 실제 서블릿 컨텍스트가 있어야 만들어진다
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class FakeKmsApplicationTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void contextLoads() {
+    }
+
+    @Test
+    void serverManagerAnswersMonitorProperties() {
+        KurentoClient client = KurentoClient.create("ws://127.0.0.1:" + port + "/kurento");
+        try {
+            ServerManager serverManager = client.getServerManager();
+            ServerInfo info = serverManager.getInfo();
+
+            assertEquals("7.0.0", info.getVersion());
+            assertEquals(ServerType.KMS, info.getType());
+            assertTrue(info.getCapabilities().contains("transactions"));
+            assertTrue(info.getModules().get(0).getFactories().contains("WebRtcEndpoint"));
+            assertTrue(serverManager.getCpuCount() > 0);
+            assertEquals("", serverManager.getMetadata());
+            assertEquals(1, serverManager.getSessions().size(), "이 클라이언트의 세션만 있어야 합니다");
+        } finally {
+            client.destroy();
+        }
+    }
+}
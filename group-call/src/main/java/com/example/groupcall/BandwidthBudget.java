@@ -0,0 +1,62 @@
+package com.example.groupcall;
+
+/**
+ * 방 대역폭 정책. 수신자 한 명의 하향 예산(클라이언트가 보고한 값, 없으면 기본값)을 받는 영상 수로 나눠
+ * 수신 엔드포인트마다 setMax/MinVideoSendBandwidth 상한을 정하고, 송신자의 setMaxVideoRecvBandwidth는
+ * 그 송신자를 받는 수신자들의 상한 중 가장 큰 값으로 맞춥니다 (아무도 그보다 많이 받지 않으므로).
+ * CallHandler.init에서 설정하며, downlinkKbps가 0이면 KMS 기본 대역폭을 그대로 씁니다.
+ */
+public final class BandwidthBudget {
+    private static volatile int downlinkKbps;
+    private static volatile int maxStreamKbps = 2500;
+    private static volatile int minStreamKbps = 150;
+    private static volatile int publisherMaxKbps = 2500;
+
+    private BandwidthBudget() {
+    }
+
+    /**
+     * @param downlink    클라이언트가 대역폭을 보고하지 않았을 때의 수신자당 하향 예산. 0이면 정책을 끈다
+     * @param maxStream   영상 하나의 상한
+     * @param minStream   영상 하나의 하한 (예산이 부족해도 이 아래로 내리지 않는다)
+     * @param publisherMax 송신 엔드포인트가 받는 영상의 상한
+     */
+    public static void configure(int downlink, int maxStream, int minStream, int publisherMax) {
+        downlinkKbps = downlink;
+        maxStreamKbps = maxStream;
+        minStreamKbps = Math.min(minStream, maxStream);
+        publisherMaxKbps = publisherMax;
+    }
+
+    public static boolean isEnabled() {
+        return downlinkKbps > 0;
+    }
+
+    /**
+     * @param reportedKbps 클라이언트가 보고한 하향 대역폭. 0 이하면 기본 예산
+     */
+    static int budgetKbps(int reportedKbps) {
+        return reportedKbps > 0 ? reportedKbps : downlinkKbps;
+    }
+
+    /**
+     * 예산을 영상 수로 나눈 스트림당 상한 [minStream, maxStream]
+     */
+    static int streamCapKbps(int budgetKbps, int streams) {
+        if (streams <= 0) {
+            return maxStreamKbps;
+        }
+        return Math.max(minStreamKbps, Math.min(maxStreamKbps, budgetKbps / streams));
+    }
+
+    /**
+     * 송신자 상한. 받는 사람이 없으면 publisherMax를 그대로 둔다
+     */
+    static int publisherCapKbps(int largestViewerCapKbps) {
+        return largestViewerCapKbps > 0 ? Math.min(publisherMaxKbps, largestViewerCapKbps) : publisherMaxKbps;
+    }
+
+    static int minStreamKbps() {
+        return minStreamKbps;
+    }
+}
@@ -2,170 +2,663 @@ package com.example.groupcall;
 
 
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.kurento.client.IceCandidate;
-import org.kurento.client.KurentoClient;
+import com.example.groupcall.cluster.SignalingCluster;
+import com.example.groupcall.message.IceCandidateEntry;
+import com.example.groupcall.message.SignalingDecoder;
+import com.example.groupcall.message.SignalingEncoder;
+import com.example.groupcall.message.SignalingMessage;
+import com.example.groupcall.message.SignalingMessage.JoinRoom;
+import com.example.groupcall.message.SignalingMessage.LeaveRoom;
+import com.example.groupcall.message.SignalingMessage.OnIceCandidate;
+import com.example.groupcall.message.SignalingMessage.OnIceCandidates;
+import com.example.groupcall.message.SignalingMessage.PresentScreen;
+import com.example.groupcall.message.SignalingMessage.ReceiveScreenFrom;
+import com.example.groupcall.message.SignalingMessage.ReceiveVideoFrom;
+import com.example.groupcall.message.SignalingMessage.ReportBandwidth;
+import com.example.groupcall.message.SignalingMessage.ResumeSession;
+import com.example.groupcall.message.SignalingMessage.SpeakerActivity;
+import com.example.groupcall.message.SignalingMessage.StartRecording;
+import com.example.groupcall.message.SignalingMessage.StopRecording;
+import com.example.groupcall.message.SignalingMessage.StopScreenShare;
+import com.example.groupcall.message.SignalingMessage.Unknown;
+import com.example.signaling.SignalingStats;
+import com.google.gson.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
 
 
 
 public class CallHandler extends TextWebSocketHandler  {
     private static final Logger log = LoggerFactory.getLogger(CallHandler.class);
-    private final Gson gson = new Gson();
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    @FunctionalInterface
+    private interface MessageHandler<T extends SignalingMessage> {
+        CompletableFuture<Void> handle(T message, User user, WebSocketSession session) throws Exception;
+    }
+
+    // 메시지 타입별 처리기. init에서 한 번 만들고 이후에는 읽기만 한다
+    private final Map<Class<?>, MessageHandler<?>> handlers = new HashMap<>();
+
+    @Autowired
+    private SignalingExecutor signalingExecutor;
+
+    @Autowired
+    private KurentoNodePool kurentoNodePool;
+
+    @Autowired
+    private LatencyRecorder joinLatency;
+
+    @Autowired
+    private RoomRegistry roomRegistry;
+
+    @Autowired
+    private UserRegistry userRegistry;
+
+    @Autowired
+    private SignalingCluster signalingCluster;
 
     @Autowired
-    private KurentoClient kurentoClient;
+    private MeterRegistry meterRegistry;
+
+    @Value("${groupcall.metrics.media-events:true}")
+    private boolean mediaEventMetrics;
+
+    @Value("${groupcall.room.linger-ms:30000}")
+    private long roomLingerMillis;
+
+    @Value("${groupcall.room.actors:true}")
+    private boolean roomActors;
+
+    @Value("${groupcall.signaling.async:true}")
+    private boolean asyncSignaling;
+
+    @Value("${groupcall.outbound.capacity:256}")
+    private int outboundCapacity;
+
+    @Value("${groupcall.outbound.overflow-policy:COALESCE_ROSTER}")
+    private OutboundQueue.OverflowPolicy overflowPolicy;
+
+    @Value("${groupcall.ice.batch-window-ms:20}")
+    private long iceBatchWindowMillis;
+
+    @Value("${groupcall.last-n.size:0}")
+    private int lastN;
+
+    @Value("${groupcall.last-n.min-hold-ms:3000}")
+    private long lastNHoldMillis;
+
+    @Value("${groupcall.last-n.switch-margin:0.2}")
+    private double lastNSwitchMargin;
+
+    @Value("${groupcall.mcu.enter-threshold:0}")
+    private int mcuEnterThreshold;
+
+    @Value("${groupcall.mcu.exit-threshold:0}")
+    private int mcuExitThreshold;
+
+    @Value("${groupcall.cascade.max-participants-per-node:0}")
+    private int cascadeMaxPerNode;
+
+    @Value("${groupcall.bandwidth.downlink-kbps:4000}")
+    private int bandwidthDownlinkKbps;
+
+    @Value("${groupcall.bandwidth.max-stream-kbps:2500}")
+    private int bandwidthMaxStreamKbps;
+
+    @Value("${groupcall.bandwidth.min-stream-kbps:150}")
+    private int bandwidthMinStreamKbps;
+
+    @Value("${groupcall.bandwidth.publisher-max-kbps:2500}")
+    private int bandwidthPublisherMaxKbps;
+
+    @Value("${groupcall.join.speculative-ttl-ms:10000}")
+    private long speculativeTtlMillis;
+
+    @Value("${groupcall.kurento.transactions:true}")
+    private boolean kurentoTransactions;
+
+    @Value("${groupcall.resume.grace-ms:30000}")
+    private long resumeGraceMillis;
+
+    @Value("${groupcall.ice-restart.max-attempts:3}")
+    private int iceRestartMaxAttempts;
+
+    @Value("${groupcall.ice-restart.window-ms:60000}")
+    private long iceRestartWindowMillis;
+
+    @Value("${groupcall.ice-restart.disconnected-grace-ms:2000}")
+    private long iceRestartDisconnectedGraceMillis;
+
+    @Value("${groupcall.ice-restart.attempt-timeout-ms:10000}")
+    private long iceRestartAttemptTimeoutMillis;
+
+    @Value("${groupcall.shutdown.timeout-ms:10000}")
+    private long shutdownTimeoutMillis;
+
+    @Value("${groupcall.screen.max-concurrent:2}")
+    private int screenMaxConcurrent;
+
+    @Value("${groupcall.screen.max-kbps:1500}")
+    private int screenMaxKbps;
+
+    @Value("${groupcall.screen.min-kbps:300}")
+    private int screenMinKbps;
+
+    @Value("${groupcall.screen.max-framerate:5}")
+    private int screenMaxFramerate;
+
+    @Value("${groupcall.recording.kms-uris:}")
+    private String[] recordingKmsUris;
+
+    @Value("${groupcall.recording.max-per-node:2}")
+    private int recordingMaxPerNode;
+
+    @Value("${groupcall.recording.directory:file:///tmp/group-call-recordings}")
+    private String recordingDirectory;
+
+    // 녹화 전용 KMS 노드. 따로 설정하지 않으면 방과 같은 풀을 쓴다
+    private KurentoNodePool recordingNodePool;
 
     @PostConstruct
     public void init() {
-        Room.setKurentoClient(kurentoClient);
-        log.info("KurentoClient가 Room 클래스에 설정되었습니다.");
+        registerHandlers();
+        Room.configureRegistry(roomRegistry);
+        User.configureRegistry(userRegistry);
+        signalingCluster.start(this::handleRemoteMessage, this::handleRemoteClosed);
+        Room.configure(kurentoNodePool, roomLingerMillis);
+        Room.configureActors(roomActors);
+        log.info("KMS 노드 풀이 Room 클래스에 설정되었습니다. (노드: {}개, 파이프라인 풀 사용: {}, 빈 방 유지: {}ms, 방 actor: {})",
+                kurentoNodePool.getNodes().size(), kurentoNodePool.primary().getPipelinePool().isEnabled(),
+                roomLingerMillis, roomActors);
+        OutboundQueue.configure(outboundCapacity, overflowPolicy);
+        IceCandidateBatcher.configure(iceBatchWindowMillis);
+        Room.configureLastN(lastN, lastNHoldMillis, lastNSwitchMargin);
+        Room.configureMcu(mcuEnterThreshold, mcuExitThreshold);
+        Room.configureCascade(cascadeMaxPerNode);
+        BandwidthBudget.configure(bandwidthDownlinkKbps, bandwidthMaxStreamKbps, bandwidthMinStreamKbps,
+                bandwidthPublisherMaxKbps);
+        Room.configureScreenShare(screenMaxConcurrent);
+        User.configureSpeculation(speculativeTtlMillis);
+        User.configureTransactions(kurentoTransactions);
+        User.configureIceRestart(iceRestartMaxAttempts, iceRestartWindowMillis, iceRestartDisconnectedGraceMillis,
+                iceRestartAttemptTimeoutMillis);
+        Screen.configure(screenMaxKbps, screenMinKbps, screenMaxFramerate);
+        configureRecording();
+        SessionMetrics.configure(meterRegistry, mediaEventMetrics);
+        SessionMetrics.bindNodes(kurentoNodePool);
+    }
+
+    private void configureRecording() {
+        List<String> uris = Arrays.stream(recordingKmsUris).map(String::trim).filter(uri -> !uri.isEmpty()).toList();
+        if (uris.isEmpty()) {
+            recordingNodePool = kurentoNodePool;
+        } else {
+            // 녹화 파이프라인은 녹화를 시작할 때 한 번 만들므로 파이프라인 풀은 쓰지 않는다
+            recordingNodePool = KurentoNodePool.create(uris, false, 0, 0, 5000, 500);
+        }
+        RoomRecording.configure(recordingNodePool, recordingMaxPerNode, recordingDirectory);
+        log.info("녹화 설정 - 녹화 노드: {}, 노드별 동시 녹화: {}, 경로: {}",
+                recordingNodePool.getNodes().stream().map(KurentoNode::getUri).toList(), recordingMaxPerNode,
+                recordingDirectory);
     }
 
+    /**
+     * 모든 방을 동시에 닫는다. 방마다 파이프라인째 해제하므로 엔드포인트 수와 상관없이 노드 구간 수만큼만 호출하며,
+     * KMS 노드 풀이 닫히기 전에 끝나도록 최대 shutdownTimeoutMillis까지 기다린다.
+     */
+    @PreDestroy
+    public void shutdown() {
+        long start = System.nanoTime();
+        int roomCount = Room.findRooms().size();
+        try {
+            Room.closeAll().get(shutdownTimeoutMillis, TimeUnit.MILLISECONDS);
+            log.info("방 {}개 종료 완료 - {}ms", roomCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("방 종료 중 일부 해제 실패 - 방 {}개, {}ms: {}", roomCount,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), e.toString());
+        }
+        if (recordingNodePool != null && recordingNodePool != kurentoNodePool) {
+            recordingNodePool.shutdown();
+        }
+    }
 
     @Override
     public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        JsonObject jsonMessage = gson.fromJson(message.getPayload(), JsonObject.class);
+        long start = System.nanoTime();
+        SignalingMessage signal = SignalingDecoder.decode(message.getPayload());
+        SignalingStats.recordInbound(SignalingStats.encodingOf(session), message.getPayloadLength(),
+                System.nanoTime() - start);
+        handleMessage(session, signal, message.getPayload());
+    }
+
+    /**
+     * signal.bin.v1 서브프로토콜을 협상한 연결의 바이너리 프레임. JSON 메시지와 같은 레코드로 읽어 같은 경로로 처리한다.
+     */
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        long start = System.nanoTime();
+        int length = message.getPayloadLength();
+        SignalingMessage signal = BinarySignalingCodec.decode(message.getPayload());
+        SignalingStats.recordInbound(SignalingStats.Encoding.BINARY, length, System.nanoTime() - start);
+        handleMessage(session, signal, null);
+    }
+
+    /**
+     * @param rawPayload 다른 노드로 전달할 때 그대로 보낼 원문. null이면 메시지에서 JSON을 다시 만든다
+     */
+    private void handleMessage(WebSocketSession session, SignalingMessage message, String rawPayload) {
+        // 방을 다른 시그널링 노드가 소유하면 그 노드로 전달한다
+        String owner;
+        if (message instanceof JoinRoom join) {
+            owner = signalingCluster.routeJoin(session, join.room());
+        } else if (message instanceof ResumeSession resume) {
+            owner = signalingCluster.routeJoin(session, resume.room());
+        } else {
+            owner = signalingCluster.routeOf(session);
+        }
+        if (owner != null) {
+            signalingCluster.forward(session, owner,
+                    rawPayload != null ? rawPayload : SignalingEncoder.inbound(message));
+            return;
+        }
+
+        log.debug("메시지 수신: {} (세션: {})", message.getClass().getSimpleName(), session.getId());
+
+        if (asyncSignaling) {
+            signalingExecutor.submit(session.getId(), () -> dispatch(message, session));
+        } else {
+            dispatch(message, session).join();
+        }
+    }
+
+    private void registerHandlers() {
+        on(JoinRoom.class, (message, user, session) -> joinRoom(message, session));
+        on(ResumeSession.class, (message, user, session) -> {
+            resumeSession(message, session);
+            return DONE;
+        });
+        on(ReceiveVideoFrom.class, (message, user, session) -> handleReceiveVideoFrom(message, user));
+        on(PresentScreen.class, (message, user, session) -> handlePresentScreen(message, user));
+        on(ReceiveScreenFrom.class, (message, user, session) -> handleReceiveScreenFrom(message, user));
+        on(StopScreenShare.class, (message, user, session) -> handleStopScreenShare(user));
+        on(LeaveRoom.class, (message, user, session) -> leaveRoom(user));
+        on(StartRecording.class, (message, user, session) -> handleStartRecording(user));
+        on(StopRecording.class, (message, user, session) -> handleStopRecording(user));
+        on(OnIceCandidate.class, (message, user, session) -> {
+            handleIceCandidates(List.of(message.entry()), user);
+            return DONE;
+        });
+        on(OnIceCandidates.class, (message, user, session) -> {
+            handleIceCandidates(message.candidates(), user);
+            return DONE;
+        });
+        on(SpeakerActivity.class, (message, user, session) -> {
+            handleSpeakerActivity(message, user);
+            return DONE;
+        });
+        on(ReportBandwidth.class, (message, user, session) -> {
+            handleReportBandwidth(message, user);
+            return DONE;
+        });
+    }
+
+    private <T extends SignalingMessage> void on(Class<T> type, MessageHandler<T> handler) {
+        handlers.put(type, handler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Void> dispatch(SignalingMessage message, WebSocketSession session) {
         User user = User.getBySession(session);
-        String messageId = jsonMessage.get("id").getAsString();
-
-        log.debug("메시지 수신: {} (세션: {})", messageId, session.getId());
-
-        switch (messageId) {
-            case "joinRoom":
-                joinRoom(jsonMessage, session);
-                break;
-            case "receiveVideoFrom":
-                handleReceiveVideoFrom(jsonMessage, user);
-                break;
-            case "presentScreen":
-                handlePresentScreen(jsonMessage, user);
-                break;
-            case "receiveScreenFrom":
-                handleReceiveScreenFrom(jsonMessage, user);
-                break;
-            case "stopScreenShare":
-                handleStopScreenShare(jsonMessage, user);
-                break;
-            case "leaveRoom":
-                leaveRoom(user);
-                break;
-            case "onIceCandidate":
-                handleIceCandidate(jsonMessage, user);
-                break;
-            default:
-                log.warn("알 수 없는 메시지 ID: {}", messageId);
-                break;
-        }
-    }
-
-
-
-    private void joinRoom(JsonObject params, WebSocketSession session) throws Exception {
-        String roomName = params.get("room").getAsString();
-        String userName = params.get("name").getAsString();
+        if (user != null) {
+            user.countInboundFrame();
+        }
+        MessageHandler<SignalingMessage> handler = (MessageHandler<SignalingMessage>) handlers.get(message.getClass());
+        if (handler == null) {
+            log.warn("알 수 없는 메시지 ID: {}", message instanceof Unknown unknown ? unknown.id() : message);
+            return DONE;
+        }
+        try {
+            return handler.handle(message, user, session);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private CompletableFuture<Void> joinRoom(JoinRoom message, WebSocketSession session) {
+        String roomName = message.room();
+        String userName = message.name();
 
         log.info("사용자 {} 이(가) 방 {}에 참여 요청", userName, roomName);
 
-        Room room = Room.getRoom(roomName);
-        room.join(userName, session);
+        long start = System.nanoTime();
+        return Room.getRoom(roomName)
+                .thenCompose(room -> room.join(userName, session))
+                .thenAccept(user -> {
+                    long elapsed = System.nanoTime() - start;
+                    joinLatency.record(elapsed);
+                    SessionMetrics.recordJoin(elapsed);
+                    SignalingStats.recordJoin(SignalingStats.encodingOf(session));
+                    if (resumeGraceMillis > 0) {
+                        JsonObject token = new JsonObject();
+                        token.addProperty("id", "resumeToken");
+                        token.addProperty("token", user.getResumeToken());
+                        token.addProperty("graceMs", resumeGraceMillis);
+                        user.sendMessage(token);
+                    }
+                    log.debug("사용자 {} 방 {} 참여 완료", userName, roomName);
+                });
     }
 
-    private void handleReceiveVideoFrom(JsonObject jsonMessage, User user) throws Exception {
-        if (user != null) {
-            String senderName = jsonMessage.get("sender").getAsString();
-            User sender = User.getByName(senderName);
-            String sdpOffer = jsonMessage.get("sdpOffer").getAsString();
+    /**
+     * 연결이 끊겼던 참가자가 새 연결로 다시 붙는다. 엔드포인트와 다른 참가자의 수신 엔드포인트를 그대로 쓰므로
+     * 다른 참가자에게는 퇴장/입장 알림이 가지 않고, 이 참가자에게만 지금의 방 상태를 보낸다.
+     */
+    private void resumeSession(ResumeSession message, WebSocketSession session) throws IOException {
+        User user = User.getByName(message.name());
+        Room room = Room.findRoom(message.room());
+        long gap = user != null ? user.getDetachedNanos() : 0;
+        WebSocketSession previous = user != null && room != null && room.getName().equals(user.getRoomName())
+                ? user.resume(message.token(), session)
+                : null;
+        if (previous == null) {
+            // 유예 시간이 지났거나 토큰이 틀리다. 클라이언트는 joinRoom으로 다시 들어온다
+            SessionMetrics.recordResume("rejected");
+            log.info("재연결 거부 - 사용자: {}, 방: {}", message.name(), message.room());
+            JsonObject rejected = new JsonObject();
+            rejected.addProperty("id", "resumeRejected");
+            session.sendMessage(new TextMessage(rejected.toString()));
+            return;
+        }
+
+        User.rebindSession(user, previous);
+        if (previous.isOpen()) {
+            // 서버가 아직 끊김을 모르는 이전 연결은 닫는다 (세션 매핑을 지웠으므로 퇴장 처리는 하지 않는다)
+            try {
+                previous.close(CloseStatus.NORMAL);
+            } catch (IOException e) {
+                log.debug("이전 연결 닫기 실패 - 사용자: {}: {}", user.getName(), e.getMessage());
+            }
+        }
+        int endpoints = room.countEndpointsOf(user);
+        SessionMetrics.recordResumed(gap, endpoints);
+        room.sendResumedState(user);
+        log.info("사용자 {} 재연결 - 방: {}, 끊김 {}ms, 유지한 엔드포인트 {}개", user.getName(), room.getName(),
+                TimeUnit.NANOSECONDS.toMillis(gap), endpoints);
+    }
+
+    private CompletableFuture<Void> handleReceiveVideoFrom(ReceiveVideoFrom message, User user) {
+        if (user == null) {
+            return DONE;
+        }
+        String senderName = message.sender();
+        String sdpOffer = message.sdpOffer();
+        if (Room.MIXED_STREAM.equals(senderName)) {
+            return user.receiveMixedVideo(sdpOffer);
+        }
 
-            user.receiveVideoFrom(sender, sdpOffer);
+        User sender = User.getByName(senderName);
+        if (sender == null) {
+            log.warn("존재하지 않는 송신자 {}의 영상 요청 - 사용자: {}", senderName, user.getName());
+            return DONE;
+        }
+        Room room = Room.findRoom(user.getRoomName());
+        if (room != null && room.getMode() == Room.Mode.MCU && sender != user) {
+            // MCU 전환 직전에 보낸 개별 구독 요청은 무시한다 (클라이언트는 roomModeChanged로 재협상)
+            log.debug("MCU 모드 방의 개별 구독 요청 무시 - 보낸 사람: {}, 받는 사람: {}", senderName, user.getName());
+            return DONE;
         }
+
+        return user.receiveVideoFrom(sender, sdpOffer);
     }
 
-    private void leaveRoom(User user) throws Exception {
+    private CompletableFuture<Void> leaveRoom(User user) {
         if (user != null) {
             String roomName = user.getRoomName();
             log.info("사용자 {} 이(가) 방 {}에서 나가기 요청", user.getName(), roomName);
 
-            Room room = Room.getRoom(roomName);
-            room.leave(user.getName());
+            Room room = Room.findRoom(roomName);
+            if (room != null) {
+                return room.leave(user.getName());
+            }
         }
+        return DONE;
     }
 
 
 
-    private void handlePresentScreen(JsonObject jsonMessage, User user) throws Exception {
-        if (user != null) {
-            Room room = Room.getRoom(user.getRoomName());
-            Screen screen = room.startScreenShare(user.getName());
+    private CompletableFuture<Void> handlePresentScreen(PresentScreen message, User user) {
+        if (user == null) {
+            return DONE;
+        }
+        Room room = Room.findRoom(user.getRoomName());
+        if (room == null) {
+            return DONE;
+        }
+        return room.startScreenShare(user.getName()).thenCompose(start -> {
+            if (start.screen() == null) {
+                // 이미 공유 중이거나 방의 동시 공유 수 제한. 진행 중인 공유는 건드리지 않는다
+                JsonObject rejected = new JsonObject();
+                rejected.addProperty("id", "screenShareRejected");
+                rejected.addProperty("reason", start.rejectedReason());
+                user.sendMessage(rejected);
+                return DONE;
+            }
 
-            String sdpOffer = jsonMessage.get("sdpOffer").getAsString();
-            screen.startScreenShare(sdpOffer);
+            // 송신 엔드포인트가 준비된 뒤에 알려야 시청자의 receiveScreenFrom이 실패하지 않는다.
+            // 실패하면 이 요청이 만든 Screen만 정리한다
+            return start.screen().startScreenShare(message.sdpOffer())
+                    .thenRun(() -> room.notifyScreenShare(user.getName()))
+                    .whenComplete((v, e) -> {
+                        if (e != null) {
+                            room.stopScreenShare(user.getName());
+                        }
+                    });
+        });
+    }
 
-            room.notifyScreenShare(user.getName());
+    private CompletableFuture<Void> handleReceiveScreenFrom(ReceiveScreenFrom message, User user) {
+        if (user == null) {
+            return DONE;
+        }
+        Room room = Room.findRoom(user.getRoomName());
+        Screen senderScreen = room != null ? room.getScreenShare(message.sender()) : null;
+        if (senderScreen == null) {
+            log.warn("진행 중이 아닌 화면 공유 요청 - 보낸 사람: {}, 받는 사람: {}", message.sender(), user.getName());
+            return DONE;
         }
+        return senderScreen.receiveScreenFrom(user, message.sdpOffer());
     }
 
-    private void handleReceiveScreenFrom(JsonObject jsonMessage, User user) throws Exception {
+    private CompletableFuture<Void> handleStopScreenShare(User user) {
         if (user != null) {
-            String senderName = jsonMessage.get("sender").getAsString();
-            Room room = Room.getRoom(user.getRoomName());
-            Screen receiverScreen = room.startScreenShare(user.getName());
-            Screen senderScreen = room.getScreenShare(senderName);
-
-            if (senderScreen != null) {
-                String sdpOffer = jsonMessage.get("sdpOffer").getAsString();
-                receiverScreen.receiveScreenFrom(senderScreen, sdpOffer);
+            Room room = Room.findRoom(user.getRoomName());
+            if (room != null) {
+                return room.stopScreenShare(user.getName());
             }
         }
+        return DONE;
     }
 
-    private void handleStopScreenShare(JsonObject jsonMessage, User user) throws Exception {
+    private CompletableFuture<Void> handleStartRecording(User user) {
         if (user != null) {
-            Room room = Room.getRoom(user.getRoomName());
-            room.stopScreenShare(user.getName());
+            Room room = Room.findRoom(user.getRoomName());
+            if (room != null) {
+                log.info("녹화 요청 - 사용자: {}, 방: {}", user.getName(), room.getName());
+                return room.startRecording().thenAccept(state -> log.debug("방 {} 녹화 상태: {}", room.getName(), state));
+            }
         }
+        return DONE;
     }
 
-    private void handleIceCandidate(JsonObject jsonMessage, User user) {
+    private CompletableFuture<Void> handleStopRecording(User user) {
         if (user != null) {
-            JsonObject candidateJson = jsonMessage.get("candidate").getAsJsonObject();
-            IceCandidate candidate = new IceCandidate(
-                    candidateJson.get("candidate").getAsString(),
-                    candidateJson.get("sdpMid").getAsString(),
-                    candidateJson.get("sdpMLineIndex").getAsInt()
-            );
-
-            String type = jsonMessage.has("type") ? jsonMessage.get("type").getAsString() : "video";
-            if ("screen".equals(type)) {
-                Room room = Room.getRoom(user.getRoomName());
-                Screen screen = room.getScreenShare(user.getName());
-                if (screen != null) {
-                    screen.addCandidate(candidate, jsonMessage.get("name").getAsString());
-                }
-            } else {
-                user.addCandidate(candidate, jsonMessage.get("name").getAsString());
+            Room room = Room.findRoom(user.getRoomName());
+            if (room != null) {
+                log.info("녹화 중지 요청 - 사용자: {}, 방: {}", user.getName(), room.getName());
+                return room.stopRecording();
+            }
+        }
+        return DONE;
+    }
+
+    private void handleIceCandidates(List<IceCandidateEntry> entries, User user) {
+        if (user == null) {
+            return;
+        }
+        // 같은 대상(type, name)의 후보끼리 모아서 한 번에 적용한다
+        Map<String, Map<String, List<IceCandidate>>> grouped = new LinkedHashMap<>();
+        for (IceCandidateEntry entry : entries) {
+            grouped.computeIfAbsent(entry.type(), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(entry.name(), k -> new ArrayList<>())
+                    .add(entry.candidate());
+        }
+        grouped.forEach((type, byName) ->
+                byName.forEach((name, candidates) -> addCandidates(user, type, name, candidates)));
+    }
+
+    private void addCandidates(User user, String type, String name, List<IceCandidate> candidates) {
+        if ("screen".equals(type)) {
+            // name은 공유자 이름. 공유자 자신이면 송신 엔드포인트, 아니면 시청자 엔드포인트의 후보다
+            Room room = Room.findRoom(user.getRoomName());
+            Screen screen = room != null ? room.getScreenShare(name) : null;
+            if (screen != null) {
+                screen.addCandidates(user.getName(), candidates);
+            }
+        } else {
+            user.addCandidates(candidates, name);
+        }
+    }
+
+    private void handleSpeakerActivity(SpeakerActivity message, User user) {
+        if (user != null) {
+            Room room = Room.findRoom(user.getRoomName());
+            if (room != null) {
+                room.reportSpeakerActivity(user.getName(), message.level());
             }
         }
     }
 
+    private void handleReportBandwidth(ReportBandwidth message, User user) {
+        if (user != null) {
+            user.reportDownlink(message.downlinkKbps());
+            Room room = Room.findRoom(user.getRoomName());
+            if (room != null) {
+                room.rebalanceBandwidth();
+            }
+        }
+    }
+
+    private void handleRemoteMessage(WebSocketSession session, TextMessage message) {
+        try {
+            handleTextMessage(session, message);
+        } catch (Exception e) {
+            log.error("전달된 메시지 처리 실패 - 세션: {}", session.getId(), e);
+        }
+    }
+
+    private void handleRemoteClosed(WebSocketSession session) {
+        try {
+            afterConnectionClosed(session, CloseStatus.NORMAL);
+        } catch (Exception e) {
+            log.error("전달된 세션 종료 처리 실패 - 세션: {}", session.getId(), e);
+        }
+    }
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         log.debug("WebSocket 연결 종료: {}", session.getId());
-        User user = User.removeBySession(session);
+        if (signalingCluster.connectionClosed(session)) {
+            return;
+        }
+        if (asyncSignaling) {
+            // 이미 대기 중인 메시지가 모두 처리된 뒤에 정리되도록 같은 세션 큐에 넣는다
+            signalingExecutor.submit(session.getId(), () -> {
+                closeSession(session);
+                return CompletableFuture.completedFuture(null);
+            });
+        } else {
+            closeSession(session);
+        }
+    }
+
+    private void closeSession(WebSocketSession session) {
+        boolean resumable = resumeGraceMillis > 0;
+        User user = resumable ? User.detachBySession(session) : User.removeBySession(session);
         if (user != null) {
-            Room room = Room.getRoom(user.getRoomName());
-            room.stopScreenShare(user.getName());
-            room.leave(user.getName());
+            Room room = Room.findRoom(user.getRoomName());
+            if (room == null) {
+                return;
+            }
+            if (resumable) {
+                holdForResume(user, session);
+                return;
+            }
+            room.leave(user.getName()).exceptionally(e -> {
+                log.error("세션 종료 처리 실패 - 사용자: {}", user.getName(), e);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 엔드포인트를 남겨 둔 채 resumeSession을 기다리고, 유예 시간 안에 오지 않으면 퇴장시킨다.
+     */
+    private void holdForResume(User user, WebSocketSession session) {
+        long since = user.detach();
+        log.info("사용자 {} 연결 끊김 - 방: {}, {}ms 동안 재연결 대기", user.getName(), user.getRoomName(), resumeGraceMillis);
+        CompletableFuture.delayedExecutor(resumeGraceMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            if (asyncSignaling) {
+                signalingExecutor.submit(session.getId(), () -> {
+                    expireResume(user, since);
+                    return DONE;
+                });
+            } else {
+                expireResume(user, since);
+            }
+        });
+    }
+
+    private void expireResume(User user, long since) {
+        if (!user.expireResume(since)) {
+            return;
+        }
+        SessionMetrics.recordResume("expired");
+        Room room = Room.findRoom(user.getRoomName());
+        if (room == null || !room.getParticipants().contains(user)) {
+            return;
         }
+        log.info("사용자 {} 재연결 대기 시간 초과 - 방: {}", user.getName(), room.getName());
+        room.leave(user.getName()).exceptionally(e -> {
+            log.error("재연결 대기 만료 처리 실패 - 사용자: {}", user.getName(), e);
+            return null;
+        });
     }
 
-}
\ No newline at end of file
+}
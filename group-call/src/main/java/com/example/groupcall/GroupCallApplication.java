@@ -1,6 +1,16 @@
 package com.example.groupcall;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.example.groupcall.cluster.InMemorySignalingBus;
+import com.example.groupcall.cluster.SignalingBus;
+import com.example.groupcall.cluster.SignalingCluster;
+import com.example.groupcall.log.MonitorSampler;
+import com.example.signaling.BinaryFrame;
 import org.kurento.client.KurentoClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -8,34 +18,111 @@ import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 @SpringBootApplication
 @EnableWebSocket
 public class GroupCallApplication implements WebSocketConfigurer {
 
+    @Value("${groupcall.signaling.binary.enabled:true}")
+    private boolean binarySignaling;
+
     @Bean
     public CallHandler callHandler() {
         return new CallHandler();
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public KurentoNodePool kurentoNodePool(@Value("${groupcall.kms.uris:}") String[] uris,
+                                           @Value("${groupcall.pipeline-pool.enabled:true}") boolean poolEnabled,
+                                           @Value("${groupcall.pipeline-pool.min-idle:2}") int minIdle,
+                                           @Value("${groupcall.pipeline-pool.max-idle:8}") int maxIdle,
+                                           @Value("${groupcall.kms.sample-interval-ms:5000}") long sampleIntervalMillis,
+                                           @Value("${groupcall.kms.cpu-sample-ms:500}") int cpuSampleMillis) {
+        List<String> kmsUris = Arrays.stream(uris).map(String::trim).filter(uri -> !uri.isEmpty()).toList();
+        return KurentoNodePool.create(kmsUris, poolEnabled, minIdle, maxIdle, sampleIntervalMillis, cpuSampleMillis);
+    }
+
+    /**
+     * 기본 노드의 클라이언트. 종료는 KurentoNodePool이 담당한다.
+     */
+    @Bean(destroyMethod = "")
+    public KurentoClient kurentoClient(KurentoNodePool kurentoNodePool) {
+        return kurentoNodePool.primary().getClient();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public SignalingExecutor signalingExecutor(@Value("${groupcall.signaling.threads:4}") int threads) {
+        return new SignalingExecutor(threads);
+    }
+
+    @Bean
+    public RoomRegistry roomRegistry() {
+        return new LocalRoomRegistry();
+    }
+
     @Bean
-    public KurentoClient kurentoClient() {
-        return KurentoClient.create();
+    public UserRegistry userRegistry() {
+        return new LocalUserRegistry();
+    }
+
+    @Bean
+    public SignalingBus signalingBus() {
+        return new InMemorySignalingBus();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public SignalingCluster signalingCluster(SignalingBus signalingBus,
+                                             @Value("${groupcall.cluster.node-id:local}") String nodeId,
+                                             @Value("${groupcall.cluster.nodes:}") String[] nodes,
+                                             @Value("${groupcall.cluster.virtual-nodes:128}") int virtualNodes) {
+        List<String> members = Arrays.stream(nodes).map(String::trim).filter(node -> !node.isEmpty()).toList();
+        return new SignalingCluster(nodeId, members, virtualNodes, signalingBus);
+    }
+
+    @Bean
+    public LatencyRecorder joinLatency() {
+        return new LatencyRecorder(1024);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public StatsCollector statsCollector(@Value("${groupcall.stats.interval-ms:5000}") long intervalMillis,
+                                         @Value("${groupcall.stats.window:24}") int window,
+                                         @Value("${groupcall.stats.batch-size:100}") int batchSize) {
+        return new StatsCollector(intervalMillis, window, batchSize);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public MonitorSampler monitorSampler(KurentoNodePool kurentoNodePool, LatencyRecorder joinLatency,
+                                         SignalingCluster signalingCluster, StatsCollector statsCollector,
+                                         @Value("${groupcall.monitor.sample-interval-ms:2000}") long intervalMillis) {
+        return new MonitorSampler(kurentoNodePool, joinLatency, signalingCluster, statsCollector, intervalMillis);
     }
 
     @Bean
     public ServletServerContainerFactoryBean createServletServerContainerFactoryBean() {
         ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
         container.setMaxTextMessageBufferSize(32768);
+        container.setMaxBinaryMessageBufferSize(32768);
         return container;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(callHandler(), "/webrtc");
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler();
+        if (binarySignaling) {
+            // 클라이언트가 요청한 순서대로 고르며, 서브프로토콜을 요청하지 않은 클라이언트는 JSON을 사용한다
+            handshakeHandler.setSupportedProtocols(BinaryFrame.PROTOCOL, BinaryFrame.JSON_PROTOCOL);
+        }
+        registry.addHandler(callHandler(), "/webrtc").setHandshakeHandler(handshakeHandler);
     }
 
     public static void main(String[] args) {
-        SpringApplication.run(GroupCallApplication.class, args);
+        SpringApplication application = new SpringApplication(GroupCallApplication.class);
+        // application.properties는 배포 환경마다 따로 두므로 메트릭 노출 기본값은 여기서 정한다
+        application.setDefaultProperties(Map.of(
+                "management.endpoints.web.exposure.include", "health,prometheus",
+                "management.metrics.tags.application", "group-call"));
+        application.run(args);
     }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.example.groupcall;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.kurento.client.IceCandidate;
+
+import com.example.groupcall.message.IceCandidateEntry;
+import com.example.groupcall.message.OutboundMessage;
+
+/**
+ * Kurento가 찾아낸 ICE 후보를 짧은 시간 동안 모아 iceCandidates 메시지 하나로 보냅니다.
+ * 같은 엔드포인트에서 중복으로 올라온 후보는 한 번만 보냅니다.
+ */
+public class IceCandidateBatcher {
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ice-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile long flushWindowMillis = 20;
+
+    private final Consumer<OutboundMessage> sink;
+    private final ConcurrentHashMap<String, Set<String>> sentByName = new ConcurrentHashMap<>();
+    private List<IceCandidateEntry> pending;
+
+    /**
+     * @param windowMillis 0 이하이면 묶지 않고 후보마다 iceCandidate 메시지를 보낸다 (기존 클라이언트 호환)
+     */
+    public static void configure(long windowMillis) {
+        flushWindowMillis = windowMillis;
+    }
+
+    public IceCandidateBatcher(Consumer<OutboundMessage> sink) {
+        this.sink = sink;
+    }
+
+    public void add(String name, IceCandidate candidate) {
+        Set<String> sent = sentByName.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
+        if (!sent.add(candidate.getCandidate())) {
+            return;
+        }
+
+        IceCandidateEntry entry = new IceCandidateEntry(name, null, candidate);
+        long window = flushWindowMillis;
+        if (window <= 0) {
+            sink.accept(new OutboundMessage.IceCandidate(entry));
+            return;
+        }
+
+        synchronized (this) {
+            if (pending == null) {
+                pending = new ArrayList<>();
+                flusher.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+            }
+            pending.add(entry);
+        }
+    }
+
+    /**
+     * 엔드포인트가 해제되면 중복 제거 기록도 지운다.
+     */
+    public void forget(String name) {
+        sentByName.remove(name);
+    }
+
+    private void flush() {
+        List<IceCandidateEntry> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = null;
+        }
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+
+        sink.accept(new OutboundMessage.IceCandidates(batch));
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.groupcall;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.kurento.client.IceComponentState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 한 사용자의 엔드포인트별 ICE 연결 상태를 보고 끊긴 연결을 ICE 재시작으로 되살립니다.
+ * FAILED는 바로, DISCONNECTED는 잠깐 기다려도 돌아오지 않을 때 클라이언트에 재시작 offer를 요청하며,
+ * 서버는 그 offer를 기존 WebRtcEndpoint에 다시 processOffer하므로 엔드포인트와 연결은 그대로 남습니다.
+ * 재시작은 엔드포인트마다 window 안에 maxAttempts번까지이고, 다 쓰면 exhausted로 기존 복구 경로(다시 받기, 재입장)에 넘깁니다.
+ */
+final class IceRecovery {
+    private static final Logger log = LoggerFactory.getLogger(IceRecovery.class);
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ice-recovery");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile int maxAttempts = 3;
+    private static volatile long windowMillis = 60_000;
+    private static volatile long disconnectedGraceMillis = 2_000;
+    private static volatile long attemptTimeoutMillis = 10_000;
+
+    private final String userName;
+    private final Consumer<String> restart;
+    private final Consumer<String> exhausted;
+    // 키는 엔드포인트 상대방 이름 (User의 수신 엔드포인트 키, 송신 엔드포인트면 자기 이름). this로 동기화
+    private final Map<String, Link> links = new HashMap<>();
+
+    private static final class Link {
+        // 끊긴 것을 안 시각 (System.nanoTime). 0이면 연결되어 있다
+        long failedAt;
+        // 진행 중인 재시작을 요청한 시각. 0이면 요청하지 않았다
+        long restartedAt;
+        // 요청한 재시작의 offer를 서버가 처리했는지. 그 뒤의 FAILED는 이번 시도가 실패한 것이다
+        boolean renegotiated;
+        final ArrayDeque<Long> attempts = new ArrayDeque<>();
+    }
+
+    /**
+     * @param attempts          엔드포인트마다 window 안에 요청할 수 있는 재시작 수. 0 이하이면 ICE 상태를 구독하지 않는다
+     * @param window            재시작 수를 세는 구간
+     * @param disconnectedGrace DISCONNECTED가 스스로 돌아오기를 기다리는 시간
+     * @param attemptTimeout    재시작을 요청한 뒤 다시 연결되기를 기다리는 시간. 넘으면 다음 시도로 센다
+     */
+    static void configure(int attempts, long window, long disconnectedGrace, long attemptTimeout) {
+        maxAttempts = attempts;
+        windowMillis = window;
+        disconnectedGraceMillis = disconnectedGrace;
+        attemptTimeoutMillis = attemptTimeout;
+    }
+
+    static boolean isEnabled() {
+        return maxAttempts > 0;
+    }
+
+    /**
+     * @param restart   클라이언트에 재시작 offer를 요청한다
+     * @param exhausted 재시작을 포기했을 때 부른다
+     */
+    IceRecovery(String userName, Consumer<String> restart, Consumer<String> exhausted) {
+        this.userName = userName;
+        this.restart = restart;
+        this.exhausted = exhausted;
+    }
+
+    void stateChanged(String key, IceComponentState state) {
+        switch (state) {
+            case FAILED -> failed(key);
+            case DISCONNECTED -> disconnected(key);
+            case CONNECTED, READY -> connected(key);
+            default -> {
+            }
+        }
+    }
+
+    private void disconnected(String key) {
+        long since;
+        synchronized (this) {
+            Link link = links.computeIfAbsent(key, k -> new Link());
+            if (link.failedAt != 0) {
+                return;
+            }
+            since = link.failedAt = System.nanoTime();
+        }
+        log.debug("ICE 연결 끊김 - 사용자: {}, 상대: {}, {}ms 뒤 확인", userName, key, disconnectedGraceMillis);
+        timer.schedule(() -> restartIfStillDown(key, since), disconnectedGraceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void restartIfStillDown(String key, long since) {
+        synchronized (this) {
+            Link link = links.get(key);
+            if (link == null || link.failedAt != since || link.restartedAt != 0) {
+                // 그 사이 다시 연결되었거나 FAILED로 이미 재시작했다
+                return;
+            }
+        }
+        failed(key);
+    }
+
+    /**
+     * FAILED는 스스로 돌아오지 않으므로 바로 재시작한다. 요청한 재시작의 offer가 아직 오지 않았으면 기다린다.
+     */
+    private void failed(String key) {
+        long now = System.nanoTime();
+        int attempt;
+        synchronized (this) {
+            Link link = links.computeIfAbsent(key, k -> new Link());
+            if (link.restartedAt != 0 && !link.renegotiated) {
+                return;
+            }
+            if (link.failedAt == 0) {
+                link.failedAt = now;
+            }
+            long windowStart = now - TimeUnit.MILLISECONDS.toNanos(windowMillis);
+            while (!link.attempts.isEmpty() && link.attempts.peekFirst() < windowStart) {
+                link.attempts.pollFirst();
+            }
+            if (link.attempts.size() >= maxAttempts) {
+                links.remove(key);
+                attempt = 0;
+            } else {
+                link.attempts.addLast(now);
+                link.restartedAt = now;
+                link.renegotiated = false;
+                attempt = link.attempts.size();
+            }
+        }
+
+        if (attempt == 0) {
+            giveUp(key);
+            return;
+        }
+        log.info("ICE 재시작 요청 ({}/{}) - 사용자: {}, 상대: {}", attempt, maxAttempts, userName, key);
+        SessionMetrics.recordIceRestart("requested");
+        restart.accept(key);
+        timer.schedule(() -> attemptTimedOut(key, now), attemptTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void attemptTimedOut(String key, long restartedAt) {
+        synchronized (this) {
+            Link link = links.get(key);
+            if (link == null || link.restartedAt != restartedAt) {
+                return;
+            }
+            link.renegotiated = true;
+        }
+        log.debug("ICE 재시작 응답 없음 - 사용자: {}, 상대: {}", userName, key);
+        failed(key);
+    }
+
+    private void connected(String key) {
+        long failedAt;
+        boolean restarted;
+        synchronized (this) {
+            Link link = links.get(key);
+            if (link == null || link.failedAt == 0) {
+                return;
+            }
+            failedAt = link.failedAt;
+            restarted = link.restartedAt != 0;
+            // 시도 기록은 window가 지날 때까지 남겨 재시작이 반복되지 않게 한다
+            link.failedAt = 0;
+            link.restartedAt = 0;
+            link.renegotiated = false;
+        }
+        long nanos = System.nanoTime() - failedAt;
+        if (restarted) {
+            log.info("ICE 재시작으로 연결 복구 - 사용자: {}, 상대: {}, {}ms", userName, key,
+                    TimeUnit.NANOSECONDS.toMillis(nanos));
+            SessionMetrics.recordIceRecovered(nanos);
+        } else {
+            log.debug("ICE 연결이 스스로 복구됨 - 사용자: {}, 상대: {}", userName, key);
+        }
+    }
+
+    /**
+     * 요청한 재시작의 offer를 엔드포인트가 처리했다.
+     */
+    synchronized void renegotiated(String key) {
+        Link link = links.get(key);
+        if (link != null && link.restartedAt != 0) {
+            link.renegotiated = true;
+        }
+    }
+
+    /**
+     * @return 재시작을 요청했고 아직 그 offer를 처리하지 않았으면 true
+     */
+    synchronized boolean isRestarting(String key) {
+        Link link = links.get(key);
+        return link != null && link.restartedAt != 0 && !link.renegotiated;
+    }
+
+    /**
+     * 기존 엔드포인트로는 재시작할 수 없을 때 (KMS가 재협상을 거부) 부른다.
+     */
+    void giveUp(String key) {
+        synchronized (this) {
+            links.remove(key);
+        }
+        log.warn("ICE 재시작 포기 - 사용자: {}, 상대: {}", userName, key);
+        SessionMetrics.recordIceRestart("exhausted");
+        exhausted.accept(key);
+    }
+
+    /**
+     * 엔드포인트가 해제되면 상태와 시도 기록을 지운다.
+     */
+    synchronized void forget(String key) {
+        links.remove(key);
+    }
+
+    synchronized void clear() {
+        links.clear();
+    }
+}
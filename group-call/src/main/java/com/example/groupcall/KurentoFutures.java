@@ -0,0 +1,51 @@
+package com.example.groupcall;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import org.kurento.client.Continuation;
+
+/**
+ * Kurento 비동기 API(Continuation)를 CompletableFuture로 변환합니다.
+ * 이름을 붙인 호출은 kurento.rpc 타이머에 method별로 기록됩니다.
+ */
+public final class KurentoFutures {
+
+    private KurentoFutures() {
+    }
+
+    public static <T> CompletableFuture<T> call(Consumer<Continuation<T>> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            call.accept(complete(future));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * @param method 메트릭 태그로 쓸 Kurento 호출 이름 (processOffer, createWebRtcEndpoint 등)
+     */
+    public static <T> CompletableFuture<T> call(String method, Consumer<Continuation<T>> call) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future = call(call);
+        future.whenComplete((result, e) ->
+                SessionMetrics.recordKurentoCall(method, e == null, System.nanoTime() - start));
+        return future;
+    }
+
+    public static <T> Continuation<T> complete(CompletableFuture<T> future) {
+        return new Continuation<T>() {
+            @Override
+            public void onSuccess(T result) {
+                future.complete(result);
+            }
+
+            @Override
+            public void onError(Throwable cause) {
+                future.completeExceptionally(cause);
+            }
+        };
+    }
+}
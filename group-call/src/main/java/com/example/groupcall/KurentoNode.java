@@ -0,0 +1,110 @@
+package com.example.groupcall;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.kurento.client.KurentoClient;
+import org.kurento.client.ServerManager;
+
+/**
+ * KMS 한 대에 대한 연결, 파이프라인 풀, 마지막으로 수집한 부하 정보.
+ * 방 배치는 원격 호출 없이 캐시된 부하만 보고 결정합니다.
+ */
+public class KurentoNode {
+    /** 파이프라인 하나를 CPU 몇 %에 해당하는 부하로 볼지 */
+    private static final double PIPELINE_WEIGHT = 2.0;
+    /** 메모리 사용량 100MB를 CPU 1%로 환산 */
+    private static final double MEMORY_KB_PER_POINT = 100 * 1024;
+    /** 파이프라인 생성에 실패한 노드는 이 시간 동안 다른 노드가 모두 실패했을 때만 고른다 */
+    private static final long REJECTION_BACKOFF_MILLIS = 30_000;
+    private static final double REJECTION_PENALTY = 1_000_000;
+
+    private final String id;
+    private final String uri;
+    private final KurentoClient client;
+    private final PipelinePool pipelinePool;
+    private final AtomicInteger rooms = new AtomicInteger();
+    /** 마지막 샘플 이후 이 노드에 배치된 방 수. 샘플 사이에 한 노드로 몰리는 것을 막는다 */
+    private final AtomicInteger placedSinceSample = new AtomicInteger();
+    private volatile LoadSample load = LoadSample.EMPTY;
+    /** 마지막으로 파이프라인 생성에 실패한 시각과 그때의 파이프라인 수. 실패한 적이 없으면 0 */
+    private volatile long pipelineRejectedAt;
+    private volatile int pipelinesAtRejection;
+
+    public record LoadSample(double cpuPercent, long usedMemoryKb, int pipelines, long sampledAt, boolean available) {
+        static final LoadSample EMPTY = new LoadSample(0, 0, 0, 0, true);
+    }
+
+    public KurentoNode(String id, String uri, KurentoClient client, PipelinePool pipelinePool) {
+        this.id = id;
+        this.uri = uri;
+        this.client = client;
+        this.pipelinePool = pipelinePool;
+    }
+
+    /**
+     * ServerManager에서 부하를 읽어 캐시를 갱신한다. 샘플러 스레드에서만 호출된다.
+     */
+    void sample(int cpuIntervalMillis) {
+        try {
+            ServerManager serverManager = client.getServerManager();
+            float cpu = serverManager.getUsedCpu(cpuIntervalMillis);
+            long memory = serverManager.getUsedMemory();
+            int pipelines = serverManager.getPipelines().size();
+            load = new LoadSample(cpu, memory, pipelines, System.currentTimeMillis(), true);
+            if (pipelines < pipelinesAtRejection) {
+                // 파이프라인이 줄었으면 다시 만들 수 있을 수도 있다
+                pipelineRejectedAt = 0;
+            }
+        } catch (Exception e) {
+            LoadSample previous = load;
+            load = new LoadSample(previous.cpuPercent(), previous.usedMemoryKb(), previous.pipelines(),
+                    System.currentTimeMillis(), false);
+            throw e;
+        } finally {
+            placedSinceSample.set(0);
+        }
+    }
+
+    /**
+     * 낮을수록 여유가 있다. 풀에서 대기 중인 파이프라인은 모든 노드에 비슷하게 있으므로 따로 빼지 않는다.
+     * KMS는 파이프라인 한도를 알려 주지 않으므로, 최근에 생성을 거절한 노드는 한도에 찼다고 보고 맨 뒤로 민다.
+     */
+    public double score() {
+        LoadSample sample = load;
+        double score = sample.cpuPercent()
+                + PIPELINE_WEIGHT * (sample.pipelines() + placedSinceSample.get())
+                + sample.usedMemoryKb() / MEMORY_KB_PER_POINT;
+        return isRejectingPipelines() ? score + REJECTION_PENALTY : score;
+    }
+
+    /**
+     * 이 노드에서 MediaPipeline 생성이 실패했다 (NOT_ENOUGH_RESOURCES 등).
+     */
+    void pipelineRejected() {
+        pipelinesAtRejection = load.pipelines();
+        pipelineRejectedAt = System.currentTimeMillis();
+    }
+
+    public boolean isRejectingPipelines() {
+        long rejectedAt = pipelineRejectedAt;
+        return rejectedAt != 0 && System.currentTimeMillis() - rejectedAt < REJECTION_BACKOFF_MILLIS;
+    }
+
+    void roomOpened() {
+        rooms.incrementAndGet();
+        placedSinceSample.incrementAndGet();
+    }
+
+    void roomClosed() {
+        rooms.decrementAndGet();
+    }
+
+    // Getters
+    public String getId() { return id; }
+    public String getUri() { return uri; }
+    public KurentoClient getClient() { return client; }
+    public PipelinePool getPipelinePool() { return pipelinePool; }
+    public int getRoomCount() { return rooms.get(); }
+    public LoadSample getLoad() { return load; }
+    public boolean isAvailable() { return load.available(); }
+}
@@ -0,0 +1,122 @@
+package com.example.groupcall;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.kurento.client.KurentoClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 여러 KMS에 대한 KurentoClient 목록.
+ * 각 노드의 부하를 주기적으로 수집해 두고, 새 방은 점수가 가장 낮은 노드에 배치합니다.
+ * 한 번 배치된 방은 닫힐 때까지 그 노드에 고정됩니다.
+ */
+public class KurentoNodePool {
+    private static final Logger log = LoggerFactory.getLogger(KurentoNodePool.class);
+
+    private final List<KurentoNode> nodes;
+    private final int cpuSampleMillis;
+    private final ScheduledExecutorService sampler;
+
+    /**
+     * @param nodes 첫 번째 노드가 기본 노드
+     * @param sampleIntervalMillis 부하 수집 주기
+     * @param cpuSampleMillis getUsedCpu에 넘기는 측정 구간
+     */
+    public KurentoNodePool(List<KurentoNode> nodes, long sampleIntervalMillis, int cpuSampleMillis) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("KMS 노드가 하나 이상 필요합니다");
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        this.cpuSampleMillis = cpuSampleMillis;
+        this.sampler = Executors.newScheduledThreadPool(nodes.size(), runnable -> {
+            Thread thread = new Thread(runnable, "kms-load-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // getUsedCpu는 측정 구간만큼 블로킹되므로 노드마다 따로 돌린다
+        for (KurentoNode node : this.nodes) {
+            sampler.scheduleWithFixedDelay(() -> sample(node), 0, sampleIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static KurentoNodePool create(List<String> uris, boolean poolEnabled, int minIdle, int maxIdle,
+                                         long sampleIntervalMillis, int cpuSampleMillis) {
+        List<KurentoNode> nodes = new ArrayList<>();
+        if (uris.isEmpty()) {
+            // 설정이 없으면 기존처럼 kms.url 시스템 프로퍼티(기본 ws://localhost:8888/kurento)를 사용한다
+            KurentoClient client = KurentoClient.create();
+            nodes.add(new KurentoNode("kms-0", "default", client, new PipelinePool(client, poolEnabled, minIdle, maxIdle)));
+        } else {
+            for (int i = 0; i < uris.size(); i++) {
+                KurentoClient client = KurentoClient.create(uris.get(i));
+                nodes.add(new KurentoNode("kms-" + i, uris.get(i), client,
+                        new PipelinePool(client, poolEnabled, minIdle, maxIdle)));
+            }
+        }
+        log.info("KMS 노드 {}개 연결: {}", nodes.size(), nodes.stream().map(KurentoNode::getUri).toList());
+        return new KurentoNodePool(nodes, sampleIntervalMillis, cpuSampleMillis);
+    }
+
+    private void sample(KurentoNode node) {
+        boolean wasAvailable = node.isAvailable();
+        try {
+            node.sample(cpuSampleMillis);
+            if (!wasAvailable) {
+                log.info("KMS 노드 {} 복구", node.getId());
+            }
+        } catch (Exception e) {
+            if (wasAvailable) {
+                log.warn("KMS 노드 {} 부하 수집 실패, 배치 대상에서 제외: {}", node.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 새 방을 배치할 노드. 응답하는 노드가 하나도 없으면 기본 노드를 돌려준다.
+     */
+    public KurentoNode select() {
+        return nodes.stream()
+                .filter(KurentoNode::isAvailable)
+                .min(Comparator.comparingDouble(KurentoNode::score))
+                .orElse(nodes.get(0));
+    }
+
+    /**
+     * 방을 다른 노드로 확장할 때 사용한다. 이미 사용 중인 노드를 빼고 고를 노드가 없으면 null.
+     */
+    public KurentoNode selectExcluding(Set<String> nodeIds) {
+        return nodes.stream()
+                .filter(KurentoNode::isAvailable)
+                .filter(node -> !nodeIds.contains(node.getId()))
+                .min(Comparator.comparingDouble(KurentoNode::score))
+                .orElse(null);
+    }
+
+    public KurentoNode primary() {
+        return nodes.get(0);
+    }
+
+    public List<KurentoNode> getNodes() {
+        return nodes;
+    }
+
+    public void shutdown() {
+        sampler.shutdownNow();
+        for (KurentoNode node : nodes) {
+            try {
+                node.getPipelinePool().shutdown();
+                node.getClient().destroy();
+            } catch (Exception e) {
+                log.warn("KMS 노드 {} 종료 실패: {}", node.getId(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.groupcall;
+
+import java.util.Arrays;
+
+/**
+ * 최근 N개의 지연 시간 샘플을 고정 크기 배열에 보관하고 백분위수를 계산합니다.
+ */
+public class LatencyRecorder {
+    private final long[] samples;
+    private long count;
+
+    public LatencyRecorder(int size) {
+        this.samples = new long[size];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[(int) (count % samples.length)] = nanos;
+        count++;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @param percentile 0~100
+     * @return 밀리초 단위 백분위수, 샘플이 없으면 0
+     */
+    public double percentileMillis(double percentile) {
+        long[] copy;
+        synchronized (this) {
+            copy = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+        }
+        if (copy.length == 0) {
+            return 0;
+        }
+        Arrays.sort(copy);
+        int index = (int) Math.ceil(percentile / 100.0 * copy.length) - 1;
+        return copy[Math.max(0, Math.min(index, copy.length - 1))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.groupcall;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class LocalRoomRegistry implements RoomRegistry {
+    private final ConcurrentHashMap<String, Room> rooms = new ConcurrentHashMap<>();
+
+    @Override
+    public Room get(String roomName) {
+        return rooms.get(roomName);
+    }
+
+    @Override
+    public void put(Room room) {
+        rooms.put(room.getName(), room);
+    }
+
+    @Override
+    public boolean remove(String roomName, Room room) {
+        return rooms.remove(roomName, room);
+    }
+
+    @Override
+    public Collection<Room> all() {
+        return rooms.values();
+    }
+}
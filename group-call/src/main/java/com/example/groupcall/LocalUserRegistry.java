@@ -0,0 +1,44 @@
+package com.example.groupcall;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+public class LocalUserRegistry implements UserRegistry {
+    private final ConcurrentHashMap<String, User> usersByName = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, User> usersBySessionId = new ConcurrentHashMap<>();
+
+    @Override
+    public void register(User user) {
+        usersByName.put(user.getName(), user);
+        usersBySessionId.put(user.getSession().getId(), user);
+    }
+
+    @Override
+    public User getByName(String name) {
+        return usersByName.get(name);
+    }
+
+    @Override
+    public User getBySessionId(String sessionId) {
+        return usersBySessionId.get(sessionId);
+    }
+
+    @Override
+    public User removeBySessionId(String sessionId) {
+        User user = usersBySessionId.remove(sessionId);
+        if (user != null) {
+            usersByName.remove(user.getName(), user);
+        }
+        return user;
+    }
+
+    @Override
+    public User detachSessionId(String sessionId) {
+        return usersBySessionId.remove(sessionId);
+    }
+
+    @Override
+    public void remove(User user) {
+        usersByName.remove(user.getName(), user);
+        usersBySessionId.remove(user.getSession().getId(), user);
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.groupcall;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.example.groupcall.message.OutboundMessage;
+import com.example.signaling.SignalingStats;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * 사용자별 송신 큐.
+ * 알림을 보내는 스레드는 큐에 넣기만 하고, 실제 전송은 별도 writer가 담당하므로
+ * 네트워크가 느린 수신자 하나가 Kurento 이벤트 스레드나 방 전체 알림 루프를 막지 않습니다.
+ */
+public class OutboundQueue {
+    private static final Logger log = LoggerFactory.getLogger(OutboundQueue.class);
+
+    public enum OverflowPolicy {
+        /** 큐가 가득 차면 ICE 후보 메시지를 버리고, 버릴 것이 없으면 연결을 끊는다 */
+        DROP_ICE,
+        /** 같은 참가자에 대한 대기 중인 입장/퇴장 알림을 합치고, 그래도 부족하면 DROP_ICE와 같이 동작한다 */
+        COALESCE_ROSTER,
+        /** 큐가 가득 차면 바로 연결을 끊는다 */
+        DISCONNECT
+    }
+
+    private static final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private static volatile int capacity = 256;
+    private static volatile OverflowPolicy overflowPolicy = OverflowPolicy.COALESCE_ROSTER;
+
+    private final String owner;
+    private volatile WebSocketSession session;
+    private volatile SignalingStats.Encoding encoding;
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+    // 연결이 끊겨 재연결을 기다리는 동안에는 보내지 않고 쌓아 둔다
+    private volatile boolean parked;
+
+    // 메트릭
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final AtomicLong coalescedMessages = new AtomicLong();
+    private final AtomicLong totalSendNanos = new AtomicLong();
+    private final AtomicLong maxSendNanos = new AtomicLong();
+    private volatile int maxDepth;
+
+    public static void configure(int queueCapacity, OverflowPolicy policy) {
+        capacity = queueCapacity;
+        overflowPolicy = policy;
+    }
+
+    public OutboundQueue(String owner, WebSocketSession session) {
+        this.owner = owner;
+        this.session = session;
+        this.encoding = SignalingStats.encodingOf(session);
+    }
+
+    public void offer(JsonObject message) {
+        if (closed) {
+            drop("closed", 1);
+            return;
+        }
+        long start = System.nanoTime();
+        TextMessage frame = new TextMessage(message.toString());
+        SignalingStats.recordOutbound(encoding, frame.getPayloadLength(), System.nanoTime() - start);
+        enqueue(new Entry(stringOrNull(message, "id"), stringOrNull(message, "name"), frame));
+    }
+
+    /**
+     * 자주 보내는 메시지. 바이너리 서브프로토콜을 협상한 연결이면 바이너리 프레임으로,
+     * 아니면 JsonObject 없이 바로 만든 JSON 텍스트로 보낸다.
+     */
+    public void offer(OutboundMessage message) {
+        if (closed) {
+            drop("closed", 1);
+            return;
+        }
+        long start = System.nanoTime();
+        WebSocketMessage<?> frame = encoding == SignalingStats.Encoding.BINARY
+                ? new BinaryMessage(message.toBinary())
+                : new TextMessage(message.toJson());
+        SignalingStats.recordOutbound(encoding, frame.getPayloadLength(), System.nanoTime() - start);
+        enqueue(new Entry(message.id(), message.name(), frame));
+    }
+
+    private void enqueue(Entry entry) {
+        boolean disconnect = false;
+        synchronized (queue) {
+            if (queue.size() >= capacity && !makeRoom(entry)) {
+                disconnect = true;
+            } else if (entry.payload != null) {
+                queue.addLast(entry);
+                maxDepth = Math.max(maxDepth, queue.size());
+            }
+        }
+
+        if (disconnect) {
+            disconnectSlowConsumer();
+            return;
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * 큐가 가득 찼을 때 정책에 따라 공간을 만든다.
+     * 새 메시지 자체가 버려지거나 합쳐져서 더 넣을 필요가 없으면 entry.payload를 null로 만든다.
+     */
+    private boolean makeRoom(Entry entry) {
+        return switch (overflowPolicy) {
+            // 합칠 알림이 없으면 ICE 후보를 버리는 정책으로 넘어간다
+            case COALESCE_ROSTER -> coalesceRoster(entry) || dropIce(entry);
+            case DROP_ICE -> dropIce(entry);
+            case DISCONNECT -> false;
+        };
+    }
+
+    private boolean coalesceRoster(Entry entry) {
+        if (!entry.isRoster()) {
+            return false;
+        }
+        Iterator<Entry> it = queue.descendingIterator();
+        while (it.hasNext()) {
+            Entry pending = it.next();
+            if (!pending.isRoster() || !entry.name.equals(pending.name)) {
+                continue;
+            }
+            if (pending.id.equals(entry.id)) {
+                // 같은 알림이 이미 대기 중이면 새 알림은 필요 없다
+                entry.payload = null;
+                coalescedMessages.incrementAndGet();
+                return true;
+            }
+            if (entry.cancels(pending)) {
+                // 아직 전달되지 않은 입장 알림 뒤의 퇴장 알림은 둘 다 보낼 필요가 없다
+                it.remove();
+                entry.payload = null;
+                coalescedMessages.addAndGet(2);
+                return true;
+            }
+            return false;
+        }
+        return false;
+    }
+
+    private boolean dropIce(Entry entry) {
+        if (entry.isIce()) {
+            entry.payload = null;
+            drop("overflow", 1);
+            return true;
+        }
+        Iterator<Entry> it = queue.iterator();
+        while (it.hasNext()) {
+            if (it.next().isIce()) {
+                it.remove();
+                drop("overflow", 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            writers.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            Entry entry;
+            while (!closed && !parked && (entry = poll()) != null) {
+                send(entry);
+            }
+        } finally {
+            draining.set(false);
+        }
+        // drain 종료와 offer 사이에 들어온 메시지가 있으면 다시 시작한다
+        if (!closed && !parked && depth() > 0) {
+            scheduleDrain();
+        }
+    }
+
+    private Entry poll() {
+        synchronized (queue) {
+            return queue.pollFirst();
+        }
+    }
+
+    private void send(Entry entry) {
+        WebSocketSession target = session;
+        if (!target.isOpen()) {
+            drop("closed", 1);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            target.sendMessage(entry.payload);
+            sentMessages.incrementAndGet();
+        } catch (Exception e) {
+            log.error("메시지 전송 실패 - 사용자: {}, 메시지: {}", owner, entry.id, e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            totalSendNanos.addAndGet(elapsed);
+            maxSendNanos.accumulateAndGet(elapsed, Math::max);
+            SessionMetrics.recordOutboundSend(entry.id, elapsed);
+        }
+    }
+
+    private void disconnectSlowConsumer() {
+        log.warn("송신 큐 초과로 느린 클라이언트 연결 종료 - 사용자: {}, 큐 크기: {}, 정책: {}",
+                owner, capacity, overflowPolicy);
+        close();
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception e) {
+            log.warn("느린 클라이언트 세션 종료 실패 - 사용자: {}", owner, e);
+        }
+    }
+
+    /**
+     * 연결이 끊겼을 때 전송을 멈춘다. 그동안 들어온 메시지는 같은 넘침 정책으로 큐에 쌓이며
+     * 정책이 연결 종료를 고르면 큐를 닫으므로 재연결할 수 없게 된다.
+     */
+    public void park() {
+        parked = true;
+    }
+
+    /**
+     * 새 연결로 갈아 끼우고 쌓아 둔 메시지를 보낸다. 새 연결의 인코딩(JSON/바이너리)이 다르면
+     * 쌓인 프레임은 보낼 수 없으므로 버린다 (재연결 응답의 방 상태로 복구한다).
+     *
+     * @return 큐가 이미 닫혔으면 false
+     */
+    public boolean resume(WebSocketSession newSession) {
+        if (closed) {
+            return false;
+        }
+        SignalingStats.Encoding newEncoding = SignalingStats.encodingOf(newSession);
+        if (newEncoding != encoding) {
+            int dropped;
+            synchronized (queue) {
+                dropped = queue.size();
+                queue.clear();
+            }
+            drop("encoding", dropped);
+            log.debug("인코딩이 바뀌어 대기 메시지 {}개를 버립니다 - 사용자: {}", dropped, owner);
+        }
+        session = newSession;
+        encoding = newEncoding;
+        parked = false;
+        scheduleDrain();
+        return true;
+    }
+
+    public void close() {
+        closed = true;
+        int dropped;
+        synchronized (queue) {
+            dropped = queue.size();
+            queue.clear();
+        }
+        if (dropped > 0) {
+            drop("closed", dropped);
+        }
+    }
+
+    private void drop(String reason, int count) {
+        droppedMessages.addAndGet(count);
+        SessionMetrics.recordOutboundDropped(reason, count);
+    }
+
+    private static String stringOrNull(JsonObject message, String field) {
+        JsonElement element = message.get(field);
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+    }
+
+    // Metrics
+    public int depth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+    public int getMaxDepth() { return maxDepth; }
+    public long getSentMessages() { return sentMessages.get(); }
+    public long getDroppedMessages() { return droppedMessages.get(); }
+    public long getCoalescedMessages() { return coalescedMessages.get(); }
+    public long getMaxSendNanos() { return maxSendNanos.get(); }
+    public long getAverageSendNanos() {
+        long sent = sentMessages.get();
+        return sent == 0 ? 0 : totalSendNanos.get() / sent;
+    }
+
+    private static final class Entry {
+        private final String id;
+        private final String name;
+        private WebSocketMessage<?> payload;
+
+        private Entry(String id, String name, WebSocketMessage<?> payload) {
+            this.id = id;
+            this.name = name;
+            this.payload = payload;
+        }
+
+        private boolean isIce() {
+            return "iceCandidate".equals(id) || "iceCandidates".equals(id);
+        }
+
+        private boolean isRoster() {
+            return name != null && ("newParticipantArrived".equals(id) || "participantLeft".equals(id)
+                    || "newScreenShareStarted".equals(id) || "screenShareEnded".equals(id));
+        }
+
+        private boolean cancels(Entry pending) {
+            return ("participantLeft".equals(id) && "newParticipantArrived".equals(pending.id))
+                    || ("screenShareEnded".equals(id) && "newScreenShareStarted".equals(pending.id));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.groupcall;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kurento.client.KurentoClient;
+import org.kurento.client.MediaPipeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 미리 만들어 둔 MediaPipeline 풀.
+ * 방의 첫 입장이 createMediaPipeline 왕복을 기다리지 않도록 min개 이상을 유지하고,
+ * 빈 방에서 돌아온 파이프라인은 max개까지 재사용합니다.
+ */
+public class PipelinePool {
+    private static final Logger log = LoggerFactory.getLogger(PipelinePool.class);
+
+    private final KurentoClient kurento;
+    private final boolean enabled;
+    private final int minIdle;
+    private final int maxIdle;
+
+    private final ConcurrentLinkedDeque<MediaPipeline> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger creating = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final ScheduledExecutorService refiller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pipeline-pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PipelinePool(KurentoClient kurento, boolean enabled, int minIdle, int maxIdle) {
+        this.kurento = kurento;
+        this.enabled = enabled;
+        this.minIdle = minIdle;
+        this.maxIdle = Math.max(minIdle, maxIdle);
+        if (enabled) {
+            refiller.scheduleWithFixedDelay(this::fill, 0, 5, TimeUnit.SECONDS);
+        }
+    }
+
+    public CompletableFuture<MediaPipeline> acquire() {
+        MediaPipeline pipeline = enabled ? idle.pollFirst() : null;
+        if (pipeline != null) {
+            idleCount.decrementAndGet();
+            hits.incrementAndGet();
+            refiller.execute(this::fill);
+            return CompletableFuture.completedFuture(pipeline);
+        }
+
+        misses.incrementAndGet();
+        return KurentoFutures.<MediaPipeline>call("createMediaPipeline", kurento::createMediaPipeline);
+    }
+
+    /**
+     * 비어 있는 방의 파이프라인을 돌려받는다. 풀이 가득 차 있으면 해제한다.
+     * 안의 객체를 모두 해제한 파이프라인만 돌려줘야 한다. 하나라도 해제하지 못했으면 release로 파이프라인째 해제한다.
+     */
+    public void recycle(MediaPipeline pipeline) {
+        if (enabled && idleCount.incrementAndGet() <= maxIdle) {
+            idle.addFirst(pipeline);
+            return;
+        }
+        if (enabled) {
+            idleCount.decrementAndGet();
+        }
+        KurentoFutures.<Void>call("release", pipeline::release);
+    }
+
+    private void fill() {
+        while (idleCount.get() + creating.get() < minIdle) {
+            creating.incrementAndGet();
+            KurentoFutures.<MediaPipeline>call("createMediaPipeline", kurento::createMediaPipeline)
+                    .whenComplete((pipeline, e) -> {
+                        creating.decrementAndGet();
+                        if (e != null) {
+                            log.warn("풀 파이프라인 생성 실패: {}", e.getMessage());
+                            return;
+                        }
+                        idle.addLast(pipeline);
+                        idleCount.incrementAndGet();
+                    });
+        }
+    }
+
+    public void shutdown() {
+        refiller.shutdownNow();
+        MediaPipeline pipeline;
+        while ((pipeline = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            pipeline.release();
+        }
+    }
+
+    // Getters
+    public boolean isEnabled() { return enabled; }
+    public int getIdleCount() { return idleCount.get(); }
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+}
@@ -0,0 +1,96 @@
+package com.example.groupcall;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.kurento.client.MediaObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 퇴장이나 방 종료로 해제할 Kurento 객체를 모아 한꺼번에 비동기로 해제합니다.
+ * 객체마다 release()를 차례로 기다리던 것을 최대 MAX_IN_FLIGHT개씩 겹쳐 보내는 것으로 바꿔 KMS 왕복이 겹치게 하며,
+ * commit은 기다리지 않으므로 시그널링 스레드를 막지 않습니다.
+ * release는 트랜잭션에 넣지 않는다. kurento-client 7.0.0은 트랜잭션 응답을 처리하면서 객체마다 release를 한 번 더 보내는데,
+ * 이미 해제된 객체라 실패하면 commit의 Continuation이 호출되지 않아 Future가 끝나지 않는다.
+ * 해제하지 못한 객체가 있으면 commit이 돌려준 Future는 모든 해제가 끝난 뒤 실패로 끝나므로,
+ * 파이프라인을 재사용할지 정할 때 쓸 수 있습니다.
+ */
+final class ReleaseBatch {
+    private static final Logger log = LoggerFactory.getLogger(ReleaseBatch.class);
+
+    // 파이프라인 자체를 해제할 때 쓴다. 자식 객체는 파이프라인과 함께 해제되므로 따로 보내지 않는다
+    private static final ReleaseBatch DISCARD = new ReleaseBatch(true);
+
+    // 한꺼번에 보내는 release 수. 큰 방의 객체 수백 개를 한 번에 보내면 KurentoClient의 송신 버퍼가 차고,
+    // 클라이언트는 이를 연결이 끊긴 것으로 보고 나머지 요청을 거절한다
+    private static final int MAX_IN_FLIGHT = 32;
+
+    private final boolean discard;
+    private final List<MediaObject> objects = new ArrayList<>();
+
+    ReleaseBatch() {
+        this(false);
+    }
+
+    private ReleaseBatch(boolean discard) {
+        this.discard = discard;
+    }
+
+    static ReleaseBatch discard() {
+        return DISCARD;
+    }
+
+    synchronized void add(MediaObject object) {
+        if (discard || object == null) {
+            return;
+        }
+        objects.add(object);
+    }
+
+    synchronized int size() {
+        return objects.size();
+    }
+
+    CompletableFuture<Void> commit() {
+        List<MediaObject> pending;
+        synchronized (this) {
+            if (objects.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            pending = List.copyOf(objects);
+            objects.clear();
+        }
+
+        // 객체를 MAX_IN_FLIGHT개의 줄로 나눠 줄마다 차례로 해제한다. 실패해도 그 줄의 다음 객체로 넘어간다
+        AtomicInteger failed = new AtomicInteger();
+        int lanes = Math.min(MAX_IN_FLIGHT, pending.size());
+        List<CompletableFuture<Void>> chains = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int i = lane; i < pending.size(); i += lanes) {
+                MediaObject object = pending.get(i);
+                chain = chain.thenCompose(v -> release(object, failed));
+            }
+            chains.add(chain);
+        }
+        // 모든 해제가 끝난 뒤에, 하나라도 실패했으면 실패로 끝난다
+        return CompletableFuture.allOf(chains.toArray(CompletableFuture<?>[]::new)).thenRun(() -> {
+            if (failed.get() > 0) {
+                throw new IllegalStateException("Kurento 객체 " + failed.get() + "개를 해제하지 못했습니다");
+            }
+        });
+    }
+
+    private static CompletableFuture<Void> release(MediaObject object, AtomicInteger failed) {
+        return KurentoFutures.<Void>call("release", object::release).handle((v, e) -> {
+            if (e != null) {
+                failed.incrementAndGet();
+                log.warn("Kurento 객체 해제 실패 - Id: {}: {}", object.getId(), e.getMessage());
+            }
+            return null;
+        });
+    }
+}
@@ -1,8 +1,23 @@
 package com.example.groupcall;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import org.kurento.client.KurentoClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.kurento.client.Composite;
+import org.kurento.client.MediaElement;
 import org.kurento.client.MediaPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,58 +25,265 @@ import org.springframework.web.socket.WebSocketSession;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
+/**
+ * 참가자, 화면 공유, 노드 구간, 모드처럼 방 상태를 바꾸는 작업과 그에 따른 알림은 방마다 하나인 {@link RoomMailbox}에서
+ * 들어온 순서대로 실행된다. 다른 스레드(시그널링, Kurento 콜백, 메트릭)는 동시 맵을 읽기만 한다.
+ */
 public class Room {
     private static final Logger log = LoggerFactory.getLogger(Room.class);
 
+    /** MCU 모드에서 합성 영상을 가리키는 송신자 이름 */
+    public static final String MIXED_STREAM = "__mixed__";
+
+    public enum Mode { SFU, MCU }
+
     // Static room management
-    private static final ConcurrentHashMap<String, Room> rooms = new ConcurrentHashMap<>();
-    private static KurentoClient kurento;
+    private static RoomRegistry rooms = new LocalRoomRegistry();
+    private static final ConcurrentHashMap<String, CompletableFuture<Room>> creating = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService lingerScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "room-linger");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static KurentoNodePool kurentoNodes;
+    private static long lingerMillis;
+    private static int lastN;
+    private static long lastNHoldMillis;
+    private static double lastNSwitchMargin;
+    private static int mcuEnterThreshold;
+    private static int mcuExitThreshold;
+    private static int cascadeMaxPerNode;
+    private static int maxScreenShares = 2;
+    private static final ExecutorService modeSwitcher = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "room-mode-switch");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     // Room instance fields
     private final String name;
+    private final KurentoNode node;
     private final MediaPipeline pipeline;
+    private final RoomMailbox mailbox;
+    // 메일박스에서만 바꾼다
     private final ConcurrentHashMap<String, User> participants = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, Screen> screenShares = new ConcurrentHashMap<>();
+    private final SpeakerRanking speakerRanking;
+    // 이하 가변 필드는 메일박스에서만 읽고 쓴다 (mode는 시그널링 스레드도 읽는다)
+    private ScheduledFuture<?> lingerTask;
+    private boolean closed;
+    // 아직 끝나지 않은 퇴장 정리. 파이프라인을 돌려주기 전에 기다린다
+    private CompletableFuture<Void> pendingReleases = CompletableFuture.completedFuture(null);
+    // 해제하지 못한 객체가 남았을 수 있으면 true. 그러면 파이프라인을 풀에 돌려주지 않고 해제한다
+    private volatile boolean releaseFailed;
+    private volatile Mode mode = Mode.SFU;
+    private Composite composite;
+    private boolean switchingMode;
+    // 진행 중이거나 자리를 기다리는 녹화. 없으면 null
+    private RoomRecording recording;
+    // 노드별 구간. 기본 노드 구간은 방이 닫힐 때까지 유지된다
+    private final ConcurrentHashMap<String, Segment> segments = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Segment> placements = new ConcurrentHashMap<>();
 
     // Static methods
-    public static void setKurentoClient(KurentoClient kurentoClient) {
-        kurento = kurentoClient;
+    public static void configure(KurentoNodePool nodes, long emptyRoomLingerMillis) {
+        kurentoNodes = nodes;
+        lingerMillis = emptyRoomLingerMillis;
+    }
+
+    /**
+     * @param size 수신자별 최대 영상 구독 수. 0 이하이면 모든 참가자의 영상을 받는다 (full mesh)
+     */
+    public static void configureLastN(int size, long minHoldMillis, double switchMargin) {
+        lastN = size;
+        lastNHoldMillis = minHoldMillis;
+        lastNSwitchMargin = switchMargin;
+    }
+
+    /**
+     * @param enterThreshold 참가자 수가 이 값을 넘으면 MCU로 전환 (0 이하이면 사용 안 함)
+     * @param exitThreshold 참가자 수가 이 값보다 작아지면 SFU로 복귀
+     */
+    public static void configureMcu(int enterThreshold, int exitThreshold) {
+        mcuEnterThreshold = enterThreshold;
+        mcuExitThreshold = Math.min(exitThreshold, enterThreshold);
+    }
+
+    /**
+     * @param enabled true면 방마다 메일박스를 가상 스레드 하나가 비운다. false면 부른 스레드에서 방 모니터를 잡고 실행한다
+     */
+    public static void configureActors(boolean enabled) {
+        RoomMailbox.configure(enabled);
     }
 
-    public static Room getRoom(String roomName) {
+    public static void configureRegistry(RoomRegistry registry) {
+        rooms = registry;
+    }
+
+    /**
+     * @param maxParticipantsPerNode 한 노드 구간의 최대 참가자 수. 넘으면 다른 노드로 방을 확장한다 (0 이하이면 사용 안 함)
+     */
+    public static void configureCascade(int maxParticipantsPerNode) {
+        cascadeMaxPerNode = maxParticipantsPerNode;
+    }
+
+    /**
+     * @param maxConcurrent 방 하나에서 동시에 공유할 수 있는 화면 수. 공유 하나가 시청자 수만큼 엔드포인트를 만드므로
+     *                      KMS 부하를 묶어 둔다 (0 이하이면 제한 없음)
+     */
+    public static void configureScreenShare(int maxConcurrent) {
+        maxScreenShares = maxConcurrent;
+    }
+
+    public static CompletableFuture<Room> getRoom(String roomName) {
         Room room = rooms.get(roomName);
-        if (room == null) {
-            log.info("새로운 방 생성: {}", roomName);
-            room = new Room(roomName, kurento.createMediaPipeline());
-            rooms.put(roomName, room);
+        if (room != null) {
+            return room.mailbox.submit(room::retain)
+                    .thenCompose(retained -> retained ? CompletableFuture.completedFuture(room) : createShared(roomName));
         }
-        return room;
+        return createShared(roomName);
+    }
+
+    /**
+     * 같은 방에 대한 동시 요청은 하나의 생성 작업을 공유한다.
+     */
+    private static CompletableFuture<Room> createShared(String roomName) {
+        CompletableFuture<Room> future = creating.computeIfAbsent(roomName, Room::create);
+        future.whenComplete((created, e) -> creating.remove(roomName, future));
+        return future;
+    }
+
+    private static CompletableFuture<Room> create(String roomName) {
+        return create(roomName, kurentoNodes.select(), new HashSet<>());
+    }
+
+    /**
+     * 노드가 파이프라인을 만들지 못하면 (한도에 찼거나 장애) 그 노드를 배치에서 밀어 두고, 아직 시도하지 않은 다음 노드에서 다시 만든다.
+     */
+    private static CompletableFuture<Room> create(String roomName, KurentoNode node, Set<String> tried) {
+        log.info("새로운 방 생성: {} (KMS 노드: {}, 점수: {})", roomName, node.getId(), node.score());
+        tried.add(node.getId());
+        return node.getPipelinePool().acquire()
+                .handle((pipeline, e) -> {
+                    if (e == null) {
+                        Room created = new Room(roomName, node, pipeline);
+                        node.roomOpened();
+                        rooms.put(created);
+                        SessionMetrics.roomOpened(created);
+                        return CompletableFuture.completedFuture(created);
+                    }
+                    node.pipelineRejected();
+                    KurentoNode next = kurentoNodes.selectExcluding(tried);
+                    if (next == null) {
+                        return CompletableFuture.<Room>failedFuture(e);
+                    }
+                    log.warn("방 {} 파이프라인 생성 실패 (KMS 노드: {}), 노드 {}에서 다시 시도: {}",
+                            roomName, node.getId(), next.getId(), e.getMessage());
+                    return create(roomName, next, tried);
+                })
+                .thenCompose(created -> created);
     }
 
-    private Room(String name, MediaPipeline pipeline) {
+    private Room(String name, KurentoNode node, MediaPipeline pipeline) {
         this.name = name;
+        this.node = node;
         this.pipeline = pipeline;
+        this.mailbox = new RoomMailbox(name, this);
+        this.segments.put(node.getId(), new Segment(node, CompletableFuture.completedFuture(pipeline)));
+        this.speakerRanking = lastN > 0 ? new SpeakerRanking(lastN + 1, lastNHoldMillis, lastNSwitchMargin) : null;
         log.info(" Room : {}, 파이프라인 ID: {}", name, pipeline.getId());
     }
 
-    public Screen startScreenShare(String userName) {
-        Screen screen = screenShares.get(userName);
-        if (screen == null) {
-            User user = participants.get(userName);
-            if (user != null) {
-                log.info("새로운 화면 공유 시작 - 사용자: {}, 방: {}", userName, name);
-                screen = new Screen(userName, name, user.getSession(), pipeline);
-                screenShares.put(userName, screen);
-            }
+    /**
+     * 비어 있는 방을 다시 사용하기 위해 예약된 해제를 취소한다.
+     * @return 이미 닫힌 방이면 false
+     */
+    private boolean retain() {
+        if (closed) {
+            return false;
+        }
+        if (lingerTask != null) {
+            log.info("방 {} 재사용 - 예약된 해제 취소", name);
+            lingerTask.cancel(false);
+            lingerTask = null;
+        }
+        return true;
+    }
+
+    private void scheduleRelease() {
+        if (closed || !participants.isEmpty()) {
+            return;
+        }
+        if (lingerMillis <= 0) {
+            closeEmpty();
+            return;
+        }
+        if (lingerTask == null) {
+            log.info("방 {}이 비어 {}ms 후 해제 예정", name, lingerMillis);
+            lingerTask = lingerScheduler.schedule(() -> mailbox.execute(this::closeEmpty), lingerMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void closeEmpty() {
+        lingerTask = null;
+        if (closed || !participants.isEmpty()) {
+            return;
         }
-        return screen;
+        rooms.remove(name, this);
+        closeNow(false);
     }
 
-    public void stopScreenShare(String userName) {
+    /**
+     * startScreenShare 결과. 거절되면 screen은 null이고 rejectedReason은 screenShareRejected로 알릴 이유다.
+     */
+    public record ScreenShareStart(Screen screen, String rejectedReason) {
+        private static ScreenShareStart rejected(String reason) {
+            return new ScreenShareStart(null, reason);
+        }
+    }
+
+    /**
+     * 화면 공유를 시작한다. 이미 공유 중이거나 방의 동시 공유 수 제한에 걸리면 거절 이유로 완료된다.
+     * 돌려준 Screen은 항상 이 요청이 새로 만든 것이므로 시작에 실패하면 부른 쪽이 stopScreenShare로 정리한다.
+     */
+    public CompletableFuture<ScreenShareStart> startScreenShare(String userName) {
+        return mailbox.submit(() -> openScreenShare(userName));
+    }
+
+    private ScreenShareStart openScreenShare(String userName) {
+        if (screenShares.containsKey(userName)) {
+            // 진행 중인 공유는 그대로 둔다
+            log.info("화면 공유 거절 - 사용자: {}, 방: {}, 이미 공유 중", userName, name);
+            return ScreenShareStart.rejected("alreadySharing");
+        }
+        User user = participants.get(userName);
+        if (user == null) {
+            return ScreenShareStart.rejected("notInRoom");
+        }
+        if (maxScreenShares > 0 && screenShares.size() >= maxScreenShares) {
+            log.info("화면 공유 거절 - 사용자: {}, 방: {}, 공유 중: {}개", userName, name, screenShares.size());
+            return ScreenShareStart.rejected("tooManyScreenShares");
+        }
+        log.info("새로운 화면 공유 시작 - 사용자: {}, 방: {}", userName, name);
+        Screen screen = new Screen(user, pipeline);
+        screenShares.put(userName, screen);
+        return new ScreenShareStart(screen, null);
+    }
+
+    public CompletableFuture<Void> stopScreenShare(String userName) {
+        return mailbox.submit(() -> {
+            ReleaseBatch batch = new ReleaseBatch();
+            stopScreenShare(userName, batch);
+            batch.commit();
+        });
+    }
+
+    private void stopScreenShare(String userName, ReleaseBatch batch) {
         Screen screen = screenShares.remove(userName);
         if (screen != null) {
             log.info("화면 공유 종료 - 사용자: {}, 방: {}", userName, name);
-            screen.close();
+            screen.close(batch);
             notifyScreenShareEnded(userName);
         }
     }
@@ -71,6 +293,10 @@ public class Room {
     }
 
     public void notifyScreenShare(String userName) {
+        mailbox.execute(() -> sendScreenShareStarted(userName));
+    }
+
+    private void sendScreenShareStarted(String userName) {
         JsonObject notification = new JsonObject();
         notification.addProperty("id", "newScreenShareStarted");
         notification.addProperty("name", userName);
@@ -86,7 +312,21 @@ public class Room {
         });
     }
 
-    public void notifyScreenShareEnded(String userName) {
+    /**
+     * 나중에 들어온 참가자도 이미 진행 중인 화면 공유를 받을 수 있게 알린다.
+     */
+    private void sendActiveScreenShares(User participant) {
+        screenShares.values().forEach(screen -> {
+            if (screen.isSharing()) {
+                JsonObject notification = new JsonObject();
+                notification.addProperty("id", "newScreenShareStarted");
+                notification.addProperty("name", screen.getUserName());
+                participant.sendMessage(notification);
+            }
+        });
+    }
+
+    private void notifyScreenShareEnded(String userName) {
         JsonObject notification = new JsonObject();
         notification.addProperty("id", "screenShareEnded");
         notification.addProperty("name", userName);
@@ -103,48 +343,148 @@ public class Room {
     }
 
     // Existing methods
-    public User join(String userName, WebSocketSession session) throws Exception {
+    public CompletableFuture<User> join(String userName, WebSocketSession session) {
         log.info("사용자 {}이 Room {}에 참여하고 있습니다", userName, name);
-        User participant = new User(userName, name, session, pipeline);
+        // 구간 예약과 참가자 등록은 메일박스에서, 그 사이의 엔드포인트 생성은 메일박스 밖에서 기다린다
+        return mailbox.submit(() -> {
+            if (!retain()) {
+                throw new IllegalStateException("이미 닫힌 방입니다: " + name);
+            }
+            return reserveSegment();
+        }).thenCompose(segment -> segment.pipeline
+                .thenCompose(segmentPipeline -> User.create(userName, name, session, segmentPipeline))
+                .whenComplete((participant, e) -> {
+                    if (e != null) {
+                        mailbox.execute(() -> releaseReservation(segment));
+                    }
+                })
+                .thenCompose(participant -> mailbox.submit(() -> admit(userName, segment, participant))));
+    }
+
+    private User admit(String userName, Segment segment, User participant) {
+        if (closed) {
+            // 엔드포인트를 만드는 동안 방이 닫혔다
+            releaseReservation(segment);
+            participant.close();
+            throw new IllegalStateException("이미 닫힌 방입니다: " + name);
+        }
+        placements.put(userName, segment);
         participants.put(userName, participant);
+        if (mode == Mode.MCU) {
+            attachToComposite(participant);
+        }
+        if (speakerRanking != null) {
+            speakerRanking.add(userName, System.currentTimeMillis());
+        }
 
         sendNewParticipantNotification(participant);
         sendExistingParticipants(participant);
+        sendActiveScreenShares(participant);
+        if (recording != null) {
+            recording.add(participant);
+        }
+        if (mode == Mode.SFU) {
+            // 클라이언트의 receiveVideoFrom을 기다리지 않고 기존 송신자의 수신 엔드포인트를 병렬로 만든다
+            participant.prepareIncoming(participants.values());
+        }
+        checkMode();
+        rebalance();
 
         return participant;
     }
 
-    public void leave(String userName) throws Exception {
+    /**
+     * @return 방 상태에서 빠지고 다른 참가자에게 알린 뒤 완료된다. 엔드포인트 해제는 기다리지 않는다
+     */
+    public CompletableFuture<Void> leave(String userName) {
         log.info("사용자 {}이 Room {}을(를) 나가고 있습니다.", userName, name);
+        return mailbox.submit(() -> remove(userName));
+    }
+
+    private void remove(String userName) {
         User user = participants.remove(userName);
 
         if (user != null) {
+            // 이 사용자와 관련된 엔드포인트를 모두 모아 한꺼번에 비동기로 해제한다
+            long start = System.nanoTime();
+            ReleaseBatch batch = new ReleaseBatch();
+            stopScreenShare(userName, batch);
+            screenShares.values().forEach(screen -> screen.releaseViewer(userName, batch));
+            if (speakerRanking != null) {
+                speakerRanking.remove(userName);
+            }
+            if (recording != null) {
+                recording.remove(userName);
+            }
+
             JsonObject notification = new JsonObject();
             notification.addProperty("id", "participantLeft");
             notification.addProperty("name", userName);
 
             participants.values().forEach(participant -> {
                 try {
-                    participant.cancelVideoFrom(userName);
+                    participant.cancelVideoFrom(userName, batch);
                     participant.sendMessage(notification);
                 } catch (Exception e) {
                     log.error("Error sending leave notification", e);
                 }
             });
 
-            user.close();
+            user.close(batch);
+            releaseBridgesFrom(userName, batch);
+            int objects = batch.size();
+            trackRelease(batch.commit().whenComplete((v, e) -> {
+                long elapsed = System.nanoTime() - start;
+                SessionMetrics.recordTeardown("leave", elapsed);
+                log.debug("사용자 {} 퇴장 정리 - 방: {}, 객체 {}개, {}ms", userName, name, objects,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed));
+            }));
+            Segment segment = placements.remove(userName);
+            if (segment != null) {
+                releaseReservation(segment);
+            }
 
             if (participants.isEmpty()) {
-                close();
-                rooms.remove(this.name);
+                scheduleRelease();
+                return;
             }
+            if (speakerRanking != null && speakerRanking.recompute(System.currentTimeMillis())) {
+                rewireVideo();
+            }
+            checkMode();
+            rebalance();
         }
     }
 
-    public void close() {
+    public CompletableFuture<Void> close() {
+        return close(false);
+    }
+
+    /**
+     * 방의 모든 엔드포인트를 한꺼번에 비동기로 해제한 뒤 파이프라인을 풀에 돌려준다.
+     * 해제는 기다리지 않으며, 돌려받은 Future로 끝나는 시점을 알 수 있다.
+     *
+     * @param discardPipelines true면 엔드포인트를 따로 해제하지 않고 파이프라인째 해제한다 (애플리케이션 종료)
+     */
+    private CompletableFuture<Void> close(boolean discardPipelines) {
+        return mailbox.submit(() -> closeNow(discardPipelines)).thenCompose(released -> released);
+    }
+
+    private CompletableFuture<Void> closeNow(boolean discardPipelines) {
+        if (closed) {
+            return pendingReleases;
+        }
+        closed = true;
+        long start = System.nanoTime();
+        if (recording != null) {
+            // 녹화 파이프라인은 다른 노드에 있을 수 있으므로 방 파이프라인과 따로 정리한다
+            recording.stop();
+            recording = null;
+        }
+        ReleaseBatch batch = discardPipelines ? ReleaseBatch.discard() : new ReleaseBatch();
         participants.values().forEach(participant -> {
             try {
-                participant.close();
+                participant.close(batch);
             } catch (Exception e) {
                 log.error("Error closing participant", e);
             }
@@ -152,7 +492,7 @@ public class Room {
 
         screenShares.values().forEach(screen -> {
             try {
-                screen.close();
+                screen.close(batch);
             } catch (Exception e) {
                 log.error("Error closing screen share", e);
             }
@@ -160,8 +500,423 @@ public class Room {
 
         participants.clear();
         screenShares.clear();
-        pipeline.release();
-        log.info("Room {}이 닫히고 모든 리소스가 해제되었습니다.", name);
+        List<Segment> remoteSegments = new ArrayList<>();
+        segments.values().forEach(segment -> {
+            releaseBridgesInto(segment, batch);
+            if (segment.node != node) {
+                remoteSegments.add(segment);
+            }
+        });
+        segments.clear();
+        placements.clear();
+        if (composite != null) {
+            batch.add(composite);
+            composite = null;
+        }
+        int objects = batch.size();
+
+        // 파이프라인은 그 안의 객체 해제(진행 중인 퇴장 정리 포함)가 끝난 뒤에 돌려준다.
+        // 하나라도 해제하지 못했으면 엔드포인트가 남은 파이프라인이 다음 방에 넘어가지 않도록 파이프라인째 해제한다
+        pendingReleases = CompletableFuture.allOf(pendingReleases, batch.commit())
+                .handle((v, e) -> e == null && !releaseFailed)
+                .thenCompose(clean -> {
+                    boolean discard = discardPipelines || !clean;
+                    if (!clean) {
+                        log.warn("방 {}의 객체 일부를 해제하지 못해 파이프라인을 재사용하지 않고 해제합니다", name);
+                    }
+                    List<CompletableFuture<Void>> pipelines = new ArrayList<>();
+                    remoteSegments.forEach(segment -> pipelines.add(releaseSegmentPipeline(segment, discard)));
+                    pipelines.add(releasePipeline(node, pipeline, discard));
+                    return CompletableFuture.allOf(pipelines.toArray(new CompletableFuture<?>[0]));
+                })
+                .whenComplete((v, e) -> {
+                    long elapsed = System.nanoTime() - start;
+                    SessionMetrics.recordTeardown("close", elapsed);
+                    log.info("Room {}이 닫히고 모든 리소스가 해제되었습니다. (객체 {}개, 파이프라인 {}개, {}ms)",
+                            name, objects, remoteSegments.size() + 1, TimeUnit.NANOSECONDS.toMillis(elapsed));
+                });
+        node.roomClosed();
+        SessionMetrics.roomClosed(this);
+        return pendingReleases;
+    }
+
+    /**
+     * 애플리케이션 종료 시 모든 방을 동시에 닫는다. KMS 객체는 파이프라인째 해제하므로 방마다 노드 구간 수만큼만 호출한다.
+     */
+    public static CompletableFuture<Void> closeAll() {
+        List<CompletableFuture<Void>> closing = new ArrayList<>();
+        for (Room room : rooms.all()) {
+            rooms.remove(room.getName(), room);
+            closing.add(room.close(true));
+        }
+        return CompletableFuture.allOf(closing.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private void trackRelease(CompletableFuture<Void> release) {
+        pendingReleases = CompletableFuture.allOf(pendingReleases, release.exceptionally(e -> {
+            releaseFailed = true;
+            return null;
+        }));
+    }
+
+    private static CompletableFuture<Void> releasePipeline(KurentoNode owner, MediaPipeline released, boolean discard) {
+        if (discard) {
+            return KurentoFutures.call("release", released::release);
+        }
+        owner.getPipelinePool().recycle(released);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Cascading -----------------------------------------------------------------
+
+    /**
+     * 새 참가자를 받을 노드 구간을 정한다. 기본 노드 구간부터 채우고, 모든 구간이 가득 차면
+     * 아직 쓰지 않은 노드 중 부하가 가장 낮은 노드에 새 구간을 만든다.
+     * 더 쓸 노드가 없으면 가장 적게 찬 구간에 넣는다.
+     */
+    private Segment reserveSegment() {
+        Segment home = segments.get(node.getId());
+        Segment target = home;
+        if (cascadeMaxPerNode > 0 && mode == Mode.SFU && home.reserved >= cascadeMaxPerNode) {
+            for (Segment segment : segments.values()) {
+                if (segment.reserved < target.reserved) {
+                    target = segment;
+                }
+            }
+            if (target.reserved >= cascadeMaxPerNode) {
+                KurentoNode next = kurentoNodes.selectExcluding(segments.keySet());
+                if (next != null) {
+                    target = openSegment(next);
+                }
+            }
+        }
+        target.reserved++;
+        return target;
+    }
+
+    private Segment openSegment(KurentoNode next) {
+        log.info("방 {}을(를) KMS 노드 {}로 확장 (점수: {})", name, next.getId(), next.score());
+        Segment segment = new Segment(next, next.getPipelinePool().acquire());
+        segments.put(next.getId(), segment);
+        segment.pipeline.whenComplete((segmentPipeline, e) -> {
+            if (e != null) {
+                log.error("방 {} KMS 노드 {} 구간 생성 실패", name, next.getId(), e);
+                next.pipelineRejected();
+                mailbox.execute(() -> segments.remove(next.getId(), segment));
+            } else {
+                next.roomOpened();
+            }
+        });
+        return segment;
+    }
+
+    private void releaseReservation(Segment segment) {
+        segment.reserved--;
+        if (segment.node == node || segment.reserved > 0 || closed) {
+            return;
+        }
+        // 비어 있는 원격 구간은 바로 정리한다
+        if (segments.remove(segment.node.getId(), segment)) {
+            log.info("방 {}의 KMS 노드 {} 구간 해제", name, segment.node.getId());
+            ReleaseBatch batch = new ReleaseBatch();
+            releaseBridgesInto(segment, batch);
+            CompletableFuture.allOf(pendingReleases, batch.commit())
+                    .handle((v, e) -> e == null && !releaseFailed)
+                    .thenCompose(clean -> releaseSegmentPipeline(segment, !clean));
+        }
+    }
+
+    private CompletableFuture<Void> releaseSegmentPipeline(Segment segment, boolean discard) {
+        return segment.pipeline.thenCompose(segmentPipeline -> {
+            segment.node.roomClosed();
+            return releasePipeline(segment.node, segmentPipeline, discard);
+        });
+    }
+
+    /**
+     * 참가자의 엔드포인트가 있는 KMS 노드. 통계 수집을 노드별로 묶을 때 쓴다.
+     */
+    KurentoNode nodeOf(String userName) {
+        Segment segment = placements.get(userName);
+        return segment != null ? segment.node : node;
+    }
+
+    /**
+     * receiver가 sender의 미디어를 연결할 대상. 같은 노드면 송신 엔드포인트 자체이고,
+     * 다른 노드면 receiver 노드로 중계하는 RTP 브리지다. 브리지는 송신자와 노드 쌍마다 하나만 만든다.
+     */
+    public CompletableFuture<MediaElement> sourceFor(User sender, User receiver) {
+        Segment target = placements.get(receiver.getName());
+        if (target == null || sender.getPipeline() == receiver.getPipeline()) {
+            return CompletableFuture.completedFuture(sender.getOutgoingWebRtcPeer());
+        }
+
+        String senderName = sender.getName();
+        CompletableFuture<RtpBridge> bridge = target.bridges.computeIfAbsent(senderName, k -> {
+            log.info("RTP 브리지 생성 요청 - 송신자: {}, 대상 노드: {}, 방: {}", senderName, target.node.getId(), name);
+            CompletableFuture<RtpBridge> opened = RtpBridge.open(senderName, sender.getOutgoingWebRtcPeer(),
+                    sender.getPipeline(), receiver.getPipeline());
+            opened.whenComplete((created, e) -> {
+                if (e != null) {
+                    target.bridges.remove(senderName, opened);
+                } else if (!participants.containsKey(senderName) || segments.get(target.node.getId()) != target) {
+                    // 생성되는 동안 송신자가 나갔거나 구간이 정리되었다
+                    target.bridges.remove(senderName, opened);
+                    created.release();
+                }
+            });
+            return opened;
+        });
+        return bridge.thenApply(RtpBridge::getSink);
+    }
+
+    private void releaseBridgesFrom(String senderName, ReleaseBatch batch) {
+        segments.values().forEach(segment -> {
+            CompletableFuture<RtpBridge> bridge = segment.bridges.remove(senderName);
+            if (bridge != null) {
+                releaseBridge(bridge, batch);
+            }
+        });
+    }
+
+    private void releaseBridgesInto(Segment segment, ReleaseBatch batch) {
+        segment.bridges.values().forEach(bridge -> releaseBridge(bridge, batch));
+        segment.bridges.clear();
+    }
+
+    /**
+     * 이미 열린 브리지는 batch에 넣고, 아직 여는 중이면 열린 뒤에 따로 해제한다.
+     */
+    private static void releaseBridge(CompletableFuture<RtpBridge> bridge, ReleaseBatch batch) {
+        if (!bridge.isDone()) {
+            bridge.thenAccept(RtpBridge::release);
+        } else if (!bridge.isCompletedExceptionally()) {
+            bridge.join().release(batch);
+        }
+    }
+
+    /**
+     * 참가자들의 송신·수신 WebRtcEndpoint 수 (webrtc.room.endpoints 게이지)
+     */
+    public int getEndpointCount() {
+        int count = 0;
+        for (User participant : participants.values()) {
+            count += 1 + participant.getIncomingEndpointCount();
+        }
+        return count;
+    }
+
+    public int getBridgeCount() {
+        int count = 0;
+        for (Segment segment : segments.values()) {
+            count += segment.bridges.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return 노드 ID별 참가자 수
+     */
+    public Map<String, Integer> getSegmentSizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        segments.forEach((nodeId, segment) -> sizes.put(nodeId, segment.reserved));
+        return sizes;
+    }
+
+    private static final class Segment {
+        private final KurentoNode node;
+        private final CompletableFuture<MediaPipeline> pipeline;
+        // 이 구간으로 들어오는 브리지 (송신자 이름 -> 브리지)
+        private final ConcurrentHashMap<String, CompletableFuture<RtpBridge>> bridges = new ConcurrentHashMap<>();
+        // 입장 중인 참가자를 포함한 수. 메일박스에서만 바꾸고 모니터링은 읽기만 한다
+        private volatile int reserved;
+
+        private Segment(KurentoNode node, CompletableFuture<MediaPipeline> pipeline) {
+            this.node = node;
+            this.pipeline = pipeline;
+        }
+    }
+
+    // SFU <-> MCU ----------------------------------------------------------------
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * 참가자 수가 임계값을 넘으면 모드를 바꾼다. 진입/복귀 임계값을 다르게 두어
+     * 경계 근처에서 입장과 퇴장이 반복되어도 모드가 계속 바뀌지 않는다.
+     */
+    private void checkMode() {
+        if (mcuEnterThreshold <= 0 || switchingMode || closed) {
+            return;
+        }
+        int count = participants.size();
+        // Composite는 기본 노드에만 있으므로 여러 노드로 나뉜 방은 SFU로 유지한다
+        if (mode == Mode.SFU && count > mcuEnterThreshold && segments.size() == 1) {
+            switchingMode = true;
+            // Composite 생성은 KMS 응답을 기다리므로 메일박스 밖에서 만들고, 전환은 메일박스로 돌아와서 한다
+            modeSwitcher.execute(() -> {
+                try {
+                    Composite created = new Composite.Builder(pipeline).build();
+                    mailbox.execute(() -> {
+                        switchingMode = false;
+                        switchToMcu(created);
+                        // 전환 중에 참가자 수가 다시 바뀌었을 수 있다
+                        checkMode();
+                    });
+                } catch (Exception e) {
+                    log.error("방 {} 모드 전환 실패 - 목표: {}", name, Mode.MCU, e);
+                    mailbox.execute(() -> switchingMode = false);
+                }
+            });
+        } else if (mode == Mode.MCU && count < mcuExitThreshold) {
+            switchToSfu();
+        }
+    }
+
+    private void switchToMcu(Composite created) {
+        if (closed) {
+            KurentoFutures.<Void>call("release", created::release);
+            return;
+        }
+        log.info("방 {} MCU 모드로 전환 - 참가자: {}명", name, participants.size());
+        composite = created;
+        mode = Mode.MCU;
+        participants.values().forEach(participant -> {
+            participant.releaseIncomingVideo();
+            attachToComposite(participant);
+        });
+        notifyModeChanged();
+        rebalance();
+    }
+
+    private void switchToSfu() {
+        log.info("방 {} SFU 모드로 전환 - 참가자: {}명", name, participants.size());
+        mode = Mode.SFU;
+        participants.values().forEach(User::detachFromComposite);
+        Composite released = composite;
+        composite = null;
+        notifyModeChanged();
+        if (released != null) {
+            KurentoFutures.<Void>call("release", released::release);
+        }
+        rebalance();
+    }
+
+    private void attachToComposite(User participant) {
+        participant.attachToComposite(composite).exceptionally(e -> {
+            log.error("HubPort 연결 실패 - 사용자: {}, 방: {}", participant.getName(), name, e);
+            return null;
+        });
+    }
+
+    private void notifyModeChanged() {
+        participants.values().forEach(participant -> {
+            JsonObject notification = new JsonObject();
+            notification.addProperty("id", "roomModeChanged");
+            notification.addProperty("mode", mode.name());
+            notification.add("data", otherParticipantNames(participant));
+            participant.sendMessage(notification);
+        });
+    }
+
+    private JsonArray otherParticipantNames(User user) {
+        JsonArray names = new JsonArray();
+        participants.values().forEach(participant -> {
+            if (!participant.equals(user)) {
+                names.add(participant.getName());
+            }
+        });
+        return names;
+    }
+
+    // last-N ------------------------------------------------------------------
+
+    public boolean isLastN() {
+        return speakerRanking != null;
+    }
+
+    /**
+     * last-N 모드에서 receiver가 sender의 영상을 받아야 하는지 여부. full mesh면 항상 true.
+     */
+    public boolean forwardsVideo(String receiver, String sender) {
+        return speakerRanking == null || speakerRanking.selectedFor(receiver, lastN).contains(sender);
+    }
+
+    public void reportSpeakerActivity(String userName, double level) {
+        if (speakerRanking == null) {
+            return;
+        }
+        mailbox.execute(() -> {
+            speakerRanking.report(userName, level);
+            if (speakerRanking.recompute(System.currentTimeMillis())) {
+                rewireVideo();
+            }
+        });
+    }
+
+    private void rewireVideo() {
+        participants.values().forEach(receiver -> {
+            List<String> forwarded = speakerRanking.selectedFor(receiver.getName(), lastN);
+            participants.values().forEach(sender -> {
+                if (!sender.equals(receiver)) {
+                    receiver.updateVideoForwarding(sender, forwarded.contains(sender.getName()));
+                }
+            });
+
+            JsonArray forwardedArray = new JsonArray();
+            forwarded.forEach(forwardedArray::add);
+            JsonObject notification = new JsonObject();
+            notification.addProperty("id", "lastNChanged");
+            notification.add("forwarded", forwardedArray);
+            receiver.sendMessage(notification);
+        });
+        rebalance();
+    }
+
+    // 대역폭 예산 ----------------------------------------------------------------
+
+    /**
+     * 참가자, 받는 영상 수(last-N, MCU), 보고된 하향 대역폭이 바뀌었을 때 상한을 다시 계산한다.
+     * 값이 바뀐 엔드포인트에만 KMS 호출이 나가며, 반환값은 그 호출이 모두 끝나면 완료된다.
+     */
+    public CompletableFuture<Void> rebalanceBandwidth() {
+        if (!BandwidthBudget.isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return mailbox.submit(this::rebalance).thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<Void> rebalance() {
+        if (!BandwidthBudget.isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<Void>> limits = new ArrayList<>();
+        List<User> members = new ArrayList<>(participants.values());
+        boolean mcu = mode == Mode.MCU;
+        Map<String, Integer> largestViewerCap = new HashMap<>();
+        for (User receiver : members) {
+            List<String> senders = new ArrayList<>(members.size());
+            if (!mcu) {
+                for (User sender : members) {
+                    if (sender != receiver && forwardsVideo(receiver.getName(), sender.getName())) {
+                        senders.add(sender.getName());
+                    }
+                }
+            }
+            // MCU 모드에서는 합성 영상 하나만 받는다
+            int streams = mcu ? 1 : senders.size();
+            int cap = BandwidthBudget.streamCapKbps(
+                    BandwidthBudget.budgetKbps(receiver.getReportedDownlinkKbps()), streams);
+            limits.add(receiver.applyStreamCap(cap));
+            senders.forEach(sender -> largestViewerCap.merge(sender, cap, Math::max));
+        }
+        for (User sender : members) {
+            limits.add(sender.applyPublisherCap(
+                    BandwidthBudget.publisherCapKbps(largestViewerCap.getOrDefault(sender.getName(), 0))));
+        }
+        return CompletableFuture.allOf(limits.toArray(CompletableFuture<?>[]::new));
     }
 
     private void sendNewParticipantNotification(User newParticipant) {
@@ -180,27 +935,148 @@ public class Room {
         });
     }
 
-    private void sendExistingParticipants(User user) throws Exception {
-        JsonArray participantsArray = new JsonArray();
+    private void sendExistingParticipants(User user) {
+        JsonObject existingParticipantsMsg = new JsonObject();
+        existingParticipantsMsg.addProperty("id", "existingParticipants");
+        existingParticipantsMsg.add("data", otherParticipantNames(user));
+        existingParticipantsMsg.addProperty("lastN", isLastN());
+        existingParticipantsMsg.addProperty("mode", mode.name());
+        existingParticipantsMsg.addProperty("recording", recordingState());
+        user.sendMessage(existingParticipantsMsg);
+    }
+
+    /**
+     * 연결이 끊겼던 참가자가 resumeSession으로 다시 붙었을 때 지금의 방 상태를 보낸다.
+     * 다른 참가자에게는 알리지 않으며, 클라이언트는 끊긴 동안 놓친 입장/퇴장과 화면 공유를 이 목록으로 맞춘다.
+     */
+    public void sendResumedState(User user) {
+        mailbox.execute(() -> sendRoomState(user));
+    }
+
+    private void sendRoomState(User user) {
+        JsonArray screens = new JsonArray();
+        screenShares.values().forEach(screen -> {
+            if (screen.isSharing() && !screen.getUserName().equals(user.getName())) {
+                screens.add(screen.getUserName());
+            }
+        });
+        JsonObject resumed = new JsonObject();
+        resumed.addProperty("id", "sessionResumed");
+        resumed.add("data", otherParticipantNames(user));
+        resumed.add("screens", screens);
+        resumed.addProperty("lastN", isLastN());
+        resumed.addProperty("mode", mode.name());
+        resumed.addProperty("recording", recordingState());
+        user.sendMessage(resumed);
+    }
+
+    // 녹화 ----------------------------------------------------------------------
+
+    /**
+     * 방 녹화를 요청한다. 녹화 노드에 자리가 없으면 대기열에 들어가고, 자리가 나면 그때의 참가자부터 녹화한다.
+     *
+     * @return 요청 직후의 녹화 상태 (이미 녹화 중이면 그 상태)
+     */
+    public CompletableFuture<RoomRecording.State> startRecording() {
+        return mailbox.submit(() -> {
+            if (closed) {
+                throw new IllegalStateException("이미 닫힌 방입니다: " + name);
+            }
+            if (recording == null) {
+                recording = new RoomRecording(this);
+                recording.request();
+                if (recording.getState() == RoomRecording.State.QUEUED) {
+                    // 자리를 받아 시작하면 recordingStarted가 알린다
+                    notifyRecordingState();
+                }
+            }
+            return recording.getState();
+        });
+    }
+
+    public CompletableFuture<Void> stopRecording() {
+        return mailbox.submit(() -> {
+            if (recording != null) {
+                recording.stop();
+                recording = null;
+                notifyRecordingState();
+            }
+        });
+    }
+
+    /**
+     * 녹화 노드에 자리를 받았다. 대기하는 동안 멈췄거나 새 녹화로 바뀌었으면 무시한다.
+     */
+    void recordingStarted(RoomRecording started) {
+        mailbox.execute(() -> {
+            if (recording != started || started.getState() != RoomRecording.State.RECORDING) {
+                return;
+            }
+            participants.values().forEach(started::add);
+            notifyRecordingState();
+        });
+    }
+
+    /**
+     * 녹화 파이프라인을 만들지 못했다. 자리를 돌려주고 참가자에게 알린다.
+     */
+    void recordingFailed(RoomRecording failed) {
+        mailbox.execute(() -> {
+            failed.failed();
+            failed.stop();
+            if (recording == failed) {
+                recording = null;
+                notifyRecordingState(RoomRecording.State.FAILED);
+            }
+        });
+    }
+
+    private String recordingState() {
+        return recording != null ? recording.getState().name() : RoomRecording.State.STOPPED.name();
+    }
+
+    private void notifyRecordingState() {
+        notifyRecordingState(recording != null ? recording.getState() : RoomRecording.State.STOPPED);
+    }
+
+    private void notifyRecordingState(RoomRecording.State state) {
+        JsonObject notification = new JsonObject();
+        notification.addProperty("id", "recordingState");
+        notification.addProperty("state", state.name());
         participants.values().forEach(participant -> {
-            if (!participant.equals(user)) {
-                participantsArray.add(participant.getName());
+            try {
+                participant.sendMessage(notification);
+            } catch (Exception e) {
+                log.error("녹화 상태 알림 전송 실패", e);
             }
         });
+    }
 
-        JsonObject existingParticipantsMsg = new JsonObject();
-        existingParticipantsMsg.addProperty("id", "existingParticipants");
-        existingParticipantsMsg.add("data", participantsArray);
-        user.sendMessage(existingParticipantsMsg);
+    public RoomRecording getRecording() {
+        return recording;
+    }
+
+    /**
+     * 참가자 한 명에 딸린 WebRtcEndpoint 수. 자기 송신/수신 엔드포인트와 다른 참가자가 이 참가자의 영상을 받는 엔드포인트
+     */
+    int countEndpointsOf(User user) {
+        int count = 1 + user.getIncomingEndpointCount();
+        for (User participant : participants.values()) {
+            if (participant != user && participant.receivesFrom(user.getName())) {
+                count++;
+            }
+        }
+        return count;
     }
 
     // Getters
     public String getName() { return name; }
     public MediaPipeline getPipeline() { return pipeline; }
+    public KurentoNode getNode() { return node; }
     public Collection<User> getParticipants() { return participants.values(); }
 
     public static Collection<Room> findRooms() {
-        return rooms.values();
+        return rooms.all();
     }
 
     public static Room findRoom(String roomName) {
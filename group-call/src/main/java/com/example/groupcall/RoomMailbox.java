@@ -0,0 +1,85 @@
+package com.example.groupcall;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 방 하나의 상태를 바꾸는 작업을 넣은 순서대로 하나씩 실행하는 메일박스.
+ * 작업이 들어오면 가상 스레드 하나가 큐가 빌 때까지 꺼내 실행하고 끝나므로, 방 상태는 한 번에 한 스레드만 만지고
+ * 방끼리는 락을 나누지 않고 병렬로 돈다. 쉬는 방은 스레드를 잡고 있지 않습니다.
+ * actor를 끄면 작업을 부른 스레드에서 방의 모니터를 잡고 바로 실행한다 (기존 방식, 벤치마크 비교용).
+ */
+final class RoomMailbox {
+    private static final Logger log = LoggerFactory.getLogger(RoomMailbox.class);
+    private static volatile boolean actors = true;
+
+    private final String roomName;
+    private final Object lock;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    static void configure(boolean enabled) {
+        actors = enabled;
+    }
+
+    static boolean isEnabled() {
+        return actors;
+    }
+
+    RoomMailbox(String roomName, Object lock) {
+        this.roomName = roomName;
+        this.lock = lock;
+    }
+
+    void execute(Runnable task) {
+        if (!actors) {
+            synchronized (lock) {
+                run(task);
+            }
+            return;
+        }
+        tasks.add(task);
+        if (draining.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("room-" + roomName).start(this::drain);
+        }
+    }
+
+    /**
+     * @return 작업이 메일박스에서 끝나면 그 결과로 완료되는 Future
+     */
+    <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, this::execute);
+    }
+
+    CompletableFuture<Void> submit(Runnable task) {
+        return CompletableFuture.runAsync(task, this::execute);
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                run(task);
+            }
+            draining.set(false);
+            // 멈추기 직전에 들어온 작업이 있으면 다른 스레드가 새로 시작하지 않았을 때만 이어서 비운다
+            if (tasks.isEmpty() || !draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("방 {} 작업 실패", roomName, e);
+        }
+    }
+}
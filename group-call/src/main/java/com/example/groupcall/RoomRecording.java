@@ -0,0 +1,289 @@
+package com.example.groupcall;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.kurento.client.MediaPipeline;
+import org.kurento.client.MediaProfileSpecType;
+import org.kurento.client.RecorderEndpoint;
+import org.kurento.client.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 방 하나의 녹화. 참가자마다 송신 엔드포인트의 미디어를 RtpBridge로 녹화 전용 파이프라인에 복제하고,
+ * 그 파이프라인의 RecorderEndpoint가 참가자별 파일로 씁니다. 방 파이프라인에는 브리지의 RtpEndpoint만 더해지므로
+ * 먹싱과 디스크 쓰기는 라이브 포워딩과 같은 파이프라인에서 돌지 않습니다.
+ *
+ * <p>녹화 파이프라인은 방과 다른 KMS 노드에 두며, 녹화 노드가 방의 KMS 하나뿐일 때만 같은 KMS에 둔다.
+ * 노드마다 동시 녹화 수를 maxPerNode로 묶고, 빈 자리가 없으면 요청 순서대로 기다린다.
+ * 상태 변경(add, remove, stop)은 방의 메일박스에서 부른다.
+ */
+public class RoomRecording {
+    private static final Logger log = LoggerFactory.getLogger(RoomRecording.class);
+
+    public enum State { QUEUED, RECORDING, STOPPED, FAILED }
+
+    private static KurentoNodePool recordingNodes;
+    private static int maxPerNode = 2;
+    private static String directory = "file:///tmp/group-call-recordings";
+    // 노드별 진행 중인 녹화 수와 자리를 기다리는 녹화. RoomRecording.class로 동기화
+    private static final Map<KurentoNode, Integer> active = new HashMap<>();
+    private static final ArrayDeque<RoomRecording> waiting = new ArrayDeque<>();
+
+    private final Room room;
+    private final String folder;
+    private final Map<String, CompletableFuture<Track>> tracks = new ConcurrentHashMap<>();
+    // 녹화 노드의 자리를 받으면 완료된다. 파이프라인은 그 노드에 만든다
+    private final CompletableFuture<KurentoNode> slot = new CompletableFuture<>();
+    private final CompletableFuture<MediaPipeline> pipeline;
+    // QUEUED에서 바뀌는 것은 RoomRecording.class 안에서만
+    private volatile State state = State.QUEUED;
+
+    private record Track(RtpBridge bridge, RecorderEndpoint recorder) {
+    }
+
+    /**
+     * @param nodes          녹화 파이프라인을 둘 KMS 노드. 방과 같은 풀이어도 된다
+     * @param maxConcurrent  노드마다 동시에 진행할 수 있는 녹화 수 (0 이하이면 제한 없음)
+     * @param recordingsUri  녹화 파일을 쓸 KMS 쪽 디렉터리 (file:///...)
+     */
+    public static void configure(KurentoNodePool nodes, int maxConcurrent, String recordingsUri) {
+        recordingNodes = nodes;
+        maxPerNode = maxConcurrent;
+        directory = recordingsUri.endsWith("/") ? recordingsUri.substring(0, recordingsUri.length() - 1) : recordingsUri;
+    }
+
+    RoomRecording(Room room) {
+        this.room = room;
+        this.folder = directory + "/" + safeName(room.getName()) + "-" + System.currentTimeMillis();
+        this.pipeline = slot.thenCompose(selected ->
+                KurentoFutures.<MediaPipeline>call("createMediaPipeline", selected.getClient()::createMediaPipeline));
+    }
+
+    /**
+     * 녹화 노드에 자리가 있으면 바로 시작하고, 없으면 대기열에 넣는다.
+     */
+    void request() {
+        KurentoNode selected;
+        synchronized (RoomRecording.class) {
+            selected = selectNode(room.getNode());
+            if (selected == null) {
+                waiting.addLast(this);
+                log.info("녹화 대기 - 방: {}, 대기 중: {}개", room.getName(), waiting.size());
+                SessionMetrics.recordRecording("queued");
+                return;
+            }
+            active.merge(selected, 1, Integer::sum);
+            state = State.RECORDING;
+        }
+        begin(selected);
+    }
+
+    /**
+     * 자리가 남은 노드 중 점수가 가장 낮은 노드. 방의 KMS는 녹화 노드가 그것뿐일 때만 고른다.
+     */
+    private static KurentoNode selectNode(KurentoNode liveNode) {
+        List<KurentoNode> candidates = new ArrayList<>();
+        boolean offloadable = false;
+        for (KurentoNode candidate : recordingNodes.getNodes()) {
+            boolean sameKms = candidate.getUri().equals(liveNode.getUri());
+            offloadable |= !sameKms;
+            if (candidate.isAvailable() && (maxPerNode <= 0 || active.getOrDefault(candidate, 0) < maxPerNode)) {
+                candidates.add(candidate);
+            }
+        }
+        boolean excludeLive = offloadable;
+        return candidates.stream()
+                .filter(candidate -> !excludeLive || !candidate.getUri().equals(liveNode.getUri()))
+                .min(Comparator.comparingDouble(KurentoNode::score))
+                .orElse(null);
+    }
+
+    private void begin(KurentoNode selected) {
+        slot.complete(selected);
+        SessionMetrics.recordRecording("started");
+        log.info("녹화 시작 - 방: {}, 녹화 노드: {} (방 노드: {}), 경로: {}", room.getName(), selected.getId(),
+                room.getNode().getId(), folder);
+        pipeline.whenComplete((created, e) -> {
+            if (e != null) {
+                log.error("녹화 파이프라인 생성 실패 - 방: {}, 노드: {}", room.getName(), selected.getId(), e);
+                room.recordingFailed(this);
+            }
+        });
+        room.recordingStarted(this);
+    }
+
+    /**
+     * 참가자의 송신 미디어를 녹화에 더한다. 이미 녹화 중인 참가자면 아무것도 하지 않는다.
+     */
+    void add(User participant) {
+        if (state != State.RECORDING) {
+            return;
+        }
+        String name = participant.getName();
+        if (tracks.containsKey(name)) {
+            return;
+        }
+        CompletableFuture<Track> track = pipeline.thenCompose(recordingPipeline -> RtpBridge.open(name,
+                        participant.getOutgoingWebRtcPeer(), participant.getPipeline(), recordingPipeline)
+                .thenCompose(bridge -> record(recordingPipeline, bridge, name)));
+        tracks.put(name, track);
+        track.whenComplete((created, e) -> {
+            if (e != null) {
+                log.warn("참가자 녹화 실패 - 방: {}, 사용자: {}: {}", room.getName(), name, e.getMessage());
+                tracks.remove(name, track);
+            }
+        });
+    }
+
+    /**
+     * 녹화기 생성, 브리지 연결, record를 트랜잭션 하나로 보낸다. 실패하면 브리지도 해제한다.
+     */
+    private CompletableFuture<Track> record(MediaPipeline recordingPipeline, RtpBridge bridge, String userName) {
+        String uri = folder + "/" + safeName(userName) + "-" + System.currentTimeMillis() + ".webm";
+        Transaction tx = recordingPipeline.beginTransaction();
+        RecorderEndpoint recorder = new RecorderEndpoint.Builder(recordingPipeline, uri)
+                .withMediaProfile(MediaProfileSpecType.WEBM)
+                .build(tx);
+        bridge.getSink().connect(tx, recorder);
+        recorder.record(tx);
+        return KurentoFutures.<Void>call("startRecorder", tx::commit)
+                .handle((v, e) -> {
+                    if (e != null) {
+                        bridge.release();
+                        throw new IllegalStateException("녹화기 생성 실패: " + e.getMessage(), e);
+                    }
+                    log.debug("참가자 녹화 시작 - 방: {}, 사용자: {}, 파일: {}", room.getName(), userName, uri);
+                    return new Track(bridge, recorder);
+                });
+    }
+
+    /**
+     * 나간 참가자의 녹화 파일을 닫고 브리지를 해제한다.
+     */
+    void remove(String userName) {
+        CompletableFuture<Track> track = tracks.remove(userName);
+        if (track != null) {
+            finish(track);
+        }
+    }
+
+    /**
+     * 모든 파일을 닫은 뒤 녹화 파이프라인을 해제하고 노드의 자리를 돌려준다.
+     *
+     * @return 파일을 닫고 파이프라인 해제를 요청하면 완료된다
+     */
+    CompletableFuture<Void> stop() {
+        State previous;
+        synchronized (RoomRecording.class) {
+            previous = state;
+            if (previous == State.STOPPED) {
+                return CompletableFuture.completedFuture(null);
+            }
+            state = State.STOPPED;
+            if (previous == State.QUEUED) {
+                waiting.remove(this);
+            }
+        }
+        if (previous == State.QUEUED) {
+            log.info("대기 중인 녹화 취소 - 방: {}", room.getName());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<CompletableFuture<Void>> finishing = new ArrayList<>();
+        tracks.values().forEach(track -> finishing.add(finish(track)));
+        tracks.clear();
+        log.info("녹화 종료 - 방: {}, 파일 {}개", room.getName(), finishing.size());
+        SessionMetrics.recordRecording(previous == State.FAILED ? "failed" : "stopped");
+        return CompletableFuture.allOf(finishing.toArray(new CompletableFuture<?>[0]))
+                .exceptionally(e -> null)
+                .thenCompose(v -> pipeline)
+                .thenCompose(recordingPipeline -> KurentoFutures.<Void>call("release", recordingPipeline::release))
+                .whenComplete((v, e) -> releaseSlot(slot.join()));
+    }
+
+    /**
+     * 녹화 파이프라인을 만들지 못했다. 방은 이어서 stop을 불러 자리를 돌려준다.
+     */
+    void failed() {
+        synchronized (RoomRecording.class) {
+            if (state == State.RECORDING) {
+                state = State.FAILED;
+            }
+        }
+    }
+
+    /**
+     * stopAndWait로 파일을 마무리한 뒤 녹화기와 브리지를 해제한다.
+     */
+    private CompletableFuture<Void> finish(CompletableFuture<Track> track) {
+        return track.thenCompose(created -> KurentoFutures.<Void>call("stopAndWait", created.recorder()::stopAndWait)
+                        .exceptionally(e -> {
+                            log.warn("녹화 파일 마무리 실패 - 방: {}: {}", room.getName(), e.getMessage());
+                            return null;
+                        })
+                        .thenCompose(v -> {
+                            ReleaseBatch batch = new ReleaseBatch();
+                            created.bridge().release(batch);
+                            batch.add(created.recorder());
+                            return batch.commit();
+                        }))
+                .exceptionally(e -> null);
+    }
+
+    /**
+     * 끝난 녹화의 자리를 돌려주고, 대기 중인 녹화를 들어온 순서대로 자리가 있는 만큼 시작한다.
+     */
+    private static void releaseSlot(KurentoNode released) {
+        List<Map.Entry<RoomRecording, KurentoNode>> started = new ArrayList<>();
+        synchronized (RoomRecording.class) {
+            active.computeIfPresent(released, (k, count) -> count > 1 ? count - 1 : null);
+            while (!waiting.isEmpty()) {
+                RoomRecording next = waiting.peekFirst();
+                KurentoNode selected = selectNode(next.room.getNode());
+                if (selected == null) {
+                    break;
+                }
+                waiting.pollFirst();
+                active.merge(selected, 1, Integer::sum);
+                next.state = State.RECORDING;
+                started.add(Map.entry(next, selected));
+            }
+        }
+        started.forEach(entry -> entry.getKey().begin(entry.getValue()));
+    }
+
+    private static String safeName(String name) {
+        return name.replaceAll("[^\\p{L}\\p{N}._-]", "_");
+    }
+
+    public static synchronized int getActiveCount() {
+        return active.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public static synchronized int getQueuedCount() {
+        return waiting.size();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return 녹화 파이프라인을 둔 노드. 아직 대기 중이면 null
+     */
+    public KurentoNode getNode() {
+        return slot.getNow(null);
+    }
+
+    public int getTrackCount() {
+        return tracks.size();
+    }
+}
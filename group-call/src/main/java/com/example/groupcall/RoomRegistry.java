@@ -0,0 +1,21 @@
+package com.example.groupcall;
+
+import java.util.Collection;
+
+/**
+ * 이 시그널링 노드가 관리하는 방 목록.
+ * 기본 구현은 JVM 메모리에 두며, 다른 저장소가 필요하면 빈으로 교체합니다.
+ */
+public interface RoomRegistry {
+
+    Room get(String roomName);
+
+    void put(Room room);
+
+    /**
+     * 등록된 방이 주어진 방과 같을 때만 제거한다.
+     */
+    boolean remove(String roomName, Room room);
+
+    Collection<Room> all();
+}
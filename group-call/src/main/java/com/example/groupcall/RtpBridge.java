@@ -0,0 +1,79 @@
+package com.example.groupcall;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.kurento.client.MediaElement;
+import org.kurento.client.MediaPipeline;
+import org.kurento.client.RtpEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 다른 KMS 노드에 있는 송신자의 미디어를 RtpEndpoint 한 쌍으로 중계합니다.
+ * 송신 노드의 RtpEndpoint가 수신 노드의 RtpEndpoint로 RTP를 보내고,
+ * 수신 노드의 참가자들은 로컬 송신자처럼 sink에 연결합니다.
+ * 두 KMS가 SDP에 광고하는 주소로 서로 RTP를 주고받을 수 있어야 합니다.
+ */
+public class RtpBridge {
+    private static final Logger log = LoggerFactory.getLogger(RtpBridge.class);
+
+    private final String senderName;
+    private final RtpEndpoint source;
+    private final RtpEndpoint sink;
+
+    private RtpBridge(String senderName, RtpEndpoint source, RtpEndpoint sink) {
+        this.senderName = senderName;
+        this.source = source;
+        this.sink = sink;
+    }
+
+    public static CompletableFuture<RtpBridge> open(String senderName, MediaElement publisher,
+                                                    MediaPipeline sourcePipeline, MediaPipeline targetPipeline) {
+        CompletableFuture<RtpEndpoint> sourceFuture =
+                KurentoFutures.call("createRtpEndpoint", c -> new RtpEndpoint.Builder(sourcePipeline).buildAsync(c));
+        CompletableFuture<RtpEndpoint> sinkFuture =
+                KurentoFutures.call("createRtpEndpoint", c -> new RtpEndpoint.Builder(targetPipeline).buildAsync(c));
+
+        return sourceFuture.thenCombine(sinkFuture, (source, sink) -> new RtpBridge(senderName, source, sink))
+                .thenCompose(bridge -> bridge.negotiate(publisher)
+                        .whenComplete((v, e) -> {
+                            if (e != null) {
+                                log.warn("RTP 브리지 연결 실패 - 송신자: {}: {}", senderName, e.getMessage());
+                                bridge.release();
+                            }
+                        })
+                        .thenApply(v -> bridge));
+    }
+
+    private CompletableFuture<Void> negotiate(MediaElement publisher) {
+        return KurentoFutures.<String>call("generateOffer", sink::generateOffer)
+                .thenCompose(offer -> KurentoFutures.<String>call("processOffer", c -> source.processOffer(offer, c)))
+                .thenCompose(answer ->
+                        KurentoFutures.<String>call("processAnswer", c -> sink.processAnswer(answer, c)))
+                .thenCompose(sdp -> KurentoFutures.<Void>call("connect", c -> publisher.connect(source, c)))
+                .thenRun(() -> log.info("RTP 브리지 생성 - 송신자: {}, source: {}, sink: {}",
+                        senderName, source.getId(), sink.getId()));
+    }
+
+    public void release() {
+        ReleaseBatch batch = new ReleaseBatch();
+        release(batch);
+        batch.commit();
+    }
+
+    /**
+     * 양쪽 노드의 RtpEndpoint를 batch에 모은다.
+     */
+    void release(ReleaseBatch batch) {
+        log.info("RTP 브리지 해제 - 송신자: {}", senderName);
+        batch.add(source);
+        batch.add(sink);
+    }
+
+    /**
+     * 수신 노드 쪽에서 송신자 대신 연결할 엔드포인트
+     */
+    public MediaElement getSink() {
+        return sink;
+    }
+}
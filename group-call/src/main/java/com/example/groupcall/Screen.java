@@ -0,0 +1,273 @@
+package com.example.groupcall;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.kurento.client.IceCandidate;
+import org.kurento.client.ListenerSubscription;
+import org.kurento.client.MediaPipeline;
+import org.kurento.client.Transaction;
+import org.kurento.client.WebRtcEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.groupcall.message.IceCandidateEntry;
+import com.example.groupcall.message.OutboundMessage;
+import com.google.gson.JsonObject;
+
+/**
+ * 한 사용자의 화면 공유. 공유자의 송신 엔드포인트 하나와, 시청자가 receiveScreenFrom을 보낼 때
+ * 만드는 시청자별 수신 엔드포인트로 이루어지며 모두 방의 기본 파이프라인에 둡니다.
+ * 화면은 카메라와 달리 움직임이 적고 글자가 선명해야 하므로 프레임레이트를 낮추고
+ * 대역폭 하한을 카메라보다 높게 잡습니다 (configure). stopScreenShare나 방 종료 시 close로 모두 해제합니다.
+ */
+public class Screen {
+    private static final Logger log = LoggerFactory.getLogger(Screen.class);
+
+    private static volatile int maxKbps = 1500;
+    private static volatile int minKbps = 300;
+    private static volatile int maxFramerate = 5;
+
+    private final User sharer;
+    private final String userName;
+    private final String roomName;
+    private final MediaPipeline pipeline;
+    private volatile WebRtcEndpoint outgoingScreenMedia;
+    private volatile boolean sharing;
+    private volatile boolean closed;
+    // 키는 엔드포인트 상대방 이름 (공유자 자신이면 송신 엔드포인트)
+    private final ConcurrentHashMap<String, WebRtcEndpoint> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> connecting = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<IceCandidate>> pendingCandidates = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> appliedCandidates = new ConcurrentHashMap<>();
+
+    /**
+     * @param max       화면 영상 대역폭 상한 (kbps)
+     * @param min       화면 영상 대역폭 하한 (kbps). 혼잡해도 글자를 읽을 수 있도록 카메라보다 높게 둔다
+     * @param framerate 공유자에게 알려 주는 최대 프레임레이트
+     */
+    public static void configure(int max, int min, int framerate) {
+        maxKbps = max;
+        minKbps = Math.min(min, max);
+        maxFramerate = framerate;
+    }
+
+    public Screen(User sharer, MediaPipeline pipeline) {
+        this.sharer = sharer;
+        this.userName = sharer.getName();
+        this.roomName = sharer.getRoomName();
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * 공유자의 송신 엔드포인트를 만들고 offer에 응답한다. 대역폭 설정은 SDP 협상에 반영되도록 processOffer 전에 한다.
+     */
+    public CompletableFuture<Void> startScreenShare(String sdpOffer) {
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        if (connecting.putIfAbsent(userName, started) != null) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("이미 화면을 공유하고 있습니다 - 사용자: " + userName));
+        }
+
+        createEndpoint(sharer).thenCompose(endpoint -> {
+            outgoingScreenMedia = endpoint;
+            log.info("화면 송신 엔드포인트 생성 - 사용자: {}, 방: {}, EndpointId: {}", userName, roomName, endpoint.getId());
+            return answerOffer(sharer, endpoint, sdpOffer, true);
+        }).whenComplete((v, e) -> {
+            if (e != null) {
+                started.completeExceptionally(e);
+            } else {
+                sharing = !closed;
+                started.complete(null);
+            }
+        });
+        return started;
+    }
+
+    /**
+     * 시청자별 수신 엔드포인트를 처음 요청될 때 만들어 송신 엔드포인트에 연결한다.
+     */
+    public CompletableFuture<Void> receiveScreenFrom(User viewer, String sdpOffer) {
+        String viewerName = viewer.getName();
+        if (viewerName.equals(userName)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("자기 화면은 받을 수 없습니다: " + userName));
+        }
+        WebRtcEndpoint source = outgoingScreenMedia;
+        if (source == null || !sharing) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("화면 공유가 시작되지 않았습니다 - 사용자: " + userName));
+        }
+
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        if (connecting.putIfAbsent(viewerName, created) != null) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("이미 받고 있는 화면입니다 - 보낸 사람: " + userName + ", 받는 사람: " + viewerName));
+        }
+
+        log.info("화면 수신 엔드포인트 생성 - 보낸 사람: {}, 받는 사람: {}, 방: {}", userName, viewerName, roomName);
+        createEndpoint(viewer)
+                .thenCompose(incoming -> KurentoFutures.<Void>call("connect", c -> source.connect(incoming, c))
+                        .thenCompose(v -> answerOffer(viewer, incoming, sdpOffer, false)))
+                .whenComplete((v, e) -> {
+                    if (e != null) {
+                        releaseViewer(viewerName);
+                        created.completeExceptionally(e);
+                    } else {
+                        created.complete(null);
+                    }
+                });
+        return created;
+    }
+
+    private CompletableFuture<WebRtcEndpoint> createEndpoint(User peer) {
+        String key = peer.getName();
+        boolean outgoing = key.equals(userName);
+        return KurentoFutures.<WebRtcEndpoint>call("createWebRtcEndpoint",
+                        c -> new WebRtcEndpoint.Builder(pipeline).buildAsync(c))
+                .thenCompose(endpoint -> limitBandwidth(endpoint, outgoing)
+                        .thenCompose(v -> subscribeIceCandidates(endpoint, peer))
+                        .thenApply(subscription -> endpoint))
+                .thenApply(endpoint -> {
+                    if (closed || connecting.get(key) == null) {
+                        // 만드는 동안 공유가 끝났거나 시청자가 나갔다
+                        KurentoFutures.<Void>call("release", endpoint::release);
+                        throw new IllegalStateException("화면 공유가 이미 끝났습니다 - 사용자: " + userName);
+                    }
+                    endpoints.put(key, endpoint);
+                    List<IceCandidate> early = pendingCandidates.remove(key);
+                    if (early != null) {
+                        applyCandidates(endpoint, early);
+                    }
+                    return endpoint;
+                });
+    }
+
+    /**
+     * 공유자 쪽은 받는 영상, 시청자 쪽은 보내는 영상의 대역폭을 화면 공유 범위로 묶는다.
+     * 속성 setter는 트랜잭션에 넣을 수 없어 만든 뒤에 차례로 보낸다.
+     */
+    private CompletableFuture<Void> limitBandwidth(WebRtcEndpoint endpoint, boolean outgoing) {
+        if (outgoing) {
+            return KurentoFutures.<Void>call("setVideoBandwidth", c -> endpoint.setMaxVideoRecvBandwidth(maxKbps, c))
+                    .thenCompose(v -> KurentoFutures.<Void>call("setVideoBandwidth",
+                            c -> endpoint.setMinVideoRecvBandwidth(minKbps, c)));
+        }
+        return KurentoFutures.<Void>call("setVideoBandwidth", c -> endpoint.setMaxVideoSendBandwidth(maxKbps, c))
+                .thenCompose(v -> KurentoFutures.<Void>call("setVideoBandwidth",
+                        c -> endpoint.setMinVideoSendBandwidth(minKbps, c)));
+    }
+
+    private CompletableFuture<ListenerSubscription> subscribeIceCandidates(WebRtcEndpoint endpoint, User peer) {
+        // 클라이언트는 공유자 이름과 type "screen"으로 화면 피어를 찾는다
+        return KurentoFutures.call("subscribe", c -> endpoint.addIceCandidateFoundListener(event ->
+                peer.sendMessage(new OutboundMessage.IceCandidate(
+                        new IceCandidateEntry(userName, "screen", event.getCandidate()))), c));
+    }
+
+    private CompletableFuture<Void> answerOffer(User peer, WebRtcEndpoint endpoint, String sdpOffer, boolean outgoing) {
+        return KurentoFutures.<String>call("processOffer", c -> endpoint.processOffer(sdpOffer, c))
+                .thenCompose(sdpAnswer -> {
+                    JsonObject answer = new JsonObject();
+                    answer.addProperty("id", "receiveScreenAnswer");
+                    answer.addProperty("name", userName);
+                    answer.addProperty("sdpAnswer", sdpAnswer);
+                    if (outgoing) {
+                        // 공유자는 이 값으로 캡처 트랙의 프레임레이트를 제한한다
+                        answer.addProperty("maxFramerate", maxFramerate);
+                    }
+                    peer.sendMessage(answer);
+                    return KurentoFutures.<Void>call("gatherCandidates", endpoint::gatherCandidates);
+                });
+    }
+
+    /**
+     * 클라이언트 ICE 후보. from이 공유자면 송신 엔드포인트, 아니면 그 시청자의 수신 엔드포인트에 적용하며
+     * 엔드포인트가 아직 없으면 생성될 때까지 보관한다.
+     */
+    public void addCandidates(String from, List<IceCandidate> candidates) {
+        Set<String> applied = appliedCandidates.computeIfAbsent(from, k -> ConcurrentHashMap.newKeySet());
+        List<IceCandidate> fresh = new ArrayList<>(candidates.size());
+        for (IceCandidate candidate : candidates) {
+            if (applied.add(candidate.getCandidate())) {
+                fresh.add(candidate);
+            }
+        }
+        if (fresh.isEmpty() || closed) {
+            return;
+        }
+
+        pendingCandidates.compute(from, (k, early) -> {
+            WebRtcEndpoint endpoint = endpoints.get(k);
+            if (endpoint != null) {
+                applyCandidates(endpoint, fresh);
+                return early;
+            }
+            List<IceCandidate> buffered = early != null ? early : new ArrayList<>();
+            buffered.addAll(fresh);
+            return buffered;
+        });
+    }
+
+    private void applyCandidates(WebRtcEndpoint endpoint, List<IceCandidate> candidates) {
+        Transaction tx = pipeline.beginTransaction();
+        candidates.forEach(candidate -> endpoint.addIceCandidate(tx, candidate));
+        KurentoFutures.<Void>call("transaction", tx::commit).exceptionally(e -> {
+            log.warn("화면 ICE 후보 적용 실패 - 사용자: {}, EndpointId: {}: {}", userName, endpoint.getId(), e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * 시청자가 방을 나가면 그 시청자의 수신 엔드포인트만 해제한다.
+     */
+    public void releaseViewer(String viewerName) {
+        ReleaseBatch batch = new ReleaseBatch();
+        releaseViewer(viewerName, batch);
+        batch.commit();
+    }
+
+    void releaseViewer(String viewerName, ReleaseBatch batch) {
+        if (viewerName.equals(userName)) {
+            return;
+        }
+        connecting.remove(viewerName);
+        pendingCandidates.remove(viewerName);
+        appliedCandidates.remove(viewerName);
+        WebRtcEndpoint endpoint = endpoints.remove(viewerName);
+        if (endpoint != null) {
+            log.info("화면 수신 엔드포인트 해제 - 보낸 사람: {}, 받는 사람: {}, 방: {}, EndpointId: {}",
+                    userName, viewerName, roomName, endpoint.getId());
+            batch.add(endpoint);
+        }
+    }
+
+    public void close() {
+        ReleaseBatch batch = new ReleaseBatch();
+        close(batch);
+        batch.commit();
+    }
+
+    void close(ReleaseBatch batch) {
+        closed = true;
+        sharing = false;
+        connecting.clear();
+        pendingCandidates.clear();
+        endpoints.forEach((name, endpoint) -> {
+            log.info("화면 엔드포인트 해제 - 공유자: {}, 상대: {}, 방: {}, EndpointId: {}",
+                    userName, name, roomName, endpoint.getId());
+            batch.add(endpoint);
+        });
+        endpoints.clear();
+        outgoingScreenMedia = null;
+    }
+
+    public String getUserName() { return userName; }
+    public WebRtcEndpoint getOutgoingScreenMedia() { return outgoingScreenMedia; }
+    public boolean isSharing() { return sharing; }
+    public int getViewerCount() { return endpoints.size() - (endpoints.containsKey(userName) ? 1 : 0); }
+    public static int getMaxKbps() { return maxKbps; }
+    public static int getMaxFramerate() { return maxFramerate; }
+}
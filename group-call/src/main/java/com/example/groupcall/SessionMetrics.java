@@ -0,0 +1,265 @@
+package com.example.groupcall;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * 미디어 세션 수명 주기 메트릭 (Micrometer, /actuator/prometheus).
+ * CallHandler.init에서 Spring의 MeterRegistry로 설정하며, 설정 전(벤치마크 등)에는
+ * 아무 registry도 연결되지 않은 CompositeMeterRegistry에 기록하므로 비용이 거의 없습니다.
+ *
+ * <pre>
+ * webrtc.join                  방 입장 요청 → 송신 엔드포인트 생성, 참가자 목록 전송까지
+ * webrtc.sdp.process.offer     processOffer 호출 시간 (kind=outgoing|incoming)
+ * webrtc.ice.gathering         gatherCandidates 호출 → IceGatheringDone
+ * webrtc.media.flowing         송신 엔드포인트의 gatherCandidates 호출 → 첫 MediaFlowIn FLOWING (연결 완료까지 걸린 시간)
+ * webrtc.room.endpoints        방별 WebRtcEndpoint 수 (room)
+ * webrtc.kms.rooms             KMS 노드별 방 수 (node)
+ * webrtc.outbound.send         메시지 id별 WebSocket 전송 시간. count가 송신 건수 (id)
+ * webrtc.outbound.dropped      보내지 못하고 버린 메시지 수 (reason=overflow|encoding|closed)
+ * kurento.rpc                  Kurento 비동기 호출 지연 (method, outcome)
+ * webrtc.teardown             퇴장/방 종료 정리 시간. 엔드포인트 해제가 모두 끝날 때까지 (kind=leave|close)
+ * webrtc.speculative.endpoints 입장 시 미리 만든 수신 엔드포인트 수 (outcome=used|expired)
+ * webrtc.resume                재연결 시도 수 (outcome=resumed|expired|rejected)
+ * webrtc.resume.gap            연결이 끊긴 뒤 resumeSession으로 다시 붙기까지 걸린 시간
+ * webrtc.resume.endpoints      재연결로 다시 만들지 않아도 된 WebRtcEndpoint 수 (참가자 자신과 다른 참가자의 수신 엔드포인트)
+ * webrtc.ice.restart           ICE 재시작 (outcome=requested|recovered|replaced|exhausted)
+ * webrtc.ice.recovery          ICE 연결 끊김을 안 뒤 재시작으로 다시 CONNECTED가 되기까지 걸린 시간
+ * webrtc.recording             방 녹화 (outcome=queued|started|stopped|failed)
+ * webrtc.recording.active      녹화 노드에서 진행 중인 녹화 수
+ * webrtc.recording.queued      녹화 노드의 자리를 기다리는 녹화 수
+ * </pre>
+ */
+public final class SessionMetrics {
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+
+    private static volatile MeterRegistry registry = new CompositeMeterRegistry();
+    private static volatile boolean mediaEvents;
+    private static volatile Timer join;
+    private static volatile Timer iceGathering;
+    private static volatile Timer mediaFlowing;
+    private static volatile Counter speculativeUsed;
+    private static volatile Counter speculativeExpired;
+    private static volatile Timer resumeGap;
+    private static volatile Counter resumeEndpoints;
+    private static volatile Timer iceRecovery;
+    private static final Map<String, Timer> processOffer = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> kurentoCalls = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> outboundSends = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> outboundDrops = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> teardowns = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> resumes = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> iceRestarts = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> recordings = new ConcurrentHashMap<>();
+    private static final Map<String, RoomGauge> roomGauges = new ConcurrentHashMap<>();
+
+    private record RoomGauge(Room room, Gauge gauge) {
+    }
+
+    static {
+        configure(registry, false);
+    }
+
+    private SessionMetrics() {
+    }
+
+    /**
+     * @param enableMediaEvents true면 엔드포인트마다 IceGatheringDone / MediaFlowIn 리스너를 추가로 구독한다
+     *                          (ICE 후보 리스너와 병렬로 구독하므로 입장 지연에는 더해지지 않는다)
+     */
+    public static void configure(MeterRegistry meterRegistry, boolean enableMediaEvents) {
+        registry = meterRegistry;
+        mediaEvents = enableMediaEvents;
+        processOffer.clear();
+        kurentoCalls.clear();
+        outboundSends.clear();
+        outboundDrops.clear();
+        teardowns.clear();
+        resumes.clear();
+        iceRestarts.clear();
+        recordings.clear();
+        roomGauges.clear();
+        join = timer("webrtc.join", "방 입장 처리 시간").register(meterRegistry);
+        iceGathering = timer("webrtc.ice.gathering", "gatherCandidates부터 IceGatheringDone까지")
+                .register(meterRegistry);
+        mediaFlowing = timer("webrtc.media.flowing", "gatherCandidates부터 첫 MediaFlowIn FLOWING까지")
+                .register(meterRegistry);
+        speculativeUsed = speculativeCounter("used").register(meterRegistry);
+        speculativeExpired = speculativeCounter("expired").register(meterRegistry);
+        resumeGap = timer("webrtc.resume.gap", "연결 끊김부터 재연결까지").register(meterRegistry);
+        resumeEndpoints = Counter.builder("webrtc.resume.endpoints")
+                .description("재연결로 다시 만들지 않은 WebRtcEndpoint")
+                .register(meterRegistry);
+        iceRecovery = timer("webrtc.ice.recovery", "ICE 연결 끊김부터 재시작 후 CONNECTED까지").register(meterRegistry);
+        Gauge.builder("webrtc.recording.active", RoomRecording::getActiveCount)
+                .description("진행 중인 방 녹화")
+                .register(meterRegistry);
+        Gauge.builder("webrtc.recording.queued", RoomRecording::getQueuedCount)
+                .description("녹화 노드의 자리를 기다리는 방 녹화")
+                .register(meterRegistry);
+    }
+
+    public static boolean isMediaEventsEnabled() {
+        return mediaEvents;
+    }
+
+    public static void bindNodes(KurentoNodePool nodes) {
+        for (KurentoNode node : nodes.getNodes()) {
+            Gauge.builder("webrtc.kms.rooms", node, KurentoNode::getRoomCount)
+                    .description("KMS 노드에 배치된 방 수")
+                    .tag("node", node.getId())
+                    .register(registry);
+        }
+    }
+
+    static void roomOpened(Room room) {
+        RoomGauge previous = roomGauges.remove(room.getName());
+        if (previous != null) {
+            // 이전 방의 게이지가 아직 남아 있으면 registry가 그것을 돌려주므로 먼저 지운다
+            registry.remove(previous.gauge());
+        }
+        Gauge gauge = Gauge.builder("webrtc.room.endpoints", room, Room::getEndpointCount)
+                .description("방의 WebRtcEndpoint 수")
+                .tag("room", room.getName())
+                .register(registry);
+        roomGauges.put(room.getName(), new RoomGauge(room, gauge));
+    }
+
+    static void roomClosed(Room room) {
+        // 같은 이름으로 새로 열린 방의 게이지는 남겨 둔다
+        RoomGauge entry = roomGauges.get(room.getName());
+        if (entry != null && entry.room() == room && roomGauges.remove(room.getName(), entry)) {
+            registry.remove(entry.gauge());
+        }
+    }
+
+    public static void recordJoin(long nanos) {
+        join.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    static void recordProcessOffer(boolean outgoing, long nanos) {
+        String kind = outgoing ? "outgoing" : "incoming";
+        processOffer.computeIfAbsent(kind, k -> timer("webrtc.sdp.process.offer", "SDP processOffer 시간")
+                        .tag("kind", k)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    static void recordIceGathering(long nanos) {
+        iceGathering.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    static void recordMediaFlowing(long nanos) {
+        mediaFlowing.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    static void recordKurentoCall(String method, boolean success, long nanos) {
+        String outcome = success ? "success" : "error";
+        kurentoCalls.computeIfAbsent(method + '|' + outcome, k -> timer("kurento.rpc", "Kurento 호출 지연")
+                        .tag("method", method)
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    static void recordOutboundSend(String messageId, long nanos) {
+        String id = messageId != null ? messageId : "unknown";
+        outboundSends.computeIfAbsent(id, k -> timer("webrtc.outbound.send", "메시지 id별 WebSocket 전송 시간")
+                        .tag("id", k)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param reason overflow(넘침 정책으로 버림), encoding(재연결 인코딩이 달라 대기 메시지를 버림),
+     *               closed(세션이나 큐가 닫혀 보내지 못함)
+     */
+    static void recordOutboundDropped(String reason, long count) {
+        outboundDrops.computeIfAbsent(reason, k -> Counter.builder("webrtc.outbound.dropped")
+                        .description("보내지 못하고 버린 송신 메시지")
+                        .tag("reason", k)
+                        .register(registry))
+                .increment(count);
+    }
+
+    static void recordTeardown(String kind, long nanos) {
+        teardowns.computeIfAbsent(kind, k -> timer("webrtc.teardown", "퇴장/방 종료 정리 시간")
+                        .tag("kind", k)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    static void recordSpeculativeEndpoint(boolean used) {
+        (used ? speculativeUsed : speculativeExpired).increment();
+    }
+
+    /**
+     * @param gapNanos        끊긴 뒤 다시 붙기까지 걸린 시간
+     * @param endpointsKept   그대로 쓴 엔드포인트 수
+     */
+    static void recordResumed(long gapNanos, int endpointsKept) {
+        recordResume("resumed");
+        resumeGap.record(gapNanos, TimeUnit.NANOSECONDS);
+        resumeEndpoints.increment(endpointsKept);
+    }
+
+    /**
+     * @param outcome expired(유예 시간 안에 오지 않음) 또는 rejected(토큰 불일치, 이미 퇴장)
+     */
+    static void recordResume(String outcome) {
+        resumes.computeIfAbsent(outcome, k -> Counter.builder("webrtc.resume")
+                        .description("재연결 시도")
+                        .tag("outcome", k)
+                        .register(registry))
+                .increment();
+    }
+
+    static void recordIceRecovered(long nanos) {
+        recordIceRestart("recovered");
+        iceRecovery.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param outcome requested(클라이언트에 요청), replaced(재협상이 거부되어 수신 엔드포인트만 새로 만듦),
+     *                exhausted(한도를 다 써서 기존 복구 경로로 넘김)
+     */
+    static void recordIceRestart(String outcome) {
+        iceRestarts.computeIfAbsent(outcome, k -> Counter.builder("webrtc.ice.restart")
+                        .description("ICE 재시작")
+                        .tag("outcome", k)
+                        .register(registry))
+                .increment();
+    }
+
+    /**
+     * @param outcome queued(녹화 노드에 자리가 없어 대기), started, stopped, failed(녹화 파이프라인 생성 실패)
+     */
+    static void recordRecording(String outcome) {
+        recordings.computeIfAbsent(outcome, k -> Counter.builder("webrtc.recording")
+                        .description("방 녹화")
+                        .tag("outcome", k)
+                        .register(registry))
+                .increment();
+    }
+
+    private static Counter.Builder speculativeCounter(String outcome) {
+        return Counter.builder("webrtc.speculative.endpoints")
+                .description("입장 시 미리 만든 수신 엔드포인트")
+                .tag("outcome", outcome);
+    }
+
+    private static Timer.Builder timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(MAX_EXPECTED);
+    }
+}
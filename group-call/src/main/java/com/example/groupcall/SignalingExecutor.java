@@ -0,0 +1,61 @@
+package com.example.groupcall;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 세션별로 메시지 처리 순서를 보장하는 실행기.
+ * 같은 키의 작업은 이전 작업의 Future가 끝난 뒤에 시작되고, 서로 다른 키의 작업은 서로를 막지 않습니다.
+ */
+public class SignalingExecutor {
+    private static final Logger log = LoggerFactory.getLogger(SignalingExecutor.class);
+
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+
+    public SignalingExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "signaling-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<Void> submit(String key, Supplier<CompletableFuture<Void>> task) {
+        CompletableFuture<Void> next = tails.compute(key, (k, tail) -> {
+            CompletableFuture<Void> previous = tail == null ? CompletableFuture.completedFuture(null) : tail;
+            return previous
+                    .thenComposeAsync(v -> run(task), workers)
+                    .exceptionally(e -> {
+                        log.error("시그널링 작업 실패 (키: {})", k, e);
+                        return null;
+                    });
+        });
+        next.whenComplete((v, e) -> tails.remove(key, next));
+        return next;
+    }
+
+    private CompletableFuture<Void> run(Supplier<CompletableFuture<Void>> task) {
+        try {
+            return task.get();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public int pendingKeys() {
+        return tails.size();
+    }
+
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.groupcall;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 클라이언트가 보고한 음성 크기로 방의 발언자 순위를 유지합니다.
+ * 선택된 발언자는 최소 유지 시간이 지나고, 도전자의 점수가 일정 비율 이상 높을 때만 교체되어
+ * 비슷한 크기로 말하는 사람들 사이에서 구독이 계속 바뀌지 않도록 합니다.
+ */
+public class SpeakerRanking {
+    private static final double DECAY = 0.7;
+
+    private final int selectionSize;
+    private final long minHoldMillis;
+    private final double switchMargin;
+
+    private final Map<String, Speaker> speakers = new HashMap<>();
+    private final LinkedHashSet<String> selected = new LinkedHashSet<>();
+
+    /**
+     * @param selectionSize 선택 인원. 수신자 자신을 제외하고 N명을 받으려면 N + 1
+     */
+    public SpeakerRanking(int selectionSize, long minHoldMillis, double switchMargin) {
+        this.selectionSize = selectionSize;
+        this.minHoldMillis = minHoldMillis;
+        this.switchMargin = switchMargin;
+    }
+
+    public synchronized void add(String name, long now) {
+        speakers.putIfAbsent(name, new Speaker(name));
+        if (selected.size() < selectionSize) {
+            select(name, now);
+        }
+    }
+
+    public synchronized void remove(String name) {
+        speakers.remove(name);
+        selected.remove(name);
+    }
+
+    public synchronized void report(String name, double level) {
+        Speaker speaker = speakers.get(name);
+        if (speaker != null) {
+            speaker.score = speaker.score * DECAY + level * (1 - DECAY);
+        }
+    }
+
+    /**
+     * 점수에 따라 선택을 갱신한다.
+     * @return 선택이 바뀌었으면 true
+     */
+    public synchronized boolean recompute(long now) {
+        boolean changed = false;
+
+        // 빈 자리는 점수가 높은 순서로 채운다
+        List<Speaker> ranked = new ArrayList<>(speakers.values());
+        ranked.sort(Comparator.comparingDouble((Speaker s) -> s.score).reversed());
+        for (Speaker candidate : ranked) {
+            if (selected.size() >= selectionSize) {
+                break;
+            }
+            if (!selected.contains(candidate.name)) {
+                select(candidate.name, now);
+                changed = true;
+            }
+        }
+
+        for (Speaker challenger : ranked) {
+            if (selected.contains(challenger.name)) {
+                continue;
+            }
+            Speaker weakest = weakestReplaceable(now);
+            if (weakest == null || challenger.score <= weakest.score * (1 + switchMargin)) {
+                break;
+            }
+            selected.remove(weakest.name);
+            select(challenger.name, now);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private Speaker weakestReplaceable(long now) {
+        Speaker weakest = null;
+        for (String name : selected) {
+            Speaker speaker = speakers.get(name);
+            if (now - speaker.selectedAt < minHoldMillis) {
+                continue;
+            }
+            if (weakest == null || speaker.score < weakest.score) {
+                weakest = speaker;
+            }
+        }
+        return weakest;
+    }
+
+    private void select(String name, long now) {
+        selected.add(name);
+        speakers.get(name).selectedAt = now;
+    }
+
+    /**
+     * @return 수신자 자신을 제외한 최대 limit명의 선택된 발언자
+     */
+    public synchronized List<String> selectedFor(String receiver, int limit) {
+        List<String> result = new ArrayList<>(limit);
+        for (String name : selected) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (!name.equals(receiver)) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    private static final class Speaker {
+        private final String name;
+        private double score;
+        private long selectedAt;
+
+        private Speaker(String name) {
+            this.name = name;
+        }
+    }
+}
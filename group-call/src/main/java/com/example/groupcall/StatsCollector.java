@@ -0,0 +1,341 @@
+package com.example.groupcall;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.kurento.client.RTCInboundRTPStreamStats;
+import org.kurento.client.RTCOutboundRTPStreamStats;
+import org.kurento.client.Stats;
+import org.kurento.client.TFuture;
+import org.kurento.client.Transaction;
+import org.kurento.client.WebRtcEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 살아 있는 모든 WebRtcEndpoint의 getStats를 주기적으로 읽어 엔드포인트별 StatsRing에 쌓고,
+ * 주기마다 방별/사용자별 품질 요약(비트레이트, 손실률, 지터, RTT)을 만들어 둡니다.
+ *
+ * <p>getStats는 KMS 노드마다 batchSize개씩 트랜잭션 하나로 묶어 보내므로, 엔드포인트가 늘어도
+ * KMS 왕복은 ceil(엔드포인트 / batchSize)번이고 배치들은 동시에 진행됩니다. 엔드포인트당 메모리는 window로 고정되며,
+ * 해제된 엔드포인트의 기록은 다음 주기에 지웁니다.
+ *
+ * <pre>
+ * 송신 엔드포인트 (upstream)    브라우저 → KMS. RTCInboundRTPStreamStats의 bytesReceived, 손실, 지터
+ * 수신 엔드포인트 (downstream)  KMS → 브라우저. RTCOutboundRTPStreamStats의 bytesSent, 손실(RTCP RR), RTT
+ * </pre>
+ */
+public class StatsCollector {
+    private static final Logger log = LoggerFactory.getLogger(StatsCollector.class);
+
+    private final long intervalMillis;
+    private final int window;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Track> tracks = new ConcurrentHashMap<>();
+    private final AtomicBoolean inFlight = new AtomicBoolean();
+    private long tick;
+    private volatile Summary summary = Summary.EMPTY;
+
+    /**
+     * @param endpoints 수집한 엔드포인트 수
+     * @param batches   보낸 트랜잭션 수 (KMS 왕복 수)
+     * @param failedBatches 실패한 트랜잭션 수
+     * @param durationMillis 첫 배치 전송부터 마지막 응답까지
+     * @param collectedAt 수집을 마친 시각 (epoch ms)
+     */
+    public record Status(int endpoints, int batches, int failedBatches, long durationMillis, long collectedAt) {
+    }
+
+    private record Summary(Map<String, Map<String, Object>> rooms, Map<String, Map<String, Object>> users,
+                           Status status) {
+        static final Summary EMPTY = new Summary(Map.of(), Map.of(), new Status(0, 0, 0, 0, 0));
+    }
+
+    private static final class Track {
+        private final String roomName;
+        private final String userName;
+        /** downstream이면 보낸 사람 이름, upstream이면 자신 */
+        private final String peerName;
+        private final boolean upstream;
+        private final StatsRing ring;
+        private long seenTick;
+
+        private Track(String roomName, String userName, String peerName, boolean upstream, int window) {
+            this.roomName = roomName;
+            this.userName = userName;
+            this.peerName = peerName;
+            this.upstream = upstream;
+            this.ring = new StatsRing(window);
+        }
+    }
+
+    private record Target(WebRtcEndpoint endpoint, Track track) {
+    }
+
+    /**
+     * @param intervalMillis 수집 주기. 0 이하면 start가 스케줄하지 않는다 (collect를 직접 호출)
+     * @param window 엔드포인트마다 보관할 샘플 수. 요약 구간은 intervalMillis * window
+     * @param batchSize 트랜잭션 하나에 넣을 getStats 수
+     */
+    public StatsCollector(long intervalMillis, int window, int batchSize) {
+        this.intervalMillis = intervalMillis;
+        this.window = Math.max(2, window);
+        this.batchSize = Math.max(1, batchSize);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stats-collector");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 수집 주기마다 collect를 스케줄한다. 수집 주기가 0 이하면 아무것도 하지 않는다.
+     */
+    public void start() {
+        if (intervalMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::collect, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 한 주기를 수집한다. 이전 주기의 응답을 아직 기다리는 중이면 건너뛴다.
+     *
+     * @return 모든 배치가 끝나고 요약을 갱신하면 완료
+     */
+    public CompletableFuture<Void> collect() {
+        if (!inFlight.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            long start = System.nanoTime();
+            long current = ++tick;
+            Map<KurentoNode, List<Target>> byNode = new HashMap<>();
+            for (Room room : Room.findRooms()) {
+                for (User user : room.getParticipants()) {
+                    List<Target> targets = byNode.computeIfAbsent(room.nodeOf(user.getName()), k -> new ArrayList<>());
+                    targets.add(target(user.getOutgoingWebRtcPeer(), room, user, user.getName(), true, current));
+                    user.forEachIncoming((senderName, endpoint) ->
+                            targets.add(target(endpoint, room, user, senderName, false, current)));
+                }
+            }
+            tracks.values().removeIf(track -> track.seenTick != current);
+
+            List<CompletableFuture<Boolean>> batches = new ArrayList<>();
+            byNode.forEach((node, targets) -> {
+                for (int from = 0; from < targets.size(); from += batchSize) {
+                    batches.add(collectBatch(node, targets.subList(from, Math.min(targets.size(), from + batchSize))));
+                }
+            });
+            int endpoints = tracks.size();
+            return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).handle((v, e) -> {
+                int failed = (int) batches.stream().filter(batch -> !batch.join()).count();
+                Status status = new Status(endpoints, batches.size(), failed,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), System.currentTimeMillis());
+                summary = summarize(status);
+                inFlight.set(false);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            inFlight.set(false);
+            log.warn("WebRTC 통계 수집 실패: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private Target target(WebRtcEndpoint endpoint, Room room, User user, String peerName, boolean upstream,
+                          long current) {
+        Track track = tracks.computeIfAbsent(endpoint.getId(),
+                id -> new Track(room.getName(), user.getName(), peerName, upstream, window));
+        track.seenTick = current;
+        return new Target(endpoint, track);
+    }
+
+    /**
+     * @return 트랜잭션이 성공했으면 true. 개별 getStats 실패(막 해제된 엔드포인트 등)는 그 엔드포인트만 건너뛴다
+     */
+    private CompletableFuture<Boolean> collectBatch(KurentoNode node, List<Target> batch) {
+        Transaction tx;
+        List<TFuture<Map<String, Stats>>> results = new ArrayList<>(batch.size());
+        try {
+            tx = node.getClient().beginTransaction();
+            for (Target target : batch) {
+                results.add(target.endpoint().getStats(tx));
+            }
+        } catch (RuntimeException e) {
+            log.debug("getStats 배치 준비 실패 - 노드: {}: {}", node.getId(), e.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
+        return KurentoFutures.<Void>call("getStats", tx::commit).handle((v, e) -> {
+            if (e != null) {
+                log.debug("getStats 배치 실패 - 노드: {}, 엔드포인트 {}개: {}", node.getId(), batch.size(), e.getMessage());
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    record(batch.get(i).track(), results.get(i).get(), now);
+                } catch (Exception ex) {
+                    log.debug("getStats 실패 - EndpointId: {}: {}", batch.get(i).endpoint().getId(), ex.getMessage());
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * 오디오/비디오 스트림을 합쳐 한 샘플로 기록한다. 지터와 RTT는 스트림 중 큰 값.
+     */
+    private static void record(Track track, Map<String, Stats> stats, long now) {
+        long bytes = 0;
+        long packets = 0;
+        long lost = 0;
+        double jitterMs = -1;
+        double rttMs = -1;
+        boolean found = false;
+        for (Stats stat : stats.values()) {
+            if (track.upstream && stat instanceof RTCInboundRTPStreamStats inbound) {
+                bytes += inbound.getBytesReceived();
+                packets += inbound.getPacketsReceived() + inbound.getPacketsLost();
+                lost += inbound.getPacketsLost();
+                jitterMs = Math.max(jitterMs, inbound.getJitter() * 1000);
+                found = true;
+            } else if (!track.upstream && stat instanceof RTCOutboundRTPStreamStats outbound) {
+                bytes += outbound.getBytesSent();
+                packets += outbound.getPacketsSent();
+                lost += outbound.getPacketsLost();
+                rttMs = Math.max(rttMs, outbound.getRoundTripTime() * 1000);
+                found = true;
+            }
+        }
+        if (found) {
+            track.ring.add(now, bytes, packets, lost, jitterMs, rttMs);
+        }
+    }
+
+    private Summary summarize(Status status) {
+        Map<String, Map<String, Object>> users = new HashMap<>();
+        Map<String, RoomTotals> rooms = new HashMap<>();
+        for (Track track : tracks.values()) {
+            StatsRing.Quality quality = track.ring.summarize();
+            Map<String, Object> user = users.computeIfAbsent(track.userName, name -> {
+                Map<String, Object> view = new LinkedHashMap<>();
+                view.put("userName", name);
+                view.put("roomName", track.roomName);
+                view.put("upstream", null);
+                view.put("downstream", new LinkedHashMap<String, Object>());
+                return view;
+            });
+            if (track.upstream) {
+                user.put("upstream", view(quality));
+            } else {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> downstream = (Map<String, Object>) user.get("downstream");
+                downstream.put(track.peerName, view(quality));
+            }
+            rooms.computeIfAbsent(track.roomName, RoomTotals::new).add(track, quality);
+        }
+
+        Map<String, Map<String, Object>> roomViews = new HashMap<>();
+        rooms.forEach((name, totals) -> roomViews.put(name, totals.view()));
+        return new Summary(Collections.unmodifiableMap(roomViews), Collections.unmodifiableMap(users), status);
+    }
+
+    private static Map<String, Object> view(StatsRing.Quality quality) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("bitrateKbps", round(quality.bitrateKbps()));
+        view.put("lossPercent", round(quality.lossPercent()));
+        view.put("jitterMs", round(quality.jitterMs()));
+        view.put("rttMs", round(quality.rttMs()));
+        view.put("samples", quality.samples());
+        return view;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    /**
+     * 방 요약. ingress는 참가자들이 보내는 합, egress는 KMS가 참가자들에게 보내는 합
+     */
+    private static final class RoomTotals {
+        private final String roomName;
+        private int endpoints;
+        private double ingressKbps;
+        private double egressKbps;
+        private double lossSum;
+        private double worstLoss;
+        private double jitterSum;
+        private int jitterCount;
+        private double rttSum;
+        private int rttCount;
+
+        private RoomTotals(String roomName) {
+            this.roomName = roomName;
+        }
+
+        private void add(Track track, StatsRing.Quality quality) {
+            endpoints++;
+            if (track.upstream) {
+                ingressKbps += quality.bitrateKbps();
+            } else {
+                egressKbps += quality.bitrateKbps();
+            }
+            lossSum += quality.lossPercent();
+            worstLoss = Math.max(worstLoss, quality.lossPercent());
+            if (quality.jitterMs() >= 0) {
+                jitterSum += quality.jitterMs();
+                jitterCount++;
+            }
+            if (quality.rttMs() >= 0) {
+                rttSum += quality.rttMs();
+                rttCount++;
+            }
+        }
+
+        private Map<String, Object> view() {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("roomName", roomName);
+            view.put("endpoints", endpoints);
+            view.put("ingressKbps", round(ingressKbps));
+            view.put("egressKbps", round(egressKbps));
+            view.put("avgLossPercent", round(endpoints == 0 ? 0 : lossSum / endpoints));
+            view.put("worstLossPercent", round(worstLoss));
+            view.put("avgJitterMs", round(jitterCount == 0 ? -1 : jitterSum / jitterCount));
+            view.put("avgRttMs", round(rttCount == 0 ? -1 : rttSum / rttCount));
+            return view;
+        }
+    }
+
+    /**
+     * 방 이름 → 마지막 주기의 방 품질 요약
+     */
+    public Map<String, Map<String, Object>> getRoomQualities() {
+        return summary.rooms();
+    }
+
+    /**
+     * 사용자 이름 → 마지막 주기의 송신(upstream)과 보낸 사람별 수신(downstream) 품질
+     */
+    public Map<String, Map<String, Object>> getUserQualities() {
+        return summary.users();
+    }
+
+    public Status getStatus() {
+        return summary.status();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.groupcall;
+
+/**
+ * 엔드포인트 하나의 최근 RTP 통계 샘플. 크기가 고정된 primitive 배열을 원형으로 덮어쓰므로
+ * 엔드포인트당 메모리는 capacity로 정해지고 샘플마다 객체를 만들지 않습니다.
+ * 카운터(바이트, 패킷, 손실)는 KMS가 주는 누적값을 그대로 저장하고, 구간 값은 요약할 때 처음과 끝의 차이로 계산합니다.
+ */
+final class StatsRing {
+    private final long[] at;
+    private final long[] bytes;
+    private final long[] packets;
+    private final long[] lost;
+    private final float[] jitterMs;
+    private final float[] rttMs;
+    private int next;
+    private int size;
+
+    /**
+     * @param bitrateKbps 구간 평균 비트레이트
+     * @param lossPercent 구간 동안 잃은 패킷 비율
+     * @param jitterMs    평균 지터. 값이 없으면 -1
+     * @param rttMs       평균 RTT. 값이 없으면 -1
+     * @param samples     요약에 쓴 샘플 수
+     */
+    record Quality(double bitrateKbps, double lossPercent, double jitterMs, double rttMs, int samples) {
+    }
+
+    StatsRing(int capacity) {
+        this.at = new long[capacity];
+        this.bytes = new long[capacity];
+        this.packets = new long[capacity];
+        this.lost = new long[capacity];
+        this.jitterMs = new float[capacity];
+        this.rttMs = new float[capacity];
+    }
+
+    /**
+     * @param packets 보낸(또는 받아야 했던) 패킷 누적 수. 손실 포함
+     * @param jitterMs 없으면 음수
+     * @param rttMs 없으면 음수
+     */
+    synchronized void add(long timestamp, long bytes, long packets, long lost, double jitterMs, double rttMs) {
+        int i = next;
+        this.at[i] = timestamp;
+        this.bytes[i] = bytes;
+        this.packets[i] = packets;
+        this.lost[i] = lost;
+        this.jitterMs[i] = (float) jitterMs;
+        this.rttMs[i] = (float) rttMs;
+        next = (i + 1) % at.length;
+        if (size < at.length) {
+            size++;
+        }
+    }
+
+    /**
+     * 보관 중인 전체 구간의 요약. 샘플이 두 개 미만이면 비트레이트와 손실률은 0
+     */
+    synchronized Quality summarize() {
+        if (size == 0) {
+            return new Quality(0, 0, -1, -1, 0);
+        }
+        int last = (next - 1 + at.length) % at.length;
+        int first = (next - size + at.length) % at.length;
+
+        double bitrate = 0;
+        double loss = 0;
+        long elapsed = at[last] - at[first];
+        if (elapsed > 0) {
+            // 카운터가 줄었으면(SSRC 변경 등) 0으로 본다
+            bitrate = Math.max(0, bytes[last] - bytes[first]) * 8.0 / elapsed;
+            long expected = Math.max(0, packets[last] - packets[first]);
+            if (expected > 0) {
+                loss = Math.max(0, lost[last] - lost[first]) * 100.0 / expected;
+            }
+        }
+        return new Quality(bitrate, Math.min(100, loss), average(jitterMs), average(rttMs), size);
+    }
+
+    private double average(float[] values) {
+        double sum = 0;
+        int count = 0;
+        for (int k = 0, i = (next - size + at.length) % at.length; k < size; k++, i = (i + 1) % at.length) {
+            if (values[i] >= 0) {
+                sum += values[i];
+                count++;
+            }
+        }
+        return count == 0 ? -1 : sum / count;
+    }
+}
@@ -3,185 +3,917 @@ package com.example.groupcall;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.kurento.client.Composite;
 import org.kurento.client.Continuation;
 import org.kurento.client.EventListener;
+import org.kurento.client.HubPort;
 import org.kurento.client.IceCandidate;
 import org.kurento.client.IceCandidateFoundEvent;
+import org.kurento.client.ListenerSubscription;
+import org.kurento.client.MediaElement;
+import org.kurento.client.MediaFlowState;
 import org.kurento.client.MediaPipeline;
+import org.kurento.client.MediaType;
+import org.kurento.client.TFuture;
+import org.kurento.client.Transaction;
 import org.kurento.client.WebRtcEndpoint;
-import org.kurento.jsonrpc.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
+import com.example.groupcall.message.OutboundMessage;
 import com.google.gson.JsonObject;
 
 public class User {
     private static final Logger log = LoggerFactory.getLogger(User.class);
 
     // Static user registry (formerly UserRegistry)
-    private static final ConcurrentHashMap<String, User> usersByName = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, User> usersBySessionId = new ConcurrentHashMap<>();
+    private static UserRegistry registry = new LocalUserRegistry();
+    private static final ScheduledExecutorService speculationReaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "speculative-release");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile long speculativeTtlMillis;
+    private static volatile boolean transactionalSetup = true;
 
     // User instance fields
     private final String name;
     private final String roomName;
-    private final WebSocketSession session;
+    private volatile WebSocketSession session;
+    // 연결이 끊겼을 때 resumeSession으로 이 참가자의 엔드포인트를 되찾는 데 쓴다
+    private final String resumeToken = UUID.randomUUID().toString();
+    // 연결이 끊긴 시각 (System.nanoTime). 0이면 연결되어 있다. this로 동기화
+    private long detachedAt;
+    private final MediaPipeline pipeline;
     private final WebRtcEndpoint outgoingMedia;
     private final ConcurrentHashMap<String, WebRtcEndpoint> incomingMedia = new ConcurrentHashMap<>();
+    // 만드는 중인 수신 엔드포인트. 미리 만들기와 receiveVideoFrom이 같은 엔드포인트를 두 번 만들지 않게 한다
+    private final ConcurrentHashMap<String, CompletableFuture<WebRtcEndpoint>> creatingIncoming = new ConcurrentHashMap<>();
+    // 입장 시 미리 만들어 두었지만 아직 receiveVideoFrom이 오지 않은 송신자 (이 집합으로 동기화)
+    private final Set<String> speculative = ConcurrentHashMap.newKeySet();
+    private final OutboundQueue outbound;
+    private final IceCandidateBatcher iceBatcher;
+    private final IceRecovery iceRecovery;
+    // 수신 엔드포인트가 생기기 전에 도착한 클라이언트 ICE 후보
+    private final ConcurrentHashMap<String, List<IceCandidate>> pendingCandidates = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> appliedCandidates = new ConcurrentHashMap<>();
+    private final AtomicLong inboundFrames = new AtomicLong();
+    // last-N 모드에서 영상 연결을 끊어 둔 송신자 (음성은 계속 연결)
+    private final Set<String> videoPaused = ConcurrentHashMap.newKeySet();
+    private volatile HubPort hubPort;
+    // 엔드포인트별 gatherCandidates 호출 시각 (IceGatheringDone / MediaFlowIn 메트릭)
+    private final ConcurrentHashMap<String, Long> gatheringSince = new ConcurrentHashMap<>();
+    private final AtomicBoolean mediaFlowing = new AtomicBoolean();
+    // 대역폭 예산: 클라이언트가 보고한 하향 대역폭과 마지막으로 적용한 상한 (0이면 없음)
+    private volatile int reportedDownlinkKbps;
+    private volatile int streamCapKbps;
+    private volatile int publisherCapKbps;
+
+    /**
+     * 수신 엔드포인트가 받을 미디어. type이 null이면 음성과 영상 모두
+     */
+    private record Source(MediaElement element, MediaType type) {
+    }
+
+    /**
+     * 새로 만든 수신 엔드포인트. sdpAnswer는 생성 트랜잭션에서 offer까지 처리했을 때만 있다.
+     */
+    private record Incoming(WebRtcEndpoint endpoint, String sdpAnswer) {
+    }
 
     // Static methods for user registry
+    public static void configureRegistry(UserRegistry userRegistry) {
+        registry = userRegistry;
+    }
+
+    /**
+     * @param ttlMillis 입장 직후 미리 만든 수신 엔드포인트를 쓰지 않으면 해제하기까지의 시간. 0 이하이면 미리 만들지 않는다
+     */
+    public static void configureSpeculation(long ttlMillis) {
+        speculativeTtlMillis = ttlMillis;
+    }
+
+    /**
+     * @param enabled 수신 엔드포인트 생성/연결/processOffer를 Kurento 트랜잭션 하나로 보낼지 (끄면 호출마다 왕복)
+     */
+    public static void configureTransactions(boolean enabled) {
+        transactionalSetup = enabled;
+    }
+
+    /**
+     * @param maxAttempts             엔드포인트마다 windowMillis 안에 요청할 ICE 재시작 수. 0 이하이면 끈다
+     * @param disconnectedGraceMillis ICE DISCONNECTED가 스스로 돌아오기를 기다리는 시간
+     * @param attemptTimeoutMillis    재시작을 요청한 뒤 다시 연결되기를 기다리는 시간
+     */
+    public static void configureIceRestart(int maxAttempts, long windowMillis, long disconnectedGraceMillis,
+                                           long attemptTimeoutMillis) {
+        IceRecovery.configure(maxAttempts, windowMillis, disconnectedGraceMillis, attemptTimeoutMillis);
+    }
+
     public static void register(User user) {
-        usersByName.put(user.getName(), user);
-        usersBySessionId.put(user.getSession().getId(), user);
+        registry.register(user);
     }
 
     public static User getByName(String name) {
-        return usersByName.get(name);
+        return registry.getByName(name);
     }
 
     public static User getBySession(WebSocketSession session) {
-        return usersBySessionId.get(session.getId());
+        return registry.getBySessionId(session.getId());
     }
 
     public static User removeBySession(WebSocketSession session) {
-        User user = getBySession(session);
-        if (user != null) {
-            usersByName.remove(user.getName());
-            usersBySessionId.remove(session.getId());
-        }
-        return user;
+        return registry.removeBySessionId(session.getId());
+    }
+
+    /**
+     * 세션으로는 더 찾지 못하게 하되 방과 이름 목록에는 남겨 둔다 (재연결 대기).
+     */
+    public static User detachBySession(WebSocketSession session) {
+        return registry.detachSessionId(session.getId());
+    }
+
+    /**
+     * 재연결한 참가자를 새 세션 ID로 다시 등록한다. 이전 세션이 늦게 닫혀도 이 참가자를 찾지 못한다.
+     */
+    public static void rebindSession(User user, WebSocketSession previous) {
+        registry.detachSessionId(previous.getId());
+        registry.register(user);
     }
 
-    public User(String name, String roomName, WebSocketSession session, MediaPipeline pipeline) {
+    public static CompletableFuture<User> create(String name, String roomName, WebSocketSession session,
+                                                 MediaPipeline pipeline) {
+        log.info("WebRTC 엔드포인트 생성 - 사용자: {}, 룸: {}", name, roomName);
+        return KurentoFutures.<WebRtcEndpoint>call("createWebRtcEndpoint",
+                        c -> new WebRtcEndpoint.Builder(pipeline).buildAsync(c))
+                .thenCompose(endpoint -> {
+                    User user = new User(name, roomName, session, pipeline, endpoint);
+                    return user.subscribeEvents(endpoint, name).thenApply(v -> {
+                        // Register the user in the static registry
+                        register(user);
+                        return user;
+                    });
+                });
+    }
+
+    private User(String name, String roomName, WebSocketSession session, MediaPipeline pipeline,
+                 WebRtcEndpoint outgoingMedia) {
         this.name = name;
         this.roomName = roomName;
         this.session = session;
-
-        log.info("WebRTC 엔드포인트 생성 - 사용자: {}, 룸: {}", name, roomName);
-        this.outgoingMedia = new WebRtcEndpoint.Builder(pipeline).build();
+        this.pipeline = pipeline;
+        this.outgoingMedia = outgoingMedia;
+        this.outbound = new OutboundQueue(name, session);
+        this.iceBatcher = new IceCandidateBatcher(outbound::offer);
+        this.iceRecovery = new IceRecovery(name, this::requestIceRestart, this::abandonIceRestart);
         log.info("outgoing WebRTC 엔드포인트 생성됨 - 사용자: {}, 룸: {}, EndpointId: {}",
                 name, roomName, outgoingMedia.getId());
+    }
+
+    private CompletableFuture<Void> subscribeEvents(WebRtcEndpoint endpoint, String senderName) {
+        CompletableFuture<ListenerSubscription> candidates = subscribeIceCandidates(endpoint, senderName);
+        CompletableFuture<Void> iceStates = subscribeIceStates(endpoint, senderName);
+        if (!SessionMetrics.isMediaEventsEnabled()) {
+            return CompletableFuture.allOf(candidates, iceStates);
+        }
+        return CompletableFuture.allOf(candidates, iceStates, subscribeMediaEvents(endpoint));
+    }
 
-        this.outgoingMedia.addIceCandidateFoundListener(event -> {
+    private CompletableFuture<ListenerSubscription> subscribeIceCandidates(WebRtcEndpoint endpoint, String senderName) {
+        return KurentoFutures.call("subscribe", c -> endpoint.addIceCandidateFoundListener(event -> {
             log.debug("ICE 후보 발견 - 사용자: {}, 룸: {}, 후보: {}",
-                    name, roomName, event.getCandidate());
+                    senderName, roomName, event.getCandidate());
+            iceBatcher.add(senderName, event.getCandidate());
+        }, c));
+    }
 
-            JsonObject response = new JsonObject();
-            response.addProperty("id", "iceCandidate");
-            response.addProperty("name", name);
-            response.add("candidate", JsonUtils.toJsonObject(event.getCandidate()));
-            sendMessage(response);
-        });
+    /**
+     * ICE 연결이 끊기거나 실패하면 IceRecovery가 재시작을 요청한다. 구독에 실패해도 입장은 계속한다 (재시작만 하지 못한다).
+     */
+    private CompletableFuture<Void> subscribeIceStates(WebRtcEndpoint endpoint, String senderName) {
+        if (!IceRecovery.isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return KurentoFutures.<ListenerSubscription>call("subscribe",
+                        c -> endpoint.addIceComponentStateChangedListener(event -> {
+                            // 바꿔 끼운 뒤 늦게 온 이전 엔드포인트의 이벤트는 무시한다
+                            if (endpoint == outgoingMedia || incomingMedia.get(senderName) == endpoint) {
+                                iceRecovery.stateChanged(senderName, event.getState());
+                            }
+                        }, c))
+                .handle((subscription, e) -> {
+                    if (e != null) {
+                        log.warn("ICE 상태 구독 실패 - 사용자: {}, EndpointId: {}: {}", name, endpoint.getId(), e.getMessage());
+                    }
+                    return null;
+                });
+    }
 
-        // Register the user in the static registry
-        register(this);
+    /**
+     * 메트릭용 IceGatheringDone 리스너와 (송신 엔드포인트만) MediaFlowIn 리스너. 구독에 실패해도 입장은 계속한다.
+     */
+    private CompletableFuture<Void> subscribeMediaEvents(WebRtcEndpoint endpoint) {
+        String endpointId = endpoint.getId();
+        boolean outgoing = endpoint == outgoingMedia;
+        CompletableFuture<ListenerSubscription> gathering = KurentoFutures.call("subscribe",
+                c -> endpoint.addIceGatheringDoneListener(event -> {
+                    // 송신 엔드포인트의 시작 시각은 MediaFlowIn 측정에도 쓰므로 남겨 둔다
+                    Long since = outgoing ? gatheringSince.get(endpointId) : gatheringSince.remove(endpointId);
+                    if (since != null) {
+                        SessionMetrics.recordIceGathering(System.nanoTime() - since);
+                    }
+                }, c));
+        CompletableFuture<ListenerSubscription> flowing = !outgoing
+                ? CompletableFuture.completedFuture(null)
+                : KurentoFutures.call("subscribe", c -> endpoint.addMediaFlowInStateChangedListener(event -> {
+                    Long since = gatheringSince.get(endpointId);
+                    if (event.getState() == MediaFlowState.FLOWING && since != null
+                            && mediaFlowing.compareAndSet(false, true)) {
+                        SessionMetrics.recordMediaFlowing(System.nanoTime() - since);
+                        log.debug("미디어 수신 시작 - 사용자: {}, 방: {}", name, roomName);
+                    }
+                }, c));
+        return CompletableFuture.allOf(gathering, flowing).exceptionally(e -> {
+            log.warn("미디어 이벤트 구독 실패 - 사용자: {}, EndpointId: {}: {}", name, endpointId, e.getMessage());
+            return null;
+        });
     }
 
-    public void receiveVideoFrom(User sender, String sdpOffer) throws Exception {
+    public CompletableFuture<Void> receiveVideoFrom(User sender, String sdpOffer) {
         String senderName = sender.getName();
-        WebRtcEndpoint incoming = getOrCreateWebRtcEndpoint(sender);
-        String sdpAnswer = incoming.processOffer(sdpOffer);
+        if (senderName.equals(this.name)) {
+            return answerRestart(answerOffer(outgoingMedia, senderName, sdpOffer), senderName, null);
+        }
+
+        CompletableFuture<Incoming> created;
+        CompletableFuture<WebRtcEndpoint> existing = null;
+        synchronized (speculative) {
+            if (speculative.remove(senderName)) {
+                SessionMetrics.recordSpeculativeEndpoint(true);
+            }
+            created = startIncoming(sender, sdpOffer);
+            if (created == null) {
+                existing = findIncoming(senderName);
+            }
+        }
+        if (created != null) {
+            return created.thenCompose(incoming -> finishOffer(incoming, senderName, sdpOffer));
+        }
+        if (existing == null) {
+            // 찾는 사이에 생성이 실패해 목록에서 빠졌다
+            return receiveVideoFrom(sender, sdpOffer);
+        }
+        return answerRestart(existing.thenCompose(incoming -> answerOffer(incoming, senderName, sdpOffer)),
+                senderName, () -> receiveVideoFrom(sender, sdpOffer));
+    }
 
-        JsonObject response = new JsonObject();
-        response.addProperty("id", "receiveVideoAnswer");
-        response.addProperty("name", senderName);
-        response.addProperty("sdpAnswer", sdpAnswer);
-        sendMessage(response);
+    /**
+     * 입장 직후 기존 송신자들의 수신 엔드포인트를 병렬로 미리 만들어 연결해 둔다.
+     * 클라이언트가 보내는 receiveVideoFrom은 세션별로 하나씩 처리되므로, 미리 만들어 두면 각 요청은 processOffer만 하면 된다.
+     * 설정한 시간 안에 receiveVideoFrom이 오지 않은 엔드포인트는 해제한다.
+     */
+    public void prepareIncoming(Collection<User> senders) {
+        long ttl = speculativeTtlMillis;
+        if (ttl <= 0) {
+            return;
+        }
+        int prepared = 0;
+        // receiveVideoFrom이 생성 시작과 speculative 등록 사이에 끼어들지 않도록 잠근다
+        synchronized (speculative) {
+            for (User sender : senders) {
+                String senderName = sender.getName();
+                if (senderName.equals(name)) {
+                    continue;
+                }
+                CompletableFuture<Incoming> created = startIncoming(sender, null);
+                if (created == null) {
+                    continue;
+                }
+                speculative.add(senderName);
+                prepared++;
+                created.exceptionally(e -> {
+                    speculative.remove(senderName);
+                    log.warn("수신 엔드포인트 미리 만들기 실패 - 보낸 사람: {}, 받는 사람: {}: {}",
+                            senderName, name, e.getMessage());
+                    return null;
+                });
+            }
+        }
+        if (prepared > 0) {
+            log.debug("수신 엔드포인트 {}개 미리 생성 - 사용자: {}, 방: {}", prepared, name, roomName);
+            speculationReaper.schedule(this::releaseUnusedSpeculative, ttl, TimeUnit.MILLISECONDS);
+        }
+    }
 
-        incoming.gatherCandidates();
+    private void releaseUnusedSpeculative() {
+        boolean retry;
+        synchronized (speculative) {
+            for (String senderName : List.copyOf(speculative)) {
+                if (creatingIncoming.containsKey(senderName)) {
+                    // 아직 만드는 중이면 다음 확인 때 해제한다
+                    continue;
+                }
+                speculative.remove(senderName);
+                SessionMetrics.recordSpeculativeEndpoint(false);
+                log.debug("쓰지 않은 수신 엔드포인트 해제 - 보낸 사람: {}, 받는 사람: {}", senderName, name);
+                cancelVideoFrom(senderName);
+            }
+            retry = !speculative.isEmpty();
+        }
+        long ttl = speculativeTtlMillis;
+        if (retry && ttl > 0) {
+            speculationReaper.schedule(this::releaseUnusedSpeculative, ttl, TimeUnit.MILLISECONDS);
+        }
     }
 
-    private WebRtcEndpoint getOrCreateWebRtcEndpoint(User sender) {
-        String senderName = sender.getName();
+    /**
+     * MCU 모드에서 Composite가 합성한 영상을 받는 엔드포인트를 만든다.
+     */
+    public CompletableFuture<Void> receiveMixedVideo(String sdpOffer) {
+        HubPort port = hubPort;
+        if (port == null) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("MCU 모드가 아닌 방입니다 - 사용자: " + name));
+        }
 
-        if (senderName.equals(this.name)) {
-            return outgoingMedia;
+        WebRtcEndpoint existing = incomingMedia.get(Room.MIXED_STREAM);
+        if (existing != null) {
+            return answerRestart(answerOffer(existing, Room.MIXED_STREAM, sdpOffer),
+                    Room.MIXED_STREAM, () -> receiveMixedVideo(sdpOffer));
         }
+        return createIncomingEndpoint(Room.MIXED_STREAM, CompletableFuture.completedFuture(new Source(port, null)), sdpOffer)
+                .thenCompose(incoming -> finishOffer(incoming, Room.MIXED_STREAM, sdpOffer));
+    }
 
-        WebRtcEndpoint incoming = incomingMedia.get(senderName);
-        if (incoming == null) {
-            incoming = createNewWebRtcEndpoint(sender);
+    private CompletableFuture<Void> answerOffer(WebRtcEndpoint endpoint, String senderName, String sdpOffer) {
+        long offerStart = System.nanoTime();
+        return KurentoFutures.<String>call("processOffer", c -> endpoint.processOffer(sdpOffer, c))
+                .thenCompose(sdpAnswer -> {
+                    SessionMetrics.recordProcessOffer(endpoint == outgoingMedia, System.nanoTime() - offerStart);
+                    iceRecovery.renegotiated(senderName);
+                    return sendAnswer(endpoint, senderName, sdpAnswer);
+                });
+    }
+
+    /**
+     * ICE 재시작 offer를 기존 엔드포인트가 받지 못하면 (KMS가 재협상을 거부) 그 수신 엔드포인트만 새로 만든다.
+     * 송신 엔드포인트는 다른 참가자들이 연결되어 있어 바꿀 수 없으므로 재시작을 포기한다 (클라이언트가 다시 입장).
+     *
+     * @param replace 엔드포인트를 해제한 뒤 같은 offer로 다시 받는다. 송신 엔드포인트면 null
+     */
+    private CompletableFuture<Void> answerRestart(CompletableFuture<Void> answered, String key,
+                                                  Supplier<CompletableFuture<Void>> replace) {
+        return answered.exceptionallyCompose(e -> {
+            if (!iceRecovery.isRestarting(key)) {
+                return CompletableFuture.failedFuture(e);
+            }
+            log.warn("ICE 재시작 재협상 실패 - 사용자: {}, 상대: {}: {}", name, key, e.getMessage());
+            if (replace == null) {
+                iceRecovery.giveUp(key);
+                return CompletableFuture.completedFuture(null);
+            }
+            SessionMetrics.recordIceRestart("replaced");
+            cancelVideoFrom(key);
+            return replace.get();
+        });
+    }
+
+    /**
+     * 생성 트랜잭션에서 offer까지 처리했으면 응답만 보내고, 아니면 processOffer부터 한다.
+     */
+    private CompletableFuture<Void> finishOffer(Incoming incoming, String senderName, String sdpOffer) {
+        if (incoming.sdpAnswer() == null) {
+            return answerOffer(incoming.endpoint(), senderName, sdpOffer);
         }
+        return sendAnswer(incoming.endpoint(), senderName, incoming.sdpAnswer());
+    }
+
+    /**
+     * 응답을 보낸 뒤에 gatherCandidates를 호출해 클라이언트가 서버 ICE 후보보다 응답을 먼저 받게 한다.
+     */
+    private CompletableFuture<Void> sendAnswer(WebRtcEndpoint endpoint, String senderName, String sdpAnswer) {
+        sendMessage(new OutboundMessage.ReceiveVideoAnswer(senderName, sdpAnswer));
 
-        return incoming;
+        gatheringSince.putIfAbsent(endpoint.getId(), System.nanoTime());
+        return KurentoFutures.<Void>call("gatherCandidates", endpoint::gatherCandidates);
     }
 
-    private WebRtcEndpoint createNewWebRtcEndpoint(User sender) {
+    /**
+     * 송신자의 수신 엔드포인트 생성을 시작한다. 이미 있거나 다른 요청이 만들고 있으면 null.
+     *
+     * @param sdpOffer 생성 트랜잭션에 processOffer까지 넣을 offer. 미리 만들 때는 null
+     */
+    private CompletableFuture<Incoming> startIncoming(User sender, String sdpOffer) {
+        String senderName = sender.getName();
+        if (incomingMedia.containsKey(senderName)) {
+            return null;
+        }
+        CompletableFuture<WebRtcEndpoint> slot = new CompletableFuture<>();
+        if (creatingIncoming.putIfAbsent(senderName, slot) != null) {
+            return null;
+        }
+        // 다른 생성이 방금 끝났을 수 있다 (incomingMedia에 넣은 뒤 creatingIncoming에서 지운다)
+        if (incomingMedia.containsKey(senderName)) {
+            creatingIncoming.remove(senderName, slot);
+            return null;
+        }
         log.info("수신 WebRTC 엔드포인트 생성 - 보낸 사람: {}, 받는 사람: {}, 방: {}",
-                sender.getName(), this.name, this.roomName);
-
-        WebRtcEndpoint incoming = new WebRtcEndpoint.Builder(outgoingMedia.getMediaPipeline()).build();
-        log.info("수신 WebRTC incoming 생성 - 보낸 사람: {}, 받는 사람: {}, 방: {}, EndpointId: {}",
-                sender.getName(), this.name, this.roomName, incoming.getId());
-
-        incoming.addIceCandidateFoundListener(event -> {
-            JsonObject response = new JsonObject();
-            response.addProperty("id", "iceCandidate");
-            response.addProperty("name", sender.getName());
-            response.add("candidate", JsonUtils.toJsonObject(event.getCandidate()));
-            sendMessage(response);
+                senderName, this.name, this.roomName);
+
+        CompletableFuture<Incoming> created = createIncomingEndpoint(senderName, sourceFrom(sender), sdpOffer);
+        created.whenComplete((incoming, e) -> {
+            creatingIncoming.remove(senderName, slot);
+            if (e != null) {
+                slot.completeExceptionally(e);
+            } else {
+                slot.complete(incoming.endpoint());
+            }
         });
+        return created;
+    }
 
-        incomingMedia.put(sender.getName(), incoming);
-        sender.getOutgoingWebRtcPeer().connect(incoming);
+    /**
+     * @return 만들어졌거나 만드는 중인 수신 엔드포인트. 둘 다 아니면 null
+     */
+    private CompletableFuture<WebRtcEndpoint> findIncoming(String senderName) {
+        WebRtcEndpoint incoming = incomingMedia.get(senderName);
+        if (incoming != null) {
+            return CompletableFuture.completedFuture(incoming);
+        }
+        return creatingIncoming.get(senderName);
+    }
 
-        return incoming;
+    private CompletableFuture<Incoming> createIncomingEndpoint(String key, CompletableFuture<Source> source,
+                                                               String sdpOffer) {
+        return source.thenCompose(from -> transactionalSetup
+                        ? buildInTransaction(key, from, sdpOffer)
+                        : buildSequentially(from))
+                .thenCompose(created -> {
+                    WebRtcEndpoint incoming = created.endpoint();
+                    log.info("수신 WebRTC incoming 생성 - 보낸 사람: {}, 받는 사람: {}, 방: {}, EndpointId: {}",
+                            key, this.name, this.roomName, incoming.getId());
+
+                    return subscribeEvents(incoming, key).thenApply(v -> {
+                        incomingMedia.put(key, incoming);
+                        // 상한은 트랜잭션이 커밋된 뒤에 건다. applyStreamCap이 이 엔드포인트를 놓쳤더라도
+                        // put 뒤에 읽으므로 상한이 빠지지 않는다
+                        int cap = streamCapKbps;
+                        if (cap > 0) {
+                            limitVideoSend(List.of(incoming), cap);
+                        }
+                        List<IceCandidate> early = pendingCandidates.remove(key);
+                        if (early != null) {
+                            log.debug("미리 도착한 ICE 후보 {}개 적용 - 보낸 사람: {}, 받는 사람: {}",
+                                    early.size(), key, this.name);
+                            applyCandidates(incoming, early);
+                        }
+                        return created;
+                    });
+                });
+    }
+
+    /**
+     * 엔드포인트 생성, 송신자 연결과 (offer가 있으면) processOffer, 미리 도착한 ICE 후보를 트랜잭션 하나로 보낸다.
+     * 이벤트 구독, gatherCandidates와 영상 상한 같은 속성 setter는 트랜잭션에 넣을 수 없어 따로 호출한다.
+     */
+    private CompletableFuture<Incoming> buildInTransaction(String key, Source from, String sdpOffer) {
+        Transaction tx = pipeline.beginTransaction();
+        WebRtcEndpoint incoming = new WebRtcEndpoint.Builder(pipeline).build(tx);
+        if (from.type() != null) {
+            from.element().connect(tx, incoming, from.type());
+        } else {
+            from.element().connect(tx, incoming);
+        }
+        TFuture<String> answer = null;
+        if (sdpOffer != null) {
+            answer = incoming.processOffer(tx, sdpOffer);
+            List<IceCandidate> early = pendingCandidates.remove(key);
+            if (early != null) {
+                early.forEach(candidate -> incoming.addIceCandidate(tx, candidate));
+            }
+        }
+
+        TFuture<String> sdpAnswer = answer;
+        long start = System.nanoTime();
+        return KurentoFutures.<Void>call("createIncoming", tx::commit)
+                .thenApply(v -> {
+                    if (sdpAnswer == null) {
+                        return new Incoming(incoming, null);
+                    }
+                    SessionMetrics.recordProcessOffer(false, System.nanoTime() - start);
+                    return new Incoming(incoming, sdpAnswer.get());
+                })
+                .whenComplete((created, e) -> {
+                    if (e != null && incoming.isCommited()) {
+                        // 생성은 되었는데 뒤쪽 operation이 실패했다
+                        KurentoFutures.<Void>call("release", incoming::release);
+                    }
+                });
+    }
+
+    /**
+     * 트랜잭션을 끈 경우의 기존 순서: 생성, 연결을 각각 기다린다.
+     */
+    private CompletableFuture<Incoming> buildSequentially(Source from) {
+        return KurentoFutures.<WebRtcEndpoint>call("createWebRtcEndpoint",
+                        c -> new WebRtcEndpoint.Builder(pipeline).buildAsync(c))
+                .thenCompose(incoming -> KurentoFutures.<Void>call("connect", c -> {
+                    if (from.type() != null) {
+                        from.element().connect(incoming, from.type(), c);
+                    } else {
+                        from.element().connect(incoming, c);
+                    }
+                }).thenApply(v -> new Incoming(incoming, null)));
+    }
+
+    /**
+     * last-N으로 영상을 보내지 않는 송신자면 음성만 연결한다.
+     */
+    private CompletableFuture<Source> sourceFrom(User sender) {
+        Room room = Room.findRoom(roomName);
+        boolean forwardVideo = room == null || room.forwardsVideo(this.name, sender.getName());
+        if (!forwardVideo) {
+            videoPaused.add(sender.getName());
+        }
+        return sourceOf(sender, room).thenApply(element -> new Source(element, forwardVideo ? null : MediaType.AUDIO));
+    }
+
+    /**
+     * 송신자가 다른 KMS 노드에 있으면 이 노드로 중계하는 브리지를 통해 연결한다.
+     */
+    private CompletableFuture<MediaElement> sourceOf(User sender, Room room) {
+        if (room == null) {
+            return CompletableFuture.completedFuture(sender.getOutgoingWebRtcPeer());
+        }
+        return room.sourceFor(sender, this);
+    }
+
+    // MCU ---------------------------------------------------------------------
+
+    public CompletableFuture<Void> attachToComposite(Composite composite) {
+        return KurentoFutures.<HubPort>call("createHubPort", c -> new HubPort.Builder(composite).buildAsync(c))
+                .thenCompose(port -> {
+                    hubPort = port;
+                    log.info("HubPort 연결 - 사용자: {}, 방: {}, HubPortId: {}", name, roomName, port.getId());
+                    return KurentoFutures.<Void>call("connect", c -> outgoingMedia.connect(port, c));
+                });
+    }
+
+    public void detachFromComposite() {
+        ReleaseBatch batch = new ReleaseBatch();
+        cancelVideoFrom(Room.MIXED_STREAM, batch);
+        HubPort port = hubPort;
+        hubPort = null;
+        if (port != null) {
+            log.info("HubPort 해제 - 사용자: {}, 방: {}, HubPortId: {}", name, roomName, port.getId());
+            batch.add(port);
+        }
+        batch.commit();
+    }
+
+    /**
+     * SFU 모드에서 받던 개별 영상을 모두 해제한다 (MCU 전환 시).
+     */
+    public void releaseIncomingVideo() {
+        ReleaseBatch batch = new ReleaseBatch();
+        incomingMedia.keySet().forEach(senderName -> {
+            if (!Room.MIXED_STREAM.equals(senderName)) {
+                cancelVideoFrom(senderName, batch);
+            }
+        });
+        batch.commit();
+    }
+
+    /**
+     * last-N 순위가 바뀌었을 때 송신자의 영상만 연결하거나 끊는다. 엔드포인트가 아직 없으면
+     * 생성 시점에 Room의 선택 결과를 따르므로 여기서는 아무것도 하지 않는다.
+     */
+    public void updateVideoForwarding(User sender, boolean forward) {
+        String senderName = sender.getName();
+        WebRtcEndpoint incoming = incomingMedia.get(senderName);
+        if (incoming == null) {
+            return;
+        }
+
+        CompletableFuture<Void> result;
+        if (forward && videoPaused.remove(senderName)) {
+            log.debug("last-N 영상 연결 - 보낸 사람: {}, 받는 사람: {}", senderName, name);
+            result = sourceOf(sender, Room.findRoom(roomName)).thenCompose(source ->
+                    KurentoFutures.<Void>call("connect", c -> source.connect(incoming, MediaType.VIDEO, c)));
+        } else if (!forward && videoPaused.add(senderName)) {
+            log.debug("last-N 영상 연결 해제 - 보낸 사람: {}, 받는 사람: {}", senderName, name);
+            result = sourceOf(sender, Room.findRoom(roomName)).thenCompose(source ->
+                    KurentoFutures.<Void>call("disconnect", c -> source.disconnect(incoming, MediaType.VIDEO, c)));
+        } else {
+            return;
+        }
+        result.exceptionally(e -> {
+            log.warn("last-N 영상 연결 변경 실패 - 보낸 사람: {}, 받는 사람: {}: {}", senderName, name, e.getMessage());
+            return null;
+        });
     }
 
     public void cancelVideoFrom(String senderName) {
+        ReleaseBatch batch = new ReleaseBatch();
+        cancelVideoFrom(senderName, batch);
+        batch.commit();
+    }
+
+    /**
+     * 수신 엔드포인트를 목록에서 빼고 해제는 batch에 맡긴다.
+     */
+    void cancelVideoFrom(String senderName, ReleaseBatch batch) {
+        speculative.remove(senderName);
+        videoPaused.remove(senderName);
+        pendingCandidates.remove(senderName);
+        appliedCandidates.remove(senderName);
+        iceBatcher.forget(senderName);
+        iceRecovery.forget(senderName);
         WebRtcEndpoint incoming = incomingMedia.remove(senderName);
         if (incoming != null) {
             log.info("수신 WebRTC 엔드포인트 해제 - 보낸 사람: {}, 받는 사람: {}, 방: {}, EndpointId: {}",
                     senderName, this.name, this.roomName, incoming.getId());
-            incoming.release();
+            gatheringSince.remove(incoming.getId());
+            batch.add(incoming);
         }
     }
 
     public void addCandidate(IceCandidate candidate, String senderName) {
+        addCandidates(List.of(candidate), senderName);
+    }
+
+    /**
+     * 클라이언트 ICE 후보를 엔드포인트에 적용한다.
+     * 중복 후보는 버리고, 아직 수신 엔드포인트가 없으면 생성될 때까지 보관한다.
+     */
+    public void addCandidates(List<IceCandidate> candidates, String senderName) {
+        Set<String> applied = appliedCandidates.computeIfAbsent(senderName, k -> ConcurrentHashMap.newKeySet());
+        List<IceCandidate> fresh = new ArrayList<>(candidates.size());
+        for (IceCandidate candidate : candidates) {
+            if (applied.add(candidate.getCandidate())) {
+                fresh.add(candidate);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
         if (this.name.equals(senderName)) {
-            outgoingMedia.addIceCandidate(candidate);
-        } else {
-            WebRtcEndpoint webRtc = incomingMedia.get(senderName);
+            applyCandidates(outgoingMedia, fresh);
+            return;
+        }
+
+        // 엔드포인트 생성 쪽의 put → remove와 원자적으로 맞물리도록 compute 안에서 확인한다
+        pendingCandidates.compute(senderName, (k, early) -> {
+            WebRtcEndpoint webRtc = incomingMedia.get(k);
             if (webRtc != null) {
-                webRtc.addIceCandidate(candidate);
+                applyCandidates(webRtc, fresh);
+                return early;
             }
+            List<IceCandidate> buffered = early != null ? early : new ArrayList<>();
+            buffered.addAll(fresh);
+            return buffered;
+        });
+    }
+
+    private void applyCandidates(WebRtcEndpoint endpoint, List<IceCandidate> candidates) {
+        CompletableFuture<Void> result;
+        if (candidates.size() == 1) {
+            result = KurentoFutures.call("addIceCandidate", c -> endpoint.addIceCandidate(candidates.get(0), c));
+        } else {
+            // 여러 후보는 트랜잭션 하나로 묶어 KMS 왕복을 한 번으로 줄인다
+            Transaction tx = pipeline.beginTransaction();
+            candidates.forEach(candidate -> endpoint.addIceCandidate(tx, candidate));
+            result = KurentoFutures.call("transaction", tx::commit);
         }
+        result.exceptionally(e -> {
+            log.warn("ICE 후보 적용 실패 - 사용자: {}, EndpointId: {}: {}", name, endpoint.getId(), e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * 수신 엔드포인트마다 (보낸 사람 이름, 엔드포인트). MCU 합성 영상은 Room.MIXED_STREAM 키로 들어온다.
+     */
+    void forEachIncoming(BiConsumer<String, WebRtcEndpoint> action) {
+        incomingMedia.forEach(action);
+    }
+
+    // 대역폭 예산 ----------------------------------------------------------------
+
+    /**
+     * 클라이언트가 보고한 하향 대역폭 (kbps). 방이 상한을 다시 계산할 때 기본 예산 대신 쓴다.
+     */
+    public void reportDownlink(int kbps) {
+        reportedDownlinkKbps = Math.max(0, kbps);
+    }
+
+    int getReportedDownlinkKbps() {
+        return reportedDownlinkKbps;
+    }
+
+    /**
+     * 받는 영상마다 송신 대역폭 상한을 건다. 값이 바뀐 경우에만 보내며,
+     * 이후 만들어지는 수신 엔드포인트는 생성 직후에 같은 값을 받는다.
+     * 반환값은 KMS가 모든 setter에 응답하면 완료된다. 실패는 로그만 남긴다.
+     */
+    CompletableFuture<Void> applyStreamCap(int capKbps) {
+        if (streamCapKbps == capKbps) {
+            return CompletableFuture.completedFuture(null);
+        }
+        streamCapKbps = capKbps;
+        List<WebRtcEndpoint> endpoints = new ArrayList<>(incomingMedia.values());
+        if (endpoints.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        log.debug("수신 영상 상한 {}kbps - 사용자: {}, 영상 {}개", capKbps, name, endpoints.size());
+        return limitVideoSend(endpoints, capKbps);
+    }
+
+    private CompletableFuture<Void> limitVideoSend(List<WebRtcEndpoint> endpoints, int capKbps) {
+        int floorKbps = Math.min(BandwidthBudget.minStreamKbps(), capKbps);
+        // 속성 setter는 트랜잭션에 넣을 수 없어 (kurento-client 7.0.0) 엔드포인트마다 따로 보낸다
+        List<CompletableFuture<Void>> limits = new ArrayList<>(endpoints.size());
+        for (WebRtcEndpoint endpoint : endpoints) {
+            limits.add(KurentoFutures.<Void>call("setVideoBandwidth", c -> endpoint.setMaxVideoSendBandwidth(capKbps, c))
+                    .thenCompose(v -> KurentoFutures.<Void>call("setVideoBandwidth",
+                            c -> endpoint.setMinVideoSendBandwidth(floorKbps, c)))
+                    .exceptionally(e -> {
+                        log.warn("수신 영상 상한 적용 실패 - 사용자: {}: {}", name, e.getMessage());
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(limits.toArray(CompletableFuture<?>[]::new));
+    }
+
+    /**
+     * 송신 엔드포인트가 받는 영상의 상한. 이 사용자를 받는 수신자들 중 가장 큰 상한보다 많이 받을 필요가 없다.
+     */
+    CompletableFuture<Void> applyPublisherCap(int capKbps) {
+        if (publisherCapKbps == capKbps) {
+            return CompletableFuture.completedFuture(null);
+        }
+        publisherCapKbps = capKbps;
+        log.debug("송신 영상 상한 {}kbps - 사용자: {}", capKbps, name);
+        return KurentoFutures.<Void>call("setVideoBandwidth", c -> outgoingMedia.setMaxVideoRecvBandwidth(capKbps, c))
+                .exceptionally(e -> {
+                    log.warn("송신 영상 상한 적용 실패 - 사용자: {}: {}", name, e.getMessage());
+                    return null;
+                });
+    }
+
+    // ICE 재시작 ------------------------------------------------------------------
+
+    /**
+     * 클라이언트에 이 엔드포인트의 ICE 재시작 offer를 요청한다. 재시작하면 양쪽 후보를 새로 주고받으므로 중복 제거 기록을 지운다.
+     */
+    private void requestIceRestart(String key) {
+        appliedCandidates.remove(key);
+        iceBatcher.forget(key);
+        JsonObject message = new JsonObject();
+        message.addProperty("id", "iceRestart");
+        message.addProperty("name", key);
+        sendMessage(message);
+    }
+
+    /**
+     * 재시작을 포기하면 기존 복구 경로로 넘긴다. 수신 엔드포인트는 해제해 클라이언트가 새로 받게 하고,
+     * 송신 엔드포인트면 클라이언트가 방에 다시 들어온다.
+     */
+    private void abandonIceRestart(String key) {
+        if (!key.equals(name)) {
+            cancelVideoFrom(key);
+        }
+        JsonObject message = new JsonObject();
+        message.addProperty("id", "iceRestartFailed");
+        message.addProperty("name", key);
+        sendMessage(message);
+    }
+
+    public void countInboundFrame() {
+        inboundFrames.incrementAndGet();
     }
 
     public void sendMessage(JsonObject message) {
-        try {
-            synchronized (session) {
-                session.sendMessage(new TextMessage(message.toString()));
-            }
-        } catch (Exception e) {
-            log.error("Error sending message", e);
+        outbound.offer(message);
+    }
+
+    public void sendMessage(OutboundMessage message) {
+        outbound.offer(message);
+    }
+
+    // 재연결 ------------------------------------------------------------------
+
+    /**
+     * 연결이 끊겼을 때 엔드포인트는 그대로 두고 메시지 전송만 멈춘다.
+     *
+     * @return 끊긴 시각. isDetachedSince로 그 뒤에 재연결했는지 확인한다
+     */
+    public synchronized long detach() {
+        detachedAt = System.nanoTime();
+        outbound.park();
+        return detachedAt;
+    }
+
+    /**
+     * 토큰이 맞으면 새 연결로 갈아 끼우고 멈춰 둔 메시지를 보낸다.
+     * 서버가 이전 연결의 종료를 알기 전에 재연결해도 된다.
+     *
+     * @return 이전 세션. 토큰이 틀리거나 이미 퇴장 처리되었으면 null
+     */
+    public synchronized WebSocketSession resume(String token, WebSocketSession newSession) {
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                resumeToken.getBytes(StandardCharsets.UTF_8))) {
+            return null;
+        }
+        if (!outbound.resume(newSession)) {
+            return null;
+        }
+        WebSocketSession previous = session;
+        session = newSession;
+        detachedAt = 0;
+        return previous;
+    }
+
+    /**
+     * 유예 시간이 지났을 때 부른다. 그 사이 재연결하지 않았으면 송신 큐를 닫아 이후의 resume을 막는다.
+     *
+     * @param since detach가 돌려준 시각
+     * @return 재연결하지 않아 퇴장시켜야 하면 true
+     */
+    public synchronized boolean expireResume(long since) {
+        if (detachedAt != since) {
+            return false;
         }
+        outbound.close();
+        return true;
+    }
+
+    /**
+     * @return 끊긴 뒤 지난 시간. 연결되어 있으면 0
+     */
+    public synchronized long getDetachedNanos() {
+        return detachedAt == 0 ? 0 : System.nanoTime() - detachedAt;
+    }
+
+    public String getResumeToken() {
+        return resumeToken;
     }
 
     public void close() {
+        ReleaseBatch batch = new ReleaseBatch();
+        close(batch);
+        batch.commit();
+    }
+
+    /**
+     * 세션을 닫고 모든 엔드포인트를 batch에 모은다. 방은 퇴장/종료에 필요한 해제를 한 batch로 묶어 보낸다.
+     */
+    void close(ReleaseBatch batch) {
         log.info("UserSession 닫기 - 사용자: {}, 회의실: {}", name, roomName);
+        outbound.close();
 
         // 수신 엔드포인트 정리
         incomingMedia.forEach((senderName, endpoint) -> {
-            log.info("수신 WebRTC 엔드포인트 해제 - 보낸 사람: {}, 받는 사람: {}, 방: {}, EndpointId: {}",
+            log.debug("수신 WebRTC 엔드포인트 해제 - 보낸 사람: {}, 받는 사람: {}, 방: {}, EndpointId: {}",
                     senderName, this.name, this.roomName, endpoint.getId());
-            endpoint.release();
+            batch.add(endpoint);
         });
         incomingMedia.clear();
+        pendingCandidates.clear();
+        speculative.clear();
+        iceRecovery.clear();
+
+        HubPort port = hubPort;
+        hubPort = null;
+        batch.add(port);
 
         // 송신 엔드포인트 정리
         log.info("발신 WebRTC 엔드포인트 해제 - 사용자: {}, Room: {}, EndpointId: {}",
                 name, roomName, outgoingMedia.getId());
-        outgoingMedia.release();
+        batch.add(outgoingMedia);
 
         // Remove from registry
-        usersByName.remove(this.name);
-        usersBySessionId.remove(this.session.getId());
+        registry.remove(this);
 
         log.info("사용자: {}, 방: {}에 대한 모든 리소스를 닫았습니다.", name, roomName);
     }
@@ -191,4 +923,15 @@ public class User {
     public WebSocketSession getSession() { return session; }
     public String getRoomName() { return roomName; }
     public WebRtcEndpoint getOutgoingWebRtcPeer() { return outgoingMedia; }
+    public MediaPipeline getPipeline() { return pipeline; }
+    public OutboundQueue getOutbound() { return outbound; }
+    public long getInboundFrames() { return inboundFrames.get(); }
+    public int getIncomingEndpointCount() { return incomingMedia.size(); }
+    public boolean receivesFrom(String senderName) { return incomingMedia.containsKey(senderName); }
+    public WebRtcEndpoint getIncomingWebRtcPeer(String senderName) { return incomingMedia.get(senderName); }
+    public boolean isIceRestarting(String senderName) { return iceRecovery.isRestarting(senderName); }
+    public int getForwardedVideoCount() { return incomingMedia.size() - videoPaused.size(); }
+    public boolean hasHubPort() { return hubPort != null; }
+    public int getStreamCapKbps() { return streamCapKbps; }
+    public int getPublisherCapKbps() { return publisherCapKbps; }
 }
\ No newline at end of file
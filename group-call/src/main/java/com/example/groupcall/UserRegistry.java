@@ -0,0 +1,23 @@
+package com.example.groupcall;
+
+/**
+ * 이름과 WebSocket 세션 ID로 참가자를 찾는 목록.
+ * 기본 구현은 JVM 메모리에 두며, 다른 저장소가 필요하면 빈으로 교체합니다.
+ */
+public interface UserRegistry {
+
+    void register(User user);
+
+    User getByName(String name);
+
+    User getBySessionId(String sessionId);
+
+    User removeBySessionId(String sessionId);
+
+    /**
+     * 세션 ID로만 찾지 못하게 하고 이름으로는 계속 찾을 수 있게 둔다 (연결이 끊겨 재연결을 기다리는 참가자).
+     */
+    User detachSessionId(String sessionId);
+
+    void remove(User user);
+}
@@ -0,0 +1,23 @@
+package com.example.groupcall.cluster;
+
+/**
+ * 시그널링 노드 사이에 오가는 메시지.
+ *
+ * @param type 메시지 종류
+ * @param originNode 클라이언트 WebSocket이 실제로 연결된 노드
+ * @param sessionId originNode에서의 WebSocket 세션 ID
+ * @param payload 클라이언트 메시지 원문 (CLOSED는 null 또는 종료 코드)
+ */
+public record ClusterEnvelope(Type type, String originNode, String sessionId, String payload) {
+
+    public enum Type {
+        /** 클라이언트 → 방 소유 노드 */
+        INBOUND,
+        /** 방 소유 노드 → 클라이언트 */
+        OUTBOUND,
+        /** 클라이언트 연결 종료 (origin → 소유 노드) */
+        CLOSED,
+        /** 방 소유 노드가 클라이언트 연결을 끊음 (소유 노드 → origin) */
+        CLOSE
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.groupcall.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 방 이름을 시그널링 노드에 배정하는 consistent hash ring.
+ * 노드마다 가상 노드를 여러 개 두어 고르게 나누고, 노드가 추가/제거되어도 일부 방만 이동합니다.
+ * 모든 노드가 같은 멤버 목록을 가지면 같은 결과를 얻도록 JVM에 의존하지 않는 MD5를 사용합니다.
+ */
+public class ConsistentHashRing {
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final int virtualNodes;
+
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        if (nodeIds.isEmpty()) {
+            throw new IllegalArgumentException("시그널링 노드가 하나 이상 필요합니다");
+        }
+        this.virtualNodes = virtualNodes;
+        nodeIds.forEach(this::add);
+    }
+
+    private void add(String nodeId) {
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.put(hash(nodeId + "#" + i), nodeId);
+        }
+    }
+
+    public String ownerOf(String key) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (digest[i] & 0xff);
+            }
+            return value;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
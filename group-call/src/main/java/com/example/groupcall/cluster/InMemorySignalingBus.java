@@ -0,0 +1,57 @@
+package com.example.groupcall.cluster;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 한 JVM 안의 노드들을 연결하는 버스. 테스트와 단일 프로세스 실행용입니다.
+ * 대상 노드마다 단일 스레드로 전달하여 순서를 보장합니다.
+ */
+public class InMemorySignalingBus implements SignalingBus {
+    private static final Logger log = LoggerFactory.getLogger(InMemorySignalingBus.class);
+
+    private final ConcurrentHashMap<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    @Override
+    public void subscribe(String nodeId, Consumer<ClusterEnvelope> handler) {
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "signaling-bus-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        Subscriber previous = subscribers.put(nodeId, new Subscriber(handler, executor));
+        if (previous != null) {
+            previous.executor.shutdown();
+        }
+    }
+
+    @Override
+    public void publish(String targetNodeId, ClusterEnvelope envelope) {
+        Subscriber subscriber = subscribers.get(targetNodeId);
+        if (subscriber == null) {
+            log.warn("구독하지 않은 노드로 보낸 메시지 폐기 - 대상: {}, 종류: {}", targetNodeId, envelope.type());
+            return;
+        }
+        subscriber.executor.execute(() -> {
+            try {
+                subscriber.handler.accept(envelope);
+            } catch (Exception e) {
+                log.error("버스 메시지 처리 실패 - 대상: {}, 종류: {}", targetNodeId, envelope.type(), e);
+            }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        subscribers.values().forEach(subscriber -> subscriber.executor.shutdown());
+        subscribers.clear();
+    }
+
+    private record Subscriber(Consumer<ClusterEnvelope> handler, ExecutorService executor) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.groupcall.cluster;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * 다른 시그널링 노드에 연결된 클라이언트를 방 소유 노드에서 대신하는 세션.
+ * 보내는 메시지와 종료 요청은 버스를 통해 클라이언트가 연결된 노드로 전달됩니다.
+ */
+public class RemoteWebSocketSession implements WebSocketSession {
+    private final String id;
+    private final String originNode;
+    private final String originSessionId;
+    private final String localNode;
+    private final SignalingBus bus;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private volatile boolean open = true;
+
+    RemoteWebSocketSession(String originNode, String originSessionId, String localNode, SignalingBus bus) {
+        this.id = originNode + "/" + originSessionId;
+        this.originNode = originNode;
+        this.originSessionId = originSessionId;
+        this.localNode = localNode;
+        this.bus = bus;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (!open) {
+            throw new IOException("이미 닫힌 원격 세션입니다: " + id);
+        }
+        if (!(message instanceof TextMessage text)) {
+            throw new IOException("원격 세션은 텍스트 메시지만 지원합니다: " + id);
+        }
+        bus.publish(originNode, new ClusterEnvelope(ClusterEnvelope.Type.OUTBOUND, localNode,
+                originSessionId, text.getPayload()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        close(CloseStatus.NORMAL);
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        if (open) {
+            open = false;
+            bus.publish(originNode, new ClusterEnvelope(ClusterEnvelope.Type.CLOSE, localNode,
+                    originSessionId, Integer.toString(status.getCode())));
+        }
+    }
+
+    void markClosed() {
+        open = false;
+    }
+
+    @Override
+    public String getId() { return id; }
+    @Override
+    public boolean isOpen() { return open; }
+    @Override
+    public Map<String, Object> getAttributes() { return attributes; }
+    @Override
+    public URI getUri() { return null; }
+    @Override
+    public HttpHeaders getHandshakeHeaders() { return HttpHeaders.EMPTY; }
+    @Override
+    public Principal getPrincipal() { return null; }
+    @Override
+    public InetSocketAddress getLocalAddress() { return null; }
+    @Override
+    public InetSocketAddress getRemoteAddress() { return null; }
+    @Override
+    public String getAcceptedProtocol() { return null; }
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) { }
+    @Override
+    public int getTextMessageSizeLimit() { return Integer.MAX_VALUE; }
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) { }
+    @Override
+    public int getBinaryMessageSizeLimit() { return 0; }
+    @Override
+    public List<WebSocketExtension> getExtensions() { return Collections.emptyList(); }
+
+    public String getOriginNode() { return originNode; }
+}
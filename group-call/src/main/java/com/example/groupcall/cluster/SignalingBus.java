@@ -0,0 +1,18 @@
+package com.example.groupcall.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * 시그널링 노드 사이의 메시지 전달 수단.
+ * 같은 발신 노드에서 같은 대상 노드로 보낸 메시지는 보낸 순서대로 전달되어야 합니다.
+ * Redis pub/sub, NATS 등으로 구현해 빈으로 교체할 수 있습니다.
+ */
+public interface SignalingBus {
+
+    void subscribe(String nodeId, Consumer<ClusterEnvelope> handler);
+
+    void publish(String targetNodeId, ClusterEnvelope envelope);
+
+    default void shutdown() {
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.groupcall.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * 여러 시그널링 노드에 방을 나누어 맡깁니다.
+ * 방은 consistent hash로 정해진 노드 한 곳에서만 처리하고, 다른 노드에 연결된 클라이언트의 메시지는
+ * joinRoom 시점에 정해진 소유 노드로 버스를 통해 전달합니다. 노드가 하나면 모든 방이 로컬입니다.
+ */
+public class SignalingCluster {
+    private static final Logger log = LoggerFactory.getLogger(SignalingCluster.class);
+
+    private final String nodeId;
+    private final List<String> members;
+    private final ConsistentHashRing ring;
+    private final SignalingBus bus;
+
+    // 클라이언트가 이 노드에 연결되어 있고 방은 다른 노드가 소유하는 세션
+    private final ConcurrentHashMap<String, Route> routes = new ConcurrentHashMap<>();
+    // 이 노드가 소유한 방에 다른 노드를 통해 들어온 세션
+    private final ConcurrentHashMap<String, RemoteWebSocketSession> remoteSessions = new ConcurrentHashMap<>();
+
+    private record Route(String ownerNode, WebSocketSession session) {
+    }
+
+    public SignalingCluster(String nodeId, List<String> memberIds, int virtualNodes, SignalingBus bus) {
+        List<String> all = new ArrayList<>(memberIds);
+        if (!all.contains(nodeId)) {
+            all.add(nodeId);
+        }
+        this.nodeId = nodeId;
+        this.members = List.copyOf(all);
+        this.ring = new ConsistentHashRing(members, virtualNodes);
+        this.bus = bus;
+    }
+
+    /**
+     * 다른 노드에서 전달된 메시지를 받기 시작한다.
+     *
+     * @param onMessage 원격 세션으로 들어온 클라이언트 메시지 처리
+     * @param onClosed 원격 클라이언트 연결 종료 처리
+     */
+    public void start(BiConsumer<WebSocketSession, TextMessage> onMessage, Consumer<WebSocketSession> onClosed) {
+        bus.subscribe(nodeId, envelope -> {
+            switch (envelope.type()) {
+                case INBOUND -> {
+                    RemoteWebSocketSession session = remoteSessions.computeIfAbsent(
+                            envelope.originNode() + "/" + envelope.sessionId(),
+                            k -> new RemoteWebSocketSession(envelope.originNode(), envelope.sessionId(), nodeId, bus));
+                    onMessage.accept(session, new TextMessage(envelope.payload()));
+                }
+                case CLOSED -> {
+                    RemoteWebSocketSession session =
+                            remoteSessions.remove(envelope.originNode() + "/" + envelope.sessionId());
+                    if (session != null) {
+                        session.markClosed();
+                        onClosed.accept(session);
+                    }
+                }
+                case OUTBOUND -> deliver(envelope);
+                case CLOSE -> closeLocal(envelope);
+            }
+        });
+        log.info("시그널링 클러스터 시작 - 노드: {}, 멤버: {}", nodeId, members);
+    }
+
+    public boolean isClustered() {
+        return members.size() > 1;
+    }
+
+    public String ownerOf(String roomName) {
+        return isClustered() ? ring.ownerOf(roomName) : nodeId;
+    }
+
+    /**
+     * @return 세션이 다른 노드로 전달 중이면 그 노드 ID, 아니면 null
+     */
+    public String routeOf(WebSocketSession session) {
+        Route route = routes.get(session.getId());
+        return route != null ? route.ownerNode() : null;
+    }
+
+    /**
+     * joinRoom마다 소유 노드를 다시 정한다. 이전에 다른 노드로 전달하던 세션이면 그 노드에는 종료를 알린다.
+     *
+     * @return 다른 노드가 방을 소유하면 그 노드 ID, 이 노드가 소유하면 null
+     */
+    public String routeJoin(WebSocketSession session, String roomName) {
+        String owner = ownerOf(roomName);
+        Route previous = owner.equals(nodeId)
+                ? routes.remove(session.getId())
+                : routes.put(session.getId(), new Route(owner, session));
+        if (previous != null && !previous.ownerNode().equals(owner)) {
+            bus.publish(previous.ownerNode(),
+                    new ClusterEnvelope(ClusterEnvelope.Type.CLOSED, nodeId, session.getId(), null));
+        }
+        return owner.equals(nodeId) ? null : owner;
+    }
+
+    public void forward(WebSocketSession session, String ownerNode, String payload) {
+        bus.publish(ownerNode, new ClusterEnvelope(ClusterEnvelope.Type.INBOUND, nodeId, session.getId(), payload));
+    }
+
+    /**
+     * @return 다른 노드로 전달하던 세션이면 true (소유 노드에 종료를 알렸으므로 로컬 정리는 필요 없다)
+     */
+    public boolean connectionClosed(WebSocketSession session) {
+        Route route = routes.remove(session.getId());
+        if (route == null) {
+            return false;
+        }
+        bus.publish(route.ownerNode(), new ClusterEnvelope(ClusterEnvelope.Type.CLOSED, nodeId, session.getId(), null));
+        return true;
+    }
+
+    private void deliver(ClusterEnvelope envelope) {
+        Route route = routes.get(envelope.sessionId());
+        if (route == null || !route.session().isOpen()) {
+            return;
+        }
+        try {
+            route.session().sendMessage(new TextMessage(envelope.payload()));
+        } catch (Exception e) {
+            log.error("전달 메시지 전송 실패 - 세션: {}", envelope.sessionId(), e);
+        }
+    }
+
+    private void closeLocal(ClusterEnvelope envelope) {
+        Route route = routes.get(envelope.sessionId());
+        if (route == null) {
+            return;
+        }
+        try {
+            route.session().close(new CloseStatus(Integer.parseInt(envelope.payload())));
+        } catch (Exception e) {
+            log.warn("전달 세션 종료 실패 - 세션: {}", envelope.sessionId(), e);
+        }
+    }
+
+    public void shutdown() {
+        bus.shutdown();
+    }
+
+    // Getters
+    public String getNodeId() { return nodeId; }
+    public List<String> getMembers() { return members; }
+    public int getForwardedSessionCount() { return routes.size(); }
+    public int getRemoteSessionCount() { return remoteSessions.size(); }
+}
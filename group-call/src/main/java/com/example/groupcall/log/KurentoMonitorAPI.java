@@ -1,150 +1,156 @@
 package com.example.groupcall.log;
 
-import com.example.groupcall.Room;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.JsonObject;
-import org.kurento.client.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-import java.util.Collection;
-
+/**
+ * 모니터링 조회. 모든 응답은 MonitorSampler가 주기적으로 만든 스냅샷에서 나가며 요청마다 KMS를 호출하지 않습니다.
+ * ETag로 If-None-Match 조건부 요청에 304를 돌려주고, X-Sampled-At / X-Sample-Age-Ms 헤더로 스냅샷 시각을 알려 줍니다.
+ */
 @RestController
 @RequestMapping("/kurento")
 public class KurentoMonitorAPI {
-    private static final Logger log = LoggerFactory.getLogger(KurentoMonitorAPI.class);
+    static final String SAMPLED_AT = "X-Sampled-At";
+    static final String SAMPLE_AGE = "X-Sample-Age-Ms";
+
+    @Autowired
+    private MonitorSampler monitorSampler;
 
     @Autowired
-    private KurentoClient kurento;
+    private ObjectMapper objectMapper;
+
+    @GetMapping("/monitor/signaling-codec")
+    public ResponseEntity<byte[]> monitorSignalingCodec(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // 연결 인코딩별 입장당 바이트와 메시지당 인코딩/디코딩 시간
+        return serve("signaling-codec", ifNoneMatch);
+    }
+
+    @GetMapping("/monitor/cluster")
+    public ResponseEntity<byte[]> monitorCluster(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serve("cluster", ifNoneMatch);
+    }
 
+    @GetMapping("/monitor/join-latency")
+    public ResponseEntity<byte[]> monitorJoinLatency(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serve("join-latency", ifNoneMatch);
+    }
 
+    @GetMapping("/monitor/nodes")
+    public ResponseEntity<byte[]> monitorNodes(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serve("nodes", ifNoneMatch);
+    }
 
     @GetMapping("/monitor/server")
-    public ResponseEntity<Object> monitorServer() {
-        try {
-            ServerManager serverManager = kurento.getServerManager();
-            JsonObject response = new JsonObject();
-            // 서버 정보
-            ServerInfo info = serverManager.getInfo();
-            response.addProperty("version", info.getVersion());
-            response.add("capabilities", new com.google.gson.JsonParser().parse(info.getCapabilities().toString()));
-
-            // CPU 정보
-            response.addProperty("cpuCount", serverManager.getCpuCount());
-            response.addProperty("cpuUsage", serverManager.getUsedCpu(1000));
-
-            // 메모리 정보
-            response.addProperty("usedMemory", serverManager.getUsedMemory());
-
-            // 파이프라인 정보
-            List<MediaPipeline> pipelines = serverManager.getPipelines();
-            response.addProperty("activePipelines", pipelines.size());
-
-            // 세션 정보
-            List<String> sessions = serverManager.getSessions();
-            response.addProperty("activeSessions", sessions.size());
-
-            log.info("서버 모니터링 완료");
-            return ResponseEntity.ok(new ObjectMapper().readValue(response.toString(), Object.class));
-        } catch (Exception e) {
-            log.error("서버 모니터링 실패: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("서버 모니터링 실패: " + e.getMessage());
-        }
+    public ResponseEntity<byte[]> monitorServer(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serve("server", ifNoneMatch);
     }
 
     @GetMapping("/monitor/user/session")
-    public ResponseEntity<Object> monitorUserSession() {
-        try {
-            JsonObject response = new JsonObject();
-            Collection<Room> rooms = Room.findRooms();
-
-            rooms.forEach(room -> {
-                JsonObject roomInfo = new JsonObject();
-                room.getParticipants().forEach(user -> {
-                    JsonObject userInfo = new JsonObject();
-                    userInfo.addProperty("userName", user.getName());
-                    userInfo.addProperty("webSocketSessionId", user.getSession().getId());
-                    userInfo.addProperty("endpointId", user.getOutgoingWebRtcPeer().getId());
-                    roomInfo.add(user.getName(), userInfo);
-                });
-                response.add(room.getName(), roomInfo);
-            });
-
-            log.info("세션 모니터링 완료");
-            return ResponseEntity.ok(new ObjectMapper().readValue(response.toString(), Object.class));
-        } catch (Exception e) {
-            log.error("세션 모니터링 실패: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("세션 모니터링 실패: " + e.getMessage());
-        }
+    public ResponseEntity<byte[]> monitorUserSession(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serve("user/session", ifNoneMatch);
+    }
+
+    @GetMapping("/monitor/room/{roomId}/signaling")
+    public ResponseEntity<byte[]> monitorRoomSignaling(@PathVariable String roomId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serve("room/" + roomId + "/signaling", ifNoneMatch);
+    }
+
+    @GetMapping("/monitor/room/{roomId}/forwarding")
+    public ResponseEntity<byte[]> monitorRoomForwarding(@PathVariable String roomId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serve("room/" + roomId + "/forwarding", ifNoneMatch);
+    }
+
+    @GetMapping("/monitor/stats")
+    public ResponseEntity<byte[]> monitorStats(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // getStats 수집 주기의 엔드포인트 수, KMS 트랜잭션 수, 소요 시간
+        return serve("stats", ifNoneMatch);
+    }
+
+    @GetMapping("/monitor/room/{roomId}/quality")
+    public ResponseEntity<byte[]> monitorRoomQuality(@PathVariable String roomId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serve("room/" + roomId + "/quality", ifNoneMatch);
+    }
+
+    @GetMapping("/monitor/user/{userName}/quality")
+    public ResponseEntity<byte[]> monitorUserQuality(@PathVariable String userName,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serve("user/" + userName + "/quality", ifNoneMatch);
     }
 
     @GetMapping("/monitor/screen/session")
-    public ResponseEntity<Object> monitorScreenSession() {
-        try {
-            JsonObject response = new JsonObject();
-            Collection<Room> rooms = Room.findRooms();
-
-            rooms.forEach(room -> {
-                JsonObject roomInfo = new JsonObject();
-                room.getScreenShares().forEach(screen -> {
-                    JsonObject screenInfo = new JsonObject();
-                    screenInfo.addProperty("userName", screen.getUserName());
-//                    screenInfo.addProperty("webSocketSessionId", screen.getSession().getId());
-                    screenInfo.addProperty("endpointId", screen.getOutgoingScreenMedia().getId());
-                    screenInfo.addProperty("isSharing", screen.isSharing());
-                    roomInfo.add(screen.getUserName(), screenInfo);
-                });
-                if (!roomInfo.entrySet().isEmpty()) {
-                    response.add(room.getName(), roomInfo);
-                }
-            });
-
-            log.info("화면 공유 세션 모니터링 완료");
-            return ResponseEntity.ok(new ObjectMapper().readValue(response.toString(), Object.class));
-        } catch (Exception e) {
-            log.error("화면 공유 세션 모니터링 실패: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("화면 공유 세션 모니터링 실패: " + e.getMessage());
-        }
+    public ResponseEntity<byte[]> monitorScreenSession(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serve("screen/session", ifNoneMatch);
     }
 
     @GetMapping("/monitor/room/{roomId}/screens")
-    public ResponseEntity<Object> monitorRoomScreens(@PathVariable String roomId) {
-        try {
-            Room room = Room.findRoom(roomId);
-            if (room == null) {
-                return ResponseEntity.notFound().build();
-            }
+    public ResponseEntity<byte[]> monitorRoomScreens(@PathVariable String roomId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serve("room/" + roomId + "/screens", ifNoneMatch);
+    }
 
-            JsonObject response = new JsonObject();
-            response.addProperty("roomName", room.getName());
-            JsonObject screenShares = new JsonObject();
-
-            room.getScreenShares().forEach(screen -> {
-                JsonObject screenInfo = new JsonObject();
-                screenInfo.addProperty("userName", screen.getUserName());
-                screenInfo.addProperty("endpointId", screen.getOutgoingScreenMedia().getId());
-                screenInfo.addProperty("isSharing", screen.isSharing());
-                screenShares.add(screen.getUserName(), screenInfo);
-            });
-
-            response.add("screenShares", screenShares);
-            log.info("방 {} 화면 공유 모니터링 완료", roomId);
-            return ResponseEntity.ok(new ObjectMapper().readValue(response.toString(), Object.class));
-        } catch (Exception e) {
-            log.error("방 화면 공유 모니터링 실패: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("방 화면 공유 모니터링 실패: " + e.getMessage());
+    private ResponseEntity<byte[]> serve(String view, String ifNoneMatch) {
+        MonitorSnapshot snapshot = monitorSampler.current();
+        MonitorSnapshot.Rendered rendered = snapshot.render(view, objectMapper);
+        if (rendered == null) {
+            // 첫 수집 전이거나 KMS에 연결할 수 없으면 503, 스냅샷에 없는 방은 404
+            HttpStatus status = snapshot.getSampledAt() == 0 || "server".equals(view)
+                    ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.NOT_FOUND;
+            return ResponseEntity.status(status)
+                    .header(SAMPLED_AT, Long.toString(snapshot.getSampledAt()))
+                    .header(SAMPLE_AGE, Long.toString(snapshot.ageMillis()))
+                    .build();
+        }
+
+        boolean notModified = matches(ifNoneMatch, rendered.eTag());
+        ResponseEntity.BodyBuilder response = ResponseEntity
+                .status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(rendered.eTag())
+                .cacheControl(CacheControl.noCache())
+                .header(SAMPLED_AT, Long.toString(snapshot.getSampledAt()))
+                .header(SAMPLE_AGE, Long.toString(snapshot.ageMillis()));
+        if (notModified) {
+            return response.build();
+        }
+        return response.contentType(MediaType.APPLICATION_JSON).body(rendered.body());
+    }
+
+    /**
+     * If-None-Match는 GET이므로 약한 비교를 한다 (W/ 접두사 무시, 쉼표로 여러 값, *)
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
         }
+        return false;
     }
-}
\ No newline at end of file
+}
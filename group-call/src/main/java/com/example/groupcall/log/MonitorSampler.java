@@ -0,0 +1,308 @@
+package com.example.groupcall.log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.example.groupcall.KurentoNode;
+import com.example.groupcall.KurentoNodePool;
+import com.example.groupcall.LatencyRecorder;
+import com.example.groupcall.OutboundQueue;
+import com.example.groupcall.PipelinePool;
+import com.example.groupcall.Room;
+import com.example.groupcall.Screen;
+import com.example.groupcall.StatsCollector;
+import com.example.groupcall.User;
+import com.example.groupcall.cluster.SignalingCluster;
+import com.example.signaling.SignalingStats;
+import org.kurento.client.ServerInfo;
+import org.kurento.client.ServerManager;
+import org.kurento.client.WebRtcEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * /kurento/monitor/* 응답을 주기적으로 한 번에 만들어 MonitorSnapshot으로 교체합니다.
+ * HTTP 요청은 마지막 스냅샷만 읽으므로 KMS를 호출하거나 방 목록을 순회하지 않습니다.
+ * CPU/메모리/파이프라인 수는 KurentoNodePool이 이미 수집한 부하를 그대로 쓰고,
+ * 여기서 KMS에 보내는 호출은 주기마다 getSessions 한 번(서버 정보와 CPU 수는 처음 한 번)뿐입니다.
+ */
+public class MonitorSampler {
+    private static final Logger log = LoggerFactory.getLogger(MonitorSampler.class);
+
+    private final KurentoNodePool kurentoNodePool;
+    private final LatencyRecorder joinLatency;
+    private final SignalingCluster signalingCluster;
+    private final StatsCollector statsCollector;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+    private volatile MonitorSnapshot snapshot = MonitorSnapshot.EMPTY;
+    /** 버전, capabilities, CPU 수. 바뀌지 않으므로 성공할 때까지 한 번만 읽는다 */
+    private Map<String, Object> serverInfo;
+
+    public MonitorSampler(KurentoNodePool kurentoNodePool, LatencyRecorder joinLatency,
+                          SignalingCluster signalingCluster, StatsCollector statsCollector, long intervalMillis) {
+        this.kurentoNodePool = kurentoNodePool;
+        this.joinLatency = joinLatency;
+        this.signalingCluster = signalingCluster;
+        this.statsCollector = statsCollector;
+        this.intervalMillis = intervalMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "monitor-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 바로 한 번 샘플링하고 이후 intervalMillis마다 다시 샘플링한다.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public MonitorSnapshot current() {
+        return snapshot;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    private void sample() {
+        try {
+            Map<String, Object> views = new HashMap<>();
+            views.put("signaling-codec", SignalingStats.snapshot());
+            views.put("cluster", cluster());
+            views.put("join-latency", joinLatency());
+            views.put("nodes", nodes());
+            Map<String, Object> server = server();
+            if (server != null) {
+                views.put("server", server);
+            }
+            rooms(views);
+            quality(views);
+            snapshot = new MonitorSnapshot(System.currentTimeMillis(), views);
+        } catch (Exception e) {
+            // 이전 스냅샷을 그대로 두고 다음 주기에 다시 시도한다. 응답의 샘플 시각으로 오래된 것을 알 수 있다
+            log.warn("모니터링 수집 실패: {}", e.getMessage(), e);
+        }
+    }
+
+    private Map<String, Object> cluster() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("nodeId", signalingCluster.getNodeId());
+        response.put("members", signalingCluster.getMembers());
+        response.put("localRooms", Room.findRooms().size());
+        response.put("forwardedSessions", signalingCluster.getForwardedSessionCount());
+        response.put("remoteSessions", signalingCluster.getRemoteSessionCount());
+        return response;
+    }
+
+    private Map<String, Object> joinLatency() {
+        int idle = 0;
+        long hits = 0;
+        long misses = 0;
+        for (KurentoNode node : kurentoNodePool.getNodes()) {
+            PipelinePool pool = node.getPipelinePool();
+            idle += pool.getIdleCount();
+            hits += pool.getHits();
+            misses += pool.getMisses();
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("pipelinePoolEnabled", kurentoNodePool.primary().getPipelinePool().isEnabled());
+        response.put("pipelinePoolIdle", idle);
+        response.put("pipelinePoolHits", hits);
+        response.put("pipelinePoolMisses", misses);
+        response.put("joins", joinLatency.getCount());
+        response.put("p50Ms", joinLatency.percentileMillis(50));
+        response.put("p95Ms", joinLatency.percentileMillis(95));
+        response.put("p99Ms", joinLatency.percentileMillis(99));
+        return response;
+    }
+
+    private Map<String, Object> nodes() {
+        // 방 배치에 쓰는 캐시된 부하 정보 (KMS 호출 없음)
+        List<Object> nodes = new ArrayList<>();
+        for (KurentoNode node : kurentoNodePool.getNodes()) {
+            KurentoNode.LoadSample load = node.getLoad();
+            Map<String, Object> nodeInfo = new LinkedHashMap<>();
+            nodeInfo.put("id", node.getId());
+            nodeInfo.put("uri", node.getUri());
+            nodeInfo.put("available", load.available());
+            nodeInfo.put("rooms", node.getRoomCount());
+            nodeInfo.put("cpuUsage", load.cpuPercent());
+            nodeInfo.put("usedMemory", load.usedMemoryKb());
+            nodeInfo.put("activePipelines", load.pipelines());
+            nodeInfo.put("idlePipelines", node.getPipelinePool().getIdleCount());
+            nodeInfo.put("score", node.score());
+            nodeInfo.put("sampledAt", load.sampledAt());
+            nodes.add(nodeInfo);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("nodes", nodes);
+        return response;
+    }
+
+    /**
+     * 기본 노드 정보. KMS에 연결할 수 없으면 null (해당 뷰는 503)
+     */
+    private Map<String, Object> server() {
+        KurentoNode primary = kurentoNodePool.primary();
+        try {
+            ServerManager serverManager = primary.getClient().getServerManager();
+            if (serverInfo == null) {
+                ServerInfo info = serverManager.getInfo();
+                Map<String, Object> staticInfo = new LinkedHashMap<>();
+                staticInfo.put("version", info.getVersion());
+                staticInfo.put("capabilities", info.getCapabilities());
+                staticInfo.put("cpuCount", serverManager.getCpuCount());
+                serverInfo = staticInfo;
+            }
+            int sessions = serverManager.getSessions().size();
+
+            // CPU/메모리/파이프라인 수는 노드 부하 샘플러가 수집한 값 (getUsedCpu로 블로킹하지 않는다)
+            KurentoNode.LoadSample load = primary.getLoad();
+            Map<String, Object> response = new LinkedHashMap<>(serverInfo);
+            response.put("cpuUsage", load.cpuPercent());
+            response.put("usedMemory", load.usedMemoryKb());
+            response.put("activePipelines", load.pipelines());
+            response.put("activeSessions", sessions);
+            response.put("loadSampledAt", load.sampledAt());
+            return response;
+        } catch (Exception e) {
+            log.warn("KMS 서버 정보 수집 실패 ({}): {}", primary.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 방마다 signaling / forwarding / screens 뷰를 만들고, 전체 방을 묶은 user/session, screen/session 뷰도 만든다.
+     */
+    private void rooms(Map<String, Object> views) {
+        Map<String, Object> userSessions = new LinkedHashMap<>();
+        Map<String, Object> screenSessions = new LinkedHashMap<>();
+        for (Room room : Room.findRooms()) {
+            String prefix = "room/" + room.getName() + "/";
+            Map<String, Object> users = new LinkedHashMap<>();
+            Map<String, Object> signalingUsers = new LinkedHashMap<>();
+            long inboundTotal = 0;
+            long outboundTotal = 0;
+            int endpoints = 0;
+            int videoConnections = 0;
+            int participantCount = 0;
+            Map<String, Object> bandwidthCaps = new LinkedHashMap<>();
+            for (User user : room.getParticipants()) {
+                participantCount++;
+                OutboundQueue outbound = user.getOutbound();
+                long sent = outbound.getSentMessages();
+
+                Map<String, Object> queueInfo = new LinkedHashMap<>();
+                queueInfo.put("depth", outbound.depth());
+                queueInfo.put("maxDepth", outbound.getMaxDepth());
+                queueInfo.put("sent", sent);
+                queueInfo.put("dropped", outbound.getDroppedMessages());
+                queueInfo.put("coalesced", outbound.getCoalescedMessages());
+                queueInfo.put("avgSendMicros", outbound.getAverageSendNanos() / 1000);
+                queueInfo.put("maxSendMicros", outbound.getMaxSendNanos() / 1000);
+                Map<String, Object> userInfo = new LinkedHashMap<>();
+                userInfo.put("userName", user.getName());
+                userInfo.put("webSocketSessionId", user.getSession().getId());
+                userInfo.put("endpointId", user.getOutgoingWebRtcPeer().getId());
+                userInfo.put("outboundQueue", queueInfo);
+                users.put(user.getName(), userInfo);
+
+                Map<String, Object> frames = new LinkedHashMap<>();
+                frames.put("inboundFrames", user.getInboundFrames());
+                frames.put("outboundFrames", sent);
+                signalingUsers.put(user.getName(), frames);
+                inboundTotal += user.getInboundFrames();
+                outboundTotal += sent;
+
+                endpoints += 1 + user.getIncomingEndpointCount() + (user.hasHubPort() ? 1 : 0);
+                videoConnections += user.getForwardedVideoCount();
+
+                Map<String, Object> caps = new LinkedHashMap<>();
+                caps.put("streamCapKbps", user.getStreamCapKbps());
+                caps.put("publisherCapKbps", user.getPublisherCapKbps());
+                bandwidthCaps.put(user.getName(), caps);
+            }
+            userSessions.put(room.getName(), users);
+
+            // 방 단위 시그널링 프레임 수 (ICE 묶음 전송 효과 확인용)
+            Map<String, Object> signaling = new LinkedHashMap<>();
+            signaling.put("roomName", room.getName());
+            signaling.put("inboundFrames", inboundTotal);
+            signaling.put("outboundFrames", outboundTotal);
+            signaling.put("users", signalingUsers);
+            views.put(prefix + "signaling", signaling);
+
+            // full mesh 대비 실제 영상 전달 연결 수. 노드 간 브리지는 양쪽 노드에 RtpEndpoint를 하나씩 만든다
+            int bridges = room.getBridgeCount();
+            Map<String, Object> forwarding = new LinkedHashMap<>();
+            forwarding.put("roomName", room.getName());
+            forwarding.put("kmsNode", room.getNode().getId());
+            forwarding.put("segments", room.getSegmentSizes());
+            forwarding.put("bridges", bridges);
+            forwarding.put("mode", room.getMode().name());
+            forwarding.put("lastN", room.isLastN());
+            forwarding.put("participants", participantCount);
+            forwarding.put("endpoints", endpoints + bridges * 2);
+            forwarding.put("videoConnections", videoConnections);
+            forwarding.put("fullMeshVideoConnections", participantCount * (participantCount - 1));
+            // 대역폭 예산으로 건 상한 (0이면 KMS 기본값)
+            forwarding.put("bandwidthCaps", bandwidthCaps);
+            views.put(prefix + "forwarding", forwarding);
+
+            Map<String, Object> screenShares = new LinkedHashMap<>();
+            room.getScreenShares().forEach(screen -> {
+                Map<String, Object> screenInfo = new LinkedHashMap<>();
+                screenInfo.put("userName", screen.getUserName());
+                WebRtcEndpoint outgoing = screen.getOutgoingScreenMedia();
+                // 송신 엔드포인트를 만드는 중이면 null
+                screenInfo.put("endpointId", outgoing != null ? outgoing.getId() : null);
+                screenInfo.put("isSharing", screen.isSharing());
+                screenInfo.put("viewers", screen.getViewerCount());
+                screenShares.put(screen.getUserName(), screenInfo);
+            });
+            Map<String, Object> screens = new LinkedHashMap<>();
+            screens.put("roomName", room.getName());
+            screens.put("screenShares", screenShares);
+            screens.put("maxKbps", Screen.getMaxKbps());
+            screens.put("maxFramerate", Screen.getMaxFramerate());
+            views.put(prefix + "screens", screens);
+            if (!screenShares.isEmpty()) {
+                screenSessions.put(room.getName(), screenShares);
+            }
+        }
+        views.put("user/session", userSessions);
+        views.put("screen/session", screenSessions);
+    }
+
+    /**
+     * StatsCollector가 마지막 주기에 만든 품질 요약. 수집 주기가 더 길면 같은 값이 여러 스냅샷에 그대로 실린다.
+     */
+    private void quality(Map<String, Object> views) {
+        StatsCollector.Status status = statsCollector.getStatus();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("endpoints", status.endpoints());
+        stats.put("batches", status.batches());
+        stats.put("failedBatches", status.failedBatches());
+        stats.put("durationMs", status.durationMillis());
+        stats.put("collectedAt", status.collectedAt());
+        views.put("stats", stats);
+        statsCollector.getRoomQualities().forEach((roomName, quality) -> views.put("room/" + roomName + "/quality", quality));
+        statsCollector.getUserQualities().forEach((userName, quality) -> views.put("user/" + userName + "/quality", quality));
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.groupcall.log;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * MonitorSampler가 한 주기에 만든 모니터링 결과. 만든 뒤에는 바뀌지 않습니다.
+ * 키는 /kurento/monitor/ 아래 경로이고(예: "server", "room/abc/forwarding"), 각 뷰는 처음 요청될 때
+ * 한 번만 JSON으로 직렬화해 ETag와 함께 보관합니다.
+ */
+public final class MonitorSnapshot {
+    static final MonitorSnapshot EMPTY = new MonitorSnapshot(0, Map.of());
+
+    private final long sampledAt;
+    private final Map<String, Object> views;
+    private final Map<String, Rendered> rendered = new ConcurrentHashMap<>();
+
+    /**
+     * @param body  직렬화된 JSON
+     * @param eTag  본문 CRC32와 길이로 만든 강한 ETag (따옴표 포함)
+     */
+    public record Rendered(byte[] body, String eTag) {
+    }
+
+    MonitorSnapshot(long sampledAt, Map<String, Object> views) {
+        this.sampledAt = sampledAt;
+        this.views = Collections.unmodifiableMap(views);
+    }
+
+    /**
+     * 뷰를 JSON으로 직렬화한다. 같은 스냅샷에서는 한 번만 직렬화하며, 없는 뷰는 null.
+     */
+    public Rendered render(String view, ObjectMapper objectMapper) {
+        Object value = views.get(view);
+        if (value == null) {
+            return null;
+        }
+        return rendered.computeIfAbsent(view, key -> {
+            try {
+                byte[] body = objectMapper.writeValueAsBytes(value);
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                return new Rendered(body, "\"" + Long.toHexString(crc.getValue()) + "-"
+                        + Integer.toHexString(body.length) + "\"");
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("모니터링 뷰 직렬화 실패: " + key, e);
+            }
+        });
+    }
+
+    /**
+     * 샘플을 만든 시각 (epoch ms). 아직 한 번도 수집하지 않았으면 0
+     */
+    public long getSampledAt() {
+        return sampledAt;
+    }
+
+    public long ageMillis() {
+        return sampledAt == 0 ? -1 : System.currentTimeMillis() - sampledAt;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.groupcall.message;
+
+import org.kurento.client.IceCandidate;
+
+/**
+ * 어느 엔드포인트의 후보인지(name, type)와 후보 자체.
+ *
+ * @param name 송신자 이름 (자기 자신이면 송신 엔드포인트)
+ * @param type "video" 또는 "screen". 서버가 보내는 후보는 null이면 영상으로 본다
+ */
+public record IceCandidateEntry(String name, String type, IceCandidate candidate) {
+}
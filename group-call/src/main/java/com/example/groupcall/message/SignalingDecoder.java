@@ -0,0 +1,184 @@
+package com.example.groupcall.message;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.kurento.client.IceCandidate;
+
+import com.example.signaling.JsonMessages;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * 클라이언트 JSON 메시지를 토큰을 읽으면서 바로 SignalingMessage로 만듭니다.
+ * id를 찾고 다시 읽는 부분은 JsonMessages가 맡고, 여기서는 메시지별 본문 처리기만 정합니다.
+ */
+public final class SignalingDecoder {
+
+    @FunctionalInterface
+    private interface BodyReader {
+        SignalingMessage read(JsonReader reader) throws IOException;
+    }
+
+    private static final Map<String, BodyReader> readers = Map.ofEntries(
+            Map.entry("joinRoom", SignalingDecoder::readJoinRoom),
+            Map.entry("resumeSession", SignalingDecoder::readResumeSession),
+            Map.entry("receiveVideoFrom", SignalingDecoder::readReceiveVideoFrom),
+            Map.entry("presentScreen", SignalingDecoder::readPresentScreen),
+            Map.entry("receiveScreenFrom", SignalingDecoder::readReceiveScreenFrom),
+            Map.entry("stopScreenShare", reader -> JsonMessages.skipRest(reader, new SignalingMessage.StopScreenShare())),
+            Map.entry("leaveRoom", reader -> JsonMessages.skipRest(reader, new SignalingMessage.LeaveRoom())),
+            Map.entry("startRecording", reader -> JsonMessages.skipRest(reader, new SignalingMessage.StartRecording())),
+            Map.entry("stopRecording", reader -> JsonMessages.skipRest(reader, new SignalingMessage.StopRecording())),
+            Map.entry("onIceCandidate", reader -> new SignalingMessage.OnIceCandidate(readIceEntry(reader))),
+            Map.entry("onIceCandidates", SignalingDecoder::readOnIceCandidates),
+            Map.entry("speakerActivity", SignalingDecoder::readSpeakerActivity),
+            Map.entry("reportBandwidth", SignalingDecoder::readReportBandwidth));
+
+    private SignalingDecoder() {
+    }
+
+    /**
+     * @throws IllegalArgumentException JSON 객체가 아니거나 id가 없는 경우
+     */
+    public static SignalingMessage decode(String json) {
+        return JsonMessages.decode(json, SignalingDecoder::readBody);
+    }
+
+    private static SignalingMessage readBody(String id, JsonReader reader) throws IOException {
+        BodyReader body = readers.get(id);
+        return body != null ? body.read(reader) : new SignalingMessage.Unknown(id);
+    }
+
+    // 본문 처리기는 이미 읽은 id를 포함해 모르는 필드를 모두 건너뛴다
+
+    private static SignalingMessage readJoinRoom(JsonReader reader) throws IOException {
+        String room = null;
+        String name = null;
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "room" -> room = JsonMessages.nextString(reader);
+                case "name" -> name = JsonMessages.nextString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        return new SignalingMessage.JoinRoom(room, name);
+    }
+
+    private static SignalingMessage readResumeSession(JsonReader reader) throws IOException {
+        String room = null;
+        String name = null;
+        String token = null;
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "room" -> room = JsonMessages.nextString(reader);
+                case "name" -> name = JsonMessages.nextString(reader);
+                case "token" -> token = JsonMessages.nextString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        return new SignalingMessage.ResumeSession(room, name, token);
+    }
+
+    private static SignalingMessage readReceiveVideoFrom(JsonReader reader) throws IOException {
+        String sender = null;
+        String sdpOffer = null;
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "sender" -> sender = JsonMessages.nextString(reader);
+                case "sdpOffer" -> sdpOffer = JsonMessages.nextString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        return new SignalingMessage.ReceiveVideoFrom(sender, sdpOffer);
+    }
+
+    private static SignalingMessage readPresentScreen(JsonReader reader) throws IOException {
+        String sdpOffer = null;
+        while (reader.hasNext()) {
+            if ("sdpOffer".equals(reader.nextName())) {
+                sdpOffer = JsonMessages.nextString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        return new SignalingMessage.PresentScreen(sdpOffer);
+    }
+
+    private static SignalingMessage readReceiveScreenFrom(JsonReader reader) throws IOException {
+        String sender = null;
+        String sdpOffer = null;
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "sender" -> sender = JsonMessages.nextString(reader);
+                case "sdpOffer" -> sdpOffer = JsonMessages.nextString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        return new SignalingMessage.ReceiveScreenFrom(sender, sdpOffer);
+    }
+
+    private static SignalingMessage readSpeakerActivity(JsonReader reader) throws IOException {
+        double level = 0;
+        while (reader.hasNext()) {
+            if ("level".equals(reader.nextName())) {
+                level = reader.nextDouble();
+            } else {
+                reader.skipValue();
+            }
+        }
+        return new SignalingMessage.SpeakerActivity(level);
+    }
+
+    private static SignalingMessage readReportBandwidth(JsonReader reader) throws IOException {
+        int downlinkKbps = 0;
+        while (reader.hasNext()) {
+            if ("downlinkKbps".equals(reader.nextName())) {
+                downlinkKbps = reader.nextInt();
+            } else {
+                reader.skipValue();
+            }
+        }
+        return new SignalingMessage.ReportBandwidth(downlinkKbps);
+    }
+
+    private static SignalingMessage readOnIceCandidates(JsonReader reader) throws IOException {
+        List<IceCandidateEntry> candidates = new ArrayList<>();
+        while (reader.hasNext()) {
+            if ("candidates".equals(reader.nextName())) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    reader.beginObject();
+                    candidates.add(readIceEntry(reader));
+                    reader.endObject();
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        return new SignalingMessage.OnIceCandidates(candidates);
+    }
+
+    /**
+     * {name, type, candidate: {candidate, sdpMid, sdpMLineIndex}}. type이 없으면 영상 후보로 본다.
+     */
+    private static IceCandidateEntry readIceEntry(JsonReader reader) throws IOException {
+        String name = null;
+        String type = "video";
+        IceCandidate candidate = null;
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name" -> name = JsonMessages.nextString(reader);
+                case "type" -> type = JsonMessages.nextString(reader);
+                case "candidate" -> candidate = JsonMessages.readCandidate(reader);
+                default -> reader.skipValue();
+            }
+        }
+        if (candidate == null) {
+            throw new IllegalArgumentException("candidate가 없는 ICE 후보 - 대상: " + name);
+        }
+        return new IceCandidateEntry(name, type, candidate);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.groupcall.message;
+
+import java.util.List;
+
+import com.example.signaling.JsonText;
+
+/**
+ * 자주 보내는 메시지를 StringBuilder 하나로 바로 JSON 텍스트로 만듭니다.
+ * SDP는 줄마다 \r\n이 두 글자로 늘어나므로 길이의 1/16을 여유로 더 잡습니다.
+ */
+public final class SignalingEncoder {
+
+    private SignalingEncoder() {
+    }
+
+    public static String receiveVideoAnswer(String name, String sdpAnswer) {
+        StringBuilder json = new StringBuilder(48 + JsonText.length(name) + JsonText.length(sdpAnswer)
+                + JsonText.length(sdpAnswer) / 16);
+        json.append("{\"id\":\"receiveVideoAnswer\",\"name\":");
+        JsonText.string(json, name);
+        json.append(",\"sdpAnswer\":");
+        JsonText.string(json, sdpAnswer);
+        return json.append('}').toString();
+    }
+
+    public static String iceCandidate(IceCandidateEntry entry) {
+        StringBuilder json = new StringBuilder(64 + candidateLength(entry));
+        json.append("{\"id\":\"iceCandidate\",");
+        candidateFields(json, entry);
+        return json.append('}').toString();
+    }
+
+    public static String iceCandidates(List<IceCandidateEntry> candidates) {
+        int capacity = 40;
+        for (IceCandidateEntry entry : candidates) {
+            capacity += 16 + candidateLength(entry);
+        }
+        StringBuilder json = new StringBuilder(capacity);
+        json.append("{\"id\":\"iceCandidates\",\"candidates\":[");
+        for (int i = 0; i < candidates.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('{');
+            candidateFields(json, candidates.get(i));
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * 바이너리로 받은 클라이언트 메시지를 다른 시그널링 노드로 넘길 때 JSON 원문을 다시 만든다.
+     */
+    public static String inbound(SignalingMessage message) {
+        if (message instanceof SignalingMessage.ReceiveVideoFrom receive) {
+            StringBuilder json = new StringBuilder(48 + JsonText.length(receive.sender())
+                    + JsonText.length(receive.sdpOffer()) + JsonText.length(receive.sdpOffer()) / 16);
+            json.append("{\"id\":\"receiveVideoFrom\",\"sender\":");
+            JsonText.string(json, receive.sender());
+            json.append(",\"sdpOffer\":");
+            JsonText.string(json, receive.sdpOffer());
+            return json.append('}').toString();
+        }
+        if (message instanceof SignalingMessage.OnIceCandidate ice) {
+            StringBuilder json = new StringBuilder(64 + candidateLength(ice.entry()));
+            json.append("{\"id\":\"onIceCandidate\",");
+            candidateFields(json, ice.entry());
+            return json.append('}').toString();
+        }
+        if (message instanceof SignalingMessage.OnIceCandidates batch) {
+            String outbound = iceCandidates(batch.candidates());
+            return "{\"id\":\"onIceCandidates\"" + outbound.substring("{\"id\":\"iceCandidates\"".length());
+        }
+        throw new IllegalArgumentException("JSON으로 다시 만들 수 없는 메시지: " + message);
+    }
+
+    private static void candidateFields(StringBuilder json, IceCandidateEntry entry) {
+        json.append("\"name\":");
+        JsonText.string(json, entry.name());
+        if (entry.type() != null) {
+            json.append(",\"type\":");
+            JsonText.string(json, entry.type());
+        }
+        json.append(",\"candidate\":");
+        JsonText.candidate(json, entry.candidate());
+    }
+
+    private static int candidateLength(IceCandidateEntry entry) {
+        return 80 + JsonText.length(entry.name()) + JsonText.length(entry.type())
+                + JsonText.length(entry.candidate().getCandidate()) + JsonText.length(entry.candidate().getSdpMid());
+    }
+}
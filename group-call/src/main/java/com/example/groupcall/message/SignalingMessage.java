@@ -0,0 +1,53 @@
+package com.example.groupcall.message;
+
+import java.util.List;
+
+/**
+ * 클라이언트가 보내는 시그널링 메시지. SignalingDecoder가 JSON 토큰에서 바로 만들어 냅니다.
+ */
+public sealed interface SignalingMessage {
+
+    record JoinRoom(String room, String name) implements SignalingMessage {
+    }
+
+    /** 연결이 끊긴 뒤 joinRoom 때 받은 토큰으로 기존 참가자 상태를 되찾는다 */
+    record ResumeSession(String room, String name, String token) implements SignalingMessage {
+    }
+
+    record ReceiveVideoFrom(String sender, String sdpOffer) implements SignalingMessage {
+    }
+
+    record PresentScreen(String sdpOffer) implements SignalingMessage {
+    }
+
+    record ReceiveScreenFrom(String sender, String sdpOffer) implements SignalingMessage {
+    }
+
+    record StopScreenShare() implements SignalingMessage {
+    }
+
+    record LeaveRoom() implements SignalingMessage {
+    }
+
+    record StartRecording() implements SignalingMessage {
+    }
+
+    record StopRecording() implements SignalingMessage {
+    }
+
+    record OnIceCandidate(IceCandidateEntry entry) implements SignalingMessage {
+    }
+
+    record OnIceCandidates(List<IceCandidateEntry> candidates) implements SignalingMessage {
+    }
+
+    record SpeakerActivity(double level) implements SignalingMessage {
+    }
+
+    record ReportBandwidth(int downlinkKbps) implements SignalingMessage {
+    }
+
+    /** 처리기가 없는 메시지 */
+    record Unknown(String id) implements SignalingMessage {
+    }
+}
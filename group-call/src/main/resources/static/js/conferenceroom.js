@@ -1,15 +1,35 @@
 // WebSocket 연결 설정
-const ws = new WebSocket('ws://' + location.host + '/webrtc');
+// 서버가 지원하면 ICE/SDP 메시지는 바이너리(signal.bin.v1)로, 나머지는 JSON으로 주고받는다
+let ws;
 const participants = {};  // 참가자 목록
 let myName;              // 내 이름
 let roomName;           // 방 이름
 const screenShares = {};       // 화면 공유 목록
 let isScreenSharing = false;   // 화면 공유 상태
+let screenStream = null;        // 내 화면 캡처 스트림
+let roomMode = 'SFU';          // SFU: 참가자별 영상, MCU: 서버가 합성한 영상 하나
+let recordingState = 'STOPPED'; // 방 녹화 상태 (QUEUED, RECORDING, STOPPED, FAILED)
+const MIXED_STREAM = '__mixed__';
+let resumeToken = null;        // 연결이 끊겼을 때 참가 상태를 되찾는 토큰 (입장 후 서버가 보냄)
+let resumeGraceMs = 0;
+let disconnectedAt = 0;        // 연결이 끊긴 시각. 0이면 연결됨
+let leaving = false;
+const RECONNECT_DELAY_MS = 1000;
+
+connect();
+
+function connect(onOpen) {
+    ws = new WebSocket('ws://' + location.host + '/webrtc', [SignalCodec.PROTOCOL, SignalCodec.JSON_PROTOCOL]);
+    ws.binaryType = 'arraybuffer';
+    ws.onmessage = handleMessage;
+    ws.onopen = onOpen || null;
+    ws.onclose = handleClose;
+}
 
 
 // 웹소켓 메시지 처리
-ws.onmessage = function(message) {
-    const msg = JSON.parse(message.data);
+function handleMessage(message) {
+    const msg = message.data instanceof ArrayBuffer ? SignalCodec.decode(message.data) : JSON.parse(message.data);
 
     switch (msg.id) {
         case 'existingParticipants':    // 방에 입장했을 때
@@ -25,14 +45,13 @@ ws.onmessage = function(message) {
             participants[msg.name].rtcPeer.processAnswer(msg.sdpAnswer);
             break;
         case 'receiveScreenAnswer':
-            screenShares[msg.name].rtcPeer.processAnswer(msg.sdpAnswer);
+            handleScreenAnswer(msg);
             break;
         case 'iceCandidate':
-            if (msg.type === 'screen') {
-                screenShares[msg.name].rtcPeer.addIceCandidate(msg.candidate);
-            } else {
-                participants[msg.name].rtcPeer.addIceCandidate(msg.candidate);
-            }
+            addRemoteIceCandidate(msg);
+            break;
+        case 'iceCandidates':           // 서버가 묶어서 보낸 ICE 후보
+            msg.candidates.forEach(addRemoteIceCandidate);
             break;
 
         case 'newScreenShareStarted':
@@ -41,6 +60,34 @@ ws.onmessage = function(message) {
         case 'screenShareEnded':
             handleScreenShareEnded(msg.name);
             break;
+        case 'screenShareRejected':     // 방의 동시 공유 수 제한 또는 이미 공유 중
+            handleScreenShareRejected(msg.reason);
+            break;
+        case 'roomModeChanged':         // 서버가 SFU/MCU 모드를 바꿈
+            handleRoomModeChanged(msg);
+            break;
+        case 'lastNChanged':            // 영상을 받는 발언자 목록 변경
+            handleLastNChanged(msg.forwarded);
+            break;
+        case 'resumeToken':             // 연결이 끊겼을 때 쓸 재연결 토큰
+            resumeToken = msg.token;
+            resumeGraceMs = msg.graceMs;
+            break;
+        case 'sessionResumed':          // 재연결 성공: 끊긴 동안 바뀐 방 상태를 맞춘다
+            handleSessionResumed(msg);
+            break;
+        case 'resumeRejected':          // 재연결 실패: 처음부터 다시 입장
+            handleResumeRejected();
+            break;
+        case 'iceRestart':              // 서버가 끊긴 미디어 연결을 감지: 같은 엔드포인트로 ICE만 다시 협상
+            restartIce(msg.name);
+            break;
+        case 'iceRestartFailed':        // 재시작 한도 초과: 영상을 새로 받거나 다시 입장
+            handleIceRestartFailed(msg.name);
+            break;
+        case 'recordingState':          // 누군가 방 녹화를 시작/중지했거나 녹화 노드 자리를 받음
+            handleRecordingState(msg.state);
+            break;
 
 
 
@@ -55,7 +102,7 @@ async function toggleScreenShare() {
     if (!isScreenSharing) {
         try {
             const stream = await navigator.mediaDevices.getDisplayMedia({
-                video: true,
+                video: { frameRate: { ideal: 5, max: 15 } },
                 audio: {
                     echoCancellation: true,
                     noiseSuppression: true,
@@ -63,6 +110,10 @@ async function toggleScreenShare() {
                 }
             });
 
+            // 글자 선명도를 우선하도록 인코더에 알린다
+            stream.getVideoTracks()[0].contentHint = 'detail';
+            screenStream = stream;
+
             // 화면 공유 중단 이벤트 처리
             stream.getVideoTracks()[0].addEventListener('ended', () => {
                 stopScreenShare();
@@ -74,14 +125,7 @@ async function toggleScreenShare() {
             const options = {
                 localVideo: screenParticipant.getVideoElement(),
                 videoStream: stream,  // 화면 공유 스트림 직접 전달
-                onicecandidate: (candidate) => {
-                    sendMessage({
-                        id: 'onIceCandidate',
-                        candidate: candidate,
-                        name: myName,
-                        type: 'screen'
-                    });
-                }
+                onicecandidate: (candidate) => sendIceCandidate(myName, 'screen', candidate)
             };
 
             screenParticipant.rtcPeer = new WebRTCPeer(options);
@@ -116,6 +160,7 @@ function stopScreenShare() {
         screenShares[myName].dispose();
         delete screenShares[myName];
     }
+    screenStream = null;
     isScreenSharing = false;
     document.getElementById('button-share').textContent = 'Share Screen';
 }
@@ -127,14 +172,7 @@ function handleNewScreenShare(name) {
 
     const options = {
         remoteVideo: screenParticipant.getVideoElement(),
-        onicecandidate: (candidate) => {
-            sendMessage({
-                id: 'onIceCandidate',
-                candidate: candidate,
-                name: name,
-                type: 'screen'
-            });
-        }
+        onicecandidate: (candidate) => sendIceCandidate(name, 'screen', candidate)
     };
 
     screenParticipant.rtcPeer = new WebRTCPeer(options);
@@ -153,6 +191,38 @@ function handleNewScreenShare(name) {
 }
 
 
+function handleScreenAnswer(msg) {
+    const screen = screenShares[msg.name];
+    if (!screen) {
+        return;
+    }
+    screen.rtcPeer.processAnswer(msg.sdpAnswer);
+    // 내 공유에 대한 응답이면 서버의 화면 프로필(프레임레이트)을 캡처 트랙에 적용한다
+    if (msg.name === myName && msg.maxFramerate && screenStream) {
+        const track = screenStream.getVideoTracks()[0];
+        if (track) {
+            track.applyConstraints({ frameRate: { max: msg.maxFramerate } })
+                .catch(e => console.warn('Failed to apply screen frame rate:', e));
+        }
+    }
+}
+
+function handleScreenShareRejected(reason) {
+    console.warn('Screen share rejected:', reason);
+    if (reason === 'alreadySharing') {
+        // 서버에서는 기존 공유가 계속되므로 화면을 그대로 둔다
+        return;
+    }
+    if (screenShares[myName]) {
+        screenShares[myName].dispose();
+        delete screenShares[myName];
+    }
+    screenStream = null;
+    isScreenSharing = false;
+    document.getElementById('button-share').textContent = 'Share Screen';
+    alert('이 방에서 동시에 공유할 수 있는 화면 수를 넘었습니다.');
+}
+
 function handleScreenShareEnded(name) {
     if (screenShares[name]) {
         screenShares[name].dispose();
@@ -160,6 +230,21 @@ function handleScreenShareEnded(name) {
     }
 }
 
+// 방 녹화: 방 전체에 하나이며 누가 시작하든 모든 참가자가 중지할 수 있다
+function toggleRecording() {
+    const active = recordingState === 'RECORDING' || recordingState === 'QUEUED';
+    sendMessage({ id: active ? 'stopRecording' : 'startRecording' });
+}
+
+function handleRecordingState(state) {
+    recordingState = state || 'STOPPED';
+    const labels = { QUEUED: 'Recording queued (cancel)', RECORDING: 'Stop Recording' };
+    document.getElementById('button-record').textContent = labels[recordingState] || 'Record';
+    if (recordingState === 'FAILED') {
+        alert('녹화를 시작하지 못했습니다.');
+    }
+}
+
 
 
 
@@ -211,26 +296,117 @@ function handleExistingParticipants(msg) {
     participant.rtcPeer = new WebRTCPeer(options);
     participant.rtcPeer.generateOffer(participant.offerToReceiveVideo.bind(participant));
 
-    // 기존 참가자들의 비디오 받기
-    msg.data.forEach(handleNewParticipant);
+    // 기존 참가자들의 비디오 받기 (MCU 모드면 합성 영상 하나만)
+    roomMode = msg.mode || 'SFU';
+    if (roomMode === 'MCU') {
+        receiveMixedVideo();
+    } else {
+        msg.data.forEach(name => handleNewParticipant(name));
+    }
+
+    // last-N 모드면 내 음량을 서버에 보고
+    if (msg.lastN) {
+        startSpeakerReporting(participant.getVideoElement());
+    }
+
+    startBandwidthReporting();
+    handleRecordingState(msg.recording);
+}
+
+// 하향 대역폭 보고: 서버가 받는 영상들의 비트레이트 상한을 이 값에 맞춰 나눈다 (Network Information API가 있는 브라우저만)
+function reportBandwidth() {
+    const connection = navigator.connection;
+    if (connection && connection.downlink > 0) {
+        sendMessage({
+            id: 'reportBandwidth',
+            downlinkKbps: Math.round(connection.downlink * 1000)
+        });
+    }
+}
+
+function startBandwidthReporting() {
+    if (navigator.connection) {
+        reportBandwidth();
+        navigator.connection.addEventListener('change', reportBandwidth);
+    }
+}
+
+function handleRoomModeChanged(msg) {
+    console.log('Room mode changed:', msg.mode);
+    roomMode = msg.mode;
+
+    // 내 송신 연결은 그대로 두고 수신 연결만 다시 협상한다
+    Object.keys(participants).forEach(name => {
+        if (name !== myName) {
+            participants[name].dispose();
+            delete participants[name];
+        }
+    });
+
+    if (roomMode === 'MCU') {
+        receiveMixedVideo();
+    } else {
+        msg.data.forEach(name => handleNewParticipant(name));
+    }
+}
+
+function receiveMixedVideo() {
+    handleNewParticipant(MIXED_STREAM, true);
+}
+
+function handleLastNChanged(forwarded) {
+    Object.keys(participants).forEach(name => {
+        if (name !== myName) {
+            participants[name].setVideoActive(forwarded.includes(name));
+        }
+    });
+}
+
+// 발언자 감지: 내 마이크 음량(RMS)을 주기적으로 서버에 보고
+const SPEAKER_REPORT_INTERVAL_MS = 500;
+let speakerReportTimer = null;
+
+function startSpeakerReporting(videoElement) {
+    const stream = videoElement.srcObject;
+    if (!stream || stream.getAudioTracks().length === 0) {
+        // 로컬 스트림이 아직 붙지 않았으면 잠시 뒤 다시 시도
+        setTimeout(() => startSpeakerReporting(videoElement), SPEAKER_REPORT_INTERVAL_MS);
+        return;
+    }
+
+    const audioContext = new AudioContext();
+    const analyser = audioContext.createAnalyser();
+    analyser.fftSize = 512;
+    audioContext.createMediaStreamSource(stream).connect(analyser);
+    const samples = new Uint8Array(analyser.fftSize);
+
+    speakerReportTimer = setInterval(() => {
+        analyser.getByteTimeDomainData(samples);
+        let sum = 0;
+        for (const sample of samples) {
+            const value = (sample - 128) / 128;
+            sum += value * value;
+        }
+        sendMessage({
+            id: 'speakerActivity',
+            level: Math.sqrt(sum / samples.length)
+        });
+    }, SPEAKER_REPORT_INTERVAL_MS);
 }
 
 // 새 참가자 처리
-function handleNewParticipant(name) {
+function handleNewParticipant(name, force = false) {
+    if (roomMode === 'MCU' && !force) {
+        // MCU 모드에서는 합성 영상에 자동으로 포함된다
+        return;
+    }
     console.log('New participant:', name);
     const participant = new Participant(name);
     participants[name] = participant;
 
     const options = {
         remoteVideo: participant.getVideoElement(),
-        onicecandidate: (candidate) => {
-            sendMessage({
-                id: 'onIceCandidate',
-                candidate: candidate,
-                name: name,
-                type: 'video'
-            });
-        }
+        onicecandidate: (candidate) => sendIceCandidate(name, 'video', candidate)
     };
 
     participant.rtcPeer = new WebRTCPeer(options);
@@ -251,13 +427,129 @@ function handleNewParticipant(name) {
 
 // 참가자 퇴장 처리
 function handleParticipantLeft(name) {
-    participants[name].dispose();
-    delete participants[name];
+    if (participants[name]) {
+        participants[name].dispose();
+        delete participants[name];
+    }
+}
+
+// 연결이 끊기면 미디어 연결은 그대로 두고 새 웹소켓으로 resumeSession을 보낸다.
+// 서버의 유예 시간이 지났으면 처음부터 다시 입장한다
+function handleClose() {
+    if (leaving || !resumeToken) {
+        return;
+    }
+    if (!disconnectedAt) {
+        disconnectedAt = Date.now();
+    }
+    setTimeout(() => {
+        if (Date.now() - disconnectedAt > resumeGraceMs) {
+            connect(handleResumeRejected);
+            return;
+        }
+        connect(() => sendMessage({
+            id: 'resumeSession',
+            room: roomName,
+            name: myName,
+            token: resumeToken
+        }));
+    }, RECONNECT_DELAY_MS);
+}
+
+function handleSessionResumed(msg) {
+    console.log('Session resumed after', Date.now() - disconnectedAt, 'ms');
+    disconnectedAt = 0;
+    if ((msg.mode || 'SFU') !== roomMode) {
+        handleRoomModeChanged(msg);
+    } else if (roomMode === 'SFU') {
+        Object.keys(participants).forEach(name => {
+            if (name !== myName && !msg.data.includes(name)) {
+                handleParticipantLeft(name);
+            }
+        });
+        msg.data.forEach(name => {
+            if (!participants[name]) {
+                handleNewParticipant(name);
+            }
+        });
+    }
+    Object.keys(screenShares).forEach(name => {
+        if (name !== myName && !msg.screens.includes(name)) {
+            handleScreenShareEnded(name);
+        }
+    });
+    msg.screens.forEach(name => {
+        if (!screenShares[name]) {
+            handleNewScreenShare(name);
+        }
+    });
+    handleRecordingState(msg.recording);
+}
+
+function handleResumeRejected() {
+    console.log('Session could not be resumed, joining again');
+    rejoinRoom();
+}
+
+// 모든 연결을 정리하고 처음부터 다시 입장한다
+function rejoinRoom() {
+    resumeToken = null;
+    disconnectedAt = 0;
+    clearInterval(speakerReportTimer);
+    Object.keys(participants).forEach(handleParticipantLeft);
+    Object.keys(screenShares).forEach(handleScreenShareEnded);
+    screenStream = null;
+    isScreenSharing = false;
+    document.getElementById('button-share').textContent = 'Share Screen';
+    sendMessage({
+        id: 'joinRoom',
+        name: myName,
+        room: roomName,
+    });
+}
+
+// 피어 연결은 그대로 두고 iceRestart offer를 보낸다. 서버는 기존 엔드포인트에 processOffer하고
+// 평소처럼 receiveVideoAnswer와 새 ICE 후보를 보낸다
+function restartIce(name) {
+    const participant = participants[name];
+    if (!participant || !participant.rtcPeer) {
+        return;
+    }
+    const pc = participant.rtcPeer.peerConnection;
+    pc.createOffer({ iceRestart: true })
+        .then(offer => pc.setLocalDescription(offer))
+        .then(() => {
+            console.log('Sending ICE restart offer for', name);
+            sendMessage({
+                id: 'receiveVideoFrom',
+                sender: name,
+                sdpOffer: pc.localDescription.sdp
+            });
+        })
+        .catch(error => console.error('ICE restart failed for', name, error));
+}
+
+function handleIceRestartFailed(name) {
+    if (name === myName) {
+        // 내 송신 엔드포인트는 서버가 바꿀 수 없으므로 나갔다가 다시 들어온다
+        console.log('ICE restart gave up for my stream, joining again');
+        sendMessage({ id: 'leaveRoom' });
+        rejoinRoom();
+        return;
+    }
+    // 서버는 수신 엔드포인트를 해제했다. 새 피어 연결로 다시 받는다
+    handleParticipantLeft(name);
+    handleNewParticipant(name, true);
 }
 
 // 방 나가기
 function leaveRoom() {
+    leaving = true;
     sendMessage({ id: 'leaveRoom' });
+    clearInterval(speakerReportTimer);
+    if (navigator.connection) {
+        navigator.connection.removeEventListener('change', reportBandwidth);
+    }
 
     // 모든 참가자 정리
     Object.values(participants).forEach(p => p.dispose());
@@ -271,8 +563,48 @@ function leaveRoom() {
 
 // 메시지 전송 헬퍼 함수
 function sendMessage(message) {
-    ws.send(JSON.stringify(message));
+    if (ws.readyState !== WebSocket.OPEN) {
+        // 재연결 중에는 보내지 않는다 (ICE 후보 등은 재연결 뒤 필요하면 다시 협상한다)
+        console.warn('WebSocket not open, dropping', message.id);
+        return;
+    }
+    const binary = ws.protocol === SignalCodec.PROTOCOL ? SignalCodec.encode(message) : null;
+    ws.send(binary || JSON.stringify(message));
+}
+
+function addRemoteIceCandidate(msg) {
+    const target = msg.type === 'screen' ? screenShares[msg.name] : participants[msg.name];
+    if (target && target.rtcPeer) {
+        target.rtcPeer.addIceCandidate(msg.candidate);
+    }
+}
+
+// ICE 후보는 짧은 시간 모아서 onIceCandidates 메시지 하나로 보낸다
+const ICE_BATCH_WINDOW_MS = 20;
+let pendingIceCandidates = [];
+let iceFlushTimer = null;
+
+function sendIceCandidate(name, type, candidate) {
+    pendingIceCandidates.push({ name: name, type: type, candidate: candidate });
+    if (!iceFlushTimer) {
+        iceFlushTimer = setTimeout(flushIceCandidates, ICE_BATCH_WINDOW_MS);
+    }
+}
+
+function flushIceCandidates() {
+    iceFlushTimer = null;
+    if (pendingIceCandidates.length === 0) {
+        return;
+    }
+    sendMessage({
+        id: 'onIceCandidates',
+        candidates: pendingIceCandidates
+    });
+    pendingIceCandidates = [];
 }
 
 // 페이지 닫을 때 웹소켓 정리
-window.onbeforeunload = () => ws.close();
\ No newline at end of file
+window.onbeforeunload = () => {
+    leaving = true;
+    ws.close();
+};
\ No newline at end of file
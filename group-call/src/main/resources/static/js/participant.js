@@ -53,12 +53,12 @@ function Participant(name, type = 'video') {
 
     this.onIceCandidate = function(candidate) {
         console.log(`Sending ICE candidate for ${type} - ${name}`);
-        sendMessage({
-            id: 'onIceCandidate',
-            candidate: candidate,
-            name: name,
-            type: type
-        });
+        sendIceCandidate(name, type, candidate);
+    };
+
+    // last-N 모드에서 영상이 전달되지 않는 참가자는 흐리게 표시
+    this.setVideoActive = function(active) {
+        container.classList.toggle('video-paused', !active);
     };
 
     this.dispose = function() {
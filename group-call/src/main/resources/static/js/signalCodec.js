@@ -0,0 +1,74 @@
+// signal.bin.v1 바이너리 시그널링 인코딩 (서버: BinarySignalingCodec.java)
+// ICE 후보와 SDP 메시지만 바이너리로 보내고, 나머지는 JSON 텍스트를 그대로 사용한다.
+// 프레임 형식은 signalFrame.js(signaling-codec)를 따르고, 여기서는 태그별 필드 배치만 정한다.
+const SignalCodec = (function() {
+    const ON_ICE_CANDIDATE = 0x01;
+    const ON_ICE_CANDIDATES = 0x02;
+    const ICE_CANDIDATE = 0x03;
+    const ICE_CANDIDATES = 0x04;
+    const RECEIVE_VIDEO_FROM = 0x05;
+    const RECEIVE_VIDEO_ANSWER = 0x06;
+
+    function writeIce(writer, entry) {
+        writer.string(entry.name);
+        writer.string(entry.type);
+        writer.candidate(entry.candidate);
+    }
+
+    function readIce(reader, target) {
+        target.name = reader.string();
+        const type = reader.string();
+        if (type !== null) {
+            target.type = type;
+        }
+        target.candidate = reader.candidate();
+        return target;
+    }
+
+    // 바이너리로 표현할 수 없는 메시지면 null을 돌려준다
+    function encode(message) {
+        const writer = new SignalFrame.Writer();
+        switch (message.id) {
+            case 'onIceCandidate':
+                writer.byte(ON_ICE_CANDIDATE);
+                writeIce(writer, message);
+                break;
+            case 'onIceCandidates':
+                writer.byte(ON_ICE_CANDIDATES);
+                writer.varint(message.candidates.length);
+                message.candidates.forEach(entry => writeIce(writer, entry));
+                break;
+            case 'receiveVideoFrom':
+                writer.byte(RECEIVE_VIDEO_FROM);
+                writer.string(message.sender);
+                writer.string(message.sdpOffer);
+                break;
+            default:
+                return null;
+        }
+        return writer.finish();
+    }
+
+    function decode(buffer) {
+        const reader = new SignalFrame.Reader(buffer);
+        const tag = reader.byte();
+        switch (tag) {
+            case ICE_CANDIDATE:
+                return readIce(reader, { id: 'iceCandidate' });
+            case ICE_CANDIDATES: {
+                const count = reader.varint();
+                const candidates = [];
+                for (let i = 0; i < count; i++) {
+                    candidates.push(readIce(reader, {}));
+                }
+                return { id: 'iceCandidates', candidates: candidates };
+            }
+            case RECEIVE_VIDEO_ANSWER:
+                return { id: 'receiveVideoAnswer', name: reader.string(), sdpAnswer: reader.string() };
+            default:
+                throw new Error('알 수 없는 바이너리 메시지 태그: ' + tag);
+        }
+    }
+
+    return { PROTOCOL: SignalFrame.PROTOCOL, JSON_PROTOCOL: SignalFrame.JSON_PROTOCOL, encode, decode };
+})();
@@ -0,0 +1,117 @@
+package com.example.groupcall;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.kurento.client.IceCandidate;
+
+import com.example.groupcall.message.IceCandidateEntry;
+import com.example.groupcall.message.SignalingMessage;
+
+/**
+ * 그룹 통화 메시지의 signal.bin.v1 태그별 필드 배치를 확인합니다.
+ * 문자열, varint, 잘린 프레임 같은 프레임 형식 자체는 signaling-codec의 BinaryFrameTests가 확인합니다.
+ * 서버가 보내는 태그와 클라이언트가 보내는 태그는 필드 배치가 같으므로 (0x03/0x01, 0x04/0x02, 0x06/0x05)
+ * 인코딩한 프레임의 태그만 바꿔 디코더로 다시 읽어 왕복을 확인합니다.
+ */
+class BinarySignalingCodecTests {
+    private static final byte ON_ICE_CANDIDATE = 0x01;
+    private static final byte ON_ICE_CANDIDATES = 0x02;
+    private static final byte RECEIVE_VIDEO_FROM = 0x05;
+
+    private static final IceCandidateEntry HOST = new IceCandidateEntry("alice", "video",
+            new IceCandidate("candidate:1 1 UDP 2122252543 192.168.0.2 50000 typ host", "0", 0));
+    private static final IceCandidateEntry SCREEN = new IceCandidateEntry("밥", "screen",
+            new IceCandidate("candidate:2 1 UDP 1686052607 203.0.113.7 61000 typ srflx", "1", 300));
+
+    @Test
+    void iceCandidateRoundTrip() {
+        byte[] frame = BinarySignalingCodec.encodeIceCandidate(SCREEN);
+        assertEquals(0x03, frame[0]);
+
+        SignalingMessage decoded = decode(retag(frame, ON_ICE_CANDIDATE));
+
+        assertIce(SCREEN, assertInstanceOf(SignalingMessage.OnIceCandidate.class, decoded).entry());
+    }
+
+    @Test
+    void iceCandidatesRoundTrip() {
+        byte[] frame = BinarySignalingCodec.encodeIceCandidates(List.of(HOST, SCREEN));
+        assertEquals(0x04, frame[0]);
+
+        SignalingMessage decoded = decode(retag(frame, ON_ICE_CANDIDATES));
+
+        List<IceCandidateEntry> candidates =
+                assertInstanceOf(SignalingMessage.OnIceCandidates.class, decoded).candidates();
+        assertEquals(2, candidates.size());
+        assertIce(HOST, candidates.get(0));
+        assertIce(SCREEN, candidates.get(1));
+    }
+
+    @Test
+    void emptyIceCandidatesRoundTrip() {
+        byte[] frame = BinarySignalingCodec.encodeIceCandidates(List.of());
+
+        SignalingMessage decoded = decode(retag(frame, ON_ICE_CANDIDATES));
+
+        assertEquals(List.of(), assertInstanceOf(SignalingMessage.OnIceCandidates.class, decoded).candidates());
+    }
+
+    @Test
+    void receiveVideoAnswerRoundTrip() {
+        String sdp = "v=0\r\no=- 0 0 IN IP4 127.0.0.1\r\ns=회의\r\n" + "a=x".repeat(200);
+        byte[] frame = BinarySignalingCodec.encodeReceiveVideoAnswer("alice", sdp);
+        assertEquals(0x06, frame[0]);
+
+        SignalingMessage decoded = decode(retag(frame, RECEIVE_VIDEO_FROM));
+
+        SignalingMessage.ReceiveVideoFrom receive = assertInstanceOf(SignalingMessage.ReceiveVideoFrom.class, decoded);
+        assertEquals("alice", receive.sender());
+        assertEquals(sdp, receive.sdpOffer());
+    }
+
+    @Test
+    void nullStringsRoundTrip() {
+        IceCandidateEntry untyped = new IceCandidateEntry(null, null, new IceCandidate("candidate:3", null, 1));
+
+        SignalingMessage decoded = decode(retag(BinarySignalingCodec.encodeIceCandidate(untyped), ON_ICE_CANDIDATE));
+
+        IceCandidateEntry entry = assertInstanceOf(SignalingMessage.OnIceCandidate.class, decoded).entry();
+        assertNull(entry.name());
+        // 종류가 없으면 영상 후보로 본다
+        assertEquals("video", entry.type());
+        assertNull(entry.candidate().getSdpMid());
+        assertEquals(1, entry.candidate().getSdpMLineIndex());
+    }
+
+    @Test
+    void rejectsServerTags() {
+        // 서버가 보내는 태그는 클라이언트 메시지로 받지 않는다
+        byte[] answer = BinarySignalingCodec.encodeReceiveVideoAnswer("alice", "sdp");
+        assertThrows(IllegalArgumentException.class, () -> decode(answer));
+    }
+
+    private static SignalingMessage decode(byte[] frame) {
+        return BinarySignalingCodec.decode(ByteBuffer.wrap(frame));
+    }
+
+    private static byte[] retag(byte[] frame, byte tag) {
+        byte[] copy = frame.clone();
+        copy[0] = tag;
+        return copy;
+    }
+
+    private static void assertIce(IceCandidateEntry expected, IceCandidateEntry actual) {
+        assertEquals(expected.name(), actual.name());
+        assertEquals(expected.type(), actual.type());
+        assertEquals(expected.candidate().getCandidate(), actual.candidate().getCandidate());
+        assertEquals(expected.candidate().getSdpMid(), actual.candidate().getSdpMid());
+        assertEquals(expected.candidate().getSdpMLineIndex(), actual.candidate().getSdpMLineIndex());
+    }
+}
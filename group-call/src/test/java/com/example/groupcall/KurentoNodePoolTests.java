@@ -0,0 +1,188 @@
+package com.example.groupcall;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.KurentoClient;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 가짜 KMS 여러 대를 띄워 부하 기반 방 배치를 확인합니다.
+ * busy는 파이프라인 2개, full은 한도(1개)까지 찬 상태, idle은 비어 있습니다.
+ */
+class KurentoNodePoolTests {
+    private static final long SAMPLE_TIMEOUT_MS = 5_000;
+
+    private static final List<ConfigurableApplicationContext> servers = new ArrayList<>();
+    private static final List<KurentoClient> preloadClients = new ArrayList<>();
+    private static ConfigurableApplicationContext busy;
+    private static ConfigurableApplicationContext idle;
+    private static ConfigurableApplicationContext full;
+
+    private KurentoNodePool pool;
+
+    @BeforeAll
+    static void startServers() {
+        busy = startKms(Map.of());
+        idle = startKms(Map.of());
+        full = startKms(Map.of("fakekms.max-pipelines", 1));
+        preload(busy, 2);
+        preload(full, 1);
+    }
+
+    @AfterAll
+    static void stopServers() {
+        preloadClients.forEach(KurentoClient::destroy);
+        servers.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @AfterEach
+    void shutdownPool() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void selectsLeastLoadedNode() throws InterruptedException {
+        pool = sampledPool();
+
+        KurentoNode selected = pool.select();
+
+        assertEquals("idle", selected.getId());
+        assertEquals(0, selected.getLoad().pipelines());
+        assertEquals(2, node("busy").getLoad().pipelines());
+    }
+
+    @Test
+    void placementsBetweenSamplesMoveNewRoomsToNextNode() throws InterruptedException {
+        pool = sampledPool();
+
+        // 다음 샘플 전까지는 배치한 방 수를 파이프라인처럼 더해 한 노드로 몰리지 않게 한다
+        node("idle").roomOpened();
+        node("idle").roomOpened();
+
+        assertEquals("full", pool.select().getId());
+    }
+
+    @Test
+    void selectExcludingSkipsNodesInUse() throws InterruptedException {
+        pool = sampledPool();
+
+        assertEquals("full", pool.selectExcluding(Set.of("idle")).getId());
+        assertEquals("busy", pool.selectExcluding(Set.of("idle", "full")).getId());
+        assertNull(pool.selectExcluding(Set.of("busy", "idle", "full")));
+    }
+
+    @Test
+    void unavailableNodeIsSkippedAndPrimaryIsLastResort() throws InterruptedException {
+        ConfigurableApplicationContext broken = startKms(Map.of("fakekms.method-error-rate.getUsedCpu", 1.0));
+        pool = new KurentoNodePool(List.of(connect("broken", broken), connect("busy", busy)),
+                TimeUnit.HOURS.toMillis(1), 0);
+        awaitSampled(pool);
+
+        assertFalse(node("broken").isAvailable());
+        assertEquals("busy", pool.select().getId());
+        assertNull(pool.selectExcluding(Set.of("busy")));
+
+        pool.shutdown();
+        pool = new KurentoNodePool(List.of(connect("broken", broken)), TimeUnit.HOURS.toMillis(1), 0);
+        awaitSampled(pool);
+
+        // 응답하는 노드가 하나도 없으면 기본 노드에 배치한다
+        assertSame(pool.primary(), pool.select());
+        assertNull(pool.selectExcluding(Set.of()));
+    }
+
+    @Test
+    void roomMovesToNextNodeWhenPipelineCreationFails() throws InterruptedException {
+        pool = sampledPool();
+        node("idle").roomOpened();
+        node("idle").roomOpened();
+        assertEquals("full", pool.select().getId());
+        Room.configure(pool, 0);
+
+        // 배치는 한도를 모르므로 가득 찬 노드를 먼저 고르지만, 파이프라인 생성이 거절되면 다음 노드에 방을 연다
+        Room room = Room.getRoom("placement-retry").join();
+        try {
+            assertNotEquals("full", room.getNode().getId());
+            assertTrue(node("full").isRejectingPipelines());
+            // 거절한 노드는 한동안 맨 뒤로 밀린다
+            assertNotEquals("full", pool.select().getId());
+
+            // 실패는 노드 장애가 아니므로 배치 대상에 남고, 다음 샘플에서 파이프라인 수는 그대로다
+            node("full").sample(0);
+            assertTrue(node("full").isAvailable());
+            assertEquals(1, node("full").getLoad().pipelines());
+        } finally {
+            room.close().join();
+        }
+    }
+
+    private static ConfigurableApplicationContext startKms(Map<String, Object> properties) {
+        Map<String, Object> defaults = new HashMap<>(Map.of(
+                "fakekms.cpu-per-element", 0,
+                "fakekms.media-flow-delay-ms", 0));
+        defaults.putAll(properties);
+        ConfigurableApplicationContext context = LocalServers.fakeKms(defaults);
+        servers.add(context);
+        return context;
+    }
+
+    private static void preload(ConfigurableApplicationContext server, int pipelines) {
+        KurentoClient client = KurentoClient.create(LocalServers.kmsUri(server));
+        preloadClients.add(client);
+        for (int i = 0; i < pipelines; i++) {
+            client.createMediaPipeline();
+        }
+    }
+
+    /**
+     * 첫 샘플은 생성 직후 한 번만 돌도록 수집 주기를 길게 잡고, 그 샘플이 끝날 때까지 기다린다. busy가 기본 노드
+     */
+    private static KurentoNodePool sampledPool() throws InterruptedException {
+        KurentoNodePool sampled = new KurentoNodePool(
+                List.of(connect("busy", busy), connect("idle", idle), connect("full", full)),
+                TimeUnit.HOURS.toMillis(1), 0);
+        awaitSampled(sampled);
+        return sampled;
+    }
+
+    private static KurentoNode connect(String id, ConfigurableApplicationContext server) {
+        String uri = LocalServers.kmsUri(server);
+        KurentoClient client = KurentoClient.create(uri);
+        return new KurentoNode(id, uri, client, new PipelinePool(client, false, 0, 0));
+    }
+
+    private static void awaitSampled(KurentoNodePool pool) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SAMPLE_TIMEOUT_MS;
+        for (KurentoNode node : pool.getNodes()) {
+            while (node.getLoad().sampledAt() == 0) {
+                assertTrue(System.currentTimeMillis() < deadline, "부하 수집 시간 초과: " + node.getId());
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private KurentoNode node(String id) {
+        return pool.getNodes().stream()
+                .filter(node -> node.getId().equals(id))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.groupcall;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.fakekms.FakeKmsApplication;
+
+/**
+ * 테스트 프로세스 안에서 가짜 KMS와 group-call 앱을 loopback 임의 포트로 띄웁니다.
+ * 서로의 application.properties를 읽지 않도록 앱마다 설정 파일 이름을 바꿉니다.
+ */
+final class LocalServers {
+
+    private LocalServers() {
+    }
+
+    /**
+     * @param properties fakekms.* 등 덮어쓸 설정
+     */
+    static ConfigurableApplicationContext fakeKms(Map<String, Object> properties) {
+        return start(FakeKmsApplication.class, "fake-kms", properties);
+    }
+
+    /**
+     * @param properties groupcall.* 등 덮어쓸 설정
+     */
+    static ConfigurableApplicationContext groupCall(Map<String, Object> properties) {
+        return start(GroupCallApplication.class, "group-call", properties);
+    }
+
+    /**
+     * {@link #fakeKms(Map)}로 띄운 가짜 KMS에 KurentoClient가 연결할 주소
+     */
+    static String kmsUri(ConfigurableApplicationContext fakeKms) {
+        return "ws://127.0.0.1:" + fakeKms.getEnvironment().getProperty("local.server.port") + "/kurento";
+    }
+
+    private static ConfigurableApplicationContext start(Class<?> application, String configName,
+                                                        Map<String, Object> properties) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.config.name", configName);
+        defaults.put("spring.main.banner-mode", "off");
+        defaults.put("server.address", "127.0.0.1");
+        defaults.put("server.port", 0);
+        defaults.putAll(properties);
+        return new SpringApplicationBuilder(application).properties(defaults).run();
+    }
+}
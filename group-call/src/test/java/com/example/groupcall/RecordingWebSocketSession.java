@@ -0,0 +1,110 @@
+package com.example.groupcall;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * 네트워크 없이 받은 텍스트 메시지와 종료 상태를 기록하는 WebSocket 세션.
+ * 전달이 비동기인 경우를 위해 다음 메시지를 기다려 꺼낼 수 있습니다.
+ */
+public class RecordingWebSocketSession implements WebSocketSession {
+    private static final long TIMEOUT_MS = 5_000;
+
+    private final String id;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private volatile CloseStatus closeStatus;
+
+    public RecordingWebSocketSession(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            received.add(text.getPayload());
+            messages.add(text.getPayload());
+        }
+    }
+
+    /**
+     * nextMessage로 꺼냈는지와 상관없이 지금까지 받은 모든 메시지
+     */
+    public List<String> getReceived() {
+        return List.copyOf(received);
+    }
+
+    /**
+     * @return 다음으로 받은 메시지. 제한 시간 안에 오지 않으면 null
+     */
+    public String nextMessage() throws InterruptedException {
+        return messages.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return 제한 시간 안에 닫히지 않았으면 null
+     */
+    public CloseStatus awaitClose() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (closeStatus == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return closeStatus;
+    }
+
+    @Override
+    public void close() {
+        close(CloseStatus.NORMAL);
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        closeStatus = status;
+    }
+
+    @Override
+    public String getId() { return id; }
+    @Override
+    public boolean isOpen() { return closeStatus == null; }
+    @Override
+    public Map<String, Object> getAttributes() { return attributes; }
+    @Override
+    public URI getUri() { return null; }
+    @Override
+    public HttpHeaders getHandshakeHeaders() { return HttpHeaders.EMPTY; }
+    @Override
+    public Principal getPrincipal() { return null; }
+    @Override
+    public InetSocketAddress getLocalAddress() { return null; }
+    @Override
+    public InetSocketAddress getRemoteAddress() { return null; }
+    @Override
+    public String getAcceptedProtocol() { return null; }
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) { }
+    @Override
+    public int getTextMessageSizeLimit() { return Integer.MAX_VALUE; }
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) { }
+    @Override
+    public int getBinaryMessageSizeLimit() { return Integer.MAX_VALUE; }
+    @Override
+    public List<WebSocketExtension> getExtensions() { return Collections.emptyList(); }
+}
@@ -0,0 +1,92 @@
+package com.example.groupcall;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.KurentoClient;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.fakekms.FakeKmsProperties;
+import com.example.fakekms.FakeMediaServer;
+
+/**
+ * 방을 닫을 때 객체를 모두 해제하고 파이프라인을 풀에 돌려줄지 정하는 부분을 확인합니다.
+ */
+class RoomReleaseTests {
+    private static final long TIMEOUT_MS = 5_000;
+
+    private ConfigurableApplicationContext fakeKms;
+    private KurentoNodePool nodes;
+    private PipelinePool pipelines;
+
+    @BeforeEach
+    void start() {
+        fakeKms = LocalServers.fakeKms(Map.of("fakekms.media-flow-delay-ms", 0));
+        String uri = LocalServers.kmsUri(fakeKms);
+        KurentoClient client = KurentoClient.create(uri);
+        pipelines = new PipelinePool(client, true, 0, 1);
+        nodes = new KurentoNodePool(List.of(new KurentoNode("release", uri, client, pipelines)),
+                TimeUnit.HOURS.toMillis(1), 0);
+        Room.configure(nodes, 0);
+    }
+
+    @AfterEach
+    void stop() {
+        nodes.shutdown();
+        fakeKms.close();
+    }
+
+    @Test
+    void emptiedPipelineIsRecycled() throws Exception {
+        closeRoomWithOneParticipant("release-clean");
+
+        awaitIdle(1);
+        assertEquals(0, fakeKms.getBean(FakeMediaServer.class).getElementCount());
+    }
+
+    @Test
+    void closeReleasesEveryParticipantEndpoint() throws Exception {
+        Room room = Room.getRoom("release-many").join();
+        for (String name : List.of("alice", "bob", "carol")) {
+            room.join(name, new RecordingWebSocketSession("session-" + name)).join();
+        }
+        room.close().get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        awaitIdle(1);
+        assertEquals(0, fakeKms.getBean(FakeMediaServer.class).getElementCount());
+    }
+
+    @Test
+    void pipelineWithUnreleasedEndpointIsNotRecycled() {
+        fakeKms.getBean(FakeKmsProperties.class).getMethodErrorRate().put("release", 1.0);
+
+        // 대신 보내는 파이프라인 release도 같은 오류로 실패하므로 close는 실패로 끝난다
+        assertThrows(CompletionException.class, () -> closeRoomWithOneParticipant("release-failed"));
+
+        assertEquals(0, pipelines.getIdleCount());
+        assertEquals(1, fakeKms.getBean(FakeMediaServer.class).getPipelineCount());
+    }
+
+    private void closeRoomWithOneParticipant(String roomName) {
+        Room room = Room.getRoom(roomName).join();
+        room.join("alice", new RecordingWebSocketSession("session-" + roomName)).join();
+        room.close().join();
+    }
+
+    private void awaitIdle(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (pipelines.getIdleCount() != expected) {
+            assertTrue(System.currentTimeMillis() < deadline, "풀에 돌아온 파이프라인: " + pipelines.getIdleCount());
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.groupcall;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.socket.TextMessage;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * 가짜 KMS에 연결한 앱에 CallHandler로 화면 공유 메시지를 보내 확인합니다.
+ */
+class ScreenShareTests {
+    private static final String SDP_OFFER = "v=0\r\no=- 0 0 IN IP4 127.0.0.1\r\ns=-\r\nt=0 0\r\nm=video 9 UDP/TLS/RTP/SAVPF 96\r\n";
+
+    private static ConfigurableApplicationContext fakeKms;
+    private static ConfigurableApplicationContext groupCall;
+    private static CallHandler handler;
+
+    @BeforeAll
+    static void start() {
+        fakeKms = LocalServers.fakeKms(Map.of("fakekms.media-flow-delay-ms", 0));
+        groupCall = LocalServers.groupCall(Map.of("groupcall.kms.uris", LocalServers.kmsUri(fakeKms)));
+        handler = groupCall.getBean(CallHandler.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        groupCall.close();
+        fakeKms.close();
+    }
+
+    @Test
+    void duplicatePresentScreenKeepsLiveShare() throws Exception {
+        RecordingWebSocketSession alice = join("alice", "screen-duplicate");
+        RecordingWebSocketSession bob = join("bob", "screen-duplicate");
+        send(alice, presentScreen());
+        awaitMessage(alice, "receiveScreenAnswer");
+        awaitMessage(bob, "newScreenShareStarted");
+        Room room = Room.findRoom("screen-duplicate");
+        Screen live = room.getScreenShare("alice");
+
+        send(alice, presentScreen());
+
+        JsonObject rejected = awaitMessage(alice, "screenShareRejected");
+        assertEquals("alreadySharing", rejected.get("reason").getAsString());
+        assertSame(live, room.getScreenShare("alice"));
+        assertTrue(live.isSharing());
+        assertTrue(bob.getReceived().stream().noneMatch(message -> message.contains("\"screenShareEnded\"")),
+                "시청자에게 공유 종료를 알렸습니다: " + bob.getReceived());
+    }
+
+    @Test
+    void presentScreenAfterStopStartsNewShare() throws Exception {
+        RecordingWebSocketSession carol = join("carol", "screen-restart");
+        RecordingWebSocketSession dave = join("dave", "screen-restart");
+        send(carol, presentScreen());
+        awaitMessage(carol, "receiveScreenAnswer");
+
+        send(carol, "{\"id\":\"stopScreenShare\"}");
+        awaitMessage(dave, "screenShareEnded");
+        send(carol, presentScreen());
+
+        awaitMessage(carol, "receiveScreenAnswer");
+        assertNotNull(Room.findRoom("screen-restart").getScreenShare("carol"));
+    }
+
+    private static RecordingWebSocketSession join(String name, String room) throws Exception {
+        RecordingWebSocketSession session = new RecordingWebSocketSession("session-" + name);
+        JsonObject joinRoom = new JsonObject();
+        joinRoom.addProperty("id", "joinRoom");
+        joinRoom.addProperty("name", name);
+        joinRoom.addProperty("room", room);
+        send(session, joinRoom.toString());
+        awaitMessage(session, "existingParticipants");
+        return session;
+    }
+
+    private static String presentScreen() {
+        JsonObject message = new JsonObject();
+        message.addProperty("id", "presentScreen");
+        message.addProperty("sdpOffer", SDP_OFFER);
+        return message.toString();
+    }
+
+    private static void send(RecordingWebSocketSession session, String json) throws Exception {
+        handler.handleTextMessage(session, new TextMessage(json));
+    }
+
+    /**
+     * id가 messageId인 메시지가 올 때까지 앞선 다른 메시지는 건너뛴다.
+     */
+    private static JsonObject awaitMessage(RecordingWebSocketSession session, String messageId)
+            throws InterruptedException {
+        for (String payload = session.nextMessage(); payload != null; payload = session.nextMessage()) {
+            JsonObject message = JsonParser.parseString(payload).getAsJsonObject();
+            if (messageId.equals(message.get("id").getAsString())) {
+                return message;
+            }
+        }
+        return fail(session.getId() + ": " + messageId + "을(를) 받지 못했습니다. 받은 메시지: " + session.getReceived());
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.groupcall.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.example.groupcall.RecordingWebSocketSession;
+
+/**
+ * 하나의 InMemorySignalingBus에 연결한 두 노드(a, b) 사이의 방 배정과 메시지 전달을 확인합니다.
+ */
+class SignalingClusterTests {
+    private static final int VIRTUAL_NODES = 128;
+    private static final long TIMEOUT_MS = 5_000;
+
+    private record Received(WebSocketSession session, String payload) {
+    }
+
+    private InMemorySignalingBus bus;
+    private SignalingCluster nodeA;
+    private SignalingCluster nodeB;
+    private final BlockingQueue<Received> receivedOnB = new LinkedBlockingQueue<>();
+    private final BlockingQueue<WebSocketSession> closedOnB = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void startNodes() {
+        bus = new InMemorySignalingBus();
+        nodeA = new SignalingCluster("a", List.of("a", "b"), VIRTUAL_NODES, bus);
+        // 멤버 목록 순서가 달라도 같은 배정을 얻어야 한다
+        nodeB = new SignalingCluster("b", List.of("b", "a"), VIRTUAL_NODES, bus);
+        nodeA.start((session, message) -> { }, session -> { });
+        nodeB.start((session, message) -> receivedOnB.add(new Received(session, message.getPayload())),
+                closedOnB::add);
+    }
+
+    @AfterEach
+    void shutdownBus() {
+        bus.shutdown();
+    }
+
+    @Test
+    void nodesAgreeOnRoomOwner() {
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(nodeA.ownerOf("room-" + i), nodeB.ownerOf("room-" + i));
+        }
+    }
+
+    @Test
+    void addingMemberMovesRoomsOnlyToNewMember() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b"), VIRTUAL_NODES);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c"), VIRTUAL_NODES);
+
+        int rooms = 10_000;
+        int moved = 0;
+        for (int i = 0; i < rooms; i++) {
+            String room = "room-" + i;
+            String owner = after.ownerOf(room);
+            if (!owner.equals(before.ownerOf(room))) {
+                assertEquals("c", owner, room + "이(가) 기존 노드 사이에서 옮겨졌습니다");
+                moved++;
+            }
+        }
+        // 기대값은 1/3. 가상 노드로 고르게 나누므로 크게 벗어나지 않는다
+        assertTrue(moved > rooms / 4 && moved < rooms * 2 / 5, "옮겨진 방: " + moved);
+    }
+
+    @Test
+    void singleMemberOwnsEveryRoom() {
+        SignalingCluster single = new SignalingCluster("solo", List.of(), VIRTUAL_NODES, bus);
+
+        assertFalse(single.isClustered());
+        assertEquals("solo", single.ownerOf("room-1"));
+    }
+
+    @Test
+    void inboundReachesOwnerThroughRemoteSession() throws InterruptedException {
+        RecordingWebSocketSession client = new RecordingWebSocketSession("s1");
+        String room = roomOwnedBy("b");
+
+        assertEquals("b", nodeA.routeJoin(client, room));
+        assertEquals("b", nodeA.routeOf(client));
+        nodeA.forward(client, "b", "{\"id\":\"joinRoom\"}");
+        nodeA.forward(client, "b", "{\"id\":\"receiveVideoFrom\"}");
+
+        Received join = receivedOnB.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        Received receive = receivedOnB.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(join);
+        assertNotNull(receive);
+        RemoteWebSocketSession remote = assertInstanceOf(RemoteWebSocketSession.class, join.session());
+        assertEquals("a/s1", remote.getId());
+        assertEquals("a", remote.getOriginNode());
+        assertEquals("{\"id\":\"joinRoom\"}", join.payload());
+        // 같은 클라이언트의 메시지는 같은 원격 세션으로, 보낸 순서대로 온다
+        assertSame(remote, receive.session());
+        assertEquals("{\"id\":\"receiveVideoFrom\"}", receive.payload());
+        assertEquals(1, nodeB.getRemoteSessionCount());
+    }
+
+    @Test
+    void outboundAndCloseReachOriginClient() throws Exception {
+        RecordingWebSocketSession client = new RecordingWebSocketSession("s1");
+        RemoteWebSocketSession remote = joinThroughA(client, roomOwnedBy("b"));
+
+        remote.sendMessage(new TextMessage("{\"id\":\"existingParticipants\"}"));
+        assertEquals("{\"id\":\"existingParticipants\"}", client.nextMessage());
+
+        remote.close(CloseStatus.POLICY_VIOLATION);
+        assertEquals(CloseStatus.POLICY_VIOLATION.getCode(), client.awaitClose().getCode());
+        assertFalse(remote.isOpen());
+    }
+
+    @Test
+    void outboundGoesOnlyToItsOwnClient() throws Exception {
+        RecordingWebSocketSession first = new RecordingWebSocketSession("s1");
+        RecordingWebSocketSession second = new RecordingWebSocketSession("s2");
+        String room = roomOwnedBy("b");
+        RemoteWebSocketSession firstRemote = joinThroughA(first, room);
+        RemoteWebSocketSession secondRemote = joinThroughA(second, room);
+
+        secondRemote.sendMessage(new TextMessage("to-second"));
+        firstRemote.sendMessage(new TextMessage("to-first"));
+
+        assertEquals("to-first", first.nextMessage());
+        assertEquals("to-second", second.nextMessage());
+    }
+
+    @Test
+    void rejoinToOtherOwnerSendsClosedToPreviousOwner() throws Exception {
+        RecordingWebSocketSession client = new RecordingWebSocketSession("s1");
+        RemoteWebSocketSession remote = joinThroughA(client, roomOwnedBy("b"));
+
+        // a가 소유한 방으로 다시 들어가면 b의 원격 세션은 닫혀야 한다
+        assertNull(nodeA.routeJoin(client, roomOwnedBy("a")));
+
+        assertSame(remote, closedOnB.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertFalse(remote.isOpen());
+        assertNull(nodeA.routeOf(client));
+        assertEquals(0, nodeA.getForwardedSessionCount());
+        assertEquals(0, nodeB.getRemoteSessionCount());
+    }
+
+    @Test
+    void rejoinToSameOwnerKeepsRemoteSession() throws Exception {
+        RecordingWebSocketSession client = new RecordingWebSocketSession("s1");
+        String room = roomOwnedBy("b");
+        joinThroughA(client, room);
+
+        assertEquals("b", nodeA.routeJoin(client, room));
+
+        assertNull(closedOnB.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, nodeB.getRemoteSessionCount());
+    }
+
+    @Test
+    void connectionClosedNotifiesOwner() throws Exception {
+        RecordingWebSocketSession client = new RecordingWebSocketSession("s1");
+        RemoteWebSocketSession remote = joinThroughA(client, roomOwnedBy("b"));
+
+        assertTrue(nodeA.connectionClosed(client));
+
+        assertSame(remote, closedOnB.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        // 로컬 방에만 있던 세션은 노드 A가 직접 정리한다
+        assertFalse(nodeA.connectionClosed(new RecordingWebSocketSession("s2")));
+    }
+
+    /**
+     * a에 연결된 client를 b 소유 방에 넣고 b에 생긴 원격 세션을 돌려준다.
+     */
+    private RemoteWebSocketSession joinThroughA(RecordingWebSocketSession client, String room)
+            throws InterruptedException {
+        String owner = nodeA.routeJoin(client, room);
+        nodeA.forward(client, owner, "{\"id\":\"joinRoom\"}");
+        Received join = receivedOnB.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(join);
+        return assertInstanceOf(RemoteWebSocketSession.class, join.session());
+    }
+
+    private String roomOwnedBy(String node) {
+        for (int i = 0; ; i++) {
+            if (nodeA.ownerOf("room-" + i).equals(node)) {
+                return "room-" + i;
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.signaling;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.kurento.client.IceCandidate;
+
+/**
+ * 바이너리 시그널링(WebSocket 서브프로토콜 signal.bin.v1)의 프레임 형식.
+ * 각 앱의 BinarySignalingCodec은 태그마다 어떤 필드를 어떤 순서로 쓰는지만 정하고,
+ * 문자열, varint, ICE 후보를 읽고 쓰는 부분은 이 클래스를 함께 씁니다.
+ *
+ * <pre>
+ * frame     = tag(1바이트) fields
+ * string    = varint(길이 + 1) UTF-8 바이트   (0이면 null)
+ * count     = varint (0 이상)
+ * candidate = candidate sdpMid varint(sdpMLineIndex)
+ * </pre>
+ * 브라우저 구현은 이 jar의 META-INF/resources/js/signalFrame.js(/js/signalFrame.js)에 있습니다.
+ */
+public final class BinaryFrame {
+    public static final String PROTOCOL = "signal.bin.v1";
+    public static final String JSON_PROTOCOL = "signal.json";
+
+    /**
+     * 태그를 읽은 뒤 나머지 필드를 읽어 메시지를 만든다. 모르는 태그면 null을 돌려준다.
+     */
+    @FunctionalInterface
+    public interface Body<M> {
+        M read(byte tag, ByteBuffer buffer);
+    }
+
+    private BinaryFrame() {
+    }
+
+    /**
+     * 프레임 하나를 읽는다. 잘린 프레임, 잘못된 길이, 모르는 태그는 모두 IllegalArgumentException으로 알린다.
+     */
+    public static <M> M decode(ByteBuffer buffer, Body<M> body) {
+        try {
+            byte tag = buffer.get();
+            M message = body.read(tag, buffer);
+            if (message == null) {
+                throw new IllegalArgumentException("알 수 없는 바이너리 메시지 태그: " + tag);
+            }
+            return message;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("잘린 바이너리 메시지", e);
+        }
+    }
+
+    public static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("잘못된 varint");
+    }
+
+    public static int readCount(ByteBuffer buffer) {
+        int count = readVarint(buffer);
+        // 다섯 바이트 varint는 음수가 될 수 있다
+        if (count < 0) {
+            throw new IllegalArgumentException("잘못된 개수: " + count);
+        }
+        return count;
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        int length = readVarint(buffer);
+        if (length == 0) {
+            return null;
+        }
+        length--;
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("잘못된 문자열 길이: " + length);
+        }
+        if (!buffer.hasArray()) {
+            byte[] utf8 = new byte[length];
+            buffer.get(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    public static IceCandidate readCandidate(ByteBuffer buffer) {
+        return new IceCandidate(readString(buffer), readString(buffer), readVarint(buffer));
+    }
+
+    /**
+     * UTF-8로 인코딩했을 때의 최대 바이트 수. Writer의 처음 크기를 잡을 때 쓴다.
+     */
+    public static int maxLength(String value) {
+        return value == null ? 0 : value.length() * 3;
+    }
+
+    public static final class Writer {
+        private byte[] bytes;
+        private int position;
+
+        public Writer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > bytes.length) {
+                byte[] grown = new byte[Math.max(bytes.length * 2, position + extra)];
+                System.arraycopy(bytes, 0, grown, 0, position);
+                bytes = grown;
+            }
+        }
+
+        public void writeByte(byte value) {
+            ensure(1);
+            bytes[position++] = value;
+        }
+
+        public void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7f) != 0) {
+                bytes[position++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        public void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length + 1);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, position, utf8.length);
+            position += utf8.length;
+        }
+
+        public void writeCandidate(IceCandidate candidate) {
+            writeString(candidate.getCandidate());
+            writeString(candidate.getSdpMid());
+            writeVarint(candidate.getSdpMLineIndex());
+        }
+
+        public byte[] toByteArray() {
+            byte[] result = new byte[position];
+            System.arraycopy(bytes, 0, result, 0, position);
+            return result;
+        }
+    }
+}
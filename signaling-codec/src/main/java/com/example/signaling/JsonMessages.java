@@ -0,0 +1,119 @@
+package com.example.signaling;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.kurento.client.IceCandidate;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * 클라이언트 JSON 메시지를 트리(JsonObject)로 만들지 않고 토큰을 읽으면서 바로 메시지로 만듭니다.
+ * 클라이언트는 항상 id를 첫 필드로 보내므로 id를 읽은 뒤 앱의 본문 처리기로 넘기고,
+ * id가 뒤에 있는 메시지만 id를 찾은 다음 처음부터 한 번 더 읽습니다.
+ * 각 앱의 SignalingDecoder는 id마다 어떤 필드를 읽는지만 정합니다.
+ */
+public final class JsonMessages {
+
+    /**
+     * id를 읽은 뒤 나머지 필드를 읽어 메시지를 만든다.
+     * 이미 읽은 id를 포함해 모르는 필드는 모두 건너뛰어야 한다.
+     */
+    @FunctionalInterface
+    public interface Body<M> {
+        M read(String id, JsonReader reader) throws IOException;
+    }
+
+    private JsonMessages() {
+    }
+
+    /**
+     * @throws IllegalArgumentException JSON 객체가 아니거나 id가 없는 경우
+     */
+    public static <M> M decode(String json, Body<M> body) {
+        try {
+            JsonReader reader = new JsonReader(new StringReader(json));
+            reader.beginObject();
+            if (reader.hasNext() && "id".equals(reader.nextName())) {
+                return body.read(reader.nextString(), reader);
+            }
+
+            String id = findId(json);
+            JsonReader reread = new JsonReader(new StringReader(json));
+            reread.beginObject();
+            return body.read(id, reread);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new IllegalArgumentException("잘못된 시그널링 메시지: " + e.getMessage(), e);
+        }
+    }
+
+    private static String findId(String json) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("id".equals(reader.nextName())) {
+                return reader.nextString();
+            }
+            reader.skipValue();
+        }
+        throw new IllegalArgumentException("id가 없는 시그널링 메시지");
+    }
+
+    /**
+     * 문자열 또는 null을 읽는다.
+     */
+    public static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    /**
+     * 문자열 필드 하나만 읽고 나머지는 건너뛴다.
+     */
+    public static String readField(JsonReader reader, String field) throws IOException {
+        String value = null;
+        while (reader.hasNext()) {
+            if (field.equals(reader.nextName())) {
+                value = nextString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 필드가 없는 메시지의 본문을 건너뛰고 message를 돌려준다.
+     */
+    public static <M> M skipRest(JsonReader reader, M message) throws IOException {
+        while (reader.hasNext()) {
+            reader.nextName();
+            reader.skipValue();
+        }
+        return message;
+    }
+
+    /**
+     * {candidate, sdpMid, sdpMLineIndex} 객체 하나를 읽는다.
+     */
+    public static IceCandidate readCandidate(JsonReader reader) throws IOException {
+        String candidate = null;
+        String sdpMid = null;
+        int sdpMLineIndex = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "candidate" -> candidate = nextString(reader);
+                case "sdpMid" -> sdpMid = nextString(reader);
+                case "sdpMLineIndex" -> sdpMLineIndex = reader.nextInt();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new IceCandidate(candidate, sdpMid, sdpMLineIndex);
+    }
+}
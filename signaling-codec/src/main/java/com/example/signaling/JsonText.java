@@ -0,0 +1,60 @@
+package com.example.signaling;
+
+import org.kurento.client.IceCandidate;
+
+/**
+ * 서버가 보내는 JSON 메시지를 미리 크기를 잡은 StringBuilder에 바로 쓰기 위한 조각들.
+ * 각 앱의 SignalingEncoder는 메시지마다 어떤 필드를 쓰는지만 정합니다.
+ */
+public final class JsonText {
+
+    private JsonText() {
+    }
+
+    /**
+     * StringBuilder 크기를 잡을 때 쓰는 길이. null은 "null" 네 글자로 센다.
+     */
+    public static int length(String value) {
+        return value == null ? 4 : value.length();
+    }
+
+    /**
+     * JSON 문자열 리터럴로 이스케이프해서 붙인다. null이면 null을 붙인다.
+     */
+    public static void string(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * {candidate, sdpMid, sdpMLineIndex} 객체를 붙인다.
+     */
+    public static void candidate(StringBuilder json, IceCandidate candidate) {
+        json.append("{\"candidate\":");
+        string(json, candidate.getCandidate());
+        json.append(",\"sdpMid\":");
+        string(json, candidate.getSdpMid());
+        json.append(",\"sdpMLineIndex\":").append(candidate.getSdpMLineIndex()).append('}');
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.signaling;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * 연결의 인코딩(JSON / 바이너리)별 시그널링 바이트 수와 인코딩·디코딩 시간.
+ * 바이너리 연결에서 JSON으로 보낸 메시지도 그 연결의 인코딩으로 집계하여 입장당 바이트를 비교할 수 있게 합니다.
+ * 어느 메시지를 입장 한 번으로 셀지는 recordJoin을 부르는 앱이 정합니다.
+ */
+public final class SignalingStats {
+
+    public enum Encoding { JSON, BINARY }
+
+    private static final Counters json = new Counters();
+    private static final Counters binary = new Counters();
+
+    private SignalingStats() {
+    }
+
+    public static Encoding encodingOf(WebSocketSession session) {
+        return BinaryFrame.PROTOCOL.equals(session.getAcceptedProtocol()) ? Encoding.BINARY : Encoding.JSON;
+    }
+
+    public static void recordInbound(Encoding encoding, int bytes, long decodeNanos) {
+        Counters counters = of(encoding);
+        counters.inboundMessages.increment();
+        counters.inboundBytes.add(bytes);
+        counters.decodeNanos.add(decodeNanos);
+    }
+
+    public static void recordOutbound(Encoding encoding, int bytes, long encodeNanos) {
+        Counters counters = of(encoding);
+        counters.outboundMessages.increment();
+        counters.outboundBytes.add(bytes);
+        counters.encodeNanos.add(encodeNanos);
+    }
+
+    public static void recordJoin(Encoding encoding) {
+        of(encoding).joins.increment();
+    }
+
+    private static Counters of(Encoding encoding) {
+        return encoding == Encoding.BINARY ? binary : json;
+    }
+
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("json", json.toMap());
+        result.put("binary", binary.toMap());
+        return result;
+    }
+
+    private static final class Counters {
+        private final LongAdder inboundMessages = new LongAdder();
+        private final LongAdder inboundBytes = new LongAdder();
+        private final LongAdder decodeNanos = new LongAdder();
+        private final LongAdder outboundMessages = new LongAdder();
+        private final LongAdder outboundBytes = new LongAdder();
+        private final LongAdder encodeNanos = new LongAdder();
+        private final LongAdder joins = new LongAdder();
+
+        private Map<String, Object> toMap() {
+            long in = inboundMessages.sum();
+            long out = outboundMessages.sum();
+            long joinCount = joins.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("joins", joinCount);
+            map.put("inboundMessages", in);
+            map.put("inboundBytes", inboundBytes.sum());
+            map.put("outboundMessages", out);
+            map.put("outboundBytes", outboundBytes.sum());
+            map.put("bytesPerJoin", joinCount == 0 ? 0 : (inboundBytes.sum() + outboundBytes.sum()) / joinCount);
+            map.put("decodeNanosPerMessage", in == 0 ? 0 : decodeNanos.sum() / in);
+            map.put("encodeNanosPerMessage", out == 0 ? 0 : encodeNanos.sum() / out);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+// signal.bin.v1 바이너리 시그널링의 프레임 형식 (서버: BinaryFrame.java)
+// 문자열, varint, ICE 후보를 읽고 쓰는 부분만 있고, 태그별 필드 배치는 각 앱의 signalCodec.js가 정한다.
+const SignalFrame = (function() {
+    const PROTOCOL = 'signal.bin.v1';
+    const JSON_PROTOCOL = 'signal.json';
+
+    const encoder = new TextEncoder();
+    const decoder = new TextDecoder();
+
+    function Writer() {
+        this.bytes = new Uint8Array(256);
+        this.position = 0;
+    }
+
+    Writer.prototype.ensure = function(extra) {
+        if (this.position + extra > this.bytes.length) {
+            const grown = new Uint8Array(Math.max(this.bytes.length * 2, this.position + extra));
+            grown.set(this.bytes.subarray(0, this.position));
+            this.bytes = grown;
+        }
+    };
+
+    Writer.prototype.byte = function(value) {
+        this.ensure(1);
+        this.bytes[this.position++] = value;
+    };
+
+    Writer.prototype.varint = function(value) {
+        this.ensure(5);
+        while (value > 0x7f) {
+            this.bytes[this.position++] = (value & 0x7f) | 0x80;
+            value >>>= 7;
+        }
+        this.bytes[this.position++] = value;
+    };
+
+    Writer.prototype.string = function(value) {
+        if (value === undefined || value === null) {
+            this.varint(0);
+            return;
+        }
+        const utf8 = encoder.encode(value);
+        this.varint(utf8.length + 1);
+        this.ensure(utf8.length);
+        this.bytes.set(utf8, this.position);
+        this.position += utf8.length;
+    };
+
+    Writer.prototype.candidate = function(candidate) {
+        this.string(candidate.candidate);
+        this.string(candidate.sdpMid);
+        this.varint(candidate.sdpMLineIndex);
+    };
+
+    Writer.prototype.finish = function() {
+        return this.bytes.slice(0, this.position).buffer;
+    };
+
+    function Reader(buffer) {
+        this.bytes = new Uint8Array(buffer);
+        this.position = 0;
+    }
+
+    Reader.prototype.byte = function() {
+        if (this.position >= this.bytes.length) {
+            throw new Error('잘린 바이너리 메시지');
+        }
+        return this.bytes[this.position++];
+    };
+
+    Reader.prototype.varint = function() {
+        let value = 0;
+        for (let shift = 0; shift < 35; shift += 7) {
+            const b = this.byte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) === 0) {
+                return value >>> 0;
+            }
+        }
+        throw new Error('잘못된 varint');
+    };
+
+    Reader.prototype.string = function() {
+        const length = this.varint();
+        if (length === 0) {
+            return null;
+        }
+        const end = this.position + length - 1;
+        if (end > this.bytes.length) {
+            throw new Error('잘린 바이너리 메시지');
+        }
+        const value = decoder.decode(this.bytes.subarray(this.position, end));
+        this.position = end;
+        return value;
+    };
+
+    Reader.prototype.candidate = function() {
+        return {
+            candidate: this.string(),
+            sdpMid: this.string(),
+            sdpMLineIndex: this.varint()
+        };
+    };
+
+    return { PROTOCOL, JSON_PROTOCOL, Writer, Reader };
+})();
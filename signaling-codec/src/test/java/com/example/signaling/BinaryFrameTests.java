@@ -0,0 +1,139 @@
+package com.example.signaling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.kurento.client.IceCandidate;
+
+/**
+ * signal.bin.v1 프레임의 문자열, varint, ICE 후보 형식을 확인합니다.
+ * 태그별 필드 배치는 각 앱의 BinarySignalingCodec이 정하므로, 여기서는 시험용 태그 두 개로 프레임을 만듭니다.
+ */
+class BinaryFrameTests {
+    private static final byte CANDIDATE = 0x01;
+    private static final byte NAMES = 0x02;
+
+    private record Candidate(IceCandidate candidate) {
+    }
+
+    private record Names(String[] names) {
+    }
+
+    private static final BinaryFrame.Body<Object> BODY = (tag, body) -> switch (tag) {
+        case CANDIDATE -> new Candidate(BinaryFrame.readCandidate(body));
+        case NAMES -> {
+            String[] names = new String[BinaryFrame.readCount(body)];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = BinaryFrame.readString(body);
+            }
+            yield new Names(names);
+        }
+        default -> null;
+    };
+
+    @Test
+    void candidateRoundTrip() {
+        IceCandidate candidate = new IceCandidate("candidate:2 1 UDP 1686052607 203.0.113.7 61000 typ srflx", "1", 300);
+        BinaryFrame.Writer writer = new BinaryFrame.Writer(16);
+        writer.writeByte(CANDIDATE);
+        writer.writeCandidate(candidate);
+
+        Candidate decoded = (Candidate) decode(writer.toByteArray());
+
+        assertEquals(candidate.getCandidate(), decoded.candidate().getCandidate());
+        assertEquals("1", decoded.candidate().getSdpMid());
+        assertEquals(300, decoded.candidate().getSdpMLineIndex());
+    }
+
+    @Test
+    void stringsRoundTrip() {
+        String sdp = "v=0\r\no=- 0 0 IN IP4 127.0.0.1\r\ns=회의\r\n" + "a=x".repeat(200);
+        String[] names = {"alice", "", null, sdp};
+
+        Names decoded = (Names) decode(names(names));
+
+        assertEquals(Arrays.asList(names), Arrays.asList(decoded.names()));
+    }
+
+    @Test
+    void nullStringsRoundTrip() {
+        BinaryFrame.Writer writer = new BinaryFrame.Writer(4);
+        writer.writeByte(CANDIDATE);
+        writer.writeCandidate(new IceCandidate("candidate:3", null, 1));
+
+        Candidate decoded = (Candidate) decode(writer.toByteArray());
+
+        assertNull(decoded.candidate().getSdpMid());
+        assertEquals(1, decoded.candidate().getSdpMLineIndex());
+    }
+
+    @Test
+    void varintRoundTrip() {
+        for (int value : new int[] {0, 1, 0x7f, 0x80, 0x3fff, 0x4000, Integer.MAX_VALUE, -1}) {
+            BinaryFrame.Writer writer = new BinaryFrame.Writer(1);
+            writer.writeVarint(value);
+
+            assertEquals(value, BinaryFrame.readVarint(ByteBuffer.wrap(writer.toByteArray())));
+        }
+    }
+
+    @Test
+    void decodesDirectBuffer() {
+        byte[] frame = names("밥", "sdp");
+        ByteBuffer direct = ByteBuffer.allocateDirect(frame.length).put(frame).flip();
+
+        Names decoded = (Names) BinaryFrame.decode(direct, BODY);
+
+        assertEquals(Arrays.asList("밥", "sdp"), Arrays.asList(decoded.names()));
+    }
+
+    @Test
+    void rejectsTruncatedFrame() {
+        byte[] frame = names("alice", "밥");
+
+        for (int length = 0; length < frame.length; length++) {
+            byte[] truncated = Arrays.copyOf(frame, length);
+            assertThrows(IllegalArgumentException.class, () -> decode(truncated), "길이 " + length);
+        }
+    }
+
+    @Test
+    void rejectsUnknownTag() {
+        assertThrows(IllegalArgumentException.class, () -> decode(new byte[] {0x7f}));
+    }
+
+    @Test
+    void rejectsNegativeStringLength() {
+        // varint 0xffffffff (-1): 길이 - 1 = -2
+        assertThrows(IllegalArgumentException.class,
+                () -> decode(new byte[] {NAMES, 0x01, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f}));
+        // varint 0x80000000: 길이 - 1 = Integer.MAX_VALUE
+        assertThrows(IllegalArgumentException.class,
+                () -> decode(new byte[] {NAMES, 0x01, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08}));
+    }
+
+    @Test
+    void rejectsNegativeCount() {
+        assertThrows(IllegalArgumentException.class,
+                () -> decode(new byte[] {NAMES, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f}));
+    }
+
+    private static Object decode(byte[] frame) {
+        return BinaryFrame.decode(ByteBuffer.wrap(frame), BODY);
+    }
+
+    private static byte[] names(String... names) {
+        BinaryFrame.Writer writer = new BinaryFrame.Writer(8);
+        writer.writeByte(NAMES);
+        writer.writeVarint(names.length);
+        for (String name : names) {
+            writer.writeString(name);
+        }
+        return writer.toByteArray();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.signaling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.kurento.client.IceCandidate;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * id를 찾아 본문 처리기로 넘기는 부분과 공용 필드 읽기를 확인합니다.
+ * 메시지 종류는 앱마다 다르므로 시험용 메시지 두 개로 읽습니다.
+ */
+class JsonMessagesTests {
+
+    private record Offer(String sdpOffer) {
+    }
+
+    private record Candidate(IceCandidate candidate) {
+    }
+
+    private record Leave() {
+    }
+
+    private record Unknown(String id) {
+    }
+
+    private static Object readBody(String id, JsonReader reader) throws IOException {
+        return switch (id) {
+            case "offer" -> new Offer(JsonMessages.readField(reader, "sdpOffer"));
+            case "candidate" -> {
+                IceCandidate candidate = null;
+                while (reader.hasNext()) {
+                    if ("candidate".equals(reader.nextName())) {
+                        candidate = JsonMessages.readCandidate(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                yield new Candidate(candidate);
+            }
+            case "leave" -> JsonMessages.skipRest(reader, new Leave());
+            default -> new Unknown(id);
+        };
+    }
+
+    @Test
+    void readsBodyAfterLeadingId() {
+        Object decoded = decode("{\"id\":\"offer\",\"extra\":{\"a\":[1,2]},\"sdpOffer\":\"v=0\\r\\n\"}");
+
+        assertEquals(new Offer("v=0\r\n"), decoded);
+    }
+
+    @Test
+    void rereadsWhenIdIsNotFirst() {
+        Object decoded = decode("{\"sdpOffer\":\"sdp\",\"id\":\"offer\"}");
+
+        assertEquals(new Offer("sdp"), decoded);
+    }
+
+    @Test
+    void readsNullString() {
+        assertEquals(new Offer(null), decode("{\"id\":\"offer\",\"sdpOffer\":null}"));
+        assertEquals(new Offer(null), decode("{\"id\":\"offer\"}"));
+    }
+
+    @Test
+    void readsCandidate() {
+        Candidate decoded = (Candidate) decode("{\"id\":\"candidate\",\"candidate\":"
+                + "{\"sdpMLineIndex\":2,\"candidate\":\"candidate:1 1 UDP 2122252543 192.168.0.2 50000 typ host\","
+                + "\"sdpMid\":null,\"usernameFragment\":\"abcd\"}}");
+
+        assertEquals("candidate:1 1 UDP 2122252543 192.168.0.2 50000 typ host", decoded.candidate().getCandidate());
+        assertNull(decoded.candidate().getSdpMid());
+        assertEquals(2, decoded.candidate().getSdpMLineIndex());
+    }
+
+    @Test
+    void skipsRestOfEmptyMessage() {
+        assertEquals(new Leave(), decode("{\"id\":\"leave\",\"reason\":{\"code\":1}}"));
+    }
+
+    @Test
+    void passesUnknownIdToBody() {
+        assertEquals(new Unknown("ping"), decode("{\"id\":\"ping\"}"));
+    }
+
+    @Test
+    void rejectsMalformedMessages() {
+        assertThrows(IllegalArgumentException.class, () -> decode("[]"));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"id\":\"offer\""));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"sdpOffer\":\"sdp\"}"));
+        assertThrows(IllegalArgumentException.class,
+                () -> decode("{\"id\":\"candidate\",\"candidate\":{\"sdpMLineIndex\":\"x\"}}"));
+    }
+
+    private static Object decode(String json) {
+        return JsonMessages.decode(json, JsonMessagesTests::readBody);
+    }
+}
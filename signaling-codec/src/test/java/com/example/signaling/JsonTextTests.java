@@ -0,0 +1,49 @@
+package com.example.signaling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+import org.kurento.client.IceCandidate;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * 직접 쓴 JSON 조각을 Gson으로 다시 읽어 확인합니다.
+ */
+class JsonTextTests {
+
+    @Test
+    void escapesStrings() throws IOException {
+        String value = "따옴표\" 역슬래시\\ 줄\r\n탭\t 제어\u0001 끝";
+        StringBuilder json = new StringBuilder();
+        JsonText.string(json, value);
+
+        assertEquals(value, new JsonReader(new StringReader(json.toString())).nextString());
+    }
+
+    @Test
+    void writesNull() {
+        StringBuilder json = new StringBuilder();
+        JsonText.string(json, null);
+
+        assertEquals("null", json.toString());
+        assertEquals(4, JsonText.length(null));
+    }
+
+    @Test
+    void candidateRoundTrip() throws IOException {
+        IceCandidate candidate = new IceCandidate("candidate:2 1 UDP 1686052607 203.0.113.7 61000 typ srflx", null, 1);
+        StringBuilder json = new StringBuilder();
+        JsonText.candidate(json, candidate);
+
+        IceCandidate decoded = JsonMessages.readCandidate(new JsonReader(new StringReader(json.toString())));
+
+        assertEquals(candidate.getCandidate(), decoded.getCandidate());
+        assertNull(decoded.getSdpMid());
+        assertEquals(1, decoded.getSdpMLineIndex());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.webrtchelloworld;
+
+import java.nio.ByteBuffer;
+
+import org.kurento.client.IceCandidate;
+
+import com.example.signaling.BinaryFrame;
+
+/**
+ * SDP와 ICE 후보 메시지를 위한 바이너리 인코딩 (WebSocket 서브프로토콜 signal.bin.v1).
+ * 나머지 메시지는 같은 연결에서 기존 JSON 텍스트로 주고받습니다.
+ * 프레임, 문자열, 후보 형식은 BinaryFrame을 따르고, 여기서는 태그별 필드 배치만 정합니다.
+ *
+ * <pre>
+ * 0x01 ADD_ICE_CANDIDATE    candidate   (양방향)
+ * 0x02 PROCESS_SDP_OFFER    sdpOffer
+ * 0x03 PROCESS_SDP_ANSWER   sdpAnswer
+ * </pre>
+ * 클라이언트 구현은 static/js/signalCodec.js에 있습니다.
+ */
+public final class BinarySignalingCodec {
+    private static final byte ADD_ICE_CANDIDATE = 0x01;
+    private static final byte PROCESS_SDP_OFFER = 0x02;
+    private static final byte PROCESS_SDP_ANSWER = 0x03;
+
+    private BinarySignalingCodec() {
+    }
+
+    public static byte[] encodeIceCandidate(IceCandidate candidate) {
+        BinaryFrame.Writer writer = new BinaryFrame.Writer(256);
+        writer.writeByte(ADD_ICE_CANDIDATE);
+        writer.writeCandidate(candidate);
+        return writer.toByteArray();
+    }
+
+    public static byte[] encodeSdpAnswer(String sdpAnswer) {
+        BinaryFrame.Writer writer = new BinaryFrame.Writer(8 + BinaryFrame.maxLength(sdpAnswer));
+        writer.writeByte(PROCESS_SDP_ANSWER);
+        writer.writeString(sdpAnswer);
+        return writer.toByteArray();
+    }
+
+    /**
+     * 바이너리 프레임을 JSON 메시지와 같은 SignalingMessage로 읽는다.
+     */
+    public static SignalingMessage decode(ByteBuffer buffer) {
+        return BinaryFrame.decode(buffer, (tag, body) -> switch (tag) {
+            case ADD_ICE_CANDIDATE -> new SignalingMessage.AddIceCandidate(BinaryFrame.readCandidate(body));
+            case PROCESS_SDP_OFFER -> new SignalingMessage.ProcessSdpOffer(BinaryFrame.readString(body));
+            default -> null;
+        });
+    }
+}
@@ -1,17 +1,19 @@
 package com.example.webrtchelloworld;
 
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
@@ -36,20 +38,38 @@ import org.kurento.client.MediaStateChangedEvent;
 import org.kurento.client.MediaTranscodingStateChangedEvent;
 import org.kurento.client.NewCandidatePairSelectedEvent;
 
+import com.example.signaling.SignalingStats;
+
 
 /**
  * Kurento Java Tutorial - WebSocket message handler.
  */
 public class HelloWorldHandler extends TextWebSocketHandler {
     private static final Logger log = LoggerFactory.getLogger(HelloWorldHandler.class);
-    private static final Gson gson = new GsonBuilder().create();
+
+    @FunctionalInterface
+    private interface MessageHandler<T extends SignalingMessage> {
+        void handle(WebSocketSession session, T message) throws Exception;
+    }
 
     // 사용자 세션을 관리하는 동시성 해시맵
     private final ConcurrentHashMap<String, UserSession> users = new ConcurrentHashMap<>();
 
+    // 메시지 타입별 처리기. 생성할 때 한 번 채우고 이후에는 읽기만 한다
+    private final Map<Class<?>, MessageHandler<?>> handlers = new HashMap<>();
+
     @Autowired
     private KurentoClient kurento;
 
+    public HelloWorldHandler() {
+        //피어들을 연결하기 위해 가장 첫번째 단계. 사용자 세션 생성 및 SDP Offer 처리
+        on(SignalingMessage.ProcessSdpOffer.class, this::handleProcessSdpOffer);
+        //sdp가 교환 성공적으로 이뤄지면 Ice Candidate
+        on(SignalingMessage.AddIceCandidate.class, this::handleAddIceCandidate);
+        on(SignalingMessage.Stop.class, this::handleStop);
+        on(SignalingMessage.Error.class, this::handleError);
+    }
+
     /**
      * WebSocket 협상이 성공하고 WebSocket 연결이 완료된 후 호출됩니다.
      * 개봉하여 사용할 준비가 되었습니다.
@@ -67,6 +87,7 @@ public class HelloWorldHandler extends TextWebSocketHandler {
             log.warn("비정상적인 연결 종료, 상태: {}, 세션ID: {}", status, session.getId());
         }
         stop(session);
+        log.info("시그널링 인코딩 통계: {}", SignalingStats.snapshot());
     }
 
 
@@ -75,54 +96,86 @@ public class HelloWorldHandler extends TextWebSocketHandler {
     protected void handleTextMessage(WebSocketSession session,
                                      TextMessage message) throws Exception
     {
-        final String sessionId = session.getId();
-        JsonObject jsonMessage = gson.fromJson(message.getPayload(), JsonObject.class);
+        long start = System.nanoTime();
+        SignalingMessage signal;
+        try {
+            signal = SignalingDecoder.decode(message.getPayload());
+        } catch (IllegalArgumentException ex) {
+            log.error("메시지 해석 실패: {}, 세션ID: {}", ex.getMessage(), session.getId());
+            sendError(session, "[Kurento] 오류: " + ex.getMessage());
+            return;
+        }
+        SignalingStats.recordInbound(SignalingStats.encodingOf(session), message.getPayloadLength(),
+                System.nanoTime() - start);
+        handleMessage(session, signal);
+    }
+
+    // signal.bin.v1 서브프로토콜을 협상한 연결의 바이너리 메시지
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        long start = System.nanoTime();
+        int length = message.getPayloadLength();
+        SignalingMessage signal;
+        try {
+            signal = BinarySignalingCodec.decode(message.getPayload());
+        } catch (IllegalArgumentException ex) {
+            log.error("바이너리 메시지 해석 실패: {}, 세션ID: {}", ex.getMessage(), session.getId());
+            sendError(session, "[Kurento] 오류: " + ex.getMessage());
+            return;
+        }
+        SignalingStats.recordInbound(SignalingStats.Encoding.BINARY, length, System.nanoTime() - start);
+        handleMessage(session, signal);
+    }
 
-        log.info("-------------클라이언트에서 메시지 수신됨: {}, 세션ID: {}------------------", jsonMessage.get("id"), sessionId);
+    @SuppressWarnings("unchecked")
+    private void handleMessage(WebSocketSession session, SignalingMessage message) {
+        final String sessionId = session.getId();
 
+        log.info("-------------클라이언트에서 메시지 수신됨: {}, 세션ID: {}------------------",
+                message.getClass().getSimpleName(), sessionId);
 
+        MessageHandler<SignalingMessage> handler = (MessageHandler<SignalingMessage>) handlers.get(message.getClass());
+        if (handler == null) {
+            log.warn("잘못된 메시지 ID: {}", message instanceof SignalingMessage.Unknown unknown ? unknown.id() : message);
+            return;
+        }
         try {
-            final String messageId = jsonMessage.get("id").getAsString();
-            switch (messageId) {
-
-
-                case "PROCESS_SDP_OFFER":
-                    //피어들을 연결하기 위해 가장 첫번째 단계.
-                    // 사용자 세션 생성 및 SDP Offer 처리
-                    handleProcessSdpOffer(session, jsonMessage);
-                    break;
-
-
-                case "ADD_ICE_CANDIDATE":
-                    //sdp가 교환 성공적으로 이뤄자면 Ice Candidate
-                    handleAddIceCandidate(session, jsonMessage);
-                    break;
-
-                    // 종료
-                case "STOP":
-                    handleStop(session, jsonMessage);
-                    break;
-                    // 에러
-                case "ERROR":
-                    handleError(session, jsonMessage);
-                    break;
-
-                default:
-                    log.warn("잘못된 메시지 ID: {}", messageId);
-                    break;
-            }
+            handler.handle(session, message);
         } catch (Throwable ex) {
             log.error("메시지 처리 중 오류 발생: {}, 세션ID: {}", ex, sessionId);
             sendError(session, "[Kurento] 오류: " + ex.getMessage());
         }
     }
 
+    private <T extends SignalingMessage> void on(Class<T> type, MessageHandler<T> handler) {
+        handlers.put(type, handler);
+    }
+
 
     // WebSocket 메시지 전송 메서드
-    private synchronized void sendMessage(final WebSocketSession session,
-                                          String message)
+    private void sendMessage(final WebSocketSession session, JsonObject message) {
+        long start = System.nanoTime();
+        SignalingStats.Encoding encoding = SignalingStats.encodingOf(session);
+        TextMessage frame = new TextMessage(message.toString());
+        SignalingStats.recordOutbound(encoding, frame.getPayloadLength(), System.nanoTime() - start);
+        sendFrame(session, message.get("id").getAsString(), frame);
+    }
+
+    // SDP Answer와 ICE 후보: 바이너리 서브프로토콜을 협상한 연결이면 바이너리, 아니면 바로 만든 JSON 텍스트
+    private void sendMessage(final WebSocketSession session, OutboundMessage message) {
+        long start = System.nanoTime();
+        SignalingStats.Encoding encoding = SignalingStats.encodingOf(session);
+        WebSocketMessage<?> frame = encoding == SignalingStats.Encoding.BINARY
+                ? new BinaryMessage(message.toBinary())
+                : new TextMessage(message.toJson());
+        SignalingStats.recordOutbound(encoding, frame.getPayloadLength(), System.nanoTime() - start);
+        sendFrame(session, message.id(), frame);
+    }
+
+    private synchronized void sendFrame(final WebSocketSession session, String id,
+                                        WebSocketMessage<?> frame)
     {
-        log.debug("메시지 전송: {}", message);
+        log.debug("메시지 전송: {}", id);
 
         //세션 오픈 유효성
         if (!session.isOpen()) {
@@ -139,7 +192,7 @@ public class HelloWorldHandler extends TextWebSocketHandler {
         }
 
         try {
-            session.sendMessage(new TextMessage(message)); //직접적으로 클라에게 메세지 전송하는부분.
+            session.sendMessage(frame); //직접적으로 클라에게 메세지 전송하는부분.
         } catch (IOException ex) {
             log.error("메시지 전송 중 오류: {}", ex.getMessage());
         }
@@ -153,7 +206,7 @@ public class HelloWorldHandler extends TextWebSocketHandler {
             JsonObject message = new JsonObject();
             message.addProperty("id", "ERROR");
             message.addProperty("message", errMsg);
-            sendMessage(session, message.toString());
+            sendMessage(session, message);
         }
     }
 
@@ -247,10 +300,7 @@ public class HelloWorldHandler extends TextWebSocketHandler {
                     public void onEvent(IceCandidateFoundEvent ev) {
                         log.debug("ICE 후보 발견: {}", JsonUtils.toJson(ev.getCandidate()));
 
-                        JsonObject message = new JsonObject();
-                        message.addProperty("id", "ADD_ICE_CANDIDATE");
-                        message.add("candidate", JsonUtils.toJsonObject(ev.getCandidate()));
-                        sendMessage(session, message.toString());
+                        sendMessage(session, new OutboundMessage.AddIceCandidate(ev.getCandidate()));
                     }
                 });
 
@@ -292,7 +342,7 @@ public class HelloWorldHandler extends TextWebSocketHandler {
 
     // ICE 후보 처리
     private void handleAddIceCandidate(final WebSocketSession session,
-                                       JsonObject jsonMessage)
+                                       SignalingMessage.AddIceCandidate message)
     {
         final String sessionId = session.getId();
         if (!users.containsKey(sessionId)) {
@@ -301,12 +351,7 @@ public class HelloWorldHandler extends TextWebSocketHandler {
         }
 
         final UserSession user = users.get(sessionId);
-        final JsonObject jsonCandidate =
-                jsonMessage.get("candidate").getAsJsonObject();
-        final IceCandidate candidate =
-                new IceCandidate(jsonCandidate.get("candidate").getAsString(),
-                        jsonCandidate.get("sdpMid").getAsString(),
-                        jsonCandidate.get("sdpMLineIndex").getAsInt());
+        final IceCandidate candidate = message.candidate();
 
         WebRtcEndpoint webRtcEp = user.getWebRtcEndpoint();
         webRtcEp.addIceCandidate(candidate);
@@ -327,7 +372,7 @@ public class HelloWorldHandler extends TextWebSocketHandler {
     }
 
     private void handleStop(final WebSocketSession session,
-                            JsonObject jsonMessage)
+                            SignalingMessage.Stop message)
     {
         stop(session);
     }
@@ -337,8 +382,8 @@ public class HelloWorldHandler extends TextWebSocketHandler {
 
     // 에러 처리
     private void handleError(final WebSocketSession session,
-                             JsonObject jsonMessage) {
-        final String errMsg = jsonMessage.get("message").getAsString();
+                             SignalingMessage.Error message) {
+        final String errMsg = message.message();
         log.error("브라우저 에러: " + errMsg);
 
         log.info("에러 발생으로 인한 세션 종료");
@@ -394,10 +439,7 @@ public class HelloWorldHandler extends TextWebSocketHandler {
 //        log.info("브라우저에서 KMS로의 SDP Offer:\n{}", sdpOffer);
 //        log.info("KMS에서 브라우저로의 SDP Answer:\n{}", sdpAnswer);
 
-        JsonObject message = new JsonObject();
-        message.addProperty("id", "PROCESS_SDP_ANSWER");
-        message.addProperty("sdpAnswer", sdpAnswer);
-        sendMessage(session, message.toString());
+        sendMessage(session, new OutboundMessage.ProcessSdpAnswer(sdpAnswer));
     }
 
     private void startWebRtcEndpoint(WebRtcEndpoint webRtcEp) {
@@ -406,7 +448,7 @@ public class HelloWorldHandler extends TextWebSocketHandler {
     }
 
     private void handleProcessSdpOffer(final WebSocketSession session,
-                                       JsonObject jsonMessage) {
+                                       SignalingMessage.ProcessSdpOffer message) {
         // ---- Session handling
 
         final String sessionId = session.getId();
@@ -414,6 +456,8 @@ public class HelloWorldHandler extends TextWebSocketHandler {
         log.info("현재 사용자 수: {}", users.size());
         log.info("새로운 사용자 접속, ID: {}", sessionId);
 
+        SignalingStats.recordJoin(SignalingStats.encodingOf(session));
+
         // 새로운 사용자 세션 생성
         final UserSession user = new UserSession();
         users.put(sessionId, user);
@@ -432,7 +476,7 @@ public class HelloWorldHandler extends TextWebSocketHandler {
 
         // ---- Endpoint configuration
         // SDP 처리 및 엔드포인트 시작
-        String sdpOffer = jsonMessage.get("sdpOffer").getAsString();
+        String sdpOffer = message.sdpOffer();
         initWebRtcEndpoint(session, webRtcEp, sdpOffer);
         startWebRtcEndpoint(webRtcEp);
     }
@@ -0,0 +1,49 @@
+package com.example.webrtchelloworld;
+
+import org.kurento.client.IceCandidate;
+
+/**
+ * 서버가 보내는 SDP/ICE 메시지. JsonObject 없이 바로 JSON 텍스트나 바이너리 프레임으로 만든다.
+ */
+public sealed interface OutboundMessage {
+
+    String id();
+
+    String toJson();
+
+    byte[] toBinary();
+
+    record ProcessSdpAnswer(String sdpAnswer) implements OutboundMessage {
+        @Override
+        public String id() {
+            return "PROCESS_SDP_ANSWER";
+        }
+
+        @Override
+        public String toJson() {
+            return SignalingEncoder.processSdpAnswer(sdpAnswer);
+        }
+
+        @Override
+        public byte[] toBinary() {
+            return BinarySignalingCodec.encodeSdpAnswer(sdpAnswer);
+        }
+    }
+
+    record AddIceCandidate(IceCandidate candidate) implements OutboundMessage {
+        @Override
+        public String id() {
+            return "ADD_ICE_CANDIDATE";
+        }
+
+        @Override
+        public String toJson() {
+            return SignalingEncoder.addIceCandidate(candidate);
+        }
+
+        @Override
+        public byte[] toBinary() {
+            return BinarySignalingCodec.encodeIceCandidate(candidate);
+        }
+    }
+}
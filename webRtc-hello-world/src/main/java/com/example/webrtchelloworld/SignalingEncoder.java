@@ -0,0 +1,30 @@
+package com.example.webrtchelloworld;
+
+import org.kurento.client.IceCandidate;
+
+import com.example.signaling.JsonText;
+
+/**
+ * SDP Answer와 ICE 후보 메시지를 미리 크기를 잡은 StringBuilder 하나로 JSON 텍스트로 만든다.
+ */
+public final class SignalingEncoder {
+
+    private SignalingEncoder() {
+    }
+
+    public static String processSdpAnswer(String sdpAnswer) {
+        // SDP는 줄마다 \r\n이 두 글자로 늘어나므로 길이의 1/16을 여유로 더 잡는다
+        int length = JsonText.length(sdpAnswer);
+        StringBuilder json = new StringBuilder(48 + length + length / 16);
+        json.append("{\"id\":\"PROCESS_SDP_ANSWER\",\"sdpAnswer\":");
+        JsonText.string(json, sdpAnswer);
+        return json.append('}').toString();
+    }
+
+    public static String addIceCandidate(IceCandidate candidate) {
+        StringBuilder json = new StringBuilder(128 + candidate.getCandidate().length());
+        json.append("{\"id\":\"ADD_ICE_CANDIDATE\",\"candidate\":");
+        JsonText.candidate(json, candidate);
+        return json.append('}').toString();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.webrtchelloworld;
+
+import org.kurento.client.IceCandidate;
+
+/**
+ * 브라우저가 보내는 메시지. JSON은 SignalingDecoder, 바이너리는 BinarySignalingCodec이 만든다.
+ */
+public sealed interface SignalingMessage {
+
+    record ProcessSdpOffer(String sdpOffer) implements SignalingMessage {
+    }
+
+    record AddIceCandidate(IceCandidate candidate) implements SignalingMessage {
+    }
+
+    record Stop() implements SignalingMessage {
+    }
+
+    record Error(String message) implements SignalingMessage {
+    }
+
+    // 처리기가 없는 메시지
+    record Unknown(String id) implements SignalingMessage {
+    }
+}
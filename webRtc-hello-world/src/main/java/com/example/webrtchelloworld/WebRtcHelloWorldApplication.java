@@ -8,6 +8,9 @@ import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import com.example.signaling.BinaryFrame;
 
 @SpringBootApplication
 @EnableWebSocket
@@ -27,12 +30,16 @@ public class WebRtcHelloWorldApplication implements WebSocketConfigurer {
     public ServletServerContainerFactoryBean createServletServerContainerFactoryBean() {
         ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
         container.setMaxTextMessageBufferSize(32768);
+        container.setMaxBinaryMessageBufferSize(32768);
         return container;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(handler(), "/helloworld");
+        // 클라이언트가 signal.bin.v1을 요청하면 SDP/ICE 메시지를 바이너리로 주고받는다
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler();
+        handshakeHandler.setSupportedProtocols(BinaryFrame.PROTOCOL, BinaryFrame.JSON_PROTOCOL);
+        registry.addHandler(handler(), "/helloworld").setHandshakeHandler(handshakeHandler);
     }
 
     public static void main(String[] args) throws Exception {
@@ -1,6 +1,8 @@
 
 
-const ws = new WebSocket('ws://' + location.host + '/helloworld');
+// 서버가 지원하면 SDP/ICE 메시지는 바이너리(signal.bin.v1)로, 나머지는 JSON으로 주고받는다
+const ws = new WebSocket('ws://' + location.host + '/helloworld', [SignalCodec.PROTOCOL, SignalCodec.JSON_PROTOCOL]);
+ws.binaryType = 'arraybuffer';
 
 let webRtcPeer;
 
@@ -104,6 +106,12 @@ function sendMessage(message) {
         console.warn("WebSocket 연결이 열려있지 않아 메시지를 전송할 수 없습니다");
         return;
     }
+    const binary = ws.protocol === SignalCodec.PROTOCOL ? SignalCodec.encode(message) : null;
+    if (binary) {
+        console.log("메시지 전송(바이너리): " + message.id + ", " + binary.byteLength + " bytes");
+        ws.send(binary);
+        return;
+    }
     const jsonMessage = JSON.stringify(message);
     console.log("메시지 전송: " + jsonMessage);
     ws.send(jsonMessage);
@@ -117,8 +125,10 @@ function sendMessage(message) {
 
 // WebSocket 메시지 처리
 ws.onmessage = function(message) {
-    const jsonMessage = JSON.parse(message.data);
-    console.log("메시지 수신: " + message.data);
+    const jsonMessage = message.data instanceof ArrayBuffer
+        ? SignalCodec.decode(message.data)
+        : JSON.parse(message.data);
+    console.log("메시지 수신: " + jsonMessage.id);
 
     switch (jsonMessage.id) {
         case 'PROCESS_SDP_ANSWER':
@@ -0,0 +1,41 @@
+// signal.bin.v1 바이너리 시그널링 인코딩 (서버: BinarySignalingCodec.java)
+// SDP와 ICE 후보 메시지만 바이너리로 보내고, 나머지는 JSON 텍스트를 그대로 사용한다.
+// 프레임 형식은 signalFrame.js(signaling-codec)를 따르고, 여기서는 태그별 필드 배치만 정한다.
+const SignalCodec = (function() {
+    const ADD_ICE_CANDIDATE = 0x01;
+    const PROCESS_SDP_OFFER = 0x02;
+    const PROCESS_SDP_ANSWER = 0x03;
+
+    // 바이너리로 표현할 수 없는 메시지면 null을 돌려준다
+    function encode(message) {
+        const writer = new SignalFrame.Writer();
+        switch (message.id) {
+            case 'ADD_ICE_CANDIDATE':
+                writer.byte(ADD_ICE_CANDIDATE);
+                writer.candidate(message.candidate);
+                break;
+            case 'PROCESS_SDP_OFFER':
+                writer.byte(PROCESS_SDP_OFFER);
+                writer.string(message.sdpOffer);
+                break;
+            default:
+                return null;
+        }
+        return writer.finish();
+    }
+
+    function decode(buffer) {
+        const reader = new SignalFrame.Reader(buffer);
+        const tag = reader.byte();
+        switch (tag) {
+            case ADD_ICE_CANDIDATE:
+                return { id: 'ADD_ICE_CANDIDATE', candidate: reader.candidate() };
+            case PROCESS_SDP_ANSWER:
+                return { id: 'PROCESS_SDP_ANSWER', sdpAnswer: reader.string() };
+            default:
+                throw new Error('알 수 없는 바이너리 메시지 태그: ' + tag);
+        }
+    }
+
+    return { PROTOCOL: SignalFrame.PROTOCOL, JSON_PROTOCOL: SignalFrame.JSON_PROTOCOL, encode, decode };
+})();
@@ -0,0 +1,96 @@
+package com.example.webrtcnm;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.webrtcnm.message.IceCandidateEntry;
+import com.example.webrtcnm.message.SignalingMessage;
+import com.example.signaling.BinaryFrame;
+
+/**
+ * 자주 오가는 시그널링 메시지를 위한 바이너리 인코딩 (WebSocket 서브프로토콜 signal.bin.v1).
+ * 나머지 메시지는 같은 연결에서 기존 JSON 텍스트로 주고받습니다.
+ * 프레임, 문자열, 후보 형식은 BinaryFrame을 따르고, 여기서는 태그별 필드 배치만 정합니다.
+ *
+ * <pre>
+ * ice     = name type candidate
+ *
+ * 0x01 onIceCandidate       ice
+ * 0x02 onIceCandidates      count ice*
+ * 0x03 iceCandidate         ice
+ * 0x04 iceCandidates        count ice*
+ * 0x05 receiveVideoFrom     sender sdpOffer
+ * 0x06 receiveVideoAnswer   name sdpAnswer
+ * </pre>
+ * 클라이언트 구현은 static/js/signalCodec.js에 있습니다.
+ */
+public final class BinarySignalingCodec {
+    private static final byte ON_ICE_CANDIDATE = 0x01;
+    private static final byte ON_ICE_CANDIDATES = 0x02;
+    private static final byte ICE_CANDIDATE = 0x03;
+    private static final byte ICE_CANDIDATES = 0x04;
+    private static final byte RECEIVE_VIDEO_FROM = 0x05;
+    private static final byte RECEIVE_VIDEO_ANSWER = 0x06;
+
+    private BinarySignalingCodec() {
+    }
+
+    public static byte[] encodeReceiveVideoAnswer(String name, String sdpAnswer) {
+        BinaryFrame.Writer writer = new BinaryFrame.Writer(
+                16 + BinaryFrame.maxLength(name) + BinaryFrame.maxLength(sdpAnswer));
+        writer.writeByte(RECEIVE_VIDEO_ANSWER);
+        writer.writeString(name);
+        writer.writeString(sdpAnswer);
+        return writer.toByteArray();
+    }
+
+    public static byte[] encodeIceCandidate(IceCandidateEntry entry) {
+        BinaryFrame.Writer writer = new BinaryFrame.Writer(256);
+        writer.writeByte(ICE_CANDIDATE);
+        writeIce(writer, entry);
+        return writer.toByteArray();
+    }
+
+    public static byte[] encodeIceCandidates(List<IceCandidateEntry> candidates) {
+        BinaryFrame.Writer writer = new BinaryFrame.Writer(16 + candidates.size() * 160);
+        writer.writeByte(ICE_CANDIDATES);
+        writer.writeVarint(candidates.size());
+        for (IceCandidateEntry entry : candidates) {
+            writeIce(writer, entry);
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * 클라이언트가 보낸 바이너리 프레임을 JSON 메시지와 같은 SignalingMessage로 읽는다.
+     */
+    public static SignalingMessage decode(ByteBuffer buffer) {
+        return BinaryFrame.decode(buffer, (tag, body) -> switch (tag) {
+            case ON_ICE_CANDIDATE -> new SignalingMessage.OnIceCandidate(readIce(body));
+            case ON_ICE_CANDIDATES -> {
+                int count = BinaryFrame.readCount(body);
+                List<IceCandidateEntry> candidates = new ArrayList<>(Math.min(count, 64));
+                for (int i = 0; i < count; i++) {
+                    candidates.add(readIce(body));
+                }
+                yield new SignalingMessage.OnIceCandidates(candidates);
+            }
+            case RECEIVE_VIDEO_FROM -> new SignalingMessage.ReceiveVideoFrom(
+                    BinaryFrame.readString(body), BinaryFrame.readString(body));
+            default -> null;
+        });
+    }
+
+    private static void writeIce(BinaryFrame.Writer writer, IceCandidateEntry entry) {
+        writer.writeString(entry.name());
+        writer.writeString(entry.type());
+        writer.writeCandidate(entry.candidate());
+    }
+
+    private static IceCandidateEntry readIce(ByteBuffer buffer) {
+        String name = BinaryFrame.readString(buffer);
+        String type = BinaryFrame.readString(buffer);
+        return new IceCandidateEntry(name, type != null ? type : "video", BinaryFrame.readCandidate(buffer));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.webrtcnm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.kurento.client.IceCandidate;
+
+import com.example.webrtcnm.message.IceCandidateEntry;
+import com.example.webrtcnm.message.OutboundMessage;
+
+public class IceCandidateBatcher {
+    private static final long FLUSH_WINDOW_MS = 20;
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ice-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Consumer<OutboundMessage> sink;
+    private final ConcurrentHashMap<String, Set<String>> sentByName = new ConcurrentHashMap<>();
+    private List<IceCandidateEntry> pending;
+
+    public IceCandidateBatcher(Consumer<OutboundMessage> sink) {
+        this.sink = sink;
+    }
+
+    public void add(String name, IceCandidate candidate) {
+        Set<String> sent = sentByName.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
+        if (!sent.add(candidate.getCandidate())) {
+            return;
+        }
+
+        IceCandidateEntry entry = new IceCandidateEntry(name, null, candidate);
+
+        synchronized (this) {
+            if (pending == null) {
+                pending = new ArrayList<>();
+                flusher.schedule(this::flush, FLUSH_WINDOW_MS, TimeUnit.MILLISECONDS);
+            }
+            pending.add(entry);
+        }
+    }
+
+    public void forget(String name) {
+        sentByName.remove(name);
+    }
+
+    private void flush() {
+        List<IceCandidateEntry> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = null;
+        }
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+
+        sink.accept(new OutboundMessage.IceCandidates(batch));
+    }
+}
@@ -35,7 +35,7 @@ public class Room implements Closeable {
     }
 
     public UserSession join(String userName, WebSocketSession session) throws IOException {
-        UserSession participant = new UserSession(userName, name, session, pipeline);
+        UserSession participant = UserSession.create(userName, name, session, pipeline);
         notifyParticipants("newParticipantArrived", userName);
         participants.put(userName, participant);
         sendParticipantsList(participant);
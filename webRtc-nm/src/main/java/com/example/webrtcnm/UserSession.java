@@ -3,6 +3,9 @@ package com.example.webrtcnm;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -11,13 +14,18 @@ import org.kurento.client.EventListener;
 import org.kurento.client.IceCandidate;
 import org.kurento.client.IceCandidateFoundEvent;
 import org.kurento.client.MediaPipeline;
+import org.kurento.client.TFuture;
+import org.kurento.client.Transaction;
 import org.kurento.client.WebRtcEndpoint;
-import org.kurento.jsonrpc.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 
+import com.example.signaling.SignalingStats;
+import com.example.webrtcnm.message.OutboundMessage;
 import com.google.gson.JsonObject;
 
 public class UserSession implements Closeable {
@@ -27,53 +35,71 @@ public class UserSession implements Closeable {
     private final String roomName;
     private final WebRtcEndpoint outgoingMedia;
     private final ConcurrentHashMap<String, WebRtcEndpoint> incomingMedia = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<IceCandidate>> pendingCandidates = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> appliedCandidates = new ConcurrentHashMap<>();
+    private final IceCandidateBatcher iceBatcher;
+    private final MediaPipeline pipeline;
 
-    public UserSession(String name, String roomName, WebSocketSession session, MediaPipeline pipeline) {
+    private UserSession(String name, String roomName, WebSocketSession session, MediaPipeline pipeline) {
         this.name = name;
         this.session = session;
         this.roomName = roomName;
+        this.pipeline = pipeline;
         this.outgoingMedia = new WebRtcEndpoint.Builder(pipeline).build();
-        this.outgoingMedia.addIceCandidateFoundListener(event -> {
-            JsonObject response = new JsonObject();
-            response.addProperty("id", "iceCandidate");
-            response.addProperty("name", name);
-            response.add("candidate", JsonUtils.toJsonObject(event.getCandidate()));
-            sendMessage(response);
-        });
+        this.iceBatcher = new IceCandidateBatcher(message -> sendMessage(session, name, message));
     }
 
-    public void receiveVideoFrom(UserSession sender, String sdpOffer) throws IOException {
-        String ipSdpAnswer = getEndpointForUser(sender).processOffer(sdpOffer);
-        JsonObject answer = new JsonObject();
-        answer.addProperty("id", "receiveVideoAnswer");
-        answer.addProperty("name", sender.getName());
-        answer.addProperty("sdpAnswer", ipSdpAnswer);
-        sendMessage(answer);
-        getEndpointForUser(sender).gatherCandidates();
+    /**
+     * 송신 엔드포인트를 만들고, 생성이 끝난 뒤에 ICE 후보 리스너를 등록한다.
+     */
+    public static UserSession create(String name, String roomName, WebSocketSession session, MediaPipeline pipeline) {
+        UserSession user = new UserSession(name, roomName, session, pipeline);
+        user.outgoingMedia.addIceCandidateFoundListener(event -> user.iceBatcher.add(name, event.getCandidate()));
+        return user;
     }
 
-    private WebRtcEndpoint getEndpointForUser(UserSession sender) {
-        if (sender.getName().equals(name)) {
-            return outgoingMedia;
+    public void receiveVideoFrom(UserSession sender, String sdpOffer) throws IOException {
+        WebRtcEndpoint endpoint = sender.getName().equals(name) ? outgoingMedia : incomingMedia.get(sender.getName());
+        if (endpoint == null) {
+            createEndpointForUser(sender, sdpOffer);
+            return;
         }
+        String ipSdpAnswer = endpoint.processOffer(sdpOffer);
+        sendMessage(new OutboundMessage.ReceiveVideoAnswer(sender.getName(), ipSdpAnswer));
+        endpoint.gatherCandidates();
+    }
 
-        WebRtcEndpoint incoming = incomingMedia.get(sender.getName());
-        if (incoming == null) {
-            incoming = new WebRtcEndpoint.Builder(sender.outgoingMedia.getMediaPipeline()).build();
-            incoming.addIceCandidateFoundListener(event -> {
-                JsonObject response = new JsonObject();
-                response.addProperty("id", "iceCandidate");
-                response.addProperty("name", sender.getName());
-                response.add("candidate", JsonUtils.toJsonObject(event.getCandidate()));
-                sendMessage(response);
-            });
-            incomingMedia.put(sender.getName(), incoming);
-            sender.getOutgoingWebRtcPeer().connect(incoming);
+    /**
+     * 수신 엔드포인트 생성, 송신자 연결, processOffer, 미리 도착한 ICE 후보를 트랜잭션 하나로 보낸다.
+     * 리스너 등록과 gatherCandidates는 트랜잭션에 넣을 수 없어 따로 호출한다.
+     */
+    private void createEndpointForUser(UserSession sender, String sdpOffer) {
+        String senderName = sender.getName();
+        Transaction tx = pipeline.beginTransaction();
+        WebRtcEndpoint incoming = new WebRtcEndpoint.Builder(pipeline).build(tx);
+        sender.getOutgoingWebRtcPeer().connect(tx, incoming);
+        TFuture<String> ipSdpAnswer = incoming.processOffer(tx, sdpOffer);
+        List<IceCandidate> early = pendingCandidates.remove(senderName);
+        if (early != null) {
+            early.forEach(candidate -> incoming.addIceCandidate(tx, candidate));
+        }
+        tx.commit();
+
+        incoming.addIceCandidateFoundListener(event -> iceBatcher.add(senderName, event.getCandidate()));
+        // 트랜잭션과 put 사이에 도착한 후보는 put 뒤에 적용한다
+        incomingMedia.put(senderName, incoming);
+        List<IceCandidate> late = pendingCandidates.remove(senderName);
+        if (late != null) {
+            applyCandidates(incoming, late);
         }
-        return incoming;
+        sendMessage(new OutboundMessage.ReceiveVideoAnswer(senderName, ipSdpAnswer.get()));
+        incoming.gatherCandidates();
     }
 
     public void cancelVideoFrom(String senderName) {
+        pendingCandidates.remove(senderName);
+        appliedCandidates.remove(senderName);
+        iceBatcher.forget(senderName);
         WebRtcEndpoint incoming = incomingMedia.remove(senderName);
         if (incoming != null) {
             incoming.release();
@@ -81,20 +107,75 @@ public class UserSession implements Closeable {
     }
 
     public void addCandidate(IceCandidate candidate, String name) {
+        addCandidates(List.of(candidate), name);
+    }
+
+    public void addCandidates(List<IceCandidate> candidates, String name) {
+        Set<String> applied = appliedCandidates.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet());
+        List<IceCandidate> fresh = new ArrayList<>();
+        for (IceCandidate candidate : candidates) {
+            if (applied.add(candidate.getCandidate())) {
+                fresh.add(candidate);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
         if (this.name.equals(name)) {
-            outgoingMedia.addIceCandidate(candidate);
-        } else {
-            WebRtcEndpoint endpoint = incomingMedia.get(name);
+            applyCandidates(outgoingMedia, fresh);
+            return;
+        }
+
+        // 수신 엔드포인트가 아직 없으면 생성될 때까지 보관한다
+        pendingCandidates.compute(name, (k, early) -> {
+            WebRtcEndpoint endpoint = incomingMedia.get(k);
             if (endpoint != null) {
-                endpoint.addIceCandidate(candidate);
+                applyCandidates(endpoint, fresh);
+                return early;
             }
+            List<IceCandidate> buffered = early != null ? early : new ArrayList<>();
+            buffered.addAll(fresh);
+            return buffered;
+        });
+    }
+
+    private void applyCandidates(WebRtcEndpoint endpoint, List<IceCandidate> candidates) {
+        if (candidates.size() == 1) {
+            endpoint.addIceCandidate(candidates.get(0));
+            return;
         }
+        Transaction tx = pipeline.beginTransaction();
+        candidates.forEach(candidate -> endpoint.addIceCandidate(tx, candidate));
+        tx.commit();
     }
 
     public void sendMessage(JsonObject message) {
+        long start = System.nanoTime();
+        TextMessage frame = new TextMessage(message.toString());
+        SignalingStats.recordOutbound(SignalingStats.encodingOf(session), frame.getPayloadLength(),
+                System.nanoTime() - start);
+        send(session, name, frame);
+    }
+
+    public void sendMessage(OutboundMessage message) {
+        sendMessage(session, name, message);
+    }
+
+    private static void sendMessage(WebSocketSession session, String name, OutboundMessage message) {
+        long start = System.nanoTime();
+        SignalingStats.Encoding encoding = SignalingStats.encodingOf(session);
+        WebSocketMessage<?> frame = encoding == SignalingStats.Encoding.BINARY
+                ? new BinaryMessage(message.toBinary())
+                : new TextMessage(message.toJson());
+        SignalingStats.recordOutbound(encoding, frame.getPayloadLength(), System.nanoTime() - start);
+        send(session, name, frame);
+    }
+
+    private static void send(WebSocketSession session, String name, WebSocketMessage<?> frame) {
         try {
             synchronized (session) {
-                session.sendMessage(new TextMessage(message.toString()));
+                session.sendMessage(frame);
             }
         } catch (IOException e) {
             log.error("Error sending message to user {}: {}", name, e.getMessage());
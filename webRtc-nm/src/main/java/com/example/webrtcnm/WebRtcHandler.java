@@ -1,8 +1,14 @@
 package com.example.webrtcnm;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
+import com.example.signaling.SignalingStats;
+import com.example.webrtcnm.message.IceCandidateEntry;
+import com.example.webrtcnm.message.SignalingDecoder;
+import com.example.webrtcnm.message.SignalingMessage;
+import com.example.webrtcnm.message.SignalingMessage.JoinRoom;
+import com.example.webrtcnm.message.SignalingMessage.LeaveRoom;
+import com.example.webrtcnm.message.SignalingMessage.OnIceCandidate;
+import com.example.webrtcnm.message.SignalingMessage.OnIceCandidates;
+import com.example.webrtcnm.message.SignalingMessage.ReceiveVideoFrom;
 import org.kurento.client.IceCandidate;
 import org.kurento.client.KurentoClient;
 import org.kurento.client.MediaPipeline;
@@ -11,16 +17,30 @@ import org.kurento.jsonrpc.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class WebRtcHandler extends TextWebSocketHandler {
-    private final Gson gson = new Gson();
+    private static final Logger log = LoggerFactory.getLogger(WebRtcHandler.class);
+
+    @FunctionalInterface
+    private interface MessageHandler<T extends SignalingMessage> {
+        void handle(T message, UserSession user, WebSocketSession session) throws Exception;
+    }
+
+    // 메시지 타입별 처리기 (생성 시 한 번 만들고 이후에는 읽기만 한다)
+    private final Map<Class<?>, MessageHandler<?>> handlers = new HashMap<>();
 
     @Autowired
     private RoomManager roomManager;
@@ -28,39 +48,66 @@ public class WebRtcHandler extends TextWebSocketHandler {
     @Autowired
     private UserRegistry registry;
 
-    @Override
-    public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        JsonObject jsonMessage = gson.fromJson(message.getPayload(), JsonObject.class);
-        UserSession user = registry.getBySession(session);
+    public WebRtcHandler() {
+        on(JoinRoom.class, (message, user, session) -> {
+            SignalingStats.recordJoin(SignalingStats.encodingOf(session));
+            Room room = roomManager.getRoom(message.room());
+            registry.register(room.join(message.name(), session));
+        });
+        on(ReceiveVideoFrom.class, (message, user, session) -> {
+            UserSession sender = registry.getByName(message.sender());
+            user.receiveVideoFrom(sender, message.sdpOffer());
+        });
+        on(LeaveRoom.class, (message, user, session) -> leaveRoom(user));
+        on(OnIceCandidate.class, (message, user, session) -> {
+            if (user != null) {
+                user.addCandidate(message.entry().candidate(), message.entry().name());
+            }
+        });
+        on(OnIceCandidates.class, (message, user, session) -> {
+            if (user != null) {
+                Map<String, List<IceCandidate>> byName = new LinkedHashMap<>();
+                for (IceCandidateEntry entry : message.candidates()) {
+                    byName.computeIfAbsent(entry.name(), k -> new ArrayList<>()).add(entry.candidate());
+                }
+                byName.forEach((name, candidates) -> user.addCandidates(candidates, name));
+            }
+        });
+    }
 
-        switch (jsonMessage.get("id").getAsString()) {
-            case "joinRoom":
-                String roomName = jsonMessage.get("room").getAsString();
-                String userName = jsonMessage.get("name").getAsString();
-                Room room = roomManager.getRoom(roomName);
-                registry.register(room.join(userName, session));
-                break;
+    private <T extends SignalingMessage> void on(Class<T> type, MessageHandler<T> handler) {
+        handlers.put(type, handler);
+    }
 
-            case "receiveVideoFrom":
-                UserSession sender = registry.getByName(jsonMessage.get("sender").getAsString());
-                user.receiveVideoFrom(sender, jsonMessage.get("sdpOffer").getAsString());
-                break;
+    @Override
+    public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        long start = System.nanoTime();
+        SignalingMessage signal = SignalingDecoder.decode(message.getPayload());
+        SignalingStats.recordInbound(SignalingStats.encodingOf(session), message.getPayloadLength(),
+                System.nanoTime() - start);
+        handleMessage(session, signal);
+    }
 
-            case "leaveRoom":
-                leaveRoom(user);
-                break;
+    // signal.bin.v1 서브프로토콜을 협상한 연결은 ICE/SDP 메시지를 바이너리로 보낸다
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        long start = System.nanoTime();
+        int length = message.getPayloadLength();
+        SignalingMessage signal = BinarySignalingCodec.decode(message.getPayload());
+        SignalingStats.recordInbound(SignalingStats.Encoding.BINARY, length, System.nanoTime() - start);
+        try {
+            handleMessage(session, signal);
+        } catch (Exception e) {
+            log.error("바이너리 시그널링 메시지 처리 실패 - 세션: {}, 메시지: {}", session.getId(),
+                    signal.getClass().getSimpleName(), e);
+        }
+    }
 
-            case "onIceCandidate":
-                JsonObject candidate = jsonMessage.get("candidate").getAsJsonObject();
-                if (user != null) {
-                    IceCandidate cand = new IceCandidate(
-                            candidate.get("candidate").getAsString(),
-                            candidate.get("sdpMid").getAsString(),
-                            candidate.get("sdpMLineIndex").getAsInt()
-                    );
-                    user.addCandidate(cand, jsonMessage.get("name").getAsString());
-                }
-                break;
+    @SuppressWarnings("unchecked")
+    private void handleMessage(WebSocketSession session, SignalingMessage message) throws Exception {
+        MessageHandler<SignalingMessage> handler = (MessageHandler<SignalingMessage>) handlers.get(message.getClass());
+        if (handler != null) {
+            handler.handle(message, registry.getBySession(session), session);
         }
     }
 
@@ -74,6 +121,7 @@ public class WebRtcHandler extends TextWebSocketHandler {
                 roomManager.removeRoom(room);
             }
         }
+        log.info("시그널링 인코딩 통계: {}", SignalingStats.snapshot());
     }
 
     private void leaveRoom(UserSession user) throws Exception {
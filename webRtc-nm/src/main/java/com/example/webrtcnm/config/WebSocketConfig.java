@@ -1,5 +1,6 @@
 package com.example.webrtcnm.config;
 
+import com.example.signaling.BinaryFrame;
 import com.example.webrtcnm.RoomManager;
 import com.example.webrtcnm.UserRegistry;
 import com.example.webrtcnm.WebRtcHandler;
@@ -9,6 +10,7 @@ import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 @EnableWebSocket
 @Configuration
 public class WebSocketConfig implements WebSocketConfigurer {
@@ -30,11 +32,14 @@ public class WebSocketConfig implements WebSocketConfigurer {
     public ServletServerContainerFactoryBean createServletServerContainerFactoryBean() {
         ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
         container.setMaxTextMessageBufferSize(32768);
+        container.setMaxBinaryMessageBufferSize(32768);
         return container;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(webRtcHandler(), "/webrtc");
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler();
+        handshakeHandler.setSupportedProtocols(BinaryFrame.PROTOCOL, BinaryFrame.JSON_PROTOCOL);
+        registry.addHandler(webRtcHandler(), "/webrtc").setHandshakeHandler(handshakeHandler);
     }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.example.webrtcnm.message;
+
+import org.kurento.client.IceCandidate;
+
+/**
+ * 어느 엔드포인트의 후보인지(name, type)와 후보 자체.
+ *
+ * @param name 송신자 이름 (자기 자신이면 송신 엔드포인트)
+ * @param type 바이너리 프레임과 호환을 위한 필드. 이 앱은 영상 후보("video")만 주고받는다
+ */
+public record IceCandidateEntry(String name, String type, IceCandidate candidate) {
+}
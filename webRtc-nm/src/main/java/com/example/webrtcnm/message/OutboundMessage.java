@@ -0,0 +1,81 @@
+package com.example.webrtcnm.message;
+
+import java.util.List;
+
+import com.example.webrtcnm.BinarySignalingCodec;
+
+/**
+ * 자주 보내는 서버 메시지. JsonObject를 거치지 않고 미리 크기를 잡은 버퍼에 바로 직렬화합니다.
+ */
+public sealed interface OutboundMessage {
+
+    String id();
+
+    /** 송신 큐의 입장/퇴장 알림 합치기에 쓰는 대상 이름. 없으면 null */
+    String name();
+
+    String toJson();
+
+    byte[] toBinary();
+
+    record ReceiveVideoAnswer(String name, String sdpAnswer) implements OutboundMessage {
+        @Override
+        public String id() {
+            return "receiveVideoAnswer";
+        }
+
+        @Override
+        public String toJson() {
+            return SignalingEncoder.receiveVideoAnswer(name, sdpAnswer);
+        }
+
+        @Override
+        public byte[] toBinary() {
+            return BinarySignalingCodec.encodeReceiveVideoAnswer(name, sdpAnswer);
+        }
+    }
+
+    record IceCandidate(IceCandidateEntry entry) implements OutboundMessage {
+        @Override
+        public String id() {
+            return "iceCandidate";
+        }
+
+        @Override
+        public String name() {
+            return entry.name();
+        }
+
+        @Override
+        public String toJson() {
+            return SignalingEncoder.iceCandidate(entry);
+        }
+
+        @Override
+        public byte[] toBinary() {
+            return BinarySignalingCodec.encodeIceCandidate(entry);
+        }
+    }
+
+    record IceCandidates(List<IceCandidateEntry> candidates) implements OutboundMessage {
+        @Override
+        public String id() {
+            return "iceCandidates";
+        }
+
+        @Override
+        public String name() {
+            return null;
+        }
+
+        @Override
+        public String toJson() {
+            return SignalingEncoder.iceCandidates(candidates);
+        }
+
+        @Override
+        public byte[] toBinary() {
+            return BinarySignalingCodec.encodeIceCandidates(candidates);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.webrtcnm.message;
+
+import java.util.List;
+
+import com.example.signaling.JsonText;
+
+/**
+ * 자주 보내는 메시지를 StringBuilder 하나로 바로 JSON 텍스트로 만듭니다.
+ * SDP는 줄마다 \r\n이 두 글자로 늘어나므로 길이의 1/16을 여유로 더 잡습니다.
+ */
+public final class SignalingEncoder {
+
+    private SignalingEncoder() {
+    }
+
+    public static String receiveVideoAnswer(String name, String sdpAnswer) {
+        StringBuilder json = new StringBuilder(48 + JsonText.length(name) + JsonText.length(sdpAnswer)
+                + JsonText.length(sdpAnswer) / 16);
+        json.append("{\"id\":\"receiveVideoAnswer\",\"name\":");
+        JsonText.string(json, name);
+        json.append(",\"sdpAnswer\":");
+        JsonText.string(json, sdpAnswer);
+        return json.append('}').toString();
+    }
+
+    public static String iceCandidate(IceCandidateEntry entry) {
+        StringBuilder json = new StringBuilder(64 + candidateLength(entry));
+        json.append("{\"id\":\"iceCandidate\",");
+        candidateFields(json, entry);
+        return json.append('}').toString();
+    }
+
+    public static String iceCandidates(List<IceCandidateEntry> candidates) {
+        int capacity = 40;
+        for (IceCandidateEntry entry : candidates) {
+            capacity += 16 + candidateLength(entry);
+        }
+        StringBuilder json = new StringBuilder(capacity);
+        json.append("{\"id\":\"iceCandidates\",\"candidates\":[");
+        for (int i = 0; i < candidates.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('{');
+            candidateFields(json, candidates.get(i));
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void candidateFields(StringBuilder json, IceCandidateEntry entry) {
+        json.append("\"name\":");
+        JsonText.string(json, entry.name());
+        if (entry.type() != null) {
+            json.append(",\"type\":");
+            JsonText.string(json, entry.type());
+        }
+        json.append(",\"candidate\":");
+        JsonText.candidate(json, entry.candidate());
+    }
+
+    private static int candidateLength(IceCandidateEntry entry) {
+        return 80 + JsonText.length(entry.name()) + JsonText.length(entry.type())
+                + JsonText.length(entry.candidate().getCandidate()) + JsonText.length(entry.candidate().getSdpMid());
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.webrtcnm.message;
+
+import java.util.List;
+
+/**
+ * 클라이언트가 보내는 시그널링 메시지. SignalingDecoder가 JSON 토큰에서 바로 만들어 냅니다.
+ */
+public sealed interface SignalingMessage {
+
+    record JoinRoom(String room, String name) implements SignalingMessage {
+    }
+
+    record ReceiveVideoFrom(String sender, String sdpOffer) implements SignalingMessage {
+    }
+
+    record LeaveRoom() implements SignalingMessage {
+    }
+
+    record OnIceCandidate(IceCandidateEntry entry) implements SignalingMessage {
+    }
+
+    record OnIceCandidates(List<IceCandidateEntry> candidates) implements SignalingMessage {
+    }
+
+    /** 처리기가 없는 메시지 */
+    record Unknown(String id) implements SignalingMessage {
+    }
+}
@@ -1,11 +1,12 @@
-const ws = new WebSocket('ws://' + location.host + '/webrtc');
+const ws = new WebSocket('ws://' + location.host + '/webrtc', [SignalCodec.PROTOCOL, SignalCodec.JSON_PROTOCOL]);
+ws.binaryType = 'arraybuffer';
 const participants = new Map();
 let name;
 
 window.onbeforeunload = () => ws.close();
 
 ws.onmessage = async ({ data }) => {
-    const message = JSON.parse(data);
+    const message = data instanceof ArrayBuffer ? SignalCodec.decode(data) : JSON.parse(data);
     console.info('Received message:', message);
 
     switch (message.id) {
@@ -29,6 +30,12 @@ ws.onmessage = async ({ data }) => {
             await handleIceCandidate(message);
             break;
 
+        case 'iceCandidates':
+            for (const candidate of message.candidates) {
+                await handleIceCandidate(candidate);
+            }
+            break;
+
         default:
             console.error('Unrecognized message', message);
     }
@@ -110,9 +117,33 @@ function leaveRoom() {
 }
 
 function sendMessage(message) {
-    const jsonMessage = JSON.stringify(message);
     console.log('Sending message:', message);
-    ws.send(jsonMessage);
+    const binary = ws.protocol === SignalCodec.PROTOCOL ? SignalCodec.encode(message) : null;
+    ws.send(binary || JSON.stringify(message));
+}
+
+// ICE 후보는 짧은 시간 모아서 onIceCandidates 메시지 하나로 보낸다
+const ICE_BATCH_WINDOW_MS = 20;
+let pendingIceCandidates = [];
+let iceFlushTimer = null;
+
+function sendIceCandidate(participantName, candidate) {
+    pendingIceCandidates.push({ name: participantName, candidate: candidate });
+    if (!iceFlushTimer) {
+        iceFlushTimer = setTimeout(flushIceCandidates, ICE_BATCH_WINDOW_MS);
+    }
+}
+
+function flushIceCandidates() {
+    iceFlushTimer = null;
+    if (pendingIceCandidates.length === 0) {
+        return;
+    }
+    sendMessage({
+        id: 'onIceCandidates',
+        candidates: pendingIceCandidates
+    });
+    pendingIceCandidates = [];
 }
 
 // Make functions available globally for HTML events
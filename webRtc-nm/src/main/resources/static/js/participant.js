@@ -37,11 +37,7 @@ class Participant {
         // ICE 후보 이벤트 처리
         this.peerConnection.onicecandidate = ({candidate}) => {
             if (candidate) {
-                sendMessage({
-                    id: 'onIceCandidate',
-                    candidate: candidate,
-                    name: this.name
-                });
+                sendIceCandidate(this.name, candidate);
             }
         };
 
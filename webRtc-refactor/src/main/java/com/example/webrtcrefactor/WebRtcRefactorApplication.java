@@ -1,5 +1,6 @@
 package com.example.webrtcrefactor;
 
+import java.util.Map;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -9,7 +10,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class WebRtcRefactorApplication   {
 
 	public static void main(String[] args) {
-		SpringApplication.run(WebRtcRefactorApplication.class, args);
+		SpringApplication application = new SpringApplication(WebRtcRefactorApplication.class);
+		// /actuator/prometheus 노출 (group-call과 같은 메트릭 이름을 application 태그로 구분)
+		application.setDefaultProperties(Map.of(
+				"management.endpoints.web.exposure.include", "health,prometheus",
+				"management.metrics.tags.application", "webRtc-refactor"));
+		application.run(args);
 	}
 
 }
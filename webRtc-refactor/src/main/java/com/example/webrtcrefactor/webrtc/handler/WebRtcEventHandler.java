@@ -2,8 +2,13 @@ package com.example.webrtcrefactor.webrtc.handler;
 
 
 import com.google.gson.JsonObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.kurento.client.BaseRtpEndpoint;
+import org.kurento.client.IceComponentState;
+import org.kurento.client.MediaFlowState;
 import org.kurento.client.WebRtcEndpoint;
 import org.kurento.jsonrpc.JsonUtils;
 import org.slf4j.Logger;
@@ -13,12 +18,77 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 @RequiredArgsConstructor
 public class WebRtcEventHandler {
     private static final Logger log = LoggerFactory.getLogger(WebRtcEventHandler.class);
+    // ICE 재시작 한도: 엔드포인트마다 1분 안에 3번까지. DISCONNECTED는 2초 안에 스스로 돌아오지 않을 때만 재시작한다
+    private static final int MAX_ICE_RESTARTS = 3;
+    private static final long ICE_RESTART_WINDOW_MS = 60_000;
+    private static final long DISCONNECTED_GRACE_MS = 2_000;
     private final WebSocketMessageSender messageSender;
+    private final MeterRegistry meterRegistry;
+
+    // 엔드포인트 ID별 gatherCandidates 호출 시각. 이미 등록된 리스너에서 수집 완료/미디어 수신까지의 시간을 잰다
+    private final Map<String, Gathering> gatherings = new ConcurrentHashMap<>();
+
+    // 엔드포인트 ID별 ICE 재시작 상태
+    private final Map<String, IceRestarts> iceRestarts = new ConcurrentHashMap<>();
+
+    private record Gathering(long startedAt, AtomicBoolean flowing) {
+    }
+
+    /**
+     * failedAt은 끊긴 것을 안 시각 (0이면 연결됨), restartedAt은 진행 중인 재시작을 요청한 시각 (0이면 없음),
+     * answered는 그 재시작 offer에 응답했는지, attempts는 window 안의 재시작 시각들,
+     * exhausted는 한도를 다 써서 엔드포인트가 해제될 때까지 더 재시작하지 않는지. 객체 자체로 동기화한다
+     */
+    private static final class IceRestarts {
+        long failedAt;
+        long restartedAt;
+        boolean answered;
+        boolean exhausted;
+        final ArrayDeque<Long> attempts = new ArrayDeque<>();
+    }
+
+    /**
+     * WebRtcService가 gatherCandidates를 호출하기 직전에 부른다.
+     */
+    public void gatheringStarted(WebRtcEndpoint webRtcEp) {
+        gatherings.put(webRtcEp.getId(), new Gathering(System.nanoTime(), new AtomicBoolean()));
+    }
+
+    public void endpointReleased(WebRtcEndpoint webRtcEp) {
+        gatherings.remove(webRtcEp.getId());
+        iceRestarts.remove(webRtcEp.getId());
+    }
+
+    /**
+     * WebRtcService가 ICE 재시작 offer에 응답했다. 이후의 FAILED는 이번 재시작이 실패한 것으로 센다.
+     */
+    public void iceRestartAnswered(WebRtcEndpoint webRtcEp) {
+        IceRestarts restarts = iceRestarts.get(webRtcEp.getId());
+        if (restarts != null) {
+            synchronized (restarts) {
+                restarts.answered = restarts.restartedAt != 0;
+            }
+        }
+    }
+
+    public void iceRestartReplaced() {
+        iceRestartCounter("replaced").increment();
+    }
+
+    public void recordProcessOffer(long nanos) {
+        timer("webrtc.sdp.process.offer", "SDP processOffer 시간").record(nanos, TimeUnit.NANOSECONDS);
+    }
 
     public void initializeEventListeners(final WebSocketSession session, final WebRtcEndpoint webRtcEp) {
         initBaseEventListeners(session, webRtcEp);
@@ -40,9 +110,16 @@ public class WebRtcEventHandler {
         });
 
         // 미디어 입력 상태 변경 이벤트
-        baseRtpEp.addMediaFlowInStateChangedListener(ev ->
-                log.info("미디어 입력 상태 변경 - 상태: {}, 미디어타입: {}", ev.getState(), ev.getMediaType())
-        );
+        baseRtpEp.addMediaFlowInStateChangedListener(ev -> {
+            log.info("미디어 입력 상태 변경 - 상태: {}, 미디어타입: {}", ev.getState(), ev.getMediaType());
+
+            Gathering gathering = gatherings.get(baseRtpEp.getId());
+            if (ev.getState() == MediaFlowState.FLOWING && gathering != null
+                    && gathering.flowing().compareAndSet(false, true)) {
+                timer("webrtc.media.flowing", "gatherCandidates부터 첫 MediaFlowIn FLOWING까지")
+                        .record(System.nanoTime() - gathering.startedAt(), TimeUnit.NANOSECONDS);
+            }
+        });
 
         // 미디어 출력 상태 변경 이벤트
         baseRtpEp.addMediaFlowOutStateChangedListener(ev ->
@@ -79,15 +156,22 @@ public class WebRtcEventHandler {
             sendMessage(session, message.toString());
         });
 
-        // ICE 상태 변경 이벤트
-        webRtcEp.addIceComponentStateChangedListener(ev ->
-                log.debug("ICE 상태 변경 - 스트림ID: {}, 상태: {}", ev.getStreamId(), ev.getState())
-        );
+        // ICE 상태 변경 이벤트: 끊기거나 실패하면 엔드포인트는 그대로 두고 클라이언트에 ICE 재시작을 요청한다
+        webRtcEp.addIceComponentStateChangedListener(ev -> {
+            log.debug("ICE 상태 변경 - 스트림ID: {}, 상태: {}", ev.getStreamId(), ev.getState());
+            iceStateChanged(session, webRtcEp, ev.getState());
+        });
 
         // ICE 후보 수집 완료 이벤트
-        webRtcEp.addIceGatheringDoneListener(ev ->
-                log.info("ICE 후보 수집 완료")
-        );
+        webRtcEp.addIceGatheringDoneListener(ev -> {
+            log.info("ICE 후보 수집 완료");
+
+            Gathering gathering = gatherings.get(webRtcEp.getId());
+            if (gathering != null) {
+                timer("webrtc.ice.gathering", "gatherCandidates부터 IceGatheringDone까지")
+                        .record(System.nanoTime() - gathering.startedAt(), TimeUnit.NANOSECONDS);
+            }
+        });
 
         // 새로운 ICE 후보 쌍 선택 이벤트
         webRtcEp.addNewCandidatePairSelectedListener(ev ->
@@ -97,6 +181,111 @@ public class WebRtcEventHandler {
         );
     }
 
+    private void iceStateChanged(WebSocketSession session, WebRtcEndpoint webRtcEp, IceComponentState state) {
+        IceRestarts restarts = iceRestarts.computeIfAbsent(webRtcEp.getId(), id -> new IceRestarts());
+        switch (state) {
+            case FAILED -> restartIce(session, webRtcEp, restarts);
+            case DISCONNECTED -> {
+                long since;
+                synchronized (restarts) {
+                    if (restarts.failedAt != 0) {
+                        return;
+                    }
+                    since = restarts.failedAt = System.nanoTime();
+                }
+                CompletableFuture.delayedExecutor(DISCONNECTED_GRACE_MS, TimeUnit.MILLISECONDS).execute(() -> {
+                    synchronized (restarts) {
+                        if (restarts.failedAt != since || restarts.restartedAt != 0) {
+                            return;
+                        }
+                    }
+                    restartIce(session, webRtcEp, restarts);
+                });
+            }
+            case CONNECTED, READY -> {
+                long failedAt;
+                boolean restarted;
+                synchronized (restarts) {
+                    failedAt = restarts.failedAt;
+                    restarted = restarts.restartedAt != 0;
+                    restarts.failedAt = 0;
+                    restarts.restartedAt = 0;
+                    restarts.answered = false;
+                }
+                if (failedAt != 0 && restarted) {
+                    log.info("ICE 재시작으로 연결 복구 - 세션ID: {}", session.getId());
+                    iceRestartCounter("recovered").increment();
+                    timer("webrtc.ice.recovery", "ICE 연결 끊김부터 재시작 후 CONNECTED까지")
+                            .record(System.nanoTime() - failedAt, TimeUnit.NANOSECONDS);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 한도 안이면 클라이언트에 ICE_RESTART를 보낸다. 한도를 다 쓰면 에러를 한 번 보내 클라이언트가 연결을 정리하고 다시 시작하게 하고,
+     * 그 엔드포인트가 해제될 때까지는 더 재시작하지 않는다.
+     */
+    private void restartIce(WebSocketSession session, WebRtcEndpoint webRtcEp, IceRestarts restarts) {
+        long now = System.nanoTime();
+        int attempt;
+        synchronized (restarts) {
+            if (restarts.exhausted) {
+                // 클라이언트가 연결을 정리하고 다시 시작할 때까지 기다린다
+                return;
+            }
+            if (restarts.restartedAt != 0 && !restarts.answered) {
+                // 요청한 재시작의 offer를 아직 받지 못했다
+                return;
+            }
+            if (restarts.failedAt == 0) {
+                restarts.failedAt = now;
+            }
+            long windowStart = now - TimeUnit.MILLISECONDS.toNanos(ICE_RESTART_WINDOW_MS);
+            while (!restarts.attempts.isEmpty() && restarts.attempts.peekFirst() < windowStart) {
+                restarts.attempts.pollFirst();
+            }
+            attempt = restarts.attempts.size() < MAX_ICE_RESTARTS ? restarts.attempts.size() + 1 : 0;
+            if (attempt > 0) {
+                restarts.attempts.addLast(now);
+                restarts.restartedAt = now;
+                restarts.answered = false;
+            } else {
+                // 상태를 지우면 다음 FAILED가 새 한도로 다시 시작하므로 endpointReleased까지 남겨 둔다
+                restarts.exhausted = true;
+            }
+        }
+
+        if (attempt == 0) {
+            log.warn("ICE 재시작 한도 초과 - 세션ID: {}, EndpointId: {}", session.getId(), webRtcEp.getId());
+            iceRestartCounter("exhausted").increment();
+            sendErrorMessage(session, "ICE 연결을 복구하지 못했습니다");
+            return;
+        }
+        log.info("ICE 재시작 요청 ({}/{}) - 세션ID: {}", attempt, MAX_ICE_RESTARTS, session.getId());
+        iceRestartCounter("requested").increment();
+        JsonObject message = new JsonObject();
+        message.addProperty("id", "ICE_RESTART");
+        sendMessage(session, message.toString());
+    }
+
+    private Counter iceRestartCounter(String outcome) {
+        return Counter.builder("webrtc.ice.restart")
+                .description("ICE 재시작")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Timer timer(String name, String description) {
+        // 같은 이름이면 registry가 이미 만든 타이머를 돌려준다
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
     private void sendMessage(WebSocketSession session, String message) {
         messageSender.sendMessage(session, message);
     }
@@ -30,6 +30,11 @@ public class WebRtcService {
     private final WebRtcEventHandler webRtcEventHandler;
 
     public void processSdpOffer(WebSocketSession session, WebRtcMessage message) {
+        UserSession existing = userSessionRepository.find(session.getId());
+        if (existing != null && existing.getWebRtcEndpoint() != null && restartIce(session, existing, message)) {
+            return;
+        }
+
         UserSession userSession = createUserSession(session);
         MediaPipeline pipeline = kurentoClient.createMediaPipeline();
         WebRtcEndpoint webRtcEndpoint = createWebRtcEndpoint(pipeline);
@@ -39,12 +44,38 @@ public class WebRtcService {
         userSessionRepository.save(session.getId(), userSession);
 
         webRtcEventHandler.initializeEventListeners(session, webRtcEndpoint);
+        long offerStart = System.nanoTime();
         String sdpAnswer = webRtcEndpoint.processOffer(message.getSdpOffer());
+        webRtcEventHandler.recordProcessOffer(System.nanoTime() - offerStart);
+        webRtcEventHandler.gatheringStarted(webRtcEndpoint);
         webRtcEndpoint.gatherCandidates();
 
         sendSdpAnswer(session, sdpAnswer);
     }
 
+    /**
+     * 이미 협상한 세션에 다시 온 offer는 ICE 재시작이다. 파이프라인과 엔드포인트는 그대로 두고 processOffer만 다시 한다.
+     *
+     * @return KMS가 재협상을 거부하면 세션을 정리하고 false (호출한 쪽이 새로 만든다)
+     */
+    private boolean restartIce(WebSocketSession session, UserSession userSession, WebRtcMessage message) {
+        WebRtcEndpoint webRtcEndpoint = userSession.getWebRtcEndpoint();
+        String sdpAnswer;
+        try {
+            sdpAnswer = webRtcEndpoint.processOffer(message.getSdpOffer());
+        } catch (RuntimeException e) {
+            log.warn("ICE 재시작 재협상 실패, 엔드포인트를 새로 만듭니다 - 세션ID: {}, 오류: {}", session.getId(), e.getMessage());
+            webRtcEventHandler.iceRestartReplaced();
+            stop(session);
+            return false;
+        }
+        log.info("ICE 재시작 offer 처리 - 세션ID: {}", session.getId());
+        webRtcEventHandler.iceRestartAnswered(webRtcEndpoint);
+        webRtcEndpoint.gatherCandidates();
+        sendSdpAnswer(session, sdpAnswer);
+        return true;
+    }
+
     private UserSession createUserSession(WebSocketSession session) {
         log.info("새로운 사용자 세션 생성, 세션ID: {}", session.getId());
         return new UserSession();
@@ -83,6 +114,9 @@ public class WebRtcService {
 
     public void stop(WebSocketSession session) {
         UserSession userSession = userSessionRepository.remove(session.getId());
+        if (userSession != null && userSession.getWebRtcEndpoint() != null) {
+            webRtcEventHandler.endpointReleased(userSession.getWebRtcEndpoint());
+        }
         if (userSession != null && userSession.getMediaPipeline() != null) {
             userSession.getMediaPipeline().release();
         }
@@ -24,6 +24,9 @@ ws.onmessage = function(message) {
         case 'ADD_ICE_CANDIDATE':
             webRtcPeer.addIceCandidate(jsonMessage.candidate);
             break;
+        case 'ICE_RESTART':
+            restartIce();
+            break;
         case 'ERROR':
             stop();
             break;
@@ -63,6 +66,21 @@ function start() {
         });
 }
 
+// 서버가 끊긴 연결을 감지하면 피어 연결은 그대로 두고 ICE만 다시 협상한다 (서버는 같은 WebRtcEndpoint로 응답)
+function restartIce() {
+    if (!webRtcPeer) {
+        return;
+    }
+    const pc = webRtcPeer.peerConnection;
+    pc.createOffer({ iceRestart: true })
+        .then(offer => pc.setLocalDescription(offer))
+        .then(() => sendMessage({
+            id: 'PROCESS_SDP_OFFER',
+            sdpOffer: pc.localDescription.sdp
+        }))
+        .catch(error => console.error('ICE restart failed', error));
+}
+
 function stop() {
     document.getElementById('uiStartBtn').disabled = false;
     document.getElementById('uiStopBtn').disabled = true;
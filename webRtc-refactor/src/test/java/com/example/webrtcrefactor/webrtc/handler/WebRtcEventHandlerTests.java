@@ -0,0 +1,79 @@
+package com.example.webrtcrefactor.webrtc.handler;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.EventListener;
+import org.kurento.client.IceComponentState;
+import org.kurento.client.IceComponentStateChangedEvent;
+import org.kurento.client.WebRtcEndpoint;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.WebSocketSession;
+
+class WebRtcEventHandlerTests {
+    private WebSocketMessageSender messageSender;
+    private WebRtcEventHandler handler;
+    private WebSocketSession session;
+    private WebRtcEndpoint endpoint;
+    private EventListener<IceComponentStateChangedEvent> iceListener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        messageSender = mock(WebSocketMessageSender.class);
+        handler = new WebRtcEventHandler(messageSender, new SimpleMeterRegistry());
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session-1");
+        endpoint = mock(WebRtcEndpoint.class);
+        when(endpoint.getId()).thenReturn("endpoint-1");
+
+        handler.initializeEventListeners(session, endpoint);
+        ArgumentCaptor<EventListener<IceComponentStateChangedEvent>> captor = ArgumentCaptor.forClass(EventListener.class);
+        verify(endpoint).addIceComponentStateChangedListener(captor.capture());
+        iceListener = captor.getValue();
+    }
+
+    @Test
+    void exhaustedBudgetStaysExhaustedUntilEndpointReleased() {
+        for (int i = 0; i < 3; i++) {
+            iceState(IceComponentState.FAILED);
+            handler.iceRestartAnswered(endpoint);
+        }
+        verify(messageSender, times(3)).sendMessage(eq(session), argThat(message -> message.contains("ICE_RESTART")));
+
+        // 한도를 다 쓰면 에러를 한 번만 보내고, 이후의 FAILED/DISCONNECTED로는 새 한도가 생기지 않는다
+        iceState(IceComponentState.FAILED);
+        iceState(IceComponentState.FAILED);
+        iceState(IceComponentState.DISCONNECTED);
+        iceState(IceComponentState.FAILED);
+        verify(messageSender, times(3)).sendMessage(eq(session), argThat(message -> message.contains("ICE_RESTART")));
+        verify(messageSender, times(1)).sendMessage(eq(session), argThat(message -> message.contains("\"ERROR\"")));
+
+        // 클라이언트가 다시 시작해 엔드포인트를 해제하면 한도도 새로 시작한다
+        handler.endpointReleased(endpoint);
+        iceState(IceComponentState.FAILED);
+        verify(messageSender, times(4)).sendMessage(eq(session), argThat(message -> message.contains("ICE_RESTART")));
+    }
+
+    @Test
+    void unansweredRestartIsNotRequestedAgain() {
+        iceState(IceComponentState.FAILED);
+        iceState(IceComponentState.FAILED);
+
+        verify(messageSender, times(1)).sendMessage(any(), argThat(message -> message.contains("ICE_RESTART")));
+    }
+
+    private void iceState(IceComponentState state) {
+        IceComponentStateChangedEvent event = mock(IceComponentStateChangedEvent.class);
+        when(event.getState()).thenReturn(state);
+        iceListener.onEvent(event);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.webrtcsimplify;
+
+import java.io.IOException;
+
+import org.kurento.client.IceCandidate;
+
+import com.example.signaling.JsonMessages;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * 브라우저 JSON 메시지를 JsonObject 트리 없이 토큰 단위로 읽는다.
+ * simplify-rtc.js는 id를 항상 첫 필드로 보내고, id를 찾고 다시 읽는 부분은 JsonMessages가 맡는다.
+ * 여기서는 id마다 읽을 필드만 정한다. 본문을 읽을 때 이미 읽은 id를 포함해 나머지 필드는 건너뛴다.
+ */
+public final class SignalingDecoder {
+
+    private SignalingDecoder() {
+    }
+
+    public static SignalingMessage decode(String json) {
+        return JsonMessages.decode(json, SignalingDecoder::readBody);
+    }
+
+    private static SignalingMessage readBody(String id, JsonReader reader) throws IOException {
+        switch (id) {
+            case "PROCESS_SDP_OFFER":
+                return new SignalingMessage.ProcessSdpOffer(JsonMessages.readField(reader, "sdpOffer"));
+            case "ADD_ICE_CANDIDATE": {
+                IceCandidate candidate = null;
+                while (reader.hasNext()) {
+                    if ("candidate".equals(reader.nextName())) {
+                        candidate = JsonMessages.readCandidate(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                if (candidate == null) {
+                    throw new IllegalArgumentException("candidate가 없는 ADD_ICE_CANDIDATE");
+                }
+                return new SignalingMessage.AddIceCandidate(candidate);
+            }
+            case "STOP":
+                return new SignalingMessage.Stop();
+            default:
+                return new SignalingMessage.Unknown(id);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.webrtcsimplify;
+
+import org.kurento.client.IceCandidate;
+
+/**
+ * 브라우저가 보내는 메시지. SignalingDecoder가 JSON 토큰에서 바로 만든다.
+ */
+public sealed interface SignalingMessage {
+
+    record ProcessSdpOffer(String sdpOffer) implements SignalingMessage {
+    }
+
+    record AddIceCandidate(IceCandidate candidate) implements SignalingMessage {
+    }
+
+    record Stop() implements SignalingMessage {
+    }
+
+    // 처리기가 없는 메시지
+    record Unknown(String id) implements SignalingMessage {
+    }
+}
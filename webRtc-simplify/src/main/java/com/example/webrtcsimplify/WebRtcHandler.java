@@ -1,13 +1,8 @@
 package com.example.webrtcsimplify;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
-import org.kurento.client.IceCandidate;
 import org.kurento.client.KurentoClient;
 import org.kurento.client.MediaPipeline;
 import org.kurento.client.WebRtcEndpoint;
-import org.kurento.jsonrpc.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,40 +12,51 @@ import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class WebRtcHandler extends TextWebSocketHandler {
     private static final Logger log = LoggerFactory.getLogger(WebRtcHandler.class);
-    private static final Gson gson = new GsonBuilder().create();
     private final ConcurrentHashMap<String, UserSession> users = new ConcurrentHashMap<>();
 
+    @FunctionalInterface
+    private interface MessageHandler<T extends SignalingMessage> {
+        void handle(WebSocketSession session, T message) throws Exception;
+    }
+
+    // 메시지 타입별 처리기 (생성자에서 한 번 채운다)
+    private final Map<Class<?>, MessageHandler<?>> handlers = new HashMap<>();
+
     @Autowired
     private KurentoClient kurento;
 
+    public WebRtcHandler() {
+        on(SignalingMessage.ProcessSdpOffer.class, this::handleProcessSdpOffer);
+        on(SignalingMessage.AddIceCandidate.class, this::handleAddIceCandidate);
+        on(SignalingMessage.Stop.class, (session, message) -> stop(session));
+    }
+
+    private <T extends SignalingMessage> void on(Class<T> type, MessageHandler<T> handler) {
+        handlers.put(type, handler);
+    }
+
     @Override
+    @SuppressWarnings("unchecked")
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        JsonObject jsonMessage = gson.fromJson(message.getPayload(), JsonObject.class);
-        String messageId = jsonMessage.get("id").getAsString();
-
-        log.info("Received message: {} from session: {}", messageId, session.getId());
-
-        switch (messageId) {
-            case "PROCESS_SDP_OFFER":
-                handleProcessSdpOffer(session, jsonMessage);
-                break;
-            case "ADD_ICE_CANDIDATE":
-                handleAddIceCandidate(session, jsonMessage);
-                break;
-            case "STOP":
-                stop(session);
-                break;
-            default:
-                log.warn("Invalid message Id: {}", messageId);
-                break;
+        SignalingMessage signal = SignalingDecoder.decode(message.getPayload());
+
+        log.info("Received message: {} from session: {}", signal.getClass().getSimpleName(), session.getId());
+
+        MessageHandler<SignalingMessage> handler = (MessageHandler<SignalingMessage>) handlers.get(signal.getClass());
+        if (handler == null) {
+            log.warn("Invalid message Id: {}", signal instanceof SignalingMessage.Unknown unknown ? unknown.id() : signal);
+            return;
         }
+        handler.handle(session, signal);
     }
 
-    private void handleProcessSdpOffer(WebSocketSession session, JsonObject jsonMessage) {
+    private void handleProcessSdpOffer(WebSocketSession session, SignalingMessage.ProcessSdpOffer message) {
         UserSession user = new UserSession();
         users.put(session.getId(), user);
 
@@ -62,33 +68,19 @@ public class WebRtcHandler extends TextWebSocketHandler {
         webRtcEp.connect(webRtcEp);
 
         // ICE candidate 이벤트 처리
-        webRtcEp.addIceCandidateFoundListener(event -> {
-            JsonObject response = new JsonObject();
-            response.addProperty("id", "ADD_ICE_CANDIDATE");
-            response.add("candidate", JsonUtils.toJsonObject(event.getCandidate()));
-            sendMessage(session, response.toString());
-        });
+        webRtcEp.addIceCandidateFoundListener(event ->
+                sendMessage(session, SignalingEncoder.addIceCandidate(event.getCandidate())));
         // SDP 처리
-        String sdpOffer = jsonMessage.get("sdpOffer").getAsString();
-        String sdpAnswer = webRtcEp.processOffer(sdpOffer);
-
-        JsonObject response = new JsonObject();
-        response.addProperty("id", "PROCESS_SDP_ANSWER");
-        response.addProperty("sdpAnswer", sdpAnswer);
-        sendMessage(session, response.toString());
+        String sdpAnswer = webRtcEp.processOffer(message.sdpOffer());
+        sendMessage(session, SignalingEncoder.processSdpAnswer(sdpAnswer));
 
         webRtcEp.gatherCandidates();
     }
 
-    private void handleAddIceCandidate(WebSocketSession session, JsonObject jsonMessage) {
+    private void handleAddIceCandidate(WebSocketSession session, SignalingMessage.AddIceCandidate message) {
         UserSession user = users.get(session.getId());
         if (user != null) {
-            JsonObject candidateJson = jsonMessage.get("candidate").getAsJsonObject();
-            IceCandidate candidate = new IceCandidate(
-                    candidateJson.get("candidate").getAsString(),
-                    candidateJson.get("sdpMid").getAsString(),
-                    candidateJson.get("sdpMLineIndex").getAsInt());
-            user.getWebRtcEndpoint().addIceCandidate(candidate);
+            user.getWebRtcEndpoint().addIceCandidate(message.candidate());
         }
     }
 